@@ -0,0 +1,122 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Overload over HTTP: writers (POST /transactions) competing with bulk readers
+ * (GET /transactions over the whole table) for a 10-connection pool, with
+ * admission control off and on. Clients do not back off, so the offered load
+ * stays above capacity for the whole run.
+ *
+ * Goodput is the secondary writesOk / readsOk rate (2xx per second); writesShed /
+ * readsShed count 429/503 answers. With admission on, bulk reads are shed first
+ * and writesOk should stay flat as the thread counts grow (-tg 4,12 / 16,48 / 64,192);
+ * with it off, writes queue behind the bulk reads for connections.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdmissionControlBenchmark {
+
+    private static final int PRELOADED = 20_000;
+
+    @Param({"off", "on"})
+    private String admission;
+
+    private EmbeddedLedger ledger;
+    private HttpClient client;
+    private String baseUrl;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long writesOk;
+        public long writesShed;
+        public long readsOk;
+        public long readsShed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            writesOk = 0;
+            writesShed = 0;
+            readsOk = 0;
+            readsShed = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledger = EmbeddedLedger.start(true, Map.of(
+                "ledger.admission.enabled", String.valueOf("on".equals(admission)),
+                "ledger.cache.transactions.max-size", "0",
+                "ledger.cache.accounts.max-size", "0"));
+        baseUrl = "http://localhost:" + ledger.port();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        List<TransactionDTO> preload = new ArrayList<>(PRELOADED);
+        for (int i = 0; i < PRELOADED; i++) {
+            preload.add(BenchmarkData.dto(i));
+        }
+        ledger.bean(TransactionService.class).createTransactions(preload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(16)
+    public int create(Outcomes outcomes) throws Exception {
+        int i = next.getAndIncrement();
+        String body = "{\"accountNumber\":\"" + BenchmarkData.account(i) + "\",\"amount\":\"10.00\","
+                + "\"transactionType\":\"CREDIT\",\"description\":\"Card settlement\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions"))
+                .header("Content-Type", "application/json")
+                .header("X-Client-Id", "writer-" + Thread.currentThread().getId())
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status / 100 == 2) {
+            outcomes.writesOk++;
+        } else if (status == 429 || status == 503) {
+            outcomes.writesShed++;
+        }
+        return status;
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(48)
+    public int listAll(Outcomes outcomes) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions"))
+                .header("X-Client-Id", "reporting-" + Thread.currentThread().getId())
+                .GET()
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status / 100 == 2) {
+            outcomes.readsOk++;
+        } else if (status == 429 || status == 503) {
+            outcomes.readsShed++;
+        }
+        return status;
+    }
+}
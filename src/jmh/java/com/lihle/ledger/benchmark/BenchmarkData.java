@@ -0,0 +1,90 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic sample data shared by the benchmarks, so results stay comparable
+ * between runs and commits.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private BenchmarkData() {
+    }
+
+    static TransactionDTO dto(int i) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setAccountNumber(account(i));
+        dto.setAmount(BigDecimal.valueOf(1000 + i, 2));
+        dto.setTransactionType(i % 2 == 0 ? "CREDIT" : "DEBIT");
+        dto.setDescription("Card settlement " + i);
+        return dto;
+    }
+
+    static TransactionDTO storedDto(int i) {
+        TransactionDTO dto = dto(i);
+        dto.setId((long) i);
+        dto.setTransactionDate(BASE_DATE.plusMinutes(i));
+        dto.setStatus("COMPLETED");
+        dto.setCreatedAt(BASE_DATE.plusMinutes(i));
+        return dto;
+    }
+
+    static List<TransactionDTO> storedDtos(int size) {
+        List<TransactionDTO> dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dtos.add(storedDto(i));
+        }
+        return dtos;
+    }
+
+    static TransactionDomain domain(int i) {
+        return TransactionDomain.builder()
+                .id((long) i)
+                .accountNumber(account(i))
+                .amount(BigDecimal.valueOf(1000 + i, 2))
+                .transactionType(i % 2 == 0 ? TransactionDomain.TransactionType.CREDIT : TransactionDomain.TransactionType.DEBIT)
+                .description("Card settlement " + i)
+                .transactionDate(BASE_DATE.plusMinutes(i))
+                .status(TransactionDomain.TransactionStatus.COMPLETED)
+                .createdAt(BASE_DATE.plusMinutes(i))
+                .build();
+    }
+
+    // Not yet stored: no id, so the store assigns one
+    static TransactionDomain unsavedDomain(int i) {
+        return TransactionDomain.builder()
+                .accountNumber(account(i))
+                .amount(BigDecimal.valueOf(1000 + i, 2))
+                .transactionType(i % 2 == 0 ? TransactionDomain.TransactionType.CREDIT : TransactionDomain.TransactionType.DEBIT)
+                .description("Card settlement " + i)
+                .transactionDate(BASE_DATE.plusMinutes(i))
+                .status(TransactionDomain.TransactionStatus.COMPLETED)
+                .build();
+    }
+
+    static Transaction entity(int i) {
+        Transaction entity = new Transaction();
+        entity.setId((long) i);
+        entity.setAccountNumber(account(i));
+        entity.setAmount(BigDecimal.valueOf(1000 + i, 2));
+        entity.setTransactionType(i % 2 == 0 ? "CREDIT" : "DEBIT");
+        entity.setDescription("Card settlement " + i);
+        entity.setTransactionDate(BASE_DATE.plusMinutes(i));
+        entity.setStatus("COMPLETED");
+        entity.setCreatedAt(BASE_DATE.plusMinutes(i));
+        return entity;
+    }
+
+    static String account(int i) {
+        return "ACC" + (i % 100);
+    }
+}
@@ -0,0 +1,87 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.AccountBalanceService;
+import com.lihle.ledger.store.JpaTransactionStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default vs compact storage encoding (profile "compact"): on-disk size of the
+ * transactions table and its indexes, printed once per trial, and the scans and
+ * writes that depend on row width.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompactSchemaBenchmark {
+
+    private static final int PRELOADED = 200_000;
+    private static final int CHUNK = 1_000;
+
+    @Param({"default", "compact"})
+    public String schema;
+
+    private EmbeddedLedger ledger;
+    private JpaTransactionStore store;
+    private AccountBalanceService balances;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledger = EmbeddedLedger.start(false,
+                schema.equals("compact") ? Map.of("spring.profiles.active", "compact") : Map.of());
+        store = ledger.bean(JpaTransactionStore.class);
+        balances = ledger.bean(AccountBalanceService.class);
+
+        for (int offset = 0; offset < PRELOADED; offset += CHUNK) {
+            List<TransactionDomain> chunk = new ArrayList<>(CHUNK);
+            for (int i = offset; i < offset + CHUNK; i++) {
+                chunk.add(BenchmarkData.unsavedDomain(i));
+            }
+            store.saveAll(chunk);
+        }
+
+        JdbcTemplate jdbc = ledger.bean(JdbcTemplate.class);
+        jdbc.execute("vacuum analyze");
+        Map<String, Object> sizes = jdbc.queryForMap(
+                "select pg_table_size('transactions') as table_bytes, " +
+                "pg_indexes_size('transactions') as index_bytes, " +
+                "coalesce(pg_total_relation_size(to_regclass('transaction_descriptions')), 0) as description_bytes");
+        System.out.printf("%n[%s] %d rows: transactions table %d kB, indexes %d kB, transaction_descriptions %d kB%n",
+                schema, PRELOADED,
+                ((Number) sizes.get("table_bytes")).longValue() / 1024,
+                ((Number) sizes.get("index_bytes")).longValue() / 1024,
+                ((Number) sizes.get("description_bytes")).longValue() / 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    // Full scan of the transactions table
+    @Benchmark
+    public int rebuildBalances() {
+        return balances.rebuild();
+    }
+
+    @Benchmark
+    public List<TransactionDTO> accountHistory() {
+        return store.findByAccountNumber(BenchmarkData.account(next++));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> insert() {
+        return store.saveAll(List.of(BenchmarkData.unsavedDomain(next++)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.TransactionServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The application wired against an embedded PostgreSQL instance: the same SQL
+ * dialect as production, without a database server to provision.
+ */
+final class EmbeddedLedger implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedLedger(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static EmbeddedLedger start(boolean web, Map<String, Object> properties) throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.start();
+
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        defaults.put("spring.datasource.username", "postgres");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.org.hibernate.SQL", "WARN");
+        defaults.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        defaults.put("server.port", "0");
+        // Archival is driven by the benchmarks that measure it
+        defaults.put("ledger.partitions.maintenance.enabled", "false");
+        defaults.put("ledger.archive.directory", Files.createTempDirectory("ledger-archive").toString());
+        defaults.putAll(properties);
+
+        // As command-line arguments: they take precedence over application.properties
+        String[] args = defaults.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(web ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+                .run(args);
+        return new EmbeddedLedger(postgres, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    int port() {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.archive.PartitionMaintenance;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.dto.TransactionPageDTO;
+import com.lihle.ledger.service.TransactionCursor;
+import com.lihle.ledger.service.TransactionService;
+import com.lihle.ledger.store.JpaTransactionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path reads as history grows: one month of recent transactions alone
+ * ("none"), next to twelve older months kept in their monthly partitions
+ * ("table"), and with those months archived into segment files ("archived").
+ * Point and account reads of recent rows should cost the same in all three;
+ * archivedById measures the read-through to a segment. Caches are disabled so
+ * reads measure the storage path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionedHistoryBenchmark {
+
+    private static final int ROWS_PER_MONTH = 20_000;
+    private static final int HISTORY_MONTHS = 12;
+    private static final int CHUNK = 1_000;
+
+    @Param({"none", "table", "archived"})
+    public String history;
+
+    private EmbeddedLedger ledger;
+    private TransactionService service;
+    private long[] hotIds;
+    private long[] archivedIds;
+    private String hotCursor;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledger = EmbeddedLedger.start(false, Map.of(
+                "ledger.cache.transactions.max-size", "0",
+                "ledger.cache.accounts.max-size", "0",
+                "ledger.archive.after", history.equals("archived") ? "40d" : "36500d",
+                "ledger.archive.catalog-refresh", "100ms"));
+        service = ledger.bean(TransactionService.class);
+        JpaTransactionStore store = ledger.bean(JpaTransactionStore.class);
+
+        LocalDateTime thisMonth = LocalDateTime.now().withDayOfMonth(1).toLocalDate().atStartOfDay();
+        hotIds = load(store, thisMonth, 0);
+        hotCursor = new TransactionCursor(thisMonth, 0L).encode();
+        if (!history.equals("none")) {
+            List<Long> older = new ArrayList<>();
+            for (int month = 3; month < 3 + HISTORY_MONTHS; month++) {
+                for (long id : load(store, thisMonth.minusMonths(month), month)) {
+                    older.add(id);
+                }
+            }
+            archivedIds = older.stream().mapToLong(Long::longValue).toArray();
+            // Creates the monthly partitions ("table") or archives the months ("archived")
+            ledger.bean(PartitionMaintenance.class).run();
+        }
+    }
+
+    // COMPLETED rows one minute apart from the first day of month
+    private static long[] load(JpaTransactionStore store, LocalDateTime month, int salt) {
+        long[] ids = new long[ROWS_PER_MONTH];
+        for (int offset = 0; offset < ROWS_PER_MONTH; offset += CHUNK) {
+            List<TransactionDomain> chunk = new ArrayList<>(CHUNK);
+            for (int i = offset; i < offset + CHUNK; i++) {
+                chunk.add(TransactionDomain.builder()
+                        .accountNumber(BenchmarkData.account(i))
+                        .amount(BigDecimal.valueOf(1000 + i, 2))
+                        .transactionType(i % 2 == 0 ? TransactionDomain.TransactionType.CREDIT : TransactionDomain.TransactionType.DEBIT)
+                        .description("Card settlement " + salt + "-" + i)
+                        .transactionDate(month.plusMinutes(i))
+                        .status(TransactionDomain.TransactionStatus.COMPLETED)
+                        .build());
+            }
+            List<TransactionDTO> saved = store.saveAll(chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                ids[offset + i] = saved.get(i).getId();
+            }
+        }
+        return ids;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Benchmark
+    public Optional<TransactionDTO> hotById() {
+        return service.getTransactionById(hotIds[next++ % hotIds.length]);
+    }
+
+    @Benchmark
+    public List<TransactionDTO> recentByAccount() {
+        return service.getRecentTransactionsByAccount(BenchmarkData.account(next++), 50);
+    }
+
+    @Benchmark
+    public TransactionPageDTO hotPageByAccount() {
+        // After the start of the current month: the page holds recent rows only
+        return service.getTransactionPage(BenchmarkData.account(next++), null, hotCursor, 50);
+    }
+
+    @Benchmark
+    public Optional<TransactionDTO> archivedById() {
+        return archivedIds == null ? Optional.empty()
+                : service.getTransactionById(archivedIds[next++ % archivedIds.length]);
+    }
+}
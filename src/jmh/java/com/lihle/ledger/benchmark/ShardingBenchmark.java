@@ -0,0 +1,88 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.shard.ShardedTransactionStore;
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShardedTransactionStore over 1 vs 3 embedded PostgreSQL instances: routed
+ * writes and reads (one shard each) and the scatter-gather full listing
+ * (every shard, k-way merged by transaction date).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ShardingBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    @Param({"1", "3"})
+    public int shards;
+
+    private final List<EmbeddedPostgres> servers = new ArrayList<>();
+    private ShardedTransactionStore store;
+    private long[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<DataSource> pools = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            servers.add(postgres);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+            pool.setUsername("postgres");
+            pool.setMaximumPoolSize(4);
+            pool.addDataSourceProperty("reWriteBatchedInserts", "true");
+            pools.add(pool);
+        }
+        store = new ShardedTransactionStore(pools, 256, 500, 1000);
+
+        List<TransactionDomain> preload = new ArrayList<>(PRELOADED);
+        for (int i = 0; i < PRELOADED; i++) {
+            preload.add(BenchmarkData.unsavedDomain(i));
+        }
+        ids = store.saveAll(preload).stream().mapToLong(TransactionDTO::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        for (EmbeddedPostgres postgres : servers) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public List<TransactionDTO> insert() {
+        return store.saveAll(List.of(BenchmarkData.unsavedDomain(next++)));
+    }
+
+    @Benchmark
+    public Optional<TransactionDTO> findById() {
+        return store.findById(ids[next++ % ids.length]);
+    }
+
+    @Benchmark
+    public List<TransactionDTO> findByAccountNumber() {
+        return store.findByAccountNumber(BenchmarkData.account(next++));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> findAll() {
+        return store.findAll();
+    }
+}
@@ -0,0 +1,79 @@
+package com.lihle.ledger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.export.StatementFormat;
+import com.lihle.ledger.service.StatementExportService;
+import com.lihle.ledger.service.TransactionService;
+import com.lihle.ledger.store.JpaTransactionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One account statement (2,000 transactions) written to a discarding stream:
+ * the JSON list from getTransactionsByAccount against the streaming CSV and
+ * columnar exports. Run with -prof gc to compare allocation per statement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementExportBenchmark {
+
+    private static final int PRELOADED = 200_000;
+    private static final int CHUNK = 1_000;
+
+    @Param({"json", "csv", "columnar"})
+    public String format;
+
+    private EmbeddedLedger ledger;
+    private TransactionService transactionService;
+    private StatementExportService exportService;
+    private ObjectMapper objectMapper;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledger = EmbeddedLedger.start(false, Map.of(
+                "ledger.cache.transactions.max-size", "0",
+                "ledger.cache.accounts.max-size", "0"));
+        transactionService = ledger.bean(TransactionService.class);
+        exportService = ledger.bean(StatementExportService.class);
+        objectMapper = ledger.bean(ObjectMapper.class);
+
+        JpaTransactionStore store = ledger.bean(JpaTransactionStore.class);
+        for (int offset = 0; offset < PRELOADED; offset += CHUNK) {
+            List<TransactionDomain> chunk = new ArrayList<>(CHUNK);
+            for (int i = offset; i < offset + CHUNK; i++) {
+                chunk.add(BenchmarkData.unsavedDomain(i));
+            }
+            store.saveAll(chunk);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Benchmark
+    public long statement() throws Exception {
+        String account = BenchmarkData.account(next++);
+        OutputStream sink = OutputStream.nullOutputStream();
+        return switch (format) {
+            case "json" -> {
+                objectMapper.writeValue(sink, transactionService.getTransactionsByAccount(account));
+                yield 0;
+            }
+            case "csv" -> exportService.writeStatement(account, StatementFormat.CSV_GZIP, sink);
+            default -> exportService.writeStatement(account, StatementFormat.COLUMNAR, sink);
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.journal.JournalTransactionStore;
+import com.lihle.ledger.store.JpaTransactionStore;
+import com.lihle.ledger.store.TransactionStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionStore insert and lookup throughput: embedded journal vs PostgreSQL (JPA).
+ * Both make every write durable before returning: the journal msyncs
+ * (force-on-write), PostgreSQL commits.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StorageBackendBenchmark {
+
+    private static final int PRELOADED = 10_000;
+    private static final int BATCH = 100;
+
+    @Param({"journal", "jpa"})
+    public String backend;
+
+    private EmbeddedLedger ledger;
+    private Path journalDirectory;
+    private JournalTransactionStore journal;
+    private TransactionStore store;
+    private List<TransactionDomain> batch;
+    private long maxId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if (backend.equals("journal")) {
+            journalDirectory = Files.createTempDirectory("ledger-journal-bench");
+            journal = new JournalTransactionStore(journalDirectory, 64L * 1024 * 1024, true);
+            store = journal;
+        } else {
+            ledger = EmbeddedLedger.start(false, Map.of());
+            store = ledger.bean(JpaTransactionStore.class);
+        }
+
+        List<TransactionDomain> preload = new ArrayList<>(PRELOADED);
+        for (int i = 0; i < PRELOADED; i++) {
+            preload.add(BenchmarkData.unsavedDomain(i));
+        }
+        List<TransactionDTO> saved = store.saveAll(preload);
+        maxId = saved.get(saved.size() - 1).getId();
+
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(BenchmarkData.unsavedDomain(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (journal != null) {
+            journal.close();
+            FileSystemUtils.deleteRecursively(journalDirectory);
+        }
+        if (ledger != null) {
+            ledger.close();
+        }
+    }
+
+    @Benchmark
+    public List<TransactionDTO> insert() {
+        return store.saveAll(List.of(BenchmarkData.unsavedDomain(next++)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<TransactionDTO> insertBatch() {
+        return store.saveAll(batch);
+    }
+
+    @Benchmark
+    public Optional<TransactionDTO> findById() {
+        return store.findById(1 + (next++ % maxId));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> findByAccountNumber() {
+        return store.findByAccountNumber(BenchmarkData.account(next++));
+    }
+}
@@ -0,0 +1,97 @@
+package com.lihle.ledger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform threads (default) vs the "virtual" profile, over HTTP with many
+ * concurrent clients. SampleTime mode reports throughput together with the
+ * p50/p99/p999 latency distribution of each mode.
+ *
+ * The virtual mode needs a Java 21+ JVM; below that the trial fails on purpose
+ * instead of silently measuring platform threads twice.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class ThreadingModeBenchmark {
+
+    private static final int PRELOADED = 1_000;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    private EmbeddedLedger ledger;
+    private HttpClient client;
+    private String baseUrl;
+    private final AtomicInteger next = new AtomicInteger();
+    // Ids the preload got back: the sequence is pooled and does not start at 1
+    private final long[] preloaded = new long[PRELOADED];
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.hikari.maximum-pool-size", "32");
+        // Measures the threading models themselves, without shedding (see AdmissionControlBenchmark)
+        properties.put("ledger.admission.enabled", "false");
+        if ("virtual".equals(mode)) {
+            if (Runtime.version().feature() < 21) {
+                throw new IllegalStateException("Virtual-thread mode needs Java 21+, running on " + Runtime.version());
+            }
+            properties.put("spring.profiles.active", "virtual");
+        }
+        ledger = EmbeddedLedger.start(true, properties);
+        baseUrl = "http://localhost:" + ledger.port();
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < PRELOADED; i++) {
+            HttpResponse<String> created = post(i, HttpResponse.BodyHandlers.ofString());
+            if (created.statusCode() != 201) {
+                throw new IllegalStateException("Preload failed with " + created.statusCode() + ": " + created.body());
+            }
+            preloaded[i] = objectMapper.readTree(created.body()).get("id").asLong();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Benchmark
+    public int readById() throws Exception {
+        long id = preloaded[next.getAndIncrement() % PRELOADED];
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/" + id)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int create() throws Exception {
+        return post(next.getAndIncrement(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private <T> HttpResponse<T> post(int i, HttpResponse.BodyHandler<T> bodyHandler) throws Exception {
+        String body = "{\"accountNumber\":\"" + BenchmarkData.account(i) + "\",\"amount\":\"10.00\","
+                + "\"transactionType\":\"CREDIT\",\"description\":\"Card settlement\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/transactions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, bodyHandler);
+    }
+}
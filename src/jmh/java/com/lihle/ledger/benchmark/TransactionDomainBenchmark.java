@@ -0,0 +1,73 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionDomain.Builder.build() (with and without defaults) and the state transitions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransactionDomainBenchmark {
+
+    private final BigDecimal amount = new BigDecimal("125.50");
+    private final LocalDateTime date = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private TransactionDomain completed;
+    private TransactionDomain disputed;
+
+    @Setup
+    public void setUp() {
+        completed = BenchmarkData.domain(7);
+        disputed = completed.markAsDisputed();
+    }
+
+    // All fields set: validation only
+    @Benchmark
+    public TransactionDomain buildFull() {
+        return TransactionDomain.builder()
+                .id(1L)
+                .accountNumber("ACC1")
+                .amount(amount)
+                .transactionType(TransactionDomain.TransactionType.CREDIT)
+                .description("Card settlement")
+                .transactionDate(date)
+                .status(TransactionDomain.TransactionStatus.COMPLETED)
+                .createdAt(date)
+                .build();
+    }
+
+    // New posting: defaults filled in with LocalDateTime.now()
+    @Benchmark
+    public TransactionDomain buildWithDefaults() {
+        return TransactionDomain.builder()
+                .accountNumber("ACC1")
+                .amount(amount)
+                .transactionType(TransactionDomain.TransactionType.CREDIT)
+                .description("Card settlement")
+                .build();
+    }
+
+    @Benchmark
+    public TransactionDomain markAsDisputed() {
+        return completed.markAsDisputed();
+    }
+
+    @Benchmark
+    public TransactionDomain reverse() {
+        return disputed.reverse();
+    }
+
+    @Benchmark
+    public TransactionDomain complete() {
+        return disputed.complete();
+    }
+}
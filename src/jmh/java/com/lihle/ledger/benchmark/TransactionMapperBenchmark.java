@@ -0,0 +1,61 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.entity.Transaction;
+import com.lihle.ledger.mapper.TransactionMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionMapper in all four directions.
+ * The Entity → Domain → DTO chain is what every read paid per row before the
+ * DTO projections.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransactionMapperBenchmark {
+
+    private TransactionMapper mapper;
+    private TransactionDTO dto;
+    private TransactionDomain domain;
+    private Transaction entity;
+
+    @Setup
+    public void setUp() {
+        mapper = new TransactionMapper();
+        dto = BenchmarkData.storedDto(42);
+        domain = BenchmarkData.domain(42);
+        entity = BenchmarkData.entity(42);
+    }
+
+    @Benchmark
+    public TransactionDomain dtoToDomain() {
+        return mapper.toDomain(dto);
+    }
+
+    @Benchmark
+    public TransactionDTO domainToDto() {
+        return mapper.toDTO(domain);
+    }
+
+    @Benchmark
+    public Transaction domainToEntity() {
+        return mapper.toEntity(domain);
+    }
+
+    @Benchmark
+    public TransactionDomain entityToDomain() {
+        return mapper.toDomain(entity);
+    }
+
+    @Benchmark
+    public TransactionDTO entityToDomainToDto() {
+        return mapper.toDTO(mapper.toDomain(entity));
+    }
+}
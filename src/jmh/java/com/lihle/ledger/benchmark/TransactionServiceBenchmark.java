@@ -0,0 +1,99 @@
+package com.lihle.ledger.benchmark;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.CreateResult;
+import com.lihle.ledger.service.StatusTransitionOutcome;
+import com.lihle.ledger.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransactionService create / read / status update against an embedded PostgreSQL.
+ * Covers the full service stack: mapping, domain rules, JPA, balance projection
+ * and read cache. The cache is disabled so reads measure the database path.
+ * readUnknownAccount is answered by the known-accounts filter (grace 0s so it
+ * applies from the first scan). createIdempotent claims a new Idempotency-Key per
+ * create; replayIdempotent retries one committed key, as during a retry storm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransactionServiceBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    private EmbeddedLedger ledger;
+    private TransactionService service;
+    private List<Long> ids;
+    private int next;
+    private boolean disputed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ledger = EmbeddedLedger.start(false, Map.of(
+                "ledger.cache.transactions.max-size", "0",
+                "ledger.cache.accounts.max-size", "0",
+                "ledger.accounts.filter.grace", "0s"));
+        service = ledger.bean(TransactionService.class);
+
+        List<TransactionDTO> preload = new ArrayList<>(PRELOADED);
+        for (int i = 0; i < PRELOADED; i++) {
+            preload.add(BenchmarkData.dto(i));
+        }
+        ids = new ArrayList<>(PRELOADED);
+        service.createTransactions(preload).getResults()
+                .forEach(result -> ids.add(result.getTransaction().getId()));
+        service.createTransaction(BenchmarkData.dto(0), "bench-replay");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ledger.close();
+    }
+
+    @Benchmark
+    public TransactionDTO create() {
+        return service.createTransaction(BenchmarkData.dto(next++));
+    }
+
+    @Benchmark
+    public CreateResult createIdempotent() {
+        int i = next++;
+        return service.createTransaction(BenchmarkData.dto(i), "bench-" + i);
+    }
+
+    @Benchmark
+    public CreateResult replayIdempotent() {
+        return service.createTransaction(BenchmarkData.dto(0), "bench-replay");
+    }
+
+    @Benchmark
+    public Optional<TransactionDTO> readById() {
+        return service.getTransactionById(ids.get(next++ % ids.size()));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> readByAccount() {
+        return service.getTransactionsByAccount(BenchmarkData.account(next++));
+    }
+
+    @Benchmark
+    public List<TransactionDTO> readUnknownAccount() {
+        return service.getTransactionsByAccount("UNKNOWN-" + next++);
+    }
+
+    // Alternates COMPLETED → DISPUTED → COMPLETED on the same row
+    @Benchmark
+    public StatusTransitionOutcome updateStatus() {
+        disputed = !disputed;
+        return service.updateTransactionStatus(ids.get(0), disputed ? "DISPUTED" : "COMPLETED");
+    }
+}
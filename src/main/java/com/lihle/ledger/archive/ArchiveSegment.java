@@ -0,0 +1,254 @@
+package com.lihle.ledger.archive;
+
+import com.lihle.ledger.cache.BloomFilter;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.export.ColumnarStatementReader;
+import com.lihle.ledger.export.Varints;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+
+/**
+ * An open archive segment (see ArchiveSegmentWriter for the format).
+ *
+ * Holds the footer directories and the account filter; pages and blocks are read
+ * with positional reads per lookup, so any number of threads can share it and the
+ * operating system's page cache does the caching.
+ * - findById: id page directory → one id page → one block;
+ * - findByAccountNumber: account filter → account page directory → one account
+ *   page → the account's run of blocks.
+ * A corrupt file surfaces as UncheckedIOException.
+ */
+final class ArchiveSegment implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final long[] idPageOffsets;
+    private final int[] idPageLengths;
+    private final long[] idPageFirstIds;
+    private final int[] idPageCrcs;
+    private final long[] accountPageOffsets;
+    private final int[] accountPageLengths;
+    private final String[] accountPageFirstAccounts;
+    private final int[] accountPageCrcs;
+    private final BloomFilter accounts;
+
+    private ArchiveSegment(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+
+        //1. Header and trailer
+        ByteBuffer header = read(0, ArchiveSegmentWriter.MAGIC.length + 1);
+        byte[] magic = new byte[ArchiveSegmentWriter.MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, ArchiveSegmentWriter.MAGIC) || size < ArchiveSegmentWriter.TRAILER_LENGTH) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+        if (header.get() != ArchiveSegmentWriter.VERSION) {
+            throw new IOException("Unsupported archive segment version: " + path);
+        }
+        ByteBuffer trailer = read(size - ArchiveSegmentWriter.TRAILER_LENGTH, ArchiveSegmentWriter.TRAILER_LENGTH);
+        long footerOffset = trailer.getLong();
+        int footerLength = trailer.getInt();
+        int footerCrc = trailer.getInt();
+        trailer.get(magic);
+        if (!Arrays.equals(magic, ArchiveSegmentWriter.MAGIC)) {
+            throw new IOException("Truncated archive segment: " + path);
+        }
+        ByteBuffer footer = read(footerOffset, footerLength);
+        checkCrc(footer, footerCrc, "footer");
+
+        //2. Footer directories
+        int blocks = Math.toIntExact(Varints.readUnsigned(footer));
+        blockOffsets = new long[blocks];
+        blockLengths = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            blockOffsets[i] = Varints.readUnsigned(footer);
+            blockLengths[i] = Math.toIntExact(Varints.readUnsigned(footer));
+        }
+
+        int idPages = Math.toIntExact(Varints.readUnsigned(footer));
+        idPageOffsets = new long[idPages];
+        idPageLengths = new int[idPages];
+        idPageFirstIds = new long[idPages];
+        idPageCrcs = new int[idPages];
+        for (int i = 0; i < idPages; i++) {
+            idPageOffsets[i] = Varints.readUnsigned(footer);
+            idPageLengths[i] = Math.toIntExact(Varints.readUnsigned(footer));
+            idPageFirstIds[i] = Varints.readSigned(footer);
+            idPageCrcs[i] = footer.getInt();
+        }
+
+        int accountPages = Math.toIntExact(Varints.readUnsigned(footer));
+        accountPageOffsets = new long[accountPages];
+        accountPageLengths = new int[accountPages];
+        accountPageFirstAccounts = new String[accountPages];
+        accountPageCrcs = new int[accountPages];
+        for (int i = 0; i < accountPages; i++) {
+            accountPageOffsets[i] = Varints.readUnsigned(footer);
+            accountPageLengths[i] = Math.toIntExact(Varints.readUnsigned(footer));
+            accountPageFirstAccounts[i] = Varints.readString(footer);
+            accountPageCrcs[i] = footer.getInt();
+        }
+
+        long filterOffset = Varints.readUnsigned(footer);
+        int filterLength = Math.toIntExact(Varints.readUnsigned(footer));
+        accounts = BloomFilter.readFrom(read(filterOffset, filterLength));
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ArchiveSegment(path, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long sizeInBytes() {
+        return size;
+    }
+
+    // False: the account has no rows in this segment. True: it may have
+    boolean mightContain(String accountNumber) {
+        return accounts.mightContain(accountNumber);
+    }
+
+    Optional<TransactionDTO> findById(long id) {
+        int page = floorIndex(idPageFirstIds, id);
+        if (page < 0) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer entries = read(idPageOffsets[page], idPageLengths[page]);
+            checkCrc(entries, idPageCrcs[page], "id page");
+            int count = Math.toIntExact(Varints.readUnsigned(entries));
+            long current = 0;
+            for (int i = 0; i < count; i++) {
+                current += Varints.readSigned(entries);
+                int block = Math.toIntExact(Varints.readUnsigned(entries));
+                if (current == id) {
+                    for (TransactionDTO row : readBlock(block)) {
+                        if (row.getId() == id) {
+                            return Optional.of(row);
+                        }
+                    }
+                    throw new IOException("Id index points to the wrong block in " + path);
+                }
+                if (current > id) {
+                    break;
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Ordered by (transactionDate, id)
+    List<TransactionDTO> findByAccountNumber(String accountNumber) {
+        if (!accounts.mightContain(accountNumber)) {
+            return List.of();
+        }
+        int page = floorIndex(accountPageFirstAccounts, accountNumber);
+        if (page < 0) {
+            return List.of();
+        }
+        try {
+            ByteBuffer entries = read(accountPageOffsets[page], accountPageLengths[page]);
+            checkCrc(entries, accountPageCrcs[page], "account page");
+            int count = Math.toIntExact(Varints.readUnsigned(entries));
+            for (int i = 0; i < count; i++) {
+                String account = Varints.readString(entries);
+                int firstBlock = Math.toIntExact(Varints.readUnsigned(entries));
+                int blocks = Math.toIntExact(Varints.readUnsigned(entries));
+                int order = account.compareTo(accountNumber);
+                if (order == 0) {
+                    List<TransactionDTO> rows = new ArrayList<>();
+                    for (int block = firstBlock; block < firstBlock + blocks; block++) {
+                        for (TransactionDTO row : readBlock(block)) {
+                            if (row.getAccountNumber().equals(accountNumber)) {
+                                rows.add(row);
+                            }
+                        }
+                    }
+                    return rows;
+                }
+                if (order > 0) {
+                    break;
+                }
+            }
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<TransactionDTO> readBlock(int block) throws IOException {
+        ByteBuffer bytes = read(blockOffsets[block], blockLengths[block]);
+        List<TransactionDTO> rows = new ArrayList<>(ArchiveSegmentWriter.BLOCK_ROWS);
+        try (ColumnarStatementReader reader = new ColumnarStatementReader(
+                new ByteArrayInputStream(bytes.array(), 0, bytes.limit()))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        if (position < 0 || position + length > size) {
+            throw new IOException("Archive segment offset out of range: " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment: " + path);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private void checkCrc(ByteBuffer bytes, int expected, String part) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.duplicate());
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Corrupt archive segment " + part + " (checksum mismatch): " + path);
+        }
+    }
+
+    // Last index whose first key is <= key, -1 when key sorts before all of them
+    private static int floorIndex(long[] firstKeys, long key) {
+        int found = Arrays.binarySearch(firstKeys, key);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static <T extends Comparable<T>> int floorIndex(T[] firstKeys, T key) {
+        int found = Arrays.binarySearch(firstKeys, key);
+        return found >= 0 ? found : -found - 2;
+    }
+}
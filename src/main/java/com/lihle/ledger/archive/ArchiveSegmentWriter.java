@@ -0,0 +1,294 @@
+package com.lihle.ledger.archive;
+
+import com.lihle.ledger.cache.BloomFilter;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.export.ColumnarStatementWriter;
+import com.lihle.ledger.export.Varints;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Archive segment format (".ldga"): the closed transactions of one month, written
+ * once and never modified. Rows must arrive grouped by account (in any account
+ * order, e.g. the database collation's), each account's rows ordered by
+ * (transactionDate, id), so an account's rows are one contiguous run of blocks.
+ *
+ * file            "LDGA", version byte, blocks, id pages, account pages,
+ *                 account filter, footer, trailer
+ * block           a complete columnar statement (ColumnarStatementWriter) of up
+ *                 to BLOCK_ROWS rows
+ * id page         varint entries, then per entry: zigzag id delta from the
+ *                 previous entry (first: from 0), varint block; ordered by id
+ * account page    varint entries, then per entry: account (varint-length UTF-8),
+ *                 varint first block, varint block count; ordered by account
+ *                 (String.compareTo)
+ * account filter  BloomFilter.writeTo of the segment's accounts
+ * footer          varint blocks, per block: varint offset, varint length;
+ *                 varint id pages, per page: varint offset, varint length,
+ *                 zigzag first id, int crc32c;
+ *                 varint account pages, per page: varint offset, varint length,
+ *                 first account, int crc32c;
+ *                 varint filter offset, varint filter length
+ * trailer         long footer offset, int footer length, int crc32c of the footer, "LDGA"
+ *
+ * Readers keep the footer and the account filter in memory and read one page and
+ * the blocks it points to per lookup (see ArchiveSegment).
+ */
+final class ArchiveSegmentWriter implements AutoCloseable {
+
+    static final byte[] MAGIC = {'L', 'D', 'G', 'A'};
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 1024;
+    static final int ID_PAGE_ENTRIES = 4096;
+    static final int ACCOUNT_PAGE_ENTRIES = 512;
+    static final int TRAILER_LENGTH = 20;
+    static final double FILTER_FPP = 0.01;
+
+    record Summary(long rows, long minId, long maxId, long sizeBytes) {
+    }
+
+    private final FileOutputStream file;
+    private final CountingOutputStream out;
+
+    private ColumnarStatementWriter block;
+    private int blockRows;
+    private final List<long[]> blocks = new ArrayList<>();
+    private long blockStart;
+
+    // id index entries, sorted by id on finish
+    private long[] ids = new long[BLOCK_ROWS];
+    private int[] idBlocks = new int[BLOCK_ROWS];
+    private int rows;
+    private long minId = Long.MAX_VALUE;
+    private long maxId = Long.MIN_VALUE;
+
+    private final List<String> accounts = new ArrayList<>();
+    private final List<int[]> accountBlocks = new ArrayList<>();
+    private final Set<String> seenAccounts = new HashSet<>();
+    private TransactionDTO previous;
+
+    ArchiveSegmentWriter(Path path) throws IOException {
+        file = new FileOutputStream(path.toFile());
+        out = new CountingOutputStream(new BufferedOutputStream(file, 64 * 1024));
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    void write(TransactionDTO row) throws IOException {
+        checkOrder(row);
+        if (block == null) {
+            blockStart = out.count;
+            block = new ColumnarStatementWriter(out);
+        }
+        int blockIndex = blocks.size();
+        if (!row.getAccountNumber().equals(previous == null ? null : previous.getAccountNumber())) {
+            seenAccounts.add(row.getAccountNumber());
+            accounts.add(row.getAccountNumber());
+            accountBlocks.add(new int[]{blockIndex, blockIndex});
+        } else {
+            accountBlocks.get(accountBlocks.size() - 1)[1] = blockIndex;
+        }
+
+        block.write(row);
+        if (rows == ids.length) {
+            ids = Arrays.copyOf(ids, rows * 2);
+            idBlocks = Arrays.copyOf(idBlocks, rows * 2);
+        }
+        ids[rows] = row.getId();
+        idBlocks[rows] = blockIndex;
+        rows++;
+        minId = Math.min(minId, row.getId());
+        maxId = Math.max(maxId, row.getId());
+        previous = row;
+
+        if (++blockRows == BLOCK_ROWS) {
+            endBlock();
+        }
+    }
+
+    // Completes the file and forces it to disk
+    Summary finish() throws IOException {
+        if (rows == 0) {
+            throw new IllegalStateException("An archive segment needs at least one row");
+        }
+        endBlock();
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+
+        //1. Blocks
+        Varints.writeUnsigned(footer, blocks.size());
+        for (long[] written : blocks) {
+            Varints.writeUnsigned(footer, written[0]);
+            Varints.writeUnsigned(footer, written[1]);
+        }
+
+        //2. Id pages, ordered by id
+        int[] byId = sortedById();
+        int idPages = (rows + ID_PAGE_ENTRIES - 1) / ID_PAGE_ENTRIES;
+        Varints.writeUnsigned(footer, idPages);
+        for (int from = 0; from < rows; from += ID_PAGE_ENTRIES) {
+            int to = Math.min(from + ID_PAGE_ENTRIES, rows);
+            ByteArrayOutputStream page = new ByteArrayOutputStream((to - from) * 4);
+            Varints.writeUnsigned(page, to - from);
+            long previousId = 0;
+            for (int i = from; i < to; i++) {
+                long id = ids[byId[i]];
+                Varints.writeSigned(page, id - previousId);
+                Varints.writeUnsigned(page, idBlocks[byId[i]]);
+                previousId = id;
+            }
+            writePage(footer, page);
+            Varints.writeSigned(footer, ids[byId[from]]);
+            writeCrc(footer, page);
+        }
+
+        //3. Account pages, ordered by account
+        List<Integer> byAccount = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            byAccount.add(i);
+        }
+        byAccount.sort(Comparator.comparing(accounts::get));
+        int accountPages = (accounts.size() + ACCOUNT_PAGE_ENTRIES - 1) / ACCOUNT_PAGE_ENTRIES;
+        Varints.writeUnsigned(footer, accountPages);
+        for (int from = 0; from < accounts.size(); from += ACCOUNT_PAGE_ENTRIES) {
+            int to = Math.min(from + ACCOUNT_PAGE_ENTRIES, accounts.size());
+            ByteArrayOutputStream page = new ByteArrayOutputStream((to - from) * 24);
+            Varints.writeUnsigned(page, to - from);
+            for (int i = from; i < to; i++) {
+                int[] range = accountBlocks.get(byAccount.get(i));
+                Varints.writeString(page, accounts.get(byAccount.get(i)));
+                Varints.writeUnsigned(page, range[0]);
+                Varints.writeUnsigned(page, range[1] - range[0] + 1L);
+            }
+            writePage(footer, page);
+            Varints.writeString(footer, accounts.get(byAccount.get(from)));
+            writeCrc(footer, page);
+        }
+
+        //4. Account filter
+        BloomFilter filter = BloomFilter.create(accounts.size(), FILTER_FPP);
+        accounts.forEach(filter::put);
+        ByteArrayOutputStream filterBytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(filterBytes));
+        Varints.writeUnsigned(footer, out.count);
+        Varints.writeUnsigned(footer, filterBytes.size());
+        filterBytes.writeTo(out);
+
+        //5. Footer and trailer, then force everything to disk
+        long footerOffset = out.count;
+        footer.writeTo(out);
+        CRC32C crc = new CRC32C();
+        crc.update(footer.toByteArray());
+        out.write(ByteBuffer.allocate(16)
+                .putLong(footerOffset).putInt(footer.size()).putInt((int) crc.getValue()).array());
+        out.write(MAGIC);
+        out.flush();
+        file.getFD().sync();
+        return new Summary(rows, minId, maxId, out.count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void checkOrder(TransactionDTO row) {
+        if (previous == null) {
+            return;
+        }
+        if (!previous.getAccountNumber().equals(row.getAccountNumber())) {
+            if (seenAccounts.contains(row.getAccountNumber())) {
+                throw new IllegalArgumentException("Archive rows must be grouped by account number");
+            }
+            return;
+        }
+        int order = previous.getTransactionDate().compareTo(row.getTransactionDate());
+        if (order == 0) {
+            order = Long.compare(previous.getId(), row.getId());
+        }
+        if (order >= 0) {
+            throw new IllegalArgumentException("Archive rows of an account must be ordered by transaction date and id");
+        }
+    }
+
+    private void endBlock() throws IOException {
+        if (block != null) {
+            block.finish();
+            blocks.add(new long[]{blockStart, out.count - blockStart});
+            block = null;
+            blockRows = 0;
+        }
+    }
+
+    private void writePage(ByteArrayOutputStream footer, ByteArrayOutputStream page) throws IOException {
+        Varints.writeUnsigned(footer, out.count);
+        Varints.writeUnsigned(footer, page.size());
+        page.writeTo(out);
+    }
+
+    private static void writeCrc(ByteArrayOutputStream footer, ByteArrayOutputStream page) {
+        CRC32C crc = new CRC32C();
+        crc.update(page.toByteArray());
+        footer.writeBytes(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    // Row indexes ordered by id (bottom-up merge sort, no boxing)
+    private int[] sortedById() {
+        int[] order = new int[rows];
+        int[] buffer = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        for (int width = 1; width < rows; width *= 2) {
+            for (int from = 0; from < rows; from += 2 * width) {
+                int middle = Math.min(from + width, rows);
+                int to = Math.min(from + 2 * width, rows);
+                int left = from;
+                int right = middle;
+                for (int i = from; i < to; i++) {
+                    buffer[i] = right >= to || (left < middle && ids[order[left]] <= ids[order[right]])
+                            ? order[left++] : order[right++];
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream target) {
+            super(target);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+}
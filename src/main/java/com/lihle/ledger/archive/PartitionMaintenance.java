@@ -0,0 +1,595 @@
+package com.lihle.ledger.archive;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * PARTITION MAINTENANCE of the monthly partitioned transactions table (V8)
+ *
+ * Runs every ledger.partitions.maintenance.interval on one instance at a time
+ * (session advisory lock); each run:
+ * 1. creates the partitions of the current month and the next
+ *    ledger.partitions.premake-months, plus those of recent months that gathered
+ *    rows in the default partition (moved over before the ATTACH);
+ * 2. archives every month that ended more than ledger.archive.after ago: its
+ *    COMPLETED and REVERSED rows are written to a segment file
+ *    (ArchiveSegmentWriter), forced to disk, renamed into place and listed in
+ *    transaction_archive_segments;
+ * 3. waits two catalog refreshes, so every instance reads the new segments
+ *    (TransactionArchive), then in one transaction deletes the archived rows by
+ *    (id, version), adds them to archived_account_totals and marks the segment
+ *    settled. A row changed since it was written makes the counts differ: the
+ *    transaction rolls back, the segment is dropped and the month is retried by
+ *    the next run;
+ * 4. detaches the partition of an archived month, moves its remaining open rows
+ *    to the default partition and drops it.
+ * DDL waits at most ledger.partitions.lock-timeout for its locks; a partition it
+ * could not lock is handled by the next run. Segments of a run that died before
+ * settling are discarded by the next one, and files no catalog row points to are
+ * deleted after two catalog refreshes.
+ *
+ * Archived transactions are final: they can no longer be disputed (409). That is
+ * a business rule, set by ledger.archive.dispute-window (how long a COMPLETED
+ * transaction stays disputable); ledger.archive.after may not be shorter, and
+ * startup fails if it is.
+ *
+ * Runs requested through requestRun() (POST /partitions/maintenance) go to the
+ * same single maintenance thread as the scheduled ones; status() reports the
+ * current and last run.
+ *
+ * Metrics: ledger.partitions.created, ledger.partitions.dropped,
+ * ledger.archive.rows, ledger.partitions.maintenance.failures.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class PartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenance.class);
+
+    static final List<String> CLOSED_STATUSES = List.of("COMPLETED", "REVERSED");
+
+    // pg_try_advisory_lock key of the maintenance run
+    private static final long LOCK_KEY = 0x4C45_4447_4552_5054L;
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern RANGE_BOUNDS = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+
+    private static final String DELETE_ARCHIVED = "DELETE FROM transactions t " +
+            "USING unnest(CAST(? AS bigint[]), CAST(? AS bigint[])) AS archived(id, version) " +
+            "WHERE t.id = archived.id AND t.version = archived.version " +
+            "AND t.transaction_date >= ? AND t.transaction_date < ?";
+
+    private static final String ADD_ACCOUNT_TOTALS = "INSERT INTO archived_account_totals " +
+            "(account_number, balance, transaction_count, last_transaction_id) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (account_number) DO UPDATE SET " +
+            "balance = archived_account_totals.balance + EXCLUDED.balance, " +
+            "transaction_count = archived_account_totals.transaction_count + EXCLUDED.transaction_count, " +
+            "last_transaction_id = GREATEST(archived_account_totals.last_transaction_id, EXCLUDED.last_transaction_id)";
+
+    // rangeStart and rangeEnd are null for the default partition
+    public record Partition(String name, LocalDateTime rangeStart, LocalDateTime rangeEnd, long estimatedRows) {
+
+        boolean isDefault() {
+            return rangeStart == null;
+        }
+    }
+
+    public record Segment(long id, LocalDateTime rangeStart, LocalDateTime rangeEnd, String fileName, long rows,
+                          long sizeBytes, LocalDateTime archivedAt, LocalDateTime settledAt) {
+    }
+
+    // lockAcquired false: another instance was running maintenance, nothing was done
+    public record Report(boolean lockAcquired, int partitionsCreated, int segmentsWritten, long rowsArchived,
+                         int partitionsDropped) {
+    }
+
+    // running: a run is in progress or queued; lastReport / lastError: outcome of the last finished run
+    public record Status(boolean running, LocalDateTime lastStartedAt, LocalDateTime lastFinishedAt,
+                         Report lastReport, String lastError) {
+    }
+
+    private record Written(long id, LocalDateTime month, long rows, long[] ids, long[] versions,
+                           Map<String, AccountTotal> totals) {
+    }
+
+    private static final class AccountTotal {
+        private BigDecimal balance = BigDecimal.ZERO;
+        private long count;
+        private long lastId;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionArchive archive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.partitions.maintenance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ledger.partitions.maintenance.interval:1h}")
+    private Duration interval;
+
+    @Value("${ledger.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${ledger.partitions.lock-timeout:200ms}")
+    private Duration lockTimeout;
+
+    @Value("${ledger.archive.after:180d}")
+    private Duration archiveAfter;
+
+    @Value("${ledger.archive.dispute-window:180d}")
+    private Duration disputeWindow;
+
+    @Value("${ledger.archive.delete-chunk-size:10000}")
+    private int deleteChunkSize;
+
+    private TransactionTemplate transactions;
+    private TransactionTemplate readOnly;
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private volatile Status status = new Status(false, null, null, null, null);
+
+    private Counter partitionsCreated;
+    private Counter partitionsDropped;
+    private Counter rowsArchived;
+    private Counter failures;
+
+    @PostConstruct
+    void start() {
+        if (archiveAfter.compareTo(disputeWindow) < 0) {
+            throw new IllegalStateException("ledger.archive.after (" + archiveAfter + ") is shorter than "
+                    + "ledger.archive.dispute-window (" + disputeWindow + "): archived transactions cannot be disputed");
+        }
+        transactions = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        partitionsCreated = Counter.builder("ledger.partitions.created").register(meterRegistry);
+        partitionsDropped = Counter.builder("ledger.partitions.dropped").register(meterRegistry);
+        rowsArchived = Counter.builder("ledger.archive.rows").register(meterRegistry);
+        failures = Counter.builder("ledger.partitions.maintenance.failures").register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::runQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    // Ordered by range, the default partition last
+    public List<Partition> partitions() {
+        List<Partition> partitions = jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), " +
+                "CAST(GREATEST(c.reltuples, 0) AS bigint) " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST('transactions' AS regclass)", (rs, row) -> {
+            Matcher bounds = RANGE_BOUNDS.matcher(rs.getString(2));
+            return bounds.find()
+                    ? new Partition(rs.getString(1), LocalDateTime.parse(bounds.group(1), BOUND),
+                    LocalDateTime.parse(bounds.group(2), BOUND), rs.getLong(3))
+                    : new Partition(rs.getString(1), null, null, rs.getLong(3));
+        });
+        partitions.sort((a, b) -> a.isDefault() || b.isDefault()
+                ? Boolean.compare(a.isDefault(), b.isDefault()) : a.rangeStart().compareTo(b.rangeStart()));
+        return partitions;
+    }
+
+    public List<Segment> segments() {
+        return jdbcTemplate.query("SELECT id, range_start, range_end, file_name, row_count, size_bytes, " +
+                        "archived_at, settled_at FROM transaction_archive_segments ORDER BY range_start, id",
+                (rs, row) -> new Segment(rs.getLong(1), rs.getObject(2, LocalDateTime.class),
+                        rs.getObject(3, LocalDateTime.class), rs.getString(4), rs.getLong(5), rs.getLong(6),
+                        rs.getObject(7, LocalDateTime.class), rs.getObject(8, LocalDateTime.class)));
+    }
+
+    /**
+     * One maintenance run, on the calling thread. Returns without doing anything
+     * when another instance holds the maintenance lock.
+     */
+    public synchronized Report run() {
+        // The advisory lock belongs to this connection's session, held for the whole run
+        return jdbcTemplate.execute((ConnectionCallback<Report>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet locked = statement.executeQuery("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")")) {
+                    locked.next();
+                    if (!locked.getBoolean(1)) {
+                        return new Report(false, 0, 0, 0, 0);
+                    }
+                }
+                try {
+                    return maintain();
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        });
+    }
+
+    /**
+     * Queues one run on the maintenance thread and returns at once. False when a
+     * requested run is already waiting: it will see the same state.
+     */
+    public boolean requestRun() {
+        if (!requested.compareAndSet(false, true)) {
+            return false;
+        }
+        status = new Status(true, status.lastStartedAt(), status.lastFinishedAt(), status.lastReport(), status.lastError());
+        scheduler.execute(() -> {
+            requested.set(false);
+            runQuietly();
+        });
+        return true;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    private void runQuietly() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        status = new Status(true, startedAt, status.lastFinishedAt(), status.lastReport(), status.lastError());
+        try {
+            Report report = run();
+            status = new Status(requested.get(), startedAt, LocalDateTime.now(), report, null);
+            if (report.partitionsCreated() + report.segmentsWritten() + report.partitionsDropped() > 0) {
+                log.info("Partition maintenance: {}", report);
+            }
+        } catch (RuntimeException e) {
+            status = new Status(requested.get(), startedAt, LocalDateTime.now(), null, e.getMessage());
+            failures.increment();
+            log.warn("Partition maintenance failed; retrying in {}", interval, e);
+        }
+    }
+
+    private Report maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime currentMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime archiveBefore = now.minus(archiveAfter);
+
+        //1. Segments of a run that died before settling: their rows are still in the table
+        int discarded = jdbcTemplate.update("DELETE FROM transaction_archive_segments WHERE settled_at IS NULL");
+        if (discarded > 0) {
+            log.info("Discarded {} unsettled archive segments of an earlier run", discarded);
+            archive.refresh();
+        }
+
+        //2. Upcoming partitions, and recent months that gathered rows in the default partition
+        List<Partition> partitions = partitions();
+        Partition defaultPartition = partitions.stream().filter(Partition::isDefault).findFirst().orElse(null);
+        Set<LocalDateTime> partitioned = new HashSet<>();
+        partitions.stream().filter(partition -> !partition.isDefault()).forEach(partition -> partitioned.add(partition.rangeStart()));
+        TreeSet<LocalDateTime> wanted = new TreeSet<>();
+        for (int ahead = 0; ahead <= premakeMonths; ahead++) {
+            wanted.add(currentMonth.plusMonths(ahead));
+        }
+        Set<LocalDateTime> defaultMonths = defaultPartition == null ? Set.of() : monthsIn(defaultPartition, false);
+        defaultMonths.stream().filter(month -> month.plusMonths(1).isAfter(archiveBefore)).forEach(wanted::add);
+        int created = 0;
+        for (LocalDateTime month : wanted) {
+            if (!partitioned.contains(month) && createPartition(month, defaultPartition)) {
+                created++;
+            }
+        }
+
+        //3. Months to archive: ended partitions and closed rows of ended months in the default partition
+        TreeSet<LocalDateTime> archivable = new TreeSet<>();
+        List<Partition> ended = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (!partition.isDefault() && !partition.rangeEnd().isAfter(archiveBefore)) {
+                archivable.add(partition.rangeStart());
+                ended.add(partition);
+            }
+        }
+        if (defaultPartition != null) {
+            monthsIn(defaultPartition, true).stream()
+                    .filter(month -> !month.plusMonths(1).isAfter(archiveBefore))
+                    .forEach(archivable::add);
+        }
+
+        //4. Write the segments; rows stay in the table until every instance can read them
+        List<Written> written = new ArrayList<>();
+        Set<LocalDateTime> failed = new HashSet<>();
+        for (LocalDateTime month : archivable) {
+            try {
+                Written segment = writeSegment(month);
+                if (segment != null) {
+                    written.add(segment);
+                }
+            } catch (IOException | UncheckedIOException | DataAccessException | IllegalArgumentException e) {
+                failures.increment();
+                failed.add(month);
+                log.warn("Archiving {} failed; retrying at the next run", month.format(SEGMENT_MONTH), e);
+            }
+        }
+        if (!written.isEmpty()) {
+            archive.refresh();
+            try {
+                Thread.sleep(archive.catalogRefresh().toMillis() * 2);
+            } catch (InterruptedException e) {
+                // Unsettled segments are discarded by the next run
+                Thread.currentThread().interrupt();
+                return new Report(true, created, 0, 0, 0);
+            }
+        }
+
+        //5. Settle: the rows leave the table
+        int settled = 0;
+        long archivedRows = 0;
+        for (Written segment : written) {
+            if (settle(segment)) {
+                settled++;
+                archivedRows += segment.rows();
+            } else {
+                failed.add(segment.month());
+                jdbcTemplate.update("DELETE FROM transaction_archive_segments WHERE id = ?", segment.id());
+                log.info("Rows of {} changed while they were archived; retrying at the next run",
+                        segment.month().format(SEGMENT_MONTH));
+            }
+        }
+        rowsArchived.increment(archivedRows);
+        archive.refresh();
+
+        //6. Drop the partitions of archived months
+        int dropped = 0;
+        for (Partition partition : ended) {
+            if (!failed.contains(partition.rangeStart()) && dropPartition(partition)) {
+                dropped++;
+            }
+        }
+
+        deleteOrphanFiles();
+        return new Report(true, created, settled, archivedRows, dropped);
+    }
+
+    // Months with rows in the partition (closedOnly: COMPLETED or REVERSED rows)
+    private Set<LocalDateTime> monthsIn(Partition partition, boolean closedOnly) {
+        return new TreeSet<>(jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('month', transaction_date) " +
+                "FROM " + quote(partition.name()) +
+                (closedOnly ? " WHERE ledger_status_name(status) IN ('COMPLETED', 'REVERSED')" : ""),
+                LocalDateTime.class));
+    }
+
+    private boolean createPartition(LocalDateTime month, Partition defaultPartition) {
+        String name = quote("transactions_" + month.format(MONTH_SUFFIX));
+        LocalDateTime end = month.plusMonths(1);
+        try {
+            transactions.executeWithoutResult(status -> {
+                setLockTimeout();
+                jdbcTemplate.execute("CREATE TABLE " + name +
+                        " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                if (defaultPartition != null) {
+                    jdbcTemplate.update("WITH moved AS (DELETE FROM " + quote(defaultPartition.name()) +
+                            " WHERE transaction_date >= ? AND transaction_date < ? RETURNING *) " +
+                            "INSERT INTO " + name + " SELECT * FROM moved", month, end);
+                }
+                jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + name +
+                        " FOR VALUES FROM ('" + month.format(BOUND) + "') TO ('" + end.format(BOUND) + "')");
+            });
+        } catch (DataAccessException e) {
+            failures.increment();
+            log.warn("Creating partition {} failed; retrying at the next run", name, e);
+            return false;
+        }
+        partitionsCreated.increment();
+        log.info("Created partition {}", name);
+        return true;
+    }
+
+    // null when the month has no closed rows
+    private Written writeSegment(LocalDateTime month) throws IOException {
+        long id = jdbcTemplate.queryForObject("SELECT nextval('transaction_archive_segments_seq')", Long.class);
+        String fileName = "transactions-" + month.format(SEGMENT_MONTH) + "-" + id + ".ldga";
+        Path part = archive.directory().resolve(fileName + ".part");
+        long[][] idsAndVersions = {new long[1024], new long[1024]};
+        int[] rows = {0};
+        Map<String, AccountTotal> totals = new LinkedHashMap<>();
+
+        ArchiveSegmentWriter.Summary summary;
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(part)) {
+            //1. Stream the closed rows into the segment; ids, versions and totals for the settle
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<TransactionDTO> stream = repository.streamForArchive(month, month.plusMonths(1), CLOSED_STATUSES)) {
+                    stream.forEach(row -> {
+                        try {
+                            writer.write(row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (rows[0] == idsAndVersions[0].length) {
+                            idsAndVersions[0] = Arrays.copyOf(idsAndVersions[0], rows[0] * 2);
+                            idsAndVersions[1] = Arrays.copyOf(idsAndVersions[1], rows[0] * 2);
+                        }
+                        idsAndVersions[0][rows[0]] = row.getId();
+                        idsAndVersions[1][rows[0]] = row.getVersion();
+                        rows[0]++;
+                        AccountTotal total = totals.computeIfAbsent(row.getAccountNumber(), account -> new AccountTotal());
+                        if (!"REVERSED".equals(row.getStatus())) {
+                            total.balance = "CREDIT".equals(row.getTransactionType())
+                                    ? total.balance.add(row.getAmount()) : total.balance.subtract(row.getAmount());
+                        }
+                        total.count++;
+                        total.lastId = Math.max(total.lastId, row.getId());
+                    });
+                }
+            });
+            if (rows[0] == 0) {
+                summary = null;
+            } else {
+                summary = writer.finish();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        if (summary == null) {
+            Files.deleteIfExists(part);
+            return null;
+        }
+
+        //2. Into place, then into the catalog (unsettled: readers still prefer the table)
+        Files.move(part, archive.directory().resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        jdbcTemplate.update("INSERT INTO transaction_archive_segments " +
+                        "(id, range_start, range_end, file_name, row_count, min_id, max_id, size_bytes, archived_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, now())",
+                id, month, month.plusMonths(1), fileName, summary.rows(), summary.minId(), summary.maxId(),
+                summary.sizeBytes());
+        log.info("Archived {} rows of {} into {} ({} KiB)", summary.rows(), month.format(SEGMENT_MONTH), fileName,
+                summary.sizeBytes() / 1024);
+        return new Written(id, month, summary.rows(), idsAndVersions[0], idsAndVersions[1], totals);
+    }
+
+    // One transaction: the rows leave the table exactly when their totals and the settled mark arrive
+    private boolean settle(Written segment) {
+        LocalDateTime end = segment.month().plusMonths(1);
+        Boolean settled = transactions.execute(status -> {
+            // Compact encoding (db/compact/V4): descriptions live in their own table
+            boolean descriptions = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('transaction_descriptions') IS NOT NULL", Boolean.class));
+            long deleted = 0;
+            for (int from = 0; from < segment.rows(); from += deleteChunkSize) {
+                int to = (int) Math.min(from + deleteChunkSize, segment.rows());
+                Long[] ids = boxed(segment.ids(), from, to);
+                Long[] versions = boxed(segment.versions(), from, to);
+                deleted += jdbcTemplate.update(DELETE_ARCHIVED, statement -> {
+                    statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids));
+                    statement.setArray(2, statement.getConnection().createArrayOf("bigint", versions));
+                    statement.setObject(3, segment.month());
+                    statement.setObject(4, end);
+                });
+                if (descriptions) {
+                    jdbcTemplate.update("DELETE FROM transaction_descriptions WHERE transaction_id = ANY(?)",
+                            statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)));
+                }
+            }
+            if (deleted != segment.rows()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            List<Object[]> totals = new ArrayList<>(segment.totals().size());
+            segment.totals().forEach((account, total) ->
+                    totals.add(new Object[]{account, total.balance, total.count, total.lastId}));
+            jdbcTemplate.batchUpdate(ADD_ACCOUNT_TOTALS, totals);
+            jdbcTemplate.update("UPDATE transaction_archive_segments SET settled_at = now() WHERE id = ?", segment.id());
+            return true;
+        });
+        return Boolean.TRUE.equals(settled);
+    }
+
+    // Open rows of the month go back in through the parent and land in the default partition
+    private boolean dropPartition(Partition partition) {
+        String name = quote(partition.name());
+        try {
+            transactions.executeWithoutResult(status -> {
+                setLockTimeout();
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + name);
+                int open = jdbcTemplate.update("INSERT INTO transactions SELECT * FROM " + name);
+                jdbcTemplate.execute("DROP TABLE " + name);
+                if (open > 0) {
+                    log.info("Moved {} open rows of partition {} to the default partition", open, name);
+                }
+            });
+        } catch (DataAccessException e) {
+            log.info("Partition {} not dropped ({}); retrying at the next run", name, e.getMostSpecificCause().getMessage());
+            return false;
+        }
+        partitionsDropped.increment();
+        log.info("Dropped partition {}", name);
+        return true;
+    }
+
+    // Files of discarded segments and interrupted writes, once no reader can still have them open
+    private void deleteOrphanFiles() {
+        Set<String> listed = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT file_name FROM transaction_archive_segments", String.class));
+        Instant before = Instant.now().minus(archive.catalogRefresh().multipliedBy(2));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(archive.directory(), "*.{ldga,part}")) {
+            for (Path file : files) {
+                if (!listed.contains(file.getFileName().toString())
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(before)) {
+                    Files.deleteIfExists(file);
+                    log.info("Deleted unlisted archive file {}", file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cleaning up {} failed", archive.directory(), e);
+        }
+    }
+
+    private void setLockTimeout() {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, lockTimeout.toMillis()));
+    }
+
+    private static Long[] boxed(long[] values, int from, int to) {
+        Long[] boxed = new Long[to - from];
+        for (int i = from; i < to; i++) {
+            boxed[i - from] = values[i];
+        }
+        return boxed;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,308 @@
+package com.lihle.ledger.archive;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * ARCHIVE READ-THROUGH
+ *
+ * Closed months that PartitionMaintenance moved out of the transactions table live
+ * in immutable segment files under ledger.archive.directory, listed in
+ * transaction_archive_segments. This catalog is loaded on startup and reloaded
+ * every ledger.archive.catalog-refresh; every instance must see the same directory.
+ *
+ * Point reads that miss the table and account history reads consult the archive:
+ * - by id: only segments whose id range contains the id;
+ * - by account: only segments whose account filter may contain the account, and
+ *   for pages only the months on the requested side of the cursor.
+ * While no segment exists (or none matches) nothing is read, so the hot path
+ * costs what it did before archiving. Rows of a segment that is not settled yet
+ * may still be in the table; those are only returned once the table no longer
+ * has them, so callers can simply add archived rows to table rows.
+ *
+ * Metrics: ledger.archive.lookups{kind=id|account,outcome=hit|miss},
+ * ledger.archive.segments, ledger.archive.bytes.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class TransactionArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchive.class);
+
+    public static final Comparator<TransactionDTO> BY_DATE_AND_ID =
+            Comparator.comparing(TransactionDTO::getTransactionDate).thenComparing(TransactionDTO::getId);
+
+    record CatalogEntry(long id, LocalDateTime rangeStart, LocalDateTime rangeEnd, long minId, long maxId,
+                        boolean settled, ArchiveSegment segment) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.archive.directory:archive}")
+    private Path directory;
+
+    @Value("${ledger.archive.catalog-refresh:1m}")
+    private Duration catalogRefresh;
+
+    // Ordered by (rangeStart, id)
+    private volatile List<CatalogEntry> catalog = List.of();
+    private ScheduledExecutorService refresher;
+
+    private Counter idHits;
+    private Counter idMisses;
+    private Counter accountHits;
+    private Counter accountMisses;
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(directory);
+        idHits = lookups("id", "hit");
+        idMisses = lookups("id", "miss");
+        accountHits = lookups("account", "hit");
+        accountMisses = lookups("account", "miss");
+        Gauge.builder("ledger.archive.segments", this, archive -> archive.catalog.size()).register(meterRegistry);
+        Gauge.builder("ledger.archive.bytes", this, archive -> archive.catalog.stream()
+                .mapToLong(entry -> entry.segment().sizeInBytes()).sum()).register(meterRegistry);
+
+        refresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-archive-catalog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly,
+                catalogRefresh.toMillis(), catalogRefresh.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+        for (CatalogEntry entry : catalog) {
+            closeQuietly(entry.segment());
+        }
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    Duration catalogRefresh() {
+        return catalogRefresh;
+    }
+
+    // Reloads the catalog: opens new segments, closes dropped ones once in-flight reads are done
+    synchronized void refresh() {
+        Map<Long, CatalogEntry> open = new HashMap<>();
+        for (CatalogEntry entry : catalog) {
+            open.put(entry.id(), entry);
+        }
+        List<CatalogEntry> next = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, range_start, range_end, file_name, min_id, max_id, settled_at IS NOT NULL " +
+                "FROM transaction_archive_segments ORDER BY range_start, id", rs -> {
+            long id = rs.getLong(1);
+            CatalogEntry known = open.remove(id);
+            ArchiveSegment segment = known == null ? null : known.segment();
+            if (segment == null) {
+                try {
+                    segment = ArchiveSegment.open(directory.resolve(rs.getString(4)));
+                } catch (IOException e) {
+                    log.error("Archive segment {} cannot be opened; its rows are unreadable until it is restored",
+                            rs.getString(4), e);
+                    return;
+                }
+            }
+            next.add(new CatalogEntry(id, rs.getObject(2, LocalDateTime.class), rs.getObject(3, LocalDateTime.class),
+                    rs.getLong(5), rs.getLong(6), rs.getBoolean(7), segment));
+        });
+        catalog = List.copyOf(next);
+        for (CatalogEntry dropped : open.values()) {
+            refresher.schedule(() -> closeQuietly(dropped.segment()), catalogRefresh.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isEmpty() {
+        return catalog.isEmpty();
+    }
+
+    // False: no archived row is later than date, so newest-first reads can stop at the table
+    public boolean holdsRowsAfter(LocalDateTime date) {
+        for (CatalogEntry entry : catalog) {
+            if (entry.rangeEnd().isAfter(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // For ids the transactions table does not have
+    public Optional<TransactionDTO> findById(Long id) {
+        for (CatalogEntry entry : catalog) {
+            if (id >= entry.minId() && id <= entry.maxId()) {
+                Optional<TransactionDTO> row = entry.segment().findById(id);
+                if (row.isPresent() && (entry.settled() || !repository.existsById(id))) {
+                    idHits.increment();
+                    return row;
+                }
+            }
+        }
+        if (!catalog.isEmpty()) {
+            idMisses.increment();
+        }
+        return Optional.empty();
+    }
+
+    // Every archived row of the account, ordered by (transactionDate, id)
+    public List<TransactionDTO> findByAccountNumber(String accountNumber) {
+        return collect(accountNumber, catalog, entry -> true, row -> true, Integer.MAX_VALUE);
+    }
+
+    // Archived rows of the account after (date, id), oldest first, at most rows of them
+    public List<TransactionDTO> findPageAfter(String accountNumber, LocalDateTime date, Long id, int rows) {
+        List<TransactionDTO> page = date == null
+                ? collect(accountNumber, catalog, entry -> true, row -> true, rows)
+                : collect(accountNumber, catalog, entry -> entry.rangeEnd().isAfter(date),
+                row -> row.getTransactionDate().isAfter(date)
+                        || (row.getTransactionDate().isEqual(date) && row.getId() > id), rows);
+        return page.size() <= rows ? page : new ArrayList<>(page.subList(0, rows));
+    }
+
+    // Newest archived rows of the account, newest first, at most rows of them
+    public List<TransactionDTO> findRecent(String accountNumber, int rows) {
+        List<CatalogEntry> newestFirst = new ArrayList<>(catalog);
+        Collections.reverse(newestFirst);
+        List<TransactionDTO> recent = collect(accountNumber, newestFirst, entry -> true, row -> true, rows);
+        recent.sort(BY_DATE_AND_ID.reversed());
+        return recent.size() <= rows ? recent : new ArrayList<>(recent.subList(0, rows));
+    }
+
+    // Archived rows merged into table rows, both ordered by (transactionDate, id)
+    public static Iterator<TransactionDTO> merged(List<TransactionDTO> archived, Iterator<TransactionDTO> rows) {
+        if (archived.isEmpty()) {
+            return rows;
+        }
+        return new Iterator<>() {
+            private int next;
+            private TransactionDTO row;
+
+            @Override
+            public boolean hasNext() {
+                return next < archived.size() || row != null || rows.hasNext();
+            }
+
+            @Override
+            public TransactionDTO next() {
+                if (row == null && rows.hasNext()) {
+                    row = rows.next();
+                }
+                if (next < archived.size() && (row == null || BY_DATE_AND_ID.compare(archived.get(next), row) < 0)) {
+                    return archived.get(next++);
+                }
+                if (row == null) {
+                    throw new NoSuchElementException();
+                }
+                TransactionDTO current = row;
+                row = null;
+                return current;
+            }
+        };
+    }
+
+    /*
+     * Reads entries in the given order and stops after the month in which enough
+     * rows were found: months do not overlap, but a month can have several segments.
+     * Returns the rows ordered by (transactionDate, id).
+     */
+    private List<TransactionDTO> collect(String accountNumber, List<CatalogEntry> entries,
+                                         Predicate<CatalogEntry> wantedEntry, Predicate<TransactionDTO> wantedRow,
+                                         int rows) {
+        List<TransactionDTO> found = new ArrayList<>();
+        if (entries.isEmpty()) {
+            return found;
+        }
+        List<TransactionDTO> unsettled = new ArrayList<>();
+        LocalDateTime month = null;
+        for (CatalogEntry entry : entries) {
+            if (found.size() + unsettled.size() >= rows && !entry.rangeStart().equals(month)) {
+                break;
+            }
+            if (!wantedEntry.test(entry) || !entry.segment().mightContain(accountNumber)) {
+                continue;
+            }
+            month = entry.rangeStart();
+            for (TransactionDTO row : entry.segment().findByAccountNumber(accountNumber)) {
+                if (wantedRow.test(row)) {
+                    (entry.settled() ? found : unsettled).add(row);
+                }
+            }
+        }
+        if (!unsettled.isEmpty()) {
+            Set<Long> stillInTable = new HashSet<>(repository.findExistingIds(
+                    unsettled.stream().map(TransactionDTO::getId).toList()));
+            unsettled.removeIf(row -> stillInTable.contains(row.getId()));
+            found.addAll(unsettled);
+        }
+        (found.isEmpty() ? accountMisses : accountHits).increment();
+        found.sort(BY_DATE_AND_ID);
+        return found;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Archive catalog refresh failed; keeping the current one", e);
+        }
+    }
+
+    private static void closeQuietly(ArchiveSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Closing archive segment {} failed", segment.path(), e);
+        }
+    }
+
+    private Counter lookups(String kind, String outcome) {
+        return Counter.builder("ledger.archive.lookups").tag("kind", kind).tag("outcome", outcome).register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.lihle.ledger.cache;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter of strings, safe for concurrent put and mightContain.
+ *
+ * Sized for an expected number of entries and false-positive probability:
+ * bits = -n ln p / (ln 2)^2, hashes = bits / n * ln 2. The hash positions are
+ * derived from one 64-bit hash (h1 + i * h2, Kirsch-Mitzenmacher).
+ * writeTo/readFrom persist a filter (archive segments keep one of their accounts).
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    // Puts that set at least one new bit: close to the number of distinct entries
+    private final AtomicLong entries = new AtomicLong();
+
+    private BloomFilter(long bits, int hashes, long capacity) {
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+        this.bits = bits;
+        this.hashes = hashes;
+        this.capacity = capacity;
+    }
+
+    public static BloomFilter create(long expectedEntries, double falsePositiveProbability) {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False-positive probability must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedEntries);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes, n);
+    }
+
+    // True when the value was not (or not entirely) in the filter before
+    public boolean put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bits);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            entries.incrementAndGet();
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long index = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // bits, hashes, capacity, then the words
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(bits);
+        out.writeInt(hashes);
+        out.writeLong(capacity);
+        for (int i = 0; i < words.length(); i++) {
+            out.writeLong(words.get(i));
+        }
+    }
+
+    public static BloomFilter readFrom(ByteBuffer in) {
+        BloomFilter filter = new BloomFilter(in.getLong(), in.getInt(), in.getLong());
+        for (int i = 0; i < filter.words.length(); i++) {
+            filter.words.set(i, in.getLong());
+        }
+        return filter;
+    }
+
+    long entries() {
+        return entries.get();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    // (fraction of bits set)^hashes: the current chance that an absent value passes
+    double expectedFalsePositiveProbability() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bits, hashes);
+    }
+
+    // FNV-1a over the UTF-16 code units, finished with the MurmurHash3 64-bit mixer
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
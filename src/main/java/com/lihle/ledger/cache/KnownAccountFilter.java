@@ -0,0 +1,262 @@
+package com.lihle.ledger.cache;
+
+import com.lihle.ledger.repository.AccountBalanceRepository;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * KNOWN ACCOUNTS FILTER
+ *
+ * A Bloom filter of every account number that has transactions, archived ones
+ * included (archived_account_totals). Account reads for an account the filter
+ * has never seen return an empty result without a connection checkout or an
+ * index probe; a false positive only costs the query that would have run anyway.
+ *
+ * It must never miss an account that has committed transactions:
+ * - writers add the account before their insert commits (addAll), so a reader
+ *   that can see the rows can also see the account in the filter;
+ * - a rebuild scans the accounts into a new filter while writers add to both,
+ *   and the old filter keeps answering for ledger.accounts.filter.grace after
+ *   the swap, for writers that added to the old filter only and committed after
+ *   the scan started. Grace must exceed the longest write transaction;
+ * - until the first scan has finished, and whenever it is disabled, the filter
+ *   lets every lookup through.
+ *
+ * Populated on startup, rebuilt every ledger.accounts.filter.rebuild-interval
+ * (sized from the account count, so it follows growth) and early once it holds
+ * more accounts than it was sized for.
+ * Metrics: ledger.accounts.filter.lookups{outcome=absent|present|false_positive},
+ * ledger.accounts.filter.expected.fpp, ledger.accounts.filter.entries,
+ * ledger.accounts.filter.bytes.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class KnownAccountFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownAccountFilter.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountBalanceRepository balanceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.accounts.filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ledger.accounts.filter.fpp:0.01}")
+    private double falsePositiveProbability;
+
+    @Value("${ledger.accounts.filter.min-expected-accounts:100000}")
+    private long minExpectedAccounts;
+
+    // Room for growth until the next rebuild
+    @Value("${ledger.accounts.filter.headroom:2.0}")
+    private double headroom;
+
+    @Value("${ledger.accounts.filter.rebuild-interval:6h}")
+    private Duration rebuildInterval;
+
+    @Value("${ledger.accounts.filter.grace:1m}")
+    private Duration grace;
+
+    @Value("${ledger.accounts.filter.scan-page-size:10000}")
+    private int scanPageSize;
+
+    private ScheduledExecutorService rebuilder;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    // null until the first scan has finished: everything passes
+    private volatile BloomFilter current;
+    // Being filled by a rebuild; writers add to it as well
+    private volatile BloomFilter pending;
+    // Replaced filter, still consulted until previousUntilNanos (null: pass everything)
+    private volatile BloomFilter previous;
+    private volatile long previousUntilNanos;
+
+    private Counter absent;
+    private Counter present;
+    private Counter falsePositive;
+
+    @PostConstruct
+    void start() {
+        absent = lookups("absent");
+        present = lookups("present");
+        falsePositive = lookups("false_positive");
+        Gauge.builder("ledger.accounts.filter.expected.fpp", this,
+                        filter -> filter.current == null ? 1.0 : filter.current.expectedFalsePositiveProbability())
+                .register(meterRegistry);
+        Gauge.builder("ledger.accounts.filter.entries", this,
+                        filter -> filter.current == null ? 0 : filter.current.entries())
+                .register(meterRegistry);
+        Gauge.builder("ledger.accounts.filter.bytes", this, KnownAccountFilter::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-account-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuildQueued.set(true);
+        rebuilder.execute(this::rebuild);
+        rebuilder.scheduleWithFixedDelay(this::requestRebuild,
+                rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the account query unless the filter rules the account out, in which
+     * case the result is empty. Call it outside any transaction, or the
+     * connection has already been checked out.
+     */
+    public <T> List<T> ifKnown(String accountNumber, Supplier<List<T>> query) {
+        BloomFilter filter = current;
+        boolean listed = filter != null && filter.mightContain(accountNumber);
+        if (!listed && !passesUnlisted(filter, accountNumber)) {
+            absent.increment();
+            return List.of();
+        }
+        List<T> rows = query.get();
+        // Lookups let through by grace or pass-through say nothing about the filter
+        if (listed) {
+            (rows.isEmpty() ? falsePositive : present).increment();
+        }
+        return rows;
+    }
+
+    public boolean mightExist(String accountNumber) {
+        BloomFilter filter = current;
+        return (filter != null && filter.mightContain(accountNumber)) || passesUnlisted(filter, accountNumber);
+    }
+
+    private boolean passesUnlisted(BloomFilter filter, String accountNumber) {
+        if (!enabled || filter == null) {
+            return true;
+        }
+        if (System.nanoTime() - previousUntilNanos < 0) {
+            BloomFilter replaced = previous;
+            return replaced == null || replaced.mightContain(accountNumber);
+        }
+        return false;
+    }
+
+    // Writers call this before their inserts commit
+    public void addAll(Iterable<String> accountNumbers) {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter filter = current;
+        BloomFilter filling = pending;
+        for (String accountNumber : accountNumbers) {
+            if (filter != null) {
+                filter.put(accountNumber);
+            }
+            if (filling != null) {
+                filling.put(accountNumber);
+            }
+        }
+        if (filter != null && filter.entries() > filter.capacity()) {
+            requestRebuild();
+        }
+    }
+
+    private void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    private void scan(BloomFilter next, BiFunction<String, Integer, List<String>> pageAfter) {
+        String after = "";
+        List<String> page;
+        do {
+            page = pageAfter.apply(after, scanPageSize);
+            for (String accountNumber : page) {
+                next.put(accountNumber);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == scanPageSize);
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        try {
+            long expected = Math.max(minExpectedAccounts, (long) Math.ceil(balanceRepository.count() * headroom));
+            BloomFilter next = BloomFilter.create(expected, falsePositiveProbability);
+            pending = next;
+
+            // One index probe per account (see findAccountNumbersAfter), then the accounts
+            // with archived rows: archiving removes rows and records the account in one transaction
+            scan(next, transactionRepository::findAccountNumbersAfter);
+            scan(next, transactionRepository::findArchivedAccountNumbersAfter);
+
+            BloomFilter replaced = current;
+            previous = replaced;
+            previousUntilNanos = System.nanoTime() + grace.toNanos();
+            current = next;
+            rebuilder.schedule(() -> {
+                if (previous == replaced) {
+                    previous = null;
+                }
+            }, grace.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Known-accounts filter rebuilt: {} accounts, {} KiB, expected false-positive rate {} in {} ms",
+                    next.entries(), next.sizeInBytes() / 1024,
+                    String.format("%.4f", next.expectedFalsePositiveProbability()),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            // The previous filter (or pass-through) stays in place
+            log.warn("Known-accounts filter rebuild failed", e);
+        } finally {
+            pending = null;
+            rebuildQueued.set(false);
+        }
+    }
+
+    private double sizeInBytes() {
+        long bytes = 0;
+        for (BloomFilter filter : new BloomFilter[]{current, pending, previous}) {
+            if (filter != null) {
+                bytes += filter.sizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private Counter lookups(String outcome) {
+        return Counter.builder("ledger.accounts.filter.lookups").tag("outcome", outcome).register(meterRegistry);
+    }
+}
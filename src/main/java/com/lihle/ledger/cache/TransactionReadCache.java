@@ -0,0 +1,119 @@
+package com.lihle.ledger.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lihle.ledger.dto.TransactionDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * READ CACHE in front of TransactionRepository
+ *
+ * Holds finished DTOs, so a hit skips the query and both mapping steps:
+ * - by id: single transactions
+ * - by account: the most recent N transactions of an account, newest first
+ *
+ * Both are bounded by size and expire after a TTL. Writers call evict(), which
+ * evicts immediately and again after commit: a reader that loaded the old row
+ * before the commit cannot leave it behind in the cache.
+ *
+ * Hit, miss and eviction counters are published as cache.* metrics under the
+ * names transactions.byId and transactions.recentByAccount.
+ */
+@Component
+public class TransactionReadCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.cache.transactions.max-size:100000}")
+    private long maxTransactions;
+
+    @Value("${ledger.cache.accounts.max-size:10000}")
+    private long maxAccounts;
+
+    @Value("${ledger.cache.accounts.recent-rows:50}")
+    private int recentRows;
+
+    @Value("${ledger.cache.ttl:5m}")
+    private Duration ttl;
+
+    private Cache<Long, TransactionDTO> byId;
+    private Cache<String, List<TransactionDTO>> recentByAccount;
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxTransactions)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        recentByAccount = Caffeine.newBuilder()
+                .maximumSize(maxAccounts)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "transactions.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, recentByAccount, "transactions.recentByAccount");
+    }
+
+    // Misses are not cached: an unknown id goes to the database every time
+    public Optional<TransactionDTO> getById(Long id, Function<Long, Optional<TransactionDTO>> loader) {
+        return Optional.ofNullable(byId.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Most recent transactions of an account, newest first. Requests for more
+     * than ledger.cache.accounts.recent-rows bypass the cache.
+     */
+    public List<TransactionDTO> getRecent(String accountNumber, int limit, Function<Integer, List<TransactionDTO>> loader) {
+        if (limit > recentRows) {
+            return loader.apply(limit);
+        }
+        List<TransactionDTO> recent = recentByAccount.get(accountNumber, key -> List.copyOf(loader.apply(recentRows)));
+        return recent.size() <= limit ? recent : recent.subList(0, limit);
+    }
+
+    public void evict(Long id, String accountNumber) {
+        evictNowAndAfterCommit(() -> {
+            if (id != null) {
+                byId.invalidate(id);
+            }
+            if (accountNumber != null) {
+                recentByAccount.invalidate(accountNumber);
+            }
+        });
+    }
+
+    public void evictAll(Collection<Long> ids, Collection<String> accountNumbers) {
+        evictNowAndAfterCommit(() -> {
+            byId.invalidateAll(ids);
+            recentByAccount.invalidateAll(accountNumbers);
+        });
+    }
+
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
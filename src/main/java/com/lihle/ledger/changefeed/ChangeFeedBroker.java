@@ -0,0 +1,357 @@
+package com.lihle.ledger.changefeed;
+
+import com.lihle.ledger.dto.ChangeFeedPageDTO;
+import com.lihle.ledger.service.ChangeFeedCursor;
+import com.lihle.ledger.service.ChangeFeedService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CHANGE FEED DELIVERY
+ *
+ * Consumers keep their own position (cursor); the broker only decides when to
+ * read again. A single ticker checks the newest settled position every
+ * ledger.changes.poll-interval, and right after local commits that recorded
+ * changes. When it moves, every waiting consumer reads from its own cursor.
+ *
+ * Long-poll: a request that finds nothing parks as a waiter until the feed
+ * moves or its wait expires, without holding a request thread.
+ * SSE: each subscription has at most one pump running. The pump reads the next
+ * batch only after the previous one has been written to the client, so a slow
+ * consumer just falls behind on its cursor and nothing queues up in memory.
+ * Pumps run on their own threads so a stalled client cannot delay others.
+ *
+ * Capacity limits (ledger.changes.max-waiters, ledger.changes.stream.max-subscribers)
+ * surface as RejectedExecutionException, answered with 503.
+ * Metrics: ledger.changes.waiters, ledger.changes.subscribers, ledger.changes.delivered{transport}.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class ChangeFeedBroker {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedBroker.class);
+
+    @Autowired
+    private ChangeFeedService changeFeed;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.changes.poll-interval:500ms}")
+    private Duration pollInterval;
+
+    @Value("${ledger.changes.max-wait:30s}")
+    private Duration maxWait;
+
+    @Value("${ledger.changes.max-waiters:1000}")
+    private int maxWaiters;
+
+    @Value("${ledger.changes.readers:4}")
+    private int readers;
+
+    @Value("${ledger.changes.stream.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${ledger.changes.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    @Value("${ledger.changes.stream.timeout:30m}")
+    private Duration streamTimeout;
+
+    @Value("${ledger.changes.stream.heartbeat:15s}")
+    private Duration heartbeat;
+
+    @Value("${ledger.changes.purge-interval:1h}")
+    private Duration purgeInterval;
+
+    private ScheduledExecutorService ticker;
+    private ThreadPoolExecutor readerPool;
+    private ThreadPoolExecutor pumpPool;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean checkQueued = new AtomicBoolean();
+    // Bumped whenever the settled head moves; consumers compare it to the value they read at
+    private final AtomicLong generation = new AtomicLong();
+    private volatile ChangeFeedCursor head = ChangeFeedCursor.START;
+
+    private Counter deliveredPoll;
+    private Counter deliveredStream;
+
+    private static final class Waiter {
+        final DeferredResult<ChangeFeedPageDTO> result;
+        final int limit;
+        final ChangeFeedService.Filter filter;
+        // Moves past changes the filter skipped while waiting
+        volatile ChangeFeedCursor cursor;
+
+        Waiter(DeferredResult<ChangeFeedPageDTO> result, int limit, ChangeFeedService.Filter filter, ChangeFeedCursor cursor) {
+            this.result = result;
+            this.limit = limit;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+    }
+
+    private final class Subscription {
+        final SseEmitter emitter;
+        final ChangeFeedService.Filter filter;
+        final AtomicBoolean pumping = new AtomicBoolean();
+        volatile ChangeFeedCursor cursor;
+        volatile long lastSentNanos = System.nanoTime();
+
+        Subscription(SseEmitter emitter, ChangeFeedCursor cursor, ChangeFeedService.Filter filter) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.filter = filter;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(daemon("ledger-changes-ticker"));
+        readerPool = new ThreadPoolExecutor(readers, readers, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("ledger-changes-reader"));
+        // One pump per subscription at most, so max-subscribers threads are enough
+        pumpPool = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemon("ledger-changes-stream"));
+
+        deliveredPoll = Counter.builder("ledger.changes.delivered").tag("transport", "poll").register(meterRegistry);
+        deliveredStream = Counter.builder("ledger.changes.delivered").tag("transport", "sse").register(meterRegistry);
+        Gauge.builder("ledger.changes.waiters", waiters, Set::size).register(meterRegistry);
+        Gauge.builder("ledger.changes.subscribers", subscriptions, Set::size).register(meterRegistry);
+
+        ticker.scheduleWithFixedDelay(this::checkHead, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+        readerPool.shutdownNow();
+        pumpPool.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    // Local commits: check right away instead of at the next tick
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onChangesRecorded(TransactionChangesRecorded event) {
+        if (checkQueued.compareAndSet(false, true)) {
+            ticker.execute(this::checkHead);
+        }
+    }
+
+    /**
+     * Long-poll: answers at once when there are changes after the cursor (or wait
+     * is zero), otherwise when the feed moves or wait expires. An expired wait
+     * answers an empty batch; its nextCursor still moves past filtered-out changes.
+     */
+    public DeferredResult<ChangeFeedPageDTO> poll(ChangeFeedCursor cursor, int limit,
+                                                  ChangeFeedService.Filter filter, Duration wait) {
+        if (wait.isNegative() || wait.compareTo(maxWait) > 0) {
+            throw new IllegalArgumentException("wait must be between 0 and " + maxWait.toSeconds() + " seconds");
+        }
+        long seen = generation.get();
+        ChangeFeedPageDTO page = changeFeed.readChanges(cursor, limit, filter);
+        DeferredResult<ChangeFeedPageDTO> result = new DeferredResult<>(wait.toMillis());
+        if (!page.getChanges().isEmpty() || page.isHasMore() || wait.isZero()) {
+            deliveredPoll.increment(page.getChanges().size());
+            result.setResult(page);
+            return result;
+        }
+
+        if (waiters.size() >= maxWaiters) {
+            throw new RejectedExecutionException("Too many waiting change feed consumers");
+        }
+        Waiter waiter = new Waiter(result, limit, filter, ChangeFeedCursor.decode(page.getNextCursor()));
+        result.onTimeout(() -> {
+            waiters.remove(waiter);
+            result.setResult(new ChangeFeedPageDTO(List.of(), waiter.cursor.encode(), false));
+        });
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // The feed may have moved between the read and the registration
+        if (generation.get() != seen && waiters.remove(waiter)) {
+            wake(waiter);
+        }
+        return result;
+    }
+
+    /**
+     * SSE stream from the cursor: "changes" events carrying batches, each with the
+     * position after its last change as event id (sent back as Last-Event-ID on
+     * reconnect), plus a heartbeat comment after ledger.changes.stream.heartbeat of silence.
+     */
+    public SseEmitter subscribe(ChangeFeedCursor cursor, ChangeFeedService.Filter filter) {
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new RejectedExecutionException("Too many change feed subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscription subscription = new Subscription(emitter, cursor == null ? ChangeFeedCursor.START : cursor, filter);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        schedulePump(subscription);
+        return emitter;
+    }
+
+    private void checkHead() {
+        checkQueued.set(false);
+        try {
+            ChangeFeedCursor current = changeFeed.settledHead().orElse(ChangeFeedCursor.START);
+            if (!current.isAfter(head)) {
+                return;
+            }
+            head = current;
+            generation.incrementAndGet();
+            for (Waiter waiter : waiters) {
+                if (waiters.remove(waiter)) {
+                    wake(waiter);
+                }
+            }
+            subscriptions.forEach(this::schedulePump);
+        } catch (RuntimeException e) {
+            log.warn("Change feed head check failed", e);
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        readerPool.execute(() -> {
+            if (waiter.result.isSetOrExpired()) {
+                return;
+            }
+            long seen = generation.get();
+            try {
+                ChangeFeedPageDTO page = changeFeed.readChanges(waiter.cursor, waiter.limit, waiter.filter);
+                if (!page.getChanges().isEmpty() || page.isHasMore()) {
+                    if (waiter.result.setResult(page)) {
+                        deliveredPoll.increment(page.getChanges().size());
+                    }
+                    return;
+                }
+                // Only filtered-out changes: wait on from the new position
+                waiter.cursor = ChangeFeedCursor.decode(page.getNextCursor());
+                if (waiter.result.isSetOrExpired()) {
+                    return;
+                }
+                waiters.add(waiter);
+                if (generation.get() != seen && waiters.remove(waiter)) {
+                    wake(waiter);
+                }
+            } catch (RuntimeException e) {
+                waiter.result.setErrorResult(e);
+            }
+        });
+    }
+
+    private void schedulePump(Subscription subscription) {
+        if (!subscription.pumping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            pumpPool.execute(() -> pump(subscription));
+        } catch (RejectedExecutionException e) {
+            subscription.pumping.set(false);
+        }
+    }
+
+    // Catches the subscription up batch by batch; each send blocks until the client takes it
+    private void pump(Subscription subscription) {
+        long seen = generation.get();
+        try {
+            ChangeFeedPageDTO page;
+            do {
+                page = changeFeed.readChanges(subscription.cursor, streamBatchSize, subscription.filter);
+                subscription.cursor = ChangeFeedCursor.decode(page.getNextCursor());
+                if (!page.getChanges().isEmpty()) {
+                    subscription.emitter.send(SseEmitter.event()
+                            .id(page.getNextCursor())
+                            .name("changes")
+                            .data(page.getChanges()));
+                    subscription.lastSentNanos = System.nanoTime();
+                    deliveredStream.increment(page.getChanges().size());
+                }
+            } while (page.isHasMore() && subscriptions.contains(subscription));
+            if (System.nanoTime() - subscription.lastSentNanos >= heartbeat.toNanos()) {
+                subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                subscription.lastSentNanos = System.nanoTime();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; onCompletion/onError removes the subscription
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(e);
+        } catch (RuntimeException e) {
+            log.warn("Change feed stream failed", e);
+            subscriptions.remove(subscription);
+            subscription.emitter.completeWithError(e);
+        } finally {
+            subscription.pumping.set(false);
+        }
+        // Woken while pumping: go again so the wake-up is not lost
+        if (generation.get() != seen && subscriptions.contains(subscription)) {
+            schedulePump(subscription);
+        }
+    }
+
+    // Idle subscriptions get a comment line, which also detects clients that went away
+    private void heartbeat() {
+        long threshold = System.nanoTime() - heartbeat.toNanos();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.lastSentNanos < threshold) {
+                schedulePump(subscription);
+            }
+        }
+    }
+
+    private void purge() {
+        try {
+            long deleted = changeFeed.purgeExpired();
+            if (deleted > 0) {
+                log.info("Purged {} expired change feed entries", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change feed purge failed", e);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
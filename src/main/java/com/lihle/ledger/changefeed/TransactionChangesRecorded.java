@@ -0,0 +1,8 @@
+package com.lihle.ledger.changefeed;
+
+/**
+ * Published by ChangeFeedService when a database transaction recorded changes;
+ * listeners use it after commit to wake consumers without waiting for the next poll.
+ */
+public record TransactionChangesRecorded(int count) {
+}
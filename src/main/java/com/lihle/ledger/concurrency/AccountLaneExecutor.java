@@ -0,0 +1,164 @@
+package com.lihle.ledger.concurrency;
+
+import com.lihle.ledger.metrics.StatementCountingInspector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * ACCOUNT LANES: single-writer execution per account (opt-in, ledger.lanes.enabled).
+ *
+ * accountNumber is hashed onto one of ledger.lanes.count single-threaded lanes.
+ * Single creates (POST /transactions) and single status changes (PATCH
+ * /transactions/{id}/status) of one account then run one after another in arrival
+ * order, while different accounts run in parallel on different lanes; a hot
+ * account takes one lane instead of many pooled connections.
+ * Batch, async group-commit and bulk status writes do not run on lanes: they
+ * still update the same account_balances and rollup rows and wait on their row
+ * locks. The lanes also cap those two endpoints at ledger.lanes.count concurrent
+ * writes, which is why they are off by default.
+ *
+ * Callers block until their task has run. Work that is already on the target
+ * lane runs inline, so nested calls cannot deadlock. A full lane queue throws
+ * RejectedExecutionException. Statements the task runs are added to the calling
+ * thread's count (StatementCountingInspector), so request metrics include them.
+ *
+ * Metrics: ledger.lanes.queue.depth{lane}, ledger.lanes.skew (busiest lane's
+ * submissions / mean submissions per lane, 1.0 = perfectly even).
+ */
+@Component
+public class AccountLaneExecutor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.lanes.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ledger.lanes.count:0}")
+    private int laneCount;
+
+    @Value("${ledger.lanes.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor[] lanes;
+    private Thread[] laneThreads;
+    private AtomicLongArray submitted;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[count];
+        laneThreads = new Thread[count];
+        submitted = new AtomicLongArray(count);
+
+        for (int i = 0; i < count; i++) {
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "ledger-lane-" + lane);
+                        thread.setDaemon(true);
+                        laneThreads[lane] = thread;
+                        return thread;
+                    });
+            lanes[i].prestartCoreThread();
+            Gauge.builder("ledger.lanes.queue.depth", lanes[i], executor -> executor.getQueue().size())
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("ledger.lanes.skew", this, AccountLaneExecutor::skew).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the task on the account's lane and returns its result.
+     * Runtime exceptions thrown by the task reach the caller unchanged.
+     */
+    public <T> T execute(String accountNumber, Supplier<T> task) {
+        if (!enabled || accountNumber == null) {
+            return task.get();
+        }
+        int lane = laneFor(accountNumber);
+        if (Thread.currentThread() == laneThreads[lane]) {
+            return task.get();
+        }
+
+        submitted.incrementAndGet(lane);
+        int[] statements = {0};
+        Future<T> future = lanes[lane].submit(() -> {
+            int before = StatementCountingInspector.count();
+            try {
+                return task.get();
+            } finally {
+                statements[0] = StatementCountingInspector.count() - before;
+            }
+        });
+        try {
+            T result = future.get();
+            StatementCountingInspector.add(statements[0]);
+            return result;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for account lane " + lane, e);
+        } catch (ExecutionException e) {
+            StatementCountingInspector.add(statements[0]);
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    int laneFor(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    private double skew() {
+        long max = 0;
+        long total = 0;
+        for (int i = 0; i < submitted.length(); i++) {
+            long count = submitted.get(i);
+            max = Math.max(max, count);
+            total += count;
+        }
+        return total == 0 ? 1.0 : (double) max * submitted.length() / total;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (lanes == null) {
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+}
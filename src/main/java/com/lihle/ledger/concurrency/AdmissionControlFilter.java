@@ -0,0 +1,298 @@
+package com.lihle.ledger.concurrency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lihle.ledger.concurrency.PriorityLimiter.Admission;
+import com.lihle.ledger.concurrency.PriorityLimiter.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ADMISSION CONTROL in front of the API
+ *
+ * When PostgreSQL slows down, requests would otherwise pile up in Tomcat threads
+ * and the connection pool until they all time out together. Every request first:
+ * 1. with ledger.admission.client.enabled (off by default), takes a token from its
+ *    client's bucket (ledger.admission.client.rate per second, bursts up to
+ *    ledger.admission.client.burst). Empty bucket → 429, Retry-After = until the
+ *    next token. The client is the authenticated principal when the container
+ *    provides one, else the ledger.admission.client.header value, else the remote
+ *    address. The service authenticates nobody itself: the header is only an
+ *    identity when a gateway in front authenticates callers and sets it
+ *    (overwriting any value they sent). Otherwise a caller can rotate it to escape
+ *    its limit, and without it everyone behind one proxy shares a bucket;
+ * 2. takes a slot under the adaptive concurrency limit (GradientLimit: shrinks as
+ *    latency rises, grows back while it stays flat) within its priority class's
+ *    share (PriorityLimiter):
+ *    - WRITE: POST/PATCH/PUT/DELETE (creates, status changes), the whole limit;
+ *    - READ: other GETs, ledger.admission.read-share of it;
+ *    - BULK: full listings, NDJSON streams, batch creates, bulk status transitions,
+ *      statements, exports, reports, rebuilds, shard and partition administration,
+ *      ledger.admission.bulk-share of it.
+ *    No slot within the class's max-wait → 503, Retry-After = ledger.admission.retry-after.
+ * Under overload bulk reads are shed first and writes last, and a rejected request
+ * is answered without touching the database. Only WRITE and READ latencies feed
+ * the limit: bulk requests are slow by nature, not because the database is.
+ * Streaming responses hold their slot until the stream completes.
+ * /actuator and /changes (bounded by their own waiter limits) are not admitted here.
+ *
+ * Metrics: ledger.admission.admitted{priority}, ledger.admission.queued{priority},
+ * ledger.admission.rejected{priority,reason=rate|concurrency}, ledger.admission.limit,
+ * ledger.admission.inflight, ledger.admission.waiting.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "ledger.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    // "METHOD pattern"; * matches any method
+    private static final List<String> BULK_ROUTES = List.of(
+            "GET /transactions",
+            "GET /transactions/stream",
+            "POST /transactions/batch",
+            "POST /transactions/status/bulk",
+            "GET /accounts/*/statement",
+            "POST /exports",
+            "POST /accounts/balances/rebuild",
+            "* /reports/**",
+            "* /shards/**",
+            "* /partitions/**");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.admission.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${ledger.admission.min-limit:4}")
+    private int minLimit;
+
+    @Value("${ledger.admission.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${ledger.admission.read-share:0.8}")
+    private double readShare;
+
+    @Value("${ledger.admission.bulk-share:0.25}")
+    private double bulkShare;
+
+    @Value("${ledger.admission.write-max-wait:250ms}")
+    private Duration writeMaxWait;
+
+    @Value("${ledger.admission.read-max-wait:50ms}")
+    private Duration readMaxWait;
+
+    @Value("${ledger.admission.bulk-max-wait:0ms}")
+    private Duration bulkMaxWait;
+
+    @Value("${ledger.admission.max-waiting:200}")
+    private int maxWaiting;
+
+    @Value("${ledger.admission.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Value("${ledger.admission.client.enabled:false}")
+    private boolean clientLimits;
+
+    @Value("${ledger.admission.client.header:X-Client-Id}")
+    private String clientHeader;
+
+    @Value("${ledger.admission.client.rate:500}")
+    private double clientRate;
+
+    @Value("${ledger.admission.client.burst:1000}")
+    private double clientBurst;
+
+    @Value("${ledger.admission.client.max-tracked:100000}")
+    private long maxTrackedClients;
+
+    private PriorityLimiter limiter;
+    private Cache<String, TokenBucket> buckets;
+
+    private final Map<Priority, Counter> admitted = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> queued = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rateRejected = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> concurrencyRejected = new EnumMap<>(Priority.class);
+
+    @PostConstruct
+    void start() {
+        if (clientRate <= 0 || clientBurst < 1) {
+            throw new IllegalArgumentException("ledger.admission.client.rate must be > 0 and client.burst >= 1");
+        }
+        limiter = new PriorityLimiter(
+                new GradientLimit(initialLimit, minLimit, maxLimit),
+                new double[]{1.0, readShare, bulkShare},
+                new long[]{writeMaxWait.toNanos(), readMaxWait.toNanos(), bulkMaxWait.toNanos()},
+                maxWaiting);
+        if (clientLimits) {
+            buckets = newBuckets();
+        }
+
+        for (Priority priority : Priority.values()) {
+            admitted.put(priority, Counter.builder("ledger.admission.admitted")
+                    .tag("priority", priority.tag()).register(meterRegistry));
+            queued.put(priority, Counter.builder("ledger.admission.queued")
+                    .tag("priority", priority.tag()).register(meterRegistry));
+            rateRejected.put(priority, Counter.builder("ledger.admission.rejected")
+                    .tag("priority", priority.tag()).tag("reason", "rate").register(meterRegistry));
+            concurrencyRejected.put(priority, Counter.builder("ledger.admission.rejected")
+                    .tag("priority", priority.tag()).tag("reason", "concurrency").register(meterRegistry));
+        }
+        Gauge.builder("ledger.admission.limit", limiter, PriorityLimiter::limit).register(meterRegistry);
+        Gauge.builder("ledger.admission.inflight", limiter, PriorityLimiter::inflight).register(meterRegistry);
+        Gauge.builder("ledger.admission.waiting", limiter, PriorityLimiter::waiting).register(meterRegistry);
+    }
+
+    // Idle clients drop out once their bucket would have refilled anyway
+    private Cache<String, TokenBucket> newBuckets() {
+        long refillNanos = (long) Math.ceil(clientBurst / clientRate * 1e9);
+        return Caffeine.newBuilder()
+                .maximumSize(maxTrackedClients)
+                .expireAfterAccess(Math.max(refillNanos, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/actuator") || path.startsWith("/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = classify(request);
+
+        //1. Per-client rate
+        long nextTokenNanos = !clientLimits ? 0 : buckets.get(clientOf(request),
+                        client -> new TokenBucket(clientRate, clientBurst, System.nanoTime()))
+                .tryTake(System.nanoTime());
+        if (nextTokenNanos > 0) {
+            rateRejected.get(priority).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Duration.ofNanos(nextTokenNanos),
+                    "Request rate limit exceeded for this client");
+            return;
+        }
+
+        //2. Concurrency slot
+        Admission admission;
+        try {
+            admission = limiter.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = Admission.REJECTED;
+        }
+        if (admission == Admission.REJECTED) {
+            concurrencyRejected.get(priority).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, retryAfter, "Server is at capacity, retry later");
+            return;
+        }
+        admitted.get(priority).increment();
+        if (admission == Admission.AFTER_WAIT) {
+            queued.get(priority).increment();
+        }
+
+        //3. Run it; the slot goes back when the response is complete
+        int inflightAtStart = limiter.inflight();
+        long start = System.nanoTime();
+        boolean sampled = priority != Priority.BULK;
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(released, -1, inflightAtStart);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(released, -1, inflightAtStart);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release(released, sampled ? System.nanoTime() - start : -1, inflightAtStart);
+            }
+        }
+    }
+
+    // Async work started inside an admitted request (streams) is released by its listener
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    private void release(AtomicBoolean released, long rttNanos, int inflightAtStart) {
+        if (released.compareAndSet(false, true)) {
+            limiter.release(rttNanos, inflightAtStart);
+        }
+    }
+
+    static Priority classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String route : BULK_ROUTES) {
+            int space = route.indexOf(' ');
+            String routeMethod = route.substring(0, space);
+            if ((routeMethod.equals("*") || routeMethod.equals(method)) && PATHS.match(route.substring(space + 1), path)) {
+                return Priority.BULK;
+            }
+        }
+        return method.equals("GET") || method.equals("HEAD") ? Priority.READ : Priority.WRITE;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (request.getUserPrincipal() != null) {
+            return "principal:" + request.getUserPrincipal().getName();
+        }
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? "address:" + request.getRemoteAddr() : "header:" + client;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, Duration retryAfter, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        // Whole seconds, rounded up: Retry-After: 0 would invite an immediate retry
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,83 @@
+package com.lihle.ledger.concurrency;
+
+/**
+ * Concurrency limit that follows observed latency (gradient algorithm, after
+ * Netflix concurrency-limits' Gradient2).
+ *
+ * Latency samples are averaged over short windows. Each window compares its
+ * average (short RTT) with a slow moving average of past windows (long RTT):
+ *   gradient = clamp(TOLERANCE * longRtt / shortRtt, 0.5, 1)
+ *   limit    = smooth(limit * gradient + sqrt(limit))
+ * While latency stays near its baseline the limit grows by about sqrt(limit) per
+ * window; when latency climbs (the database slows down) it shrinks in proportion.
+ * Windows in which less than half of the limit was in use do not move it: the
+ * load, not the server, was the bottleneck.
+ */
+final class GradientLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    // Long RTT: moving average over roughly the last 600 windows
+    private static final double LONG_RTT_WEIGHT = 2.0 / 601;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final long MIN_WINDOW_NANOS = 100_000_000L;
+    private static final long MAX_WINDOW_NANOS = 1_000_000_000L;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private volatile double limit;
+    private double longRtt;
+
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInflight;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    int current() {
+        return (int) limit;
+    }
+
+    // inflight: requests running when this one started, itself included
+    synchronized void onSample(long rttNanos, int inflight) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflight);
+
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        boolean full = windowSamples >= MIN_WINDOW_SAMPLES && elapsed >= MIN_WINDOW_NANOS;
+        if (!full && elapsed < MAX_WINDOW_NANOS) {
+            return;
+        }
+        double shortRtt = Math.max(1, (double) windowRttSum / windowSamples);
+        int maxInflight = windowMaxInflight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+        // After a slow period the baseline stays high for a long time; pull it back down
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (maxInflight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        next = limit * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
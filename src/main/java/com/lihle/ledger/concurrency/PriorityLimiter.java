@@ -0,0 +1,131 @@
+package com.lihle.ledger.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-flight request slots under a GradientLimit, shared by priority classes.
+ *
+ * A class may fill up to its share of the limit (writes 1.0, so bulk reads can
+ * never crowd them out) and is admitted only while no higher class is waiting.
+ * A request that finds no slot waits up to its class's max wait for one; a freed
+ * slot is offered to the highest class with waiters first. At most maxWaiting
+ * requests wait at a time, the rest are rejected immediately.
+ */
+final class PriorityLimiter {
+
+    /** In order of precedence. */
+    enum Priority {
+        WRITE, READ, BULK;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    enum Admission {
+        IMMEDIATE, AFTER_WAIT, REJECTED
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final GradientLimit limit;
+    private final double[] shares;
+    private final long[] maxWaitNanos;
+    private final int maxWaiting;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition[] slotFreed = new Condition[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    private volatile int totalWaiting;
+    private volatile int inflight;
+
+    PriorityLimiter(GradientLimit limit, double[] shares, long[] maxWaitNanos, int maxWaiting) {
+        this.limit = limit;
+        this.shares = shares.clone();
+        this.maxWaitNanos = maxWaitNanos.clone();
+        this.maxWaiting = maxWaiting;
+        for (int i = 0; i < slotFreed.length; i++) {
+            slotFreed[i] = lock.newCondition();
+        }
+    }
+
+    Admission acquire(Priority priority) throws InterruptedException {
+        int p = priority.ordinal();
+        lock.lock();
+        try {
+            if (admissible(p)) {
+                inflight++;
+                return Admission.IMMEDIATE;
+            }
+            long remaining = maxWaitNanos[p];
+            if (remaining <= 0 || totalWaiting >= maxWaiting) {
+                return Admission.REJECTED;
+            }
+            waiting[p]++;
+            totalWaiting++;
+            try {
+                while (remaining > 0) {
+                    remaining = slotFreed[p].awaitNanos(remaining);
+                    if (admissible(p)) {
+                        inflight++;
+                        return Admission.AFTER_WAIT;
+                    }
+                }
+                return Admission.REJECTED;
+            } finally {
+                waiting[p]--;
+                totalWaiting--;
+                // Let the next waiter (or a lower class) look at the slot this one did not take
+                signalHighestWaiting();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frees a slot; rttNanos >= 0 also feeds the adaptive limit. */
+    void release(long rttNanos, int inflightAtStart) {
+        if (rttNanos >= 0) {
+            limit.onSample(rttNanos, inflightAtStart);
+        }
+        lock.lock();
+        try {
+            inflight--;
+            signalHighestWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inflight() {
+        return inflight;
+    }
+
+    int waiting() {
+        return totalWaiting;
+    }
+
+    int limit() {
+        return limit.current();
+    }
+
+    private boolean admissible(int p) {
+        for (int higher = 0; higher < p; higher++) {
+            if (waiting[higher] > 0) {
+                return false;
+            }
+        }
+        return inflight < Math.max(1, (int) (limit.current() * shares[p]));
+    }
+
+    private void signalHighestWaiting() {
+        for (int p = 0; p < waiting.length; p++) {
+            if (waiting[p] > 0) {
+                slotFreed[p].signal();
+                return;
+            }
+        }
+    }
+}
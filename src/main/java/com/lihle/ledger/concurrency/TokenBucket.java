@@ -0,0 +1,33 @@
+package com.lihle.ledger.concurrency;
+
+/**
+ * Token bucket: refills at a fixed rate up to burst tokens; one token per request.
+ */
+final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double tokensPerSecond, double burst, long now) {
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token and returns 0, or returns the nanoseconds until the next token
+     * when the bucket is empty.
+     */
+    synchronized long tryTake(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
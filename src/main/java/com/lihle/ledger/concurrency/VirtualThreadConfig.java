@@ -0,0 +1,60 @@
+package com.lihle.ledger.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * VIRTUAL-THREAD MODE (opt-in, profile "virtual", Java 21+)
+ *
+ * spring.threads.virtual.enabled makes Spring Boot run Tomcat request handling,
+ * and with it the controller and repository calls, on virtual threads. This
+ * configuration adds the connection admission that mode needs: the DataSource
+ * is wrapped in a ConnectionAdmissionDataSource sized like the Hikari pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ledger.db.admission.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public static BeanPostProcessor connectionAdmissionPostProcessor(Environment environment,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        Duration timeout = environment.getProperty("ledger.db.admission.timeout", Duration.class, Duration.ofSeconds(5));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                int maxConnections = environment.getProperty("ledger.db.admission.max-connections", Integer.class,
+                        hikari.getMaximumPoolSize());
+                return new ConnectionAdmissionDataSource(hikari, maxConnections, timeout, meterRegistry.getObject());
+            }
+        };
+    }
+
+    // Spring Boot silently stays on platform threads below Java 21
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnWithoutVirtualThreads(ApplicationReadyEvent event) {
+        boolean requested = event.getApplicationContext().getEnvironment()
+                .getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (requested && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; running on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.dto.AccountBalanceDTO;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.AccountBalanceService;
+import com.lihle.ledger.service.TransactionService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/accounts")
+public class AccountController {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    // jpa backend only
+    @Autowired
+    private ObjectProvider<AccountBalanceService> balanceService;
+
+    @GetMapping("/{accountNumber}/balance")
+    public ResponseEntity<AccountBalanceDTO> getBalance(@PathVariable String accountNumber) {
+        return transactionService.getBalance(accountNumber)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Newest first; small limits are served from the read cache.
+    // ETag = the account's change version: an unchanged account answers 304 from one row lookup.
+    // Accounts the KnownAccountFilter rules out skip that lookup and are answered without a connection;
+    // backends without a balance projection answer without an ETag.
+    @GetMapping("/{accountNumber}/transactions/recent")
+    public ResponseEntity<List<TransactionDTO>> getRecentTransactions(@PathVariable String accountNumber,
+                                                                      @RequestParam(defaultValue = "20") int limit,
+                                                                      WebRequest webRequest) {
+        Optional<String> eTag = transactionService.getAccountChangeVersion(accountNumber).map(version -> "a" + version);
+        if (eTag.isPresent() && webRequest.checkNotModified(eTag.get())) {
+            return null;
+        }
+        List<TransactionDTO> recent = transactionService.getRecentTransactionsByAccount(accountNumber, limit);
+        return eTag.map(tag -> ResponseEntity.ok().eTag(tag).body(recent)).orElseGet(() -> ResponseEntity.ok(recent));
+    }
+
+    // Recomputes all balance projections from the transactions table (jpa backend only,
+    // the other backends compute balances on request)
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildBalances() {
+        AccountBalanceService balances = balanceService.getIfAvailable();
+        if (balances == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("accountsRebuilt", balances.rebuild()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.lihle.ledger.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Errors answered the same way by every controller. Errors particular to one
+ * controller (busy lanes, full buffers, running jobs) stay in that controller.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    // Domain validation and oversized batches are client errors, not server errors
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,104 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.IngestionStatusDTO;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.ingest.GroupCommitIngestor;
+import com.lihle.ledger.ingest.IngestionOverloadedException;
+import com.lihle.ledger.mapper.TransactionMapper;
+import com.lihle.ledger.service.IdempotencyService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group-commit ingestion, only present when ledger.ingest.async.enabled=true.
+ *
+ * POST /transactions/async            → 202 + tracking id, poll GET /transactions/async/{trackingId}
+ * POST /transactions/async?wait=true  → waits for the group commit, 201 with the transaction
+ *                                       (falls back to 202 after ledger.ingest.async.wait-timeout)
+ * A full buffer answers 503 with Retry-After.
+ * With an Idempotency-Key, a retry of a create still tracked here gets the same
+ * tracking id (or its posting, with wait=true); a retry of one that has committed
+ * is answered 201 with the original posting, from memory with Idempotent-Replayed.
+ */
+@RestController
+@ConditionalOnJpaStorage
+@RequestMapping("/transactions/async")
+@ConditionalOnProperty(name = "ledger.ingest.async.enabled", havingValue = "true")
+public class AsyncIngestionController {
+
+    @Autowired
+    private GroupCommitIngestor ingestor;
+
+    @Autowired
+    private TransactionMapper mapper;
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Value("${ledger.ingest.async.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestHeader(name = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey,
+                                    @RequestBody TransactionDTO dto,
+                                    @RequestParam(defaultValue = "false") boolean wait) throws InterruptedException {
+        // Validate before queueing: invalid postings never take buffer space
+        TransactionDomain domain = mapper.toDomain(dto);
+        IdempotencyService.Claim claim = idempotency.claimFor(idempotencyKey, dto);
+        Optional<TransactionDTO> remembered = claim == null ? Optional.empty() : idempotency.remembered(claim);
+        if (remembered.isPresent()) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IdempotencyService.REPLAYED_HEADER, "true")
+                    .body(remembered.get());
+        }
+        GroupCommitIngestor.PendingPosting posting = ingestor.submit(domain, claim);
+
+        if (wait) {
+            try {
+                TransactionDTO created = posting.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                return new ResponseEntity<>(created, HttpStatus.CREATED);
+            } catch (ExecutionException e) {
+                // The key turned out to belong to a different request
+                if (e.getCause() instanceof IllegalArgumentException) {
+                    return ResponseEntity.badRequest().body(e.getCause().getMessage());
+                }
+                return ResponseEntity.internalServerError().body(e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                // Still queued: hand out the tracking id like the async mode
+            }
+        }
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/transactions/async/" + posting.trackingId()))
+                .body(new IngestionStatusDTO(posting.trackingId(), "QUEUED", null, null));
+    }
+
+    @GetMapping("/{trackingId}")
+    public ResponseEntity<IngestionStatusDTO> status(@PathVariable String trackingId) {
+        return ingestor.status(trackingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<String> handleOverload(IngestionOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                // Whole seconds, rounded up
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (ingestor.retryAfter().toMillis() + 999) / 1000)))
+                .body(e.getMessage());
+    }
+}
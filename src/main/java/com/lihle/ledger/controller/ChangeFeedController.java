@@ -0,0 +1,67 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.changefeed.ChangeFeedBroker;
+import com.lihle.ledger.dto.ChangeFeedPageDTO;
+import com.lihle.ledger.service.ChangeFeedCursor;
+import com.lihle.ledger.service.ChangeFeedService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Change feed of creates and status transitions, oldest first.
+ *
+ * GET /changes?cursor=..&wait=30   → long-poll: one batch, or an empty one after wait seconds
+ * GET /changes/stream?cursor=..    → Server-Sent Events, resumes from Last-Event-ID
+ * Omit the cursor to start from the oldest retained change. accountNumber and
+ * status (the status after the change) narrow the feed, e.g. status=DISPUTED.
+ */
+@RestController
+@ConditionalOnJpaStorage
+@RequestMapping("/changes")
+public class ChangeFeedController {
+
+    @Autowired
+    private ChangeFeedBroker broker;
+
+    @GetMapping
+    public DeferredResult<ChangeFeedPageDTO> getChanges(@RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "100") int limit,
+                                                        @RequestParam(defaultValue = "0") long wait,
+                                                        @RequestParam(required = false) String accountNumber,
+                                                        @RequestParam(required = false) String status) {
+        return broker.poll(decode(cursor), limit, ChangeFeedService.Filter.of(accountNumber, status),
+                Duration.ofSeconds(wait));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) String cursor,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) String accountNumber,
+                                    @RequestParam(required = false) String status) {
+        // A reconnecting EventSource sends the id of the last batch it received
+        String from = lastEventId != null ? lastEventId : cursor;
+        return broker.subscribe(decode(from), ChangeFeedService.Filter.of(accountNumber, status));
+    }
+
+    private static ChangeFeedCursor decode(String cursor) {
+        return cursor == null ? null : ChangeFeedCursor.decode(cursor);
+    }
+
+    // Too many waiting consumers or open streams
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.archive.PartitionMaintenance;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Partition and archive administration of the jpa backend.
+ * GET  /partitions              → monthly partitions (estimated rows) and archive segments
+ * POST /partitions/maintenance  → 202: one PartitionMaintenance run is queued on the maintenance thread
+ * GET  /partitions/maintenance  → whether a run is in progress, and the outcome of the last one
+ */
+@RestController
+@ConditionalOnJpaStorage
+@RequestMapping("/partitions")
+public class PartitionController {
+
+    @Autowired
+    private PartitionMaintenance maintenance;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getPartitions() {
+        return ResponseEntity.ok(Map.of("partitions", maintenance.partitions(), "segments", maintenance.segments()));
+    }
+
+    // A run takes minutes (it waits for every instance to see new segments): never on a request thread
+    @PostMapping("/maintenance")
+    public ResponseEntity<PartitionMaintenance.Status> runMaintenance() {
+        maintenance.requestRun();
+        return ResponseEntity.accepted()
+                .location(URI.create("/partitions/maintenance"))
+                .body(maintenance.status());
+    }
+
+    @GetMapping("/maintenance")
+    public ResponseEntity<PartitionMaintenance.Status> getMaintenanceStatus() {
+        return ResponseEntity.ok(maintenance.status());
+    }
+}
@@ -0,0 +1,37 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.dto.AggregateReportDTO;
+import com.lihle.ledger.service.TransactionRollupService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@ConditionalOnJpaStorage
+@RequestMapping("/reports")
+public class ReportController {
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    // Totals by type and status from the hourly rollups; omit accountNumber for all accounts
+    @GetMapping("/aggregates")
+    public ResponseEntity<AggregateReportDTO> getAggregates(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") String granularity) {
+        return ResponseEntity.ok(rollupService.aggregate(accountNumber, from, to, granularity));
+    }
+
+    // Recomputes all rollups from the transactions table
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildRollups() {
+        return ResponseEntity.ok(Map.of("rollupRows", rollupService.rebuild()));
+    }
+}
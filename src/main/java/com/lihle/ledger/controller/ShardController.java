@@ -0,0 +1,41 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.shard.ShardRebalancer;
+import com.lihle.ledger.shard.ShardedTransactionStore;
+import com.lihle.ledger.store.ConditionalOnShardedStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Shard administration of the sharded backend (ledger.storage.backend=sharded).
+ * GET  /shards            → transactions stored per shard
+ * POST /shards/rebalance  → moves accounts onto the shards appended to ledger.sharding.urls
+ */
+@RestController
+@ConditionalOnShardedStorage
+@RequestMapping("/shards")
+public class ShardController {
+
+    @Autowired
+    private ShardedTransactionStore store;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Long>> getShards() {
+        return ResponseEntity.ok(store.countByShard());
+    }
+
+    @PostMapping("/rebalance")
+    public ResponseEntity<Map<String, Long>> rebalance() {
+        ShardRebalancer.Report report = rebalancer.rebalance();
+        return ResponseEntity.ok(Map.of("accountsMoved", report.accountsMoved(), "rowsMoved", report.rowsMoved()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.dto.ExportJobDTO;
+import com.lihle.ledger.export.LedgerExporter;
+import com.lihle.ledger.export.StatementFormat;
+import com.lihle.ledger.service.StatementExportService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Statement exports.
+ *
+ * GET  /accounts/{accountNumber}/statement?format=csv|columnar → one statement, streamed (chunked)
+ * POST /exports?format=csv[&accountNumber=..]                  → 202, files for the given or all accounts
+ * GET  /exports/{jobId}                                        → job progress
+ */
+@RestController
+@ConditionalOnJpaStorage
+public class StatementExportController {
+
+    @Autowired
+    private StatementExportService exportService;
+
+    @Autowired
+    private LedgerExporter exporter;
+
+    @GetMapping("/accounts/{accountNumber}/statement")
+    public ResponseEntity<StreamingResponseBody> downloadStatement(@PathVariable String accountNumber,
+                                                                   @RequestParam(defaultValue = "csv") String format) {
+        StatementFormat statementFormat = StatementFormat.of(format);
+        Runnable release = exporter.admitDownload();
+        StreamingResponseBody body = out -> {
+            try {
+                exportService.writeStatement(accountNumber, statementFormat, out);
+                out.flush();
+            } finally {
+                release.run();
+            }
+        };
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(LedgerExporter.fileName(accountNumber) + statementFormat.extension())
+                .build();
+        return ResponseEntity.ok()
+                .contentType(statementFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    @PostMapping("/exports")
+    public ResponseEntity<ExportJobDTO> startExport(@RequestParam(defaultValue = "csv") String format,
+                                                    @RequestParam(required = false) List<String> accountNumber)
+            throws IOException {
+        ExportJobDTO job = exporter.startJob(StatementFormat.of(format),
+                accountNumber == null ? List.of() : accountNumber);
+        return ResponseEntity.accepted().location(URI.create("/exports/" + job.getJobId())).body(job);
+    }
+
+    @GetMapping("/exports/{jobId}")
+    public ResponseEntity<ExportJobDTO> getExport(@PathVariable String jobId) {
+        return exporter.job(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Another export job is still running
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleJobRunning(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    // All download slots are taken
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(e.getMessage());
+    }
+}
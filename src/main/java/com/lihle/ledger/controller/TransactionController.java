@@ -1,14 +1,38 @@
 package com.lihle.ledger.controller;
 
+import com.lihle.ledger.concurrency.AccountLaneExecutor;
+import com.lihle.ledger.dto.BatchResultDTO;
+import com.lihle.ledger.dto.BulkStatusRequestDTO;
+import com.lihle.ledger.dto.BulkStatusResultDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.dto.TransactionPageDTO;
+import com.lihle.ledger.dto.TransactionSearchRequestDTO;
+import com.lihle.ledger.service.BulkStatusTransitionService;
+import com.lihle.ledger.service.CreateResult;
+import com.lihle.ledger.service.IdempotencyService;
+import com.lihle.ledger.service.StatusTransitionOutcome;
 import com.lihle.ledger.service.TransactionService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 
 
@@ -16,24 +40,128 @@ import java.util.Optional;
 @RequestMapping("/transactions")
 public class TransactionController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int STREAM_FLUSH_EVERY = 500;
+
     @Autowired
     private TransactionService transactionService;
 
+    // jpa backend only
+    @Autowired
+    private ObjectProvider<BulkStatusTransitionService> bulkStatusTransitionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountLaneExecutor accountLanes;
+
     @PostMapping
      @Valid
-    public ResponseEntity<TransactionDTO> createTransaction( @RequestBody TransactionDTO dto) {
-        TransactionDTO created = transactionService.createTransaction(dto);
-        return new ResponseEntity<>(created, HttpStatus.CREATED);
+    public ResponseEntity<TransactionDTO> createTransaction(
+            @RequestHeader(name = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody TransactionDTO dto) {
+        // Retries of a committed create are answered from memory, without taking a lane
+        Optional<TransactionDTO> remembered = transactionService.rememberedCreate(idempotencyKey, dto);
+        if (remembered.isPresent()) {
+            return replayed(remembered.get());
+        }
+
+        // With account lanes on, postings to one account run one at a time on its lane
+        CreateResult created = accountLanes.execute(dto.getAccountNumber(),
+                () -> transactionService.createTransaction(dto, idempotencyKey));
+        return created.replayed() ? replayed(created.transaction()) : new ResponseEntity<>(created.transaction(), HttpStatus.CREATED);
         // This tells Spring: "Convert incoming JSON to TransactionDTO
     }
 
+    // Same status and body as the original create, marked with Idempotent-Replayed
+    private static ResponseEntity<TransactionDTO> replayed(TransactionDTO transaction) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IdempotencyService.REPLAYED_HEADER, "true")
+                .body(transaction);
+    }
+
+    // Settlement files: validates every item, persists in chunks, reports per item.
+    // 201 when everything was created (or replayed), 207 when some items were rejected or failed.
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResultDTO> createTransactions(
+            @RequestHeader(name = IdempotencyService.KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody List<TransactionDTO> dtos) {
+        BatchResultDTO result = transactionService.createTransactions(dtos, idempotencyKey);
+        HttpStatus status = result.getCreated() + result.getReplayed() == result.getReceived()
+                ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(result, status);
+    }
+
     @GetMapping
-    public ResponseEntity<List<TransactionDTO>> getAllTransactions() {
-        List<TransactionDTO> transactions = transactionService.getAllTransactions();
+    public ResponseEntity<List<TransactionDTO>> getAllTransactions(@RequestParam(required = false) String status) {
+        List<TransactionDTO> transactions = status == null
+                ? transactionService.getAllTransactions()
+                : transactionService.getTransactionsByStatus(status);
         return ResponseEntity.ok(transactions); // Spring converts dto to JSON
 
     }
 
+    // Keyset pagination: GET /transactions/page?limit=100 then pass nextCursor back as cursor.
+    // Pages of one account carry its change version as ETag: unchanged → 304 before any query.
+    // Accounts the KnownAccountFilter rules out, and backends without a balance projection, have no version.
+    @GetMapping("/page")
+    public ResponseEntity<TransactionPageDTO> getTransactionPage(@RequestParam(required = false) String accountNumber,
+                                                                 @RequestParam(required = false) String status,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "50") int limit,
+                                                                 WebRequest webRequest) {
+        String eTag = accountNumber == null ? null
+                : transactionService.getAccountChangeVersion(accountNumber)
+                .map(version -> "a" + version)
+                .orElse(null);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        TransactionPageDTO page = transactionService.getTransactionPage(accountNumber, status, cursor, limit);
+        return eTag == null ? ResponseEntity.ok(page) : ResponseEntity.ok().eTag(eTag).body(page);
+    }
+
+    // Any combination of accountNumber, status, transactionType, from/to, minAmount/maxAmount;
+    // sort=DESC|ASC by transactionDate, paged with cursor like /page
+    @GetMapping("/search")
+    public ResponseEntity<TransactionPageDTO> searchTransactions(TransactionSearchRequestDTO request) {
+        return ResponseEntity.ok(transactionService.searchTransactions(request));
+    }
+
+    // NDJSON: one transaction per line, written as rows come off the database cursor
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@RequestParam(required = false) String accountNumber,
+                                                                    @RequestParam(required = false) String status) {
+        // Checked here: once the body streams, an exception can no longer become a 400
+        TransactionService.checkPageFilters(accountNumber, status);
+        return ndjson(objectMapper, consumer -> transactionService.streamTransactions(accountNumber, status, consumer));
+    }
+
+    // NDJSON response body fed by source, flushed every STREAM_FLUSH_EVERY rows
+    static ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper,
+                                                        Consumer<Consumer<TransactionDTO>> source) {
+        ObjectWriter writer = objectMapper.writerFor(TransactionDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            source.accept(dto -> {
+                try {
+                    writer.writeValue(out, dto);
+                    out.write('\n');
+                    if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TransactionDTO> getTransactionById(@PathVariable Long id) {
 
@@ -45,7 +173,11 @@ public class TransactionController {
 
             //if transaction was found extract transactionDTO object from optional
             TransactionDTO transaction = optionalTransaction.get();
-            return ResponseEntity.ok(transaction);
+            if (transaction.getVersion() == null) {
+                return ResponseEntity.ok(transaction);
+            }
+            // The row version is the ETag: a matching If-None-Match gets 304 and nothing is serialized
+            return ResponseEntity.ok().eTag(id + "." + transaction.getVersion()).body(transaction);
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -60,9 +192,73 @@ public class TransactionController {
 //                .orElse(ResponseEntity.notFound().build());
 //    }
 
+    // 409 when the current status does not allow the transition (or another request changed it first).
+    // If-Match with the ETag of GET /{id}: 412 when the transaction has changed since.
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Void> updateStatus(@PathVariable Long id, @RequestParam String status) {
-        boolean updated = transactionService.updateTransactionStatus(id, status);
-        return updated ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    public ResponseEntity<Void> updateStatus(@PathVariable Long id, @RequestParam String status,
+                                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        StatusTransitionOutcome outcome;
+        if (accountLanes.isEnabled()) {
+            // The lane is chosen by account, so the account is looked up first
+            Optional<String> accountNumber = transactionService.getAccountNumber(id);
+            if (accountNumber.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            outcome = accountLanes.execute(accountNumber.get(),
+                    () -> transactionService.updateTransactionStatus(id, status, expectedVersion));
+        } else {
+            outcome = transactionService.updateTransactionStatus(id, status, expectedVersion);
+        }
+        return statusResponse(outcome);
+    }
+
+    static ResponseEntity<Void> statusResponse(StatusTransitionOutcome outcome) {
+        return switch (outcome) {
+            case UPDATED -> ResponseEntity.ok().build();
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case CONFLICT -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+            case VERSION_MISMATCH -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        };
+    }
+
+    // Version in an If-Match "{id}.{version}" ETag; null without one or for "*".
+    // An ETag of another transaction can never match.
+    static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        int dot = tag.indexOf('.');
+        try {
+            if (dot < 0) {
+                throw new NumberFormatException();
+            }
+            long taggedId = Long.parseLong(tag.substring(0, dot));
+            long version = Long.parseLong(tag.substring(dot + 1));
+            return taggedId == id ? version : -1L;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match: " + ifMatch);
+        }
+    }
+
+    // Mass dispute / reversal by id list or by filter (account, date range, current status).
+    // Runs as set-based SQL against the jpa database; not served by the other backends.
+    @PostMapping("/status/bulk")
+    public ResponseEntity<BulkStatusResultDTO> bulkUpdateStatus(@Valid @RequestBody BulkStatusRequestDTO request) {
+        BulkStatusTransitionService bulk = bulkStatusTransitionService.getIfAvailable();
+        return bulk == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(bulk.transition(request));
+    }
+
+    // An account lane queue is full: the account (or its lane) is saturated
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleLaneRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Account is busy, retry later");
     }
 }
\ No newline at end of file
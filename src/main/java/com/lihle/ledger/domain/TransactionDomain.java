@@ -2,7 +2,12 @@ package com.lihle.ledger.domain;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * DOMAIN MODEL - Immutable representation of a Transaction
@@ -12,6 +17,18 @@ import java.util.Objects;
  */
 public final class TransactionDomain {
 
+    // STATE RULES: target status → statuses a transaction may move to it from.
+    // The behavior methods below and the conditional UPDATE in the repository both use this table.
+    // REVERSED is final; COMPLETED is reached from PENDING or by rejecting a dispute.
+    private static final Map<TransactionStatus, Set<TransactionStatus>> ALLOWED_SOURCES = new EnumMap<>(TransactionStatus.class);
+
+    static {
+        ALLOWED_SOURCES.put(TransactionStatus.DISPUTED,
+                EnumSet.of(TransactionStatus.PENDING, TransactionStatus.COMPLETED, TransactionStatus.DISPUTED));
+        ALLOWED_SOURCES.put(TransactionStatus.REVERSED, EnumSet.of(TransactionStatus.DISPUTED));
+        ALLOWED_SOURCES.put(TransactionStatus.COMPLETED, EnumSet.of(TransactionStatus.PENDING, TransactionStatus.DISPUTED));
+    }
+
     private final Long id;
     private final String accountNumber;
     private final BigDecimal amount;
@@ -50,7 +67,7 @@ public final class TransactionDomain {
 
     // BUSINESS BEHAVIOR: Mark transaction as disputed
     public TransactionDomain markAsDisputed() {
-        if (this.status == TransactionStatus.REVERSED) {
+        if (!canTransitionTo(TransactionStatus.DISPUTED)) {
             throw new IllegalStateException("Cannot dispute a reversed transaction");
         }
         return new Builder()
@@ -61,7 +78,7 @@ public final class TransactionDomain {
 
     // BUSINESS BEHAVIOR: Reverse transaction (after dispute approved)
     public TransactionDomain reverse() {
-        if (this.status != TransactionStatus.DISPUTED) {
+        if (!canTransitionTo(TransactionStatus.REVERSED)) {
             throw new IllegalStateException("Can only reverse disputed transactions");
         }
         return new Builder()
@@ -70,14 +87,37 @@ public final class TransactionDomain {
                 .build();
     }
 
-    // BUSINESS BEHAVIOR: Complete transaction (dispute rejected)
+    // BUSINESS BEHAVIOR: Complete transaction (pending settled or dispute rejected)
     public TransactionDomain complete() {
+        if (!canTransitionTo(TransactionStatus.COMPLETED)) {
+            throw new IllegalStateException("Can only complete pending or disputed transactions");
+        }
         return new Builder()
                 .from(this)
                 .status(TransactionStatus.COMPLETED)
                 .build();
     }
 
+    // BUSINESS BEHAVIOR: Apply the behavior that leads to the requested status
+    public TransactionDomain transitionTo(TransactionStatus target) {
+        return switch (target) {
+            case DISPUTED -> markAsDisputed();
+            case REVERSED -> reverse();
+            case COMPLETED -> complete();
+            case PENDING -> throw new IllegalArgumentException("Cannot move a transaction back to PENDING");
+        };
+    }
+
+    // BUSINESS QUERY: Is the move to the target status allowed from the current status?
+    public boolean canTransitionTo(TransactionStatus target) {
+        return allowedSourcesFor(target).contains(this.status);
+    }
+
+    // BUSINESS RULE: Statuses a transaction may be in to be moved to the target status
+    public static Set<TransactionStatus> allowedSourcesFor(TransactionStatus target) {
+        return Collections.unmodifiableSet(ALLOWED_SOURCES.getOrDefault(target, EnumSet.noneOf(TransactionStatus.class)));
+    }
+
     // BUSINESS QUERY: Is this transaction disputed?
     public boolean isDisputed() {
         return this.status == TransactionStatus.DISPUTED;
@@ -88,6 +128,16 @@ public final class TransactionDomain {
         return this.status == TransactionStatus.COMPLETED;
     }
 
+    // BUSINESS QUERY: Does this transaction count towards the account balance?
+    public boolean affectsBalance() {
+        return this.status != TransactionStatus.REVERSED;
+    }
+
+    // BUSINESS QUERY: Effect on the account balance, CREDIT adds and DEBIT subtracts
+    public BigDecimal signedAmount() {
+        return transactionType == TransactionType.CREDIT ? amount : amount.negate();
+    }
+
     // Getters only
     public Long getId() {
         return id;
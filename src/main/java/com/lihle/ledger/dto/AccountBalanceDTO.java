@@ -0,0 +1,18 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceDTO {
+    private String accountNumber;
+    private BigDecimal balance;
+    private Long lastTransactionId;
+    private LocalDateTime updatedAt;
+}
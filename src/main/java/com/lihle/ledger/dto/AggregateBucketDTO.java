@@ -0,0 +1,19 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateBucketDTO {
+    private LocalDateTime bucketStart;
+    private String transactionType;
+    private String status;
+    private long count;
+    private BigDecimal amount;   // sum of amounts, unsigned; split by transactionType
+}
@@ -0,0 +1,19 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateReportDTO {
+    private String accountNumber;   // null for all accounts
+    private LocalDateTime from;     // effective range, aligned to whole hours
+    private LocalDateTime to;
+    private String granularity;     // HOUR, DAY, MONTH, YEAR, TOTAL
+    private List<AggregateBucketDTO> buckets;
+}
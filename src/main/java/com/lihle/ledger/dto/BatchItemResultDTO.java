@@ -0,0 +1,36 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single item in a batch request.
+ * index points back at the position of the item in the request body.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDTO {
+    private int index;
+    private String outcome;   // CREATED, REPLAYED, REJECTED, FAILED
+    private TransactionDTO transaction;
+    private String error;
+
+    public static BatchItemResultDTO created(int index, TransactionDTO transaction) {
+        return new BatchItemResultDTO(index, "CREATED", transaction, null);
+    }
+
+    // Created by an earlier request with the same Idempotency-Key
+    public static BatchItemResultDTO replayed(int index, TransactionDTO transaction) {
+        return new BatchItemResultDTO(index, "REPLAYED", transaction, null);
+    }
+
+    public static BatchItemResultDTO rejected(int index, String error) {
+        return new BatchItemResultDTO(index, "REJECTED", null, error);
+    }
+
+    public static BatchItemResultDTO failed(int index, String error) {
+        return new BatchItemResultDTO(index, "FAILED", null, error);
+    }
+}
@@ -0,0 +1,19 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDTO {
+    private int received;
+    private int created;
+    private int replayed;   // created by an earlier request with the same Idempotency-Key
+    private int rejected;   // failed domain validation, never sent to the database
+    private int failed;     // valid, but the chunk they were in could not be persisted
+    private List<BatchItemResultDTO> results;
+}
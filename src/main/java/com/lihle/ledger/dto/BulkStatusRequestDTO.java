@@ -0,0 +1,28 @@
+package com.lihle.ledger.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk status change. Either ids, or a filter made of any combination of
+ * accountNumber, [from, to) on transactionDate and currentStatus.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusRequestDTO {
+    private List<Long> ids;
+
+    private String accountNumber;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String currentStatus;
+
+    @NotBlank(message = "Target status is required")
+    private String targetStatus;
+}
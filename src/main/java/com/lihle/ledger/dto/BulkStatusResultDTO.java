@@ -0,0 +1,19 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusResultDTO {
+    private String targetStatus;
+    private long updated;
+    private long conflicts;
+    private long notFound;
+    private long skipped;                 // filter only: rows other writers still held after the retries
+    private Map<Long, String> outcomes;   // per id, only when the request listed ids
+}
@@ -0,0 +1,21 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One change feed batch. Pass nextCursor back as the cursor parameter to continue;
+ * it also moves past changes the filters skipped, so it advances even when
+ * changes is empty. hasMore: the next batch is already available.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedPageDTO {
+    private List<TransactionChangeDTO> changes;
+    private String nextCursor;
+    private boolean hasMore;
+}
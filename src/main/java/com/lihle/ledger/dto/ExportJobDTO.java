@@ -0,0 +1,24 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+    private String jobId;
+    private String status;   // RUNNING, COMPLETED, FAILED
+    private String format;
+    private String directory;
+    private long accountsExported;
+    private long accountsFailed;
+    private long rowsExported;
+    private long bytesWritten;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionStatusDTO {
+    private String trackingId;
+    private String status;   // QUEUED, COMMITTED, FAILED
+    private TransactionDTO transaction;
+    private String error;
+}
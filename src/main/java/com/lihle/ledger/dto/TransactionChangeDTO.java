@@ -0,0 +1,28 @@
+package com.lihle.ledger.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One change feed entry: the transaction after the change. previousStatus is
+ * null for CREATED. cursor resumes the feed right after this entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionChangeDTO {
+    private String cursor;
+    private String changeType;
+    private Long transactionId;
+    private String accountNumber;
+    private BigDecimal amount;
+    private String transactionType;
+    private String previousStatus;
+    private String status;
+    private LocalDateTime transactionDate;
+    private LocalDateTime recordedAt;
+}
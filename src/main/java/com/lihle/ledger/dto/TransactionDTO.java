@@ -1,5 +1,6 @@
 package com.lihle.ledger.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -29,6 +30,10 @@ public class TransactionDTO {
     private LocalDateTime transactionDate;
     private String status;
     private LocalDateTime createdAt;
+
+    // Row version of a stored transaction, null when unknown; sent as the ETag, not in the body
+    @JsonIgnore
+    private Long version;
 }
 
 
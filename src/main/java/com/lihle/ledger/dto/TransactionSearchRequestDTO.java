@@ -0,0 +1,29 @@
+package com.lihle.ledger.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Query parameters of GET /transactions/search; every filter is optional
+@Data
+@NoArgsConstructor
+public class TransactionSearchRequestDTO {
+    private String accountNumber;
+    private String status;
+    private String transactionType;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;   // inclusive
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;     // exclusive
+
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    private String sort = "DESC"; // by transactionDate: DESC (newest first) or ASC
+    private String cursor;
+    private int limit = 50;
+}
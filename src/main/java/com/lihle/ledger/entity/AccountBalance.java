@@ -0,0 +1,37 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance projection, one row per account.
+ * Maintained incrementally by AccountBalanceService; never written by JPA dirty checking.
+ * changeVersion counts every change to the account's transactions, balance-affecting
+ * or not, and is the ETag of the account's reads.
+ */
+@Entity
+@Table(name = "account_balances")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+
+    @Id
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private BigDecimal balance;   // CREDIT − DEBIT over all non-reversed transactions
+
+    private Long lastTransactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private long changeVersion;
+}
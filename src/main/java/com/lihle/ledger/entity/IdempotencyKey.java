@@ -0,0 +1,32 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key of a transaction create and the posting it created.
+ * Claimed and linked by IdempotencyService with native statements; read through JPA.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    private String idempotencyKey;
+
+    // SHA-256 of the request the key was first used with
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    private Long transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
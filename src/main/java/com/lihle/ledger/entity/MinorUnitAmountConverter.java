@@ -0,0 +1,34 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount as a bigint count of minor units (scale 2), compact encoding only.
+ * Rounds like the default numeric(38,2) column does.
+ */
+@Converter
+public class MinorUnitAmountConverter implements AttributeConverter<BigDecimal, Long> {
+
+    static final int SCALE = 2;
+
+    @Override
+    public Long convertToDatabaseColumn(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+    }
+
+    @Override
+    public BigDecimal convertToEntityAttribute(Long minorUnits) {
+        return minorUnits == null ? null : BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
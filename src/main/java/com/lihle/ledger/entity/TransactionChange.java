@@ -0,0 +1,59 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Change feed outbox row: a create or a status transition, with the state of the
+ * transaction after the change. Insert-only; removed by the retention purge.
+ */
+@Entity
+@Table(name = "transaction_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionChange {
+
+    public enum ChangeType { CREATED, STATUS_CHANGED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_changes_seq")
+    @SequenceGenerator(name = "transaction_changes_seq", sequenceName = "transaction_changes_seq", allocationSize = 50)
+    private Long id;
+
+    // Id of the writing database transaction, filled in by the column default
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long txid;
+
+    @Column(nullable = false)
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ChangeType changeType;
+
+    @Column(nullable = false)
+    private String accountNumber;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String transactionType;
+
+    private String previousStatus;
+
+    @Column(nullable = false)
+    private String status;
+
+    @Column(nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+}
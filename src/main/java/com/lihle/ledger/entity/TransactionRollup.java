@@ -0,0 +1,29 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Hourly rollup, one row per (account, hour, type, status).
+ * Maintained incrementally by TransactionRollupService; never written by JPA dirty checking.
+ */
+@Entity
+@Table(name = "transaction_rollups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollup {
+
+    @EmbeddedId
+    private TransactionRollupId id;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private BigDecimal amountSum;
+}
@@ -0,0 +1,24 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollupId implements Serializable {
+
+    private String accountNumber;
+
+    private LocalDateTime bucketStart;   // transaction_date truncated to the hour
+
+    private String transactionType;
+
+    private String status;
+}
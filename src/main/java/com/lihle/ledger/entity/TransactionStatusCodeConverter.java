@@ -0,0 +1,41 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Transaction status as a smallint code, compact encoding only.
+ * Codes are fixed (never ordinals) and shared with ledger_status_name / ledger_status_value
+ * in V3__encoding_functions.sql.
+ */
+@Converter
+public class TransactionStatusCodeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String status) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status) {
+            case "PENDING" -> 1;
+            case "COMPLETED" -> 2;
+            case "DISPUTED" -> 3;
+            case "REVERSED" -> 4;
+            default -> throw new IllegalArgumentException("Unknown status: " + status);
+        };
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        return switch (code) {
+            case 1 -> "PENDING";
+            case 2 -> "COMPLETED";
+            case 3 -> "DISPUTED";
+            case 4 -> "REVERSED";
+            default -> throw new IllegalStateException("Unknown status code: " + code);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.lihle.ledger.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Transaction type as a smallint code, compact encoding only.
+ * Codes are fixed (never ordinals) and shared with ledger_type_name in V3__encoding_functions.sql.
+ */
+@Converter
+public class TransactionTypeCodeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String type) {
+        if (type == null) {
+            return null;
+        }
+        return switch (type) {
+            case "DEBIT" -> 1;
+            case "CREDIT" -> 2;
+            default -> throw new IllegalArgumentException("Unknown transaction type: " + type);
+        };
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        return switch (code) {
+            case 1 -> "DEBIT";
+            case 2 -> "CREDIT";
+            default -> throw new IllegalStateException("Unknown transaction type code: " + code);
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package com.lihle.ledger.export;
+
+import com.lihle.ledger.dto.TransactionDTO;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a columnar statement (see ColumnarStatementWriter) one row group at a
+ * time. A corrupt or truncated file surfaces as UncheckedIOException.
+ */
+public final class ColumnarStatementReader implements Iterator<TransactionDTO>, Closeable {
+
+    private final DataInputStream source;
+    private final String[] typeNames;
+    private final String[] statusNames;
+    private final Inflater inflater = new Inflater();
+
+    private TransactionDTO[] group = new TransactionDTO[0];
+    private int position;
+    private boolean ended;
+
+    public ColumnarStatementReader(InputStream source) throws IOException {
+        this.source = new DataInputStream(new BufferedInputStream(source, 64 * 1024));
+        byte[] magic = new byte[ColumnarStatementWriter.MAGIC.length];
+        this.source.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarStatementWriter.MAGIC)) {
+            throw new IOException("Not a columnar statement");
+        }
+        int version = this.source.readUnsignedByte();
+        if (version != ColumnarStatementWriter.VERSION) {
+            throw new IOException("Unsupported columnar statement version " + version);
+        }
+        typeNames = readNames();
+        statusNames = readNames();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (position == group.length && !ended) {
+            try {
+                readRowGroup();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return position < group.length;
+    }
+
+    @Override
+    public TransactionDTO next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TransactionDTO row = group[position];
+        group[position++] = null;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        source.close();
+    }
+
+    private String[] readNames() throws IOException {
+        String[] names = new String[Math.toIntExact(Varints.readUnsigned(source))];
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[Math.toIntExact(Varints.readUnsigned(source))];
+            source.readFully(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    private void readRowGroup() throws IOException {
+        int rows = Math.toIntExact(Varints.readUnsigned(source));
+        if (rows == 0) {
+            ended = true;
+            return;
+        }
+        byte[] payload = new byte[Math.toIntExact(Varints.readUnsigned(source))];
+        byte[] compressed = new byte[Math.toIntExact(Varints.readUnsigned(source))];
+        int expectedCrc = source.readInt();
+        source.readFully(compressed);
+
+        CRC32C crc = new CRC32C();
+        crc.update(compressed);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt row group (checksum mismatch)");
+        }
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            if (inflater.inflate(payload) != payload.length || !inflater.finished()) {
+                throw new IOException("Corrupt row group (length mismatch)");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt row group", e);
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        ByteBuffer[] columns = new ByteBuffer[ColumnarStatementWriter.COLUMNS];
+        for (int i = 0; i < columns.length; i++) {
+            int length = Math.toIntExact(Varints.readUnsigned(in));
+            columns[i] = in.slice(in.position(), length);
+            in.position(in.position() + length);
+        }
+
+        TransactionDTO[] decoded = new TransactionDTO[rows];
+        long id = 0;
+        long date = 0;
+        String account = null;
+        int runRemaining = 0;
+        for (int row = 0; row < rows; row++) {
+            id += Varints.readSigned(columns[ColumnarStatementWriter.ID]);
+
+            if (runRemaining == 0) {
+                runRemaining = Math.toIntExact(Varints.readUnsigned(columns[ColumnarStatementWriter.ACCOUNT_NUMBER]));
+                account = Varints.readString(columns[ColumnarStatementWriter.ACCOUNT_NUMBER]);
+            }
+            runRemaining--;
+
+            BigDecimal amount = BigDecimal.valueOf(Varints.readSigned(columns[ColumnarStatementWriter.AMOUNT]), 2);
+            String type = typeNames[columns[ColumnarStatementWriter.TRANSACTION_TYPE].get() & 0xFF];
+            String status = statusNames[columns[ColumnarStatementWriter.STATUS].get() & 0xFF];
+
+            date += Varints.readSigned(columns[ColumnarStatementWriter.TRANSACTION_DATE]);
+
+            long createdAt = Varints.readUnsigned(columns[ColumnarStatementWriter.CREATED_AT]);
+            LocalDateTime created = null;
+            if (createdAt != 0) {
+                long offset = createdAt - 1;
+                created = ColumnarStatementWriter.fromMicros(date + ((offset >>> 1) ^ -(offset & 1)));
+            }
+
+            long descriptionLength = Varints.readUnsigned(columns[ColumnarStatementWriter.DESCRIPTION]);
+            String description = null;
+            if (descriptionLength != 0) {
+                byte[] text = new byte[Math.toIntExact(descriptionLength - 1)];
+                columns[ColumnarStatementWriter.DESCRIPTION].get(text);
+                description = new String(text, StandardCharsets.UTF_8);
+            }
+
+            decoded[row] = new TransactionDTO(id, account, amount, type, description,
+                    ColumnarStatementWriter.fromMicros(date), status, created, null);
+        }
+        group = decoded;
+        position = 0;
+    }
+}
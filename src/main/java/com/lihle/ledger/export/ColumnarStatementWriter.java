@@ -0,0 +1,214 @@
+package com.lihle.ledger.export;
+
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.domain.TransactionDomain.TransactionType;
+import com.lihle.ledger.dto.TransactionDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+
+/**
+ * Columnar statement format (".ldgc").
+ *
+ * Rows are buffered into row groups of up to ROW_GROUP_SIZE rows. Within a group
+ * each column is encoded on its own, so similar values sit next to each other,
+ * and the group is deflated as a whole. Groups are self-contained: a reader
+ * needs only the file header and the group itself.
+ *
+ * file       "LDGC", version byte, transaction type names, status names
+ *            (each: varint count, then varint-length UTF-8 strings),
+ *            row groups, varint 0
+ * row group  varint rows, varint payload length, varint compressed length,
+ *            int crc32c of the compressed bytes, deflated payload
+ * payload    the columns below in order, each prefixed with its varint byte length
+ *
+ * column            encoding
+ * id                zigzag varint, delta from the previous row (first row: from 0)
+ * account_number    runs of (varint run length, string)
+ * amount            zigzag varint, minor units (scale 2)
+ * transaction_type  one byte, index into the type names
+ * status            one byte, index into the status names
+ * transaction_date  zigzag varint, epoch microseconds (UTC) delta from the previous row
+ * created_at        varint, 0 for null, else zigzag(micros - transaction_date micros) + 1
+ * description       varint, 0 for null, else UTF-8 length + 1, then the bytes
+ */
+public final class ColumnarStatementWriter implements StatementWriter {
+
+    static final byte[] MAGIC = {'L', 'D', 'G', 'C'};
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 4096;
+
+    static final int ID = 0;
+    static final int ACCOUNT_NUMBER = 1;
+    static final int AMOUNT = 2;
+    static final int TRANSACTION_TYPE = 3;
+    static final int STATUS = 4;
+    static final int TRANSACTION_DATE = 5;
+    static final int CREATED_AT = 6;
+    static final int DESCRIPTION = 7;
+    static final int COLUMNS = 8;
+
+    private final OutputStream target;
+    private final Map<String, Integer> typeCodes = new HashMap<>();
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private final ByteArrayOutputStream[] columns = new ByteArrayOutputStream[COLUMNS];
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final Deflater deflater = new Deflater();
+    private byte[] compressed = new byte[64 * 1024];
+
+    private int rows;
+    private long previousId;
+    private long previousDate;
+    private String runAccount;
+    private int runLength;
+
+    public ColumnarStatementWriter(OutputStream target) throws IOException {
+        this.target = target;
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ByteArrayOutputStream();
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.writeBytes(MAGIC);
+        header.write(VERSION);
+        Varints.writeUnsigned(header, TransactionType.values().length);
+        for (TransactionType type : TransactionType.values()) {
+            typeCodes.put(type.name(), type.ordinal());
+            Varints.writeString(header, type.name());
+        }
+        Varints.writeUnsigned(header, TransactionStatus.values().length);
+        for (TransactionStatus status : TransactionStatus.values()) {
+            statusCodes.put(status.name(), status.ordinal());
+            Varints.writeString(header, status.name());
+        }
+        header.writeTo(target);
+    }
+
+    @Override
+    public void write(TransactionDTO transaction) throws IOException {
+        Varints.writeSigned(columns[ID], transaction.getId() - previousId);
+        previousId = transaction.getId();
+
+        if (transaction.getAccountNumber().equals(runAccount)) {
+            runLength++;
+        } else {
+            endAccountRun();
+            runAccount = transaction.getAccountNumber();
+            runLength = 1;
+        }
+
+        Varints.writeSigned(columns[AMOUNT], minorUnits(transaction.getAmount()));
+        columns[TRANSACTION_TYPE].write(code(typeCodes, transaction.getTransactionType()));
+        columns[STATUS].write(code(statusCodes, transaction.getStatus()));
+
+        long date = toMicros(transaction.getTransactionDate());
+        Varints.writeSigned(columns[TRANSACTION_DATE], date - previousDate);
+        previousDate = date;
+
+        if (transaction.getCreatedAt() == null) {
+            Varints.writeUnsigned(columns[CREATED_AT], 0);
+        } else {
+            long offset = toMicros(transaction.getCreatedAt()) - date;
+            Varints.writeUnsigned(columns[CREATED_AT], ((offset << 1) ^ (offset >> 63)) + 1);
+        }
+
+        if (transaction.getDescription() == null) {
+            Varints.writeUnsigned(columns[DESCRIPTION], 0);
+        } else {
+            byte[] text = transaction.getDescription().getBytes(StandardCharsets.UTF_8);
+            Varints.writeUnsigned(columns[DESCRIPTION], text.length + 1L);
+            columns[DESCRIPTION].writeBytes(text);
+        }
+
+        if (++rows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeRowGroup();
+        }
+        target.write(0);
+        target.flush();
+        deflater.end();
+    }
+
+    private void writeRowGroup() throws IOException {
+        endAccountRun();
+        payload.reset();
+        for (ByteArrayOutputStream column : columns) {
+            Varints.writeUnsigned(payload, column.size());
+            column.writeTo(payload);
+            column.reset();
+        }
+
+        deflater.reset();
+        deflater.setInput(payload.toByteArray());
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(compressed, 0, length);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(24);
+        Varints.writeUnsigned(header, rows);
+        Varints.writeUnsigned(header, payload.size());
+        Varints.writeUnsigned(header, length);
+        header.writeBytes(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        header.writeTo(target);
+        target.write(compressed, 0, length);
+
+        rows = 0;
+        previousId = 0;
+        previousDate = 0;
+    }
+
+    private void endAccountRun() {
+        if (runLength > 0) {
+            Varints.writeUnsigned(columns[ACCOUNT_NUMBER], runLength);
+            Varints.writeString(columns[ACCOUNT_NUMBER], runAccount);
+        }
+        runAccount = null;
+        runLength = 0;
+    }
+
+    private static int code(Map<String, Integer> codes, String name) {
+        Integer code = codes.get(name);
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown value: " + name);
+        }
+        return code;
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
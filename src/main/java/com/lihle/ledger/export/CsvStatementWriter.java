@@ -0,0 +1,79 @@
+package com.lihle.ledger.export;
+
+import com.lihle.ledger.dto.TransactionDTO;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed CSV (RFC 4180): header row, then one line per transaction.
+ * Amounts are plain decimals, dates ISO-8601 local date-times.
+ */
+final class CsvStatementWriter implements StatementWriter {
+
+    static final String HEADER =
+            "id,account_number,amount,transaction_type,status,transaction_date,created_at,description";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+
+    CsvStatementWriter(OutputStream target) throws IOException {
+        this.gzip = new GZIPOutputStream(target, BUFFER_SIZE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(TransactionDTO transaction) throws IOException {
+        writer.write(String.valueOf(transaction.getId()));
+        writer.write(',');
+        field(transaction.getAccountNumber());
+        writer.write(',');
+        writer.write(transaction.getAmount().toPlainString());
+        writer.write(',');
+        field(transaction.getTransactionType());
+        writer.write(',');
+        field(transaction.getStatus());
+        writer.write(',');
+        field(transaction.getTransactionDate() == null ? null : transaction.getTransactionDate().toString());
+        writer.write(',');
+        field(transaction.getCreatedAt() == null ? null : transaction.getCreatedAt().toString());
+        writer.write(',');
+        field(transaction.getDescription());
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+        gzip.finish();
+        gzip.flush();
+    }
+
+    // Quoted only when it contains a separator, quote or line break; null is an empty field
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
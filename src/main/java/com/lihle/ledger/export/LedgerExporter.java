@@ -0,0 +1,306 @@
+package com.lihle.ledger.export;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lihle.ledger.dto.ExportJobDTO;
+import com.lihle.ledger.service.StatementExportService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BULK STATEMENT EXPORT
+ *
+ * An export job writes one statement file per account into
+ * ledger.export.directory/{jobId}/ on a fixed pool of ledger.export.parallelism
+ * workers, each streaming one account over its own connection. Account numbers
+ * are paged in order from the transactions table and handed out as workers free
+ * up, so neither the account list nor the statements are ever held in memory.
+ *
+ * Files are written as "{account}{extension}.part" and renamed when complete;
+ * manifest.csv lists every account as it finishes (rows, bytes, OK or FAILED).
+ * One job runs at a time. HTTP downloads of single statements are limited to
+ * ledger.export.max-downloads at once (503 beyond that).
+ * Metrics: ledger.export.rows{format}, ledger.export.accounts{outcome}, ledger.export.downloads.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class LedgerExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerExporter.class);
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private StatementExportService exportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.export.directory:exports}")
+    private Path directory;
+
+    @Value("${ledger.export.parallelism:4}")
+    private int parallelism;
+
+    @Value("${ledger.export.account-page-size:1000}")
+    private int accountPageSize;
+
+    @Value("${ledger.export.max-downloads:4}")
+    private int maxDownloads;
+
+    @Value("${ledger.export.job-ttl:7d}")
+    private Duration jobTtl;
+
+    private ThreadPoolExecutor workers;
+    private ExecutorService coordinator;
+    private Semaphore downloads;
+    private Cache<String, ExportJob> jobs;
+    private final AtomicReference<ExportJob> running = new AtomicReference<>();
+
+    private Counter accountsExported;
+    private Counter accountsFailed;
+
+    private static final class ExportJob {
+        final String id;
+        final StatementFormat format;
+        final Path directory;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong exported = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        volatile String status = "RUNNING";
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        ExportJob(String id, StatementFormat format, Path directory) {
+            this.id = id;
+            this.format = format;
+            this.directory = directory;
+        }
+
+        ExportJobDTO toDTO() {
+            return new ExportJobDTO(id, status, format.name(), directory.toAbsolutePath().toString(),
+                    exported.get(), failed.get(), rows.get(), bytes.get(), startedAt, finishedAt, error);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        workers = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("ledger-export-"));
+        coordinator = Executors.newSingleThreadExecutor(daemonThreads("ledger-export-job-"));
+        downloads = new Semaphore(maxDownloads);
+        jobs = Caffeine.newBuilder().expireAfterWrite(jobTtl).build();
+
+        accountsExported = Counter.builder("ledger.export.accounts").tag("outcome", "exported").register(meterRegistry);
+        accountsFailed = Counter.builder("ledger.export.accounts").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("ledger.export.downloads", () -> maxDownloads - downloads.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Starts exporting the given accounts, or every account when the list is
+     * empty. Throws IllegalStateException while another job is running.
+     */
+    public ExportJobDTO startJob(StatementFormat format, List<String> accountNumbers) throws IOException {
+        String id = UUID.randomUUID().toString();
+        ExportJob job = new ExportJob(id, format, directory.resolve(id));
+        if (!running.compareAndSet(null, job)) {
+            throw new IllegalStateException("Export job " + running.get().id + " is still running");
+        }
+        try {
+            Files.createDirectories(job.directory);
+        } catch (IOException e) {
+            running.set(null);
+            throw e;
+        }
+        jobs.put(id, job);
+        coordinator.execute(() -> runJob(job, accountNumbers));
+        return job.toDTO();
+    }
+
+    public Optional<ExportJobDTO> job(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(ExportJob::toDTO);
+    }
+
+    /**
+     * Takes one of the download slots; run the returned release when the response
+     * is written. Throws RejectedExecutionException when all slots are taken.
+     */
+    public Runnable admitDownload() {
+        if (!downloads.tryAcquire()) {
+            throw new RejectedExecutionException("Too many statement downloads in progress");
+        }
+        return downloads::release;
+    }
+
+    private void runJob(ExportJob job, List<String> accountNumbers) {
+        // At most two accounts per worker in flight: one running, one queued
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        try (BufferedWriter manifest = Files.newBufferedWriter(job.directory.resolve("manifest.csv"))) {
+            manifest.write("account_number,file,rows,bytes,outcome");
+            manifest.newLine();
+
+            if (!accountNumbers.isEmpty()) {
+                submitAll(job, accountNumbers, inFlight, manifest);
+            } else {
+                String after = "";
+                List<String> page;
+                do {
+                    page = exportService.accountNumbersAfter(after, accountPageSize);
+                    submitAll(job, page, inFlight, manifest);
+                    if (!page.isEmpty()) {
+                        after = page.get(page.size() - 1);
+                    }
+                } while (page.size() == accountPageSize);
+            }
+
+            // All permits back: every account has finished
+            inFlight.acquire(parallelism * 2);
+            job.status = job.failed.get() == 0 ? "COMPLETED" : "FAILED";
+            if (job.failed.get() > 0) {
+                job.error = job.failed.get() + " account(s) failed, see manifest.csv";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.status = "FAILED";
+            job.error = "Interrupted";
+        } catch (Exception e) {
+            log.error("Export job {} failed", job.id, e);
+            job.status = "FAILED";
+            job.error = e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            running.set(null);
+            log.info("Export job {} {}: {} accounts, {} rows, {} bytes in {}", job.id, job.status,
+                    job.exported.get(), job.rows.get(), job.bytes.get(),
+                    Duration.between(job.startedAt, job.finishedAt));
+        }
+    }
+
+    private void submitAll(ExportJob job, List<String> accountNumbers, Semaphore inFlight,
+                           BufferedWriter manifest) throws InterruptedException {
+        for (String accountNumber : accountNumbers) {
+            inFlight.acquire();
+            try {
+                workers.execute(() -> {
+                    try {
+                        exportAccount(job, accountNumber, manifest);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+    }
+
+    private void exportAccount(ExportJob job, String accountNumber, BufferedWriter manifest) {
+        String fileName = fileName(accountNumber) + job.format.extension();
+        Path target = job.directory.resolve(fileName);
+        Path part = job.directory.resolve(fileName + ".part");
+        long rows = 0;
+        long bytes = 0;
+        boolean exported = false;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), FILE_BUFFER_SIZE)) {
+                rows = exportService.writeStatement(accountNumber, job.format, out);
+            }
+            bytes = Files.size(part);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            exported = true;
+        } catch (Exception e) {
+            log.warn("Export job {}: account {} failed", job.id, accountNumber, e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // Left behind as .part, never mistaken for a finished statement
+            }
+        }
+
+        if (exported) {
+            job.exported.incrementAndGet();
+            job.rows.addAndGet(rows);
+            job.bytes.addAndGet(bytes);
+            accountsExported.increment();
+        } else {
+            job.failed.incrementAndGet();
+            accountsFailed.increment();
+        }
+        synchronized (manifest) {
+            try {
+                manifest.write(csvField(accountNumber) + "," + csvField(fileName) + "," + rows + "," + bytes + ","
+                        + (exported ? "OK" : "FAILED"));
+                manifest.newLine();
+            } catch (IOException e) {
+                log.warn("Export job {}: could not write manifest line for {}", job.id, accountNumber, e);
+            }
+        }
+    }
+
+    // Account numbers are free text: encode anything that is not safe in a file name
+    public static String fileName(String accountNumber) {
+        String encoded = URLEncoder.encode(accountNumber, StandardCharsets.UTF_8).replace("*", "%2A");
+        return encoded.startsWith(".") ? "%2E" + encoded.substring(1) : encoded;
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
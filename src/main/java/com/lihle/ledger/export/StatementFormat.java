@@ -0,0 +1,43 @@
+package com.lihle.ledger.export;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Statement export formats.
+ *
+ * CSV_GZIP: RFC 4180 CSV with a header row, gzip-compressed.
+ * COLUMNAR: row groups of column-encoded, deflated rows (see ColumnarStatementWriter).
+ */
+public enum StatementFormat {
+
+    CSV_GZIP("csv", ".csv.gz", MediaType.parseMediaType("application/gzip")),
+    COLUMNAR("columnar", ".ldgc", MediaType.APPLICATION_OCTET_STREAM);
+
+    private final String parameter;
+    private final String extension;
+    private final MediaType mediaType;
+
+    StatementFormat(String parameter, String extension, MediaType mediaType) {
+        this.parameter = parameter;
+        this.extension = extension;
+        this.mediaType = mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    // format=csv or format=columnar
+    public static StatementFormat of(String value) {
+        for (StatementFormat format : values()) {
+            if (format.parameter.equalsIgnoreCase(value) || format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Invalid format: " + value + " (csv or columnar)");
+    }
+}
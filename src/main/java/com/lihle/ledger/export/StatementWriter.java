@@ -0,0 +1,25 @@
+package com.lihle.ledger.export;
+
+import com.lihle.ledger.dto.TransactionDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes statement rows to a target stream as they arrive. Only a bounded buffer
+ * (one gzip window, one columnar row group) is held, whatever the statement size.
+ * finish() completes the format but leaves the target open: the caller owns it.
+ */
+public interface StatementWriter {
+
+    void write(TransactionDTO transaction) throws IOException;
+
+    void finish() throws IOException;
+
+    static StatementWriter open(StatementFormat format, OutputStream target) throws IOException {
+        return switch (format) {
+            case CSV_GZIP -> new CsvStatementWriter(target);
+            case COLUMNAR -> new ColumnarStatementWriter(target);
+        };
+    }
+}
@@ -0,0 +1,345 @@
+package com.lihle.ledger.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.IngestionStatusDTO;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.CreateResult;
+import com.lihle.ledger.service.IdempotencyService;
+import com.lihle.ledger.service.TransactionService;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ASYNC GROUP-COMMIT INGESTION (opt-in, ledger.ingest.async.enabled)
+ *
+ * Validated postings go into a bounded ring buffer (ArrayBlockingQueue). A few
+ * writer threads drain it and commit up to ledger.ingest.async.batch-size postings
+ * per database transaction, flushing early when ledger.ingest.async.max-wait has
+ * passed since the first posting of the batch. Many postings share one commit,
+ * so throughput is no longer capped by one commit fsync per posting.
+ *
+ * Backpressure is explicit: when the buffer stays full for
+ * ledger.ingest.async.enqueue-timeout, submit() throws IngestionOverloadedException.
+ * The client is told to retry once the writers should have drained the buffer at
+ * the recent commit rate, and never sooner than ledger.ingest.async.retry-after.
+ *
+ * A batch that fails to commit is split in halves that are committed on their
+ * own, down to single postings, so one bad posting fails alone instead of taking
+ * its batch with it. Failures that are not about the postings (no connection,
+ * transient errors) fail the whole batch without splitting.
+ *
+ * A writer thread that dies (an Error) fails the postings of the batch it held,
+ * is logged and is replaced while the ingestor is running.
+ *
+ * A posting submitted with an Idempotency-Key claims it in its group commit; a
+ * resubmission while the first is still tracked gets the first posting back
+ * instead of taking buffer space. Tracking ids and keys are remembered for
+ * ledger.ingest.async.tracking-ttl, at most ledger.ingest.async.max-tracked of each.
+ *
+ * Metrics: ledger.ingest.queue.depth, ledger.ingest.accepted, ledger.ingest.rejected,
+ * ledger.ingest.batch.size, ledger.ingest.latency (enqueue to commit).
+ */
+@Component
+@ConditionalOnJpaStorage
+@ConditionalOnProperty(name = "ledger.ingest.async.enabled", havingValue = "true")
+public class GroupCommitIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitIngestor.class);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.ingest.async.capacity:10000}")
+    private int capacity;
+
+    @Value("${ledger.ingest.async.writers:2}")
+    private int writers;
+
+    @Value("${ledger.ingest.async.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ledger.ingest.async.max-wait:5ms}")
+    private Duration maxWait;
+
+    @Value("${ledger.ingest.async.enqueue-timeout:100ms}")
+    private Duration enqueueTimeout;
+
+    @Value("${ledger.ingest.async.tracking-ttl:10m}")
+    private Duration trackingTtl;
+
+    @Value("${ledger.ingest.async.max-tracked:100000}")
+    private long maxTracked;
+
+    @Value("${ledger.ingest.async.retry-after:1s}")
+    private Duration minRetryAfter;
+
+    private BlockingQueue<PendingPosting> buffer;
+    private Cache<String, PendingPosting> tracking;
+    private Cache<String, PendingPosting> byIdempotencyKey;
+    private final List<Thread> writerThreads = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+    // Smoothed commit time per posting, for retryAfter()
+    private volatile double nanosPerPosting;
+
+    private Counter accepted;
+    private Counter rejected;
+    private DistributionSummary batchSizes;
+    private Timer latency;
+
+    @PostConstruct
+    void start() {
+        // Every queued posting is tracked: evicting one would lose its status
+        if (maxTracked < capacity) {
+            throw new IllegalArgumentException("ledger.ingest.async.max-tracked must be >= ledger.ingest.async.capacity");
+        }
+        buffer = new ArrayBlockingQueue<>(capacity);
+        tracking = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(trackingTtl).build();
+        byIdempotencyKey = Caffeine.newBuilder().maximumSize(maxTracked).expireAfterWrite(trackingTtl).build();
+
+        accepted = Counter.builder("ledger.ingest.accepted").register(meterRegistry);
+        rejected = Counter.builder("ledger.ingest.rejected").register(meterRegistry);
+        batchSizes = DistributionSummary.builder("ledger.ingest.batch.size").register(meterRegistry);
+        latency = Timer.builder("ledger.ingest.latency").register(meterRegistry);
+        Gauge.builder("ledger.ingest.queue.depth", buffer, BlockingQueue::size).register(meterRegistry);
+
+        for (int i = 0; i < writers; i++) {
+            startWriter(i);
+        }
+    }
+
+    private void startWriter(int index) {
+        Thread writer = new Thread(this::drainLoop, "ledger-ingest-writer-" + index);
+        writer.setDaemon(true);
+        writer.setUncaughtExceptionHandler((thread, e) -> {
+            log.error("Ingestion writer {} died", thread.getName(), e);
+            writerThreads.remove(thread);
+            if (running) {
+                startWriter(index);
+            }
+        });
+        writerThreads.add(writer);
+        writer.start();
+    }
+
+    /**
+     * Queues an already validated posting.
+     *
+     * @return the pending posting; its future completes once the posting is committed
+     * @throws IngestionOverloadedException when the buffer stays full
+     */
+    public PendingPosting submit(TransactionDomain domain) {
+        return submit(domain, null);
+    }
+
+    /**
+     * Queues an already validated posting with an idempotency claim (null: none).
+     * While a posting with the same key is queued or committed it is returned
+     * instead; a failed one is replaced. Throws IllegalArgumentException when the
+     * key was used for a different request.
+     */
+    public PendingPosting submit(TransactionDomain domain, IdempotencyService.Claim claim) {
+        PendingPosting posting = new PendingPosting(UUID.randomUUID().toString(), domain, claim, System.nanoTime());
+        if (claim != null) {
+            PendingPosting first = byIdempotencyKey.asMap().putIfAbsent(claim.key(), posting);
+            if (first != null) {
+                if (!first.claim().requestHash().equals(claim.requestHash())) {
+                    throw new IllegalArgumentException(
+                            IdempotencyService.KEY_HEADER + " " + claim.key() + " was already used for a different request");
+                }
+                if (!first.result().isCompletedExceptionally()
+                        || !byIdempotencyKey.asMap().replace(claim.key(), first, posting)) {
+                    return byIdempotencyKey.asMap().getOrDefault(claim.key(), first);
+                }
+            }
+        }
+        try {
+            if (!running || !buffer.offer(posting, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                forget(posting);
+                throw new IngestionOverloadedException("Ingestion buffer is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            forget(posting);
+            throw new IngestionOverloadedException("Interrupted while waiting for buffer space");
+        }
+        tracking.put(posting.trackingId(), posting);
+        accepted.increment();
+        return posting;
+    }
+
+    // A posting that never made it into the buffer must not answer for its key
+    private void forget(PendingPosting posting) {
+        if (posting.claim() != null) {
+            byIdempotencyKey.asMap().remove(posting.claim().key(), posting);
+        }
+    }
+
+    public Optional<IngestionStatusDTO> status(String trackingId) {
+        return Optional.ofNullable(tracking.getIfPresent(trackingId)).map(PendingPosting::toStatus);
+    }
+
+    // Time for the writers to drain the buffer at the recent commit rate, at least retry-after
+    public Duration retryAfter() {
+        long drainNanos = (long) (buffer.size() * nanosPerPosting / writers);
+        return drainNanos > minRetryAfter.toNanos() ? Duration.ofNanos(drainNanos) : minRetryAfter;
+    }
+
+    private void drainLoop() {
+        List<PendingPosting> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingPosting first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Fill the batch until it is full or max-wait has passed since the first posting
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingPosting next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // No posting of the batch is left waiting; the writer is replaced
+                for (PendingPosting posting : batch) {
+                    posting.result().completeExceptionally(e);
+                }
+                throw e;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Postings already committed by a half keep their result: completing a done future is a no-op
+    private void commit(List<PendingPosting> batch) {
+        batchSizes.record(batch.size());
+        try {
+            persist(batch);
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} postings failed", batch.size(), e);
+            for (PendingPosting posting : batch) {
+                posting.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    // On failure the halves are retried on their own, so only the failing postings fail
+    private void persist(List<PendingPosting> batch) {
+        try {
+            persistTogether(batch);
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                log.warn("Posting to {} failed to commit", batch.get(0).domain().getAccountNumber(), e);
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            int half = batch.size() / 2;
+            persist(batch.subList(0, half));
+            persist(batch.subList(half, batch.size()));
+        }
+    }
+
+    private void persistTogether(List<PendingPosting> batch) {
+        List<TransactionDomain> domains = new ArrayList<>(batch.size());
+        List<IdempotencyService.Claim> claims = new ArrayList<>(batch.size());
+        for (PendingPosting posting : batch) {
+            domains.add(posting.domain());
+            claims.add(posting.claim());
+        }
+
+        long start = System.nanoTime();
+        List<CreateResult> saved = transactionService.persistBatch(domains, claims);
+        long now = System.nanoTime();
+        recordCommitTime(now - start, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CreateResult result = saved.get(i);
+            if (result.isRejected()) {
+                batch.get(i).result().completeExceptionally(new IllegalArgumentException(result.error()));
+            } else {
+                batch.get(i).result().complete(result.transaction());
+            }
+            latency.record(now - batch.get(i).enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void recordCommitTime(long nanos, int postings) {
+        double sample = (double) nanos / postings;
+        nanosPerPosting = nanosPerPosting == 0 ? sample : nanosPerPosting * 0.8 + sample * 0.2;
+    }
+
+    // Stop accepting, let the writers drain what is already buffered
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writerThreads) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public record PendingPosting(String trackingId, TransactionDomain domain, IdempotencyService.Claim claim,
+                                 long enqueuedAt, CompletableFuture<TransactionDTO> result) {
+
+        PendingPosting(String trackingId, TransactionDomain domain, IdempotencyService.Claim claim, long enqueuedAt) {
+            this(trackingId, domain, claim, enqueuedAt, new CompletableFuture<>());
+        }
+
+        IngestionStatusDTO toStatus() {
+            if (!result.isDone()) {
+                return new IngestionStatusDTO(trackingId, "QUEUED", null, null);
+            }
+            if (result.isCompletedExceptionally()) {
+                String error = result.handle((dto, e) -> e.getMessage()).join();
+                return new IngestionStatusDTO(trackingId, "FAILED", null, error);
+            }
+            return new IngestionStatusDTO(trackingId, "COMMITTED", result.join(), null);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.lihle.ledger.ingest;
+
+/**
+ * The ingestion buffer stayed full for the whole enqueue timeout.
+ * Callers should back off and retry.
+ */
+public class IngestionOverloadedException extends RuntimeException {
+    public IngestionOverloadedException(String message) {
+        super(message);
+    }
+}
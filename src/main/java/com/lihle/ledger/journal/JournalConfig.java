@@ -0,0 +1,23 @@
+package com.lihle.ledger.journal;
+
+import com.lihle.ledger.store.ConditionalOnJournalStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+@ConditionalOnJournalStorage
+public class JournalConfig {
+
+    @Bean(destroyMethod = "close")
+    public JournalTransactionStore journalTransactionStore(
+            @Value("${ledger.journal.directory:./data/journal}") Path directory,
+            @Value("${ledger.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${ledger.journal.force-on-write:true}") boolean forceOnWrite) throws IOException {
+        return new JournalTransactionStore(directory, segmentSize.toBytes(), forceOnWrite);
+    }
+}
@@ -0,0 +1,196 @@
+package com.lihle.ledger.journal;
+
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.domain.TransactionDomain.TransactionType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-layout binary journal record, RECORD_SIZE bytes, little endian.
+ *
+ * offset size field
+ *      0    1 type            CREATE or STATUS; 0 = never written
+ *      1    1 transactionType ordinal (CREATE)
+ *      2    1 status          ordinal: initial status (CREATE) or new status (STATUS)
+ *      3    1 reserved
+ *      4    4 crc32c          of the record with this field zeroed
+ *      8    8 id
+ *     16    8 amount          in minor units, scale 2 (CREATE)
+ *     24    8 transactionDate epoch microseconds, UTC (CREATE)
+ *     32    8 createdAt       epoch microseconds, UTC (CREATE)
+ *     40    8 version         0 on CREATE, new version on STATUS
+ *     48    1 account length  UTF-8 bytes, at most 32 (CREATE)
+ *     49   32 account number
+ *     81    1 reserved
+ *     82    2 description length, -1 for null (CREATE)
+ *     84  255 description     UTF-8
+ *    339   13 padding
+ *
+ * A status change is a STATUS record carrying only id, status and version.
+ */
+final class JournalRecord {
+
+    static final int RECORD_SIZE = 352;
+    static final byte CREATE = 1;
+    static final byte STATUS = 2;
+
+    static final int MAX_ACCOUNT_BYTES = 32;
+    static final int MAX_DESCRIPTION_BYTES = 255;
+
+    private static final int CRC_OFFSET = 4;
+    private static final int ID_OFFSET = 8;
+    private static final int AMOUNT_OFFSET = 16;
+    private static final int TRANSACTION_DATE_OFFSET = 24;
+    private static final int CREATED_AT_OFFSET = 32;
+    private static final int VERSION_OFFSET = 40;
+    private static final int ACCOUNT_LENGTH_OFFSET = 48;
+    private static final int ACCOUNT_OFFSET = 49;
+    private static final int DESCRIPTION_LENGTH_OFFSET = 82;
+    private static final int DESCRIPTION_OFFSET = 84;
+
+    private static final TransactionType[] TYPES = TransactionType.values();
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    final byte type;
+    final long id;
+    final TransactionType transactionType;
+    final TransactionStatus status;
+    final long amountMinor;
+    final LocalDateTime transactionDate;
+    final LocalDateTime createdAt;
+    final long version;
+    final String accountNumber;
+    final String description;
+
+    private JournalRecord(byte type, long id, TransactionType transactionType, TransactionStatus status,
+                          long amountMinor, LocalDateTime transactionDate, LocalDateTime createdAt,
+                          long version, String accountNumber, String description) {
+        this.type = type;
+        this.id = id;
+        this.transactionType = transactionType;
+        this.status = status;
+        this.amountMinor = amountMinor;
+        this.transactionDate = transactionDate;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.accountNumber = accountNumber;
+        this.description = description;
+    }
+
+    // Validates that the values fit the fixed layout
+    static JournalRecord create(long id, String accountNumber, BigDecimal amount, TransactionType transactionType,
+                                String description, LocalDateTime transactionDate, TransactionStatus status,
+                                LocalDateTime createdAt) {
+        if (accountNumber.getBytes(StandardCharsets.UTF_8).length > MAX_ACCOUNT_BYTES) {
+            throw new IllegalArgumentException("Account number longer than " + MAX_ACCOUNT_BYTES + " bytes");
+        }
+        if (description != null && description.getBytes(StandardCharsets.UTF_8).length > MAX_DESCRIPTION_BYTES) {
+            throw new IllegalArgumentException("Description longer than " + MAX_DESCRIPTION_BYTES + " bytes");
+        }
+        long amountMinor;
+        try {
+            amountMinor = amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return new JournalRecord(CREATE, id, transactionType, status, amountMinor,
+                transactionDate.truncatedTo(ChronoUnit.MICROS), createdAt.truncatedTo(ChronoUnit.MICROS),
+                0L, accountNumber, description);
+    }
+
+    static JournalRecord status(long id, TransactionStatus status, long version) {
+        return new JournalRecord(STATUS, id, null, status, 0L, null, null, version, null, null);
+    }
+
+    BigDecimal amount() {
+        return BigDecimal.valueOf(amountMinor, 2);
+    }
+
+    void writeTo(ByteBuffer target, int offset) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(target.order());
+        record.put(0, type);
+        record.put(2, (byte) status.ordinal());
+        record.putLong(ID_OFFSET, id);
+        record.putLong(VERSION_OFFSET, version);
+        if (type == CREATE) {
+            record.put(1, (byte) transactionType.ordinal());
+            record.putLong(AMOUNT_OFFSET, amountMinor);
+            record.putLong(TRANSACTION_DATE_OFFSET, toMicros(transactionDate));
+            record.putLong(CREATED_AT_OFFSET, toMicros(createdAt));
+            byte[] account = accountNumber.getBytes(StandardCharsets.UTF_8);
+            record.put(ACCOUNT_LENGTH_OFFSET, (byte) account.length);
+            record.put(ACCOUNT_OFFSET, account);
+            if (description == null) {
+                record.putShort(DESCRIPTION_LENGTH_OFFSET, (short) -1);
+            } else {
+                byte[] text = description.getBytes(StandardCharsets.UTF_8);
+                record.putShort(DESCRIPTION_LENGTH_OFFSET, (short) text.length);
+                record.put(DESCRIPTION_OFFSET, text);
+            }
+        }
+        record.putInt(CRC_OFFSET, checksum(record, 0));
+        target.put(offset, record.array());
+    }
+
+    static boolean isEmpty(ByteBuffer source, int offset) {
+        return source.get(offset) == 0;
+    }
+
+    // False for a torn or corrupt record
+    static boolean isValid(ByteBuffer source, int offset) {
+        byte type = source.get(offset);
+        return (type == CREATE || type == STATUS) && source.getInt(offset + CRC_OFFSET) == checksum(source, offset);
+    }
+
+    static JournalRecord readFrom(ByteBuffer source, int offset) {
+        byte type = source.get(offset);
+        long id = source.getLong(offset + ID_OFFSET);
+        TransactionStatus status = STATUSES[source.get(offset + 2)];
+        long version = source.getLong(offset + VERSION_OFFSET);
+        if (type == STATUS) {
+            return status(id, status, version);
+        }
+
+        byte[] account = new byte[source.get(offset + ACCOUNT_LENGTH_OFFSET)];
+        source.get(offset + ACCOUNT_OFFSET, account);
+        short descriptionLength = source.getShort(offset + DESCRIPTION_LENGTH_OFFSET);
+        String description = null;
+        if (descriptionLength >= 0) {
+            byte[] text = new byte[descriptionLength];
+            source.get(offset + DESCRIPTION_OFFSET, text);
+            description = new String(text, StandardCharsets.UTF_8);
+        }
+        return new JournalRecord(CREATE, id,
+                TYPES[source.get(offset + 1)],
+                status,
+                source.getLong(offset + AMOUNT_OFFSET),
+                fromMicros(source.getLong(offset + TRANSACTION_DATE_OFFSET)),
+                fromMicros(source.getLong(offset + CREATED_AT_OFFSET)),
+                version,
+                new String(account, StandardCharsets.UTF_8),
+                description);
+    }
+
+    private static int checksum(ByteBuffer source, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(source.slice(offset, CRC_OFFSET));
+        crc.update(source.slice(offset + ID_OFFSET, RECORD_SIZE - ID_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    private static long toMicros(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
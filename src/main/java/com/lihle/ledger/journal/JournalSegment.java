@@ -0,0 +1,79 @@
+package com.lihle.ledger.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One journal file, mapped read-write in full.
+ *
+ * A HEADER_SIZE header (magic, format version, record size, segment number) is
+ * followed by fixed-size record slots. New files are created at full size, so
+ * unwritten slots read as zero.
+ */
+final class JournalSegment implements Closeable {
+
+    static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x4C4A524E;   // "LJRN"
+    private static final int FORMAT_VERSION = 1;
+
+    final int number;
+    final int slots;
+    final MappedByteBuffer buffer;
+    private final FileChannel channel;
+
+    private JournalSegment(int number, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = (buffer.capacity() - HEADER_SIZE) / JournalRecord.RECORD_SIZE;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static Path fileName(Path directory, int number) {
+        return directory.resolve(String.format("segment-%08d.journal", number));
+    }
+
+    static JournalSegment create(Path directory, int number, int slots) throws IOException {
+        long size = HEADER_SIZE + (long) slots * JournalRecord.RECORD_SIZE;
+        FileChannel channel = FileChannel.open(fileName(directory, number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalSegment segment = new JournalSegment(number, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, FORMAT_VERSION);
+        segment.buffer.putInt(8, JournalRecord.RECORD_SIZE);
+        segment.buffer.putInt(12, number);
+        segment.force();
+        return segment;
+    }
+
+    static JournalSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != JournalRecord.RECORD_SIZE) {
+            channel.close();
+            throw new IllegalStateException("Not a ledger journal segment: " + file);
+        }
+        return new JournalSegment(buffer.getInt(12), channel, buffer);
+    }
+
+    int offsetOf(int slot) {
+        return HEADER_SIZE + slot * JournalRecord.RECORD_SIZE;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,502 @@
+package com.lihle.ledger.journal;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionSearchCriteria;
+import com.lihle.ledger.store.TransactionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * EMBEDDED JOURNAL BACKEND (ledger.storage.backend=journal)
+ *
+ * Transactions are appended as fixed-size CREATE records to memory-mapped,
+ * append-only segment files. A status change appends a STATUS record; nothing
+ * is ever rewritten in place. All lookups go through in-memory indexes:
+ * - by id: the record location plus the current status and version (ids are
+ *   dense, so a list indexed by id - 1)
+ * - by account number, by status and overall: (transactionDate, id) positions
+ *   in order, so recent rows, keyset pages, searches and scans walk only the
+ *   rows they return (plus the ones a search filters out)
+ *
+ * On startup every segment is replayed to rebuild the indexes. The first empty
+ * or checksum-failing slot of the last segment marks the end of the journal: a
+ * record torn by a crash is wiped, and appending resumes there.
+ *
+ * With ledger.journal.force-on-write (default) each saveAll / transitionStatus
+ * forces its pages to disk before returning, so a batch costs one msync.
+ * Writers are serialized; readers run in parallel.
+ */
+public class JournalTransactionStore implements TransactionStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalTransactionStore.class);
+
+    private final Path directory;
+    private final int slotsPerSegment;
+    private final boolean forceOnWrite;
+
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private JournalSegment current;
+    private int nextSlot;
+
+    // Rows handed to a scan consumer per read-lock section
+    private static final int SCAN_CHUNK = 1000;
+
+    private static final Comparator<Position> ORDER =
+            Comparator.comparing(Position::transactionDate).thenComparingLong(Position::id);
+
+    private final List<Entry> byId = new ArrayList<>();
+    private final Map<String, NavigableSet<Position>> byAccount = new HashMap<>();
+    private final Map<TransactionStatus, NavigableSet<Position>> byStatus = new EnumMap<>(TransactionStatus.class);
+    private final NavigableSet<Position> ordered = new TreeSet<>(ORDER);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Keyset position of a transaction
+    private record Position(LocalDateTime transactionDate, long id) {
+    }
+
+    // Location of a transaction's CREATE record and its current state
+    private static final class Entry {
+        final JournalSegment segment;
+        final int offset;
+        final Position position;
+        TransactionStatus status;
+        long version;
+
+        Entry(JournalSegment segment, int offset, Position position, TransactionStatus status, long version) {
+            this.segment = segment;
+            this.offset = offset;
+            this.position = position;
+            this.status = status;
+            this.version = version;
+        }
+    }
+
+    public JournalTransactionStore(Path directory, long segmentSize, boolean forceOnWrite) throws IOException {
+        this.directory = directory;
+        this.slotsPerSegment = (int) ((segmentSize - JournalSegment.HEADER_SIZE) / JournalRecord.RECORD_SIZE);
+        this.forceOnWrite = forceOnWrite;
+        if (slotsPerSegment < 1) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        for (TransactionStatus status : TransactionStatus.values()) {
+            byStatus.put(status, new TreeSet<>(ORDER));
+        }
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /*
+     * RECOVERY: replay all segments in order
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+        for (Path file : files) {
+            segments.add(JournalSegment.open(file));
+        }
+        if (segments.isEmpty()) {
+            current = JournalSegment.create(directory, 0, slotsPerSegment);
+            segments.add(current);
+            nextSlot = 0;
+            return;
+        }
+
+        for (int i = 0; i < segments.size(); i++) {
+            JournalSegment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            int slot = 0;
+            for (; slot < segment.slots; slot++) {
+                int offset = segment.offsetOf(slot);
+                if (JournalRecord.isEmpty(segment.buffer, offset)) {
+                    break;
+                }
+                if (!JournalRecord.isValid(segment.buffer, offset)) {
+                    if (!last) {
+                        throw new IllegalStateException("Corrupt journal record in segment " + segment.number + ", slot " + slot);
+                    }
+                    wipeTail(segment, slot);
+                    break;
+                }
+                replay(segment, offset);
+            }
+            if (!last && slot < segment.slots) {
+                throw new IllegalStateException("Journal segment " + segment.number + " ends early at slot " + slot);
+            }
+            if (last) {
+                current = segment;
+                nextSlot = slot;
+            }
+        }
+        log.info("Journal recovered: {} transactions from {} segments in {}", byId.size(), segments.size(), directory);
+    }
+
+    private void replay(JournalSegment segment, int offset) {
+        JournalRecord record = JournalRecord.readFrom(segment.buffer, offset);
+        if (record.type == JournalRecord.CREATE) {
+            if (record.id != byId.size() + 1) {
+                throw new IllegalStateException("Journal id gap: expected " + (byId.size() + 1) + ", found " + record.id);
+            }
+            index(record, segment, offset);
+        } else {
+            Entry entry = entry(record.id);
+            if (entry == null) {
+                throw new IllegalStateException("Journal status change for unknown transaction " + record.id);
+            }
+            moveStatus(entry, record.status, record.version);
+        }
+    }
+
+    // A crash can leave a torn record followed by pages that reached disk out of order
+    private void wipeTail(JournalSegment segment, int fromSlot) {
+        log.warn("Journal segment {}: discarding torn records from slot {}", segment.number, fromSlot);
+        byte[] zeros = new byte[JournalRecord.RECORD_SIZE];
+        for (int slot = fromSlot; slot < segment.slots; slot++) {
+            segment.buffer.put(segment.offsetOf(slot), zeros);
+        }
+        segment.force();
+    }
+
+    /*
+     * WRITES
+     */
+    @Override
+    public List<TransactionDTO> saveAll(List<TransactionDomain> transactions) {
+        lock.writeLock().lock();
+        try {
+            //1. Build and validate every record before writing any of them
+            LocalDateTime now = LocalDateTime.now();
+            long id = byId.size() + 1;
+            List<JournalRecord> records = new ArrayList<>(transactions.size());
+            for (TransactionDomain transaction : transactions) {
+                records.add(JournalRecord.create(
+                        id++,
+                        transaction.getAccountNumber(),
+                        transaction.getAmount(),
+                        transaction.getTransactionType(),
+                        transaction.getDescription(),
+                        transaction.getTransactionDate() != null ? transaction.getTransactionDate() : now,
+                        transaction.getStatus() != null ? transaction.getStatus() : TransactionStatus.COMPLETED,
+                        now));
+            }
+
+            //2. Append, then index
+            List<TransactionDTO> saved = new ArrayList<>(records.size());
+            for (JournalRecord record : records) {
+                int[] location = append(record);
+                index(record, segments.get(location[0]), location[1]);
+                saved.add(toDTO(record, record.status, record.version));
+            }
+
+            //3. One flush for the whole batch
+            if (forceOnWrite) {
+                current.force();
+            }
+            return saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<StatusTransitionRow> transitionStatus(Long id, String target, Collection<String> sources,
+                                                          Long expectedVersion) {
+        TransactionStatus targetStatus = TransactionStatus.valueOf(target);
+        lock.writeLock().lock();
+        try {
+            Entry entry = entry(id);
+            if (entry == null || !sources.contains(entry.status.name())
+                    || expectedVersion != null && entry.version != expectedVersion) {
+                return Optional.empty();
+            }
+            TransactionStatus previous = entry.status;
+            long version = entry.version + 1;
+            append(JournalRecord.status(id, targetStatus, version));
+            if (forceOnWrite) {
+                current.force();
+            }
+            moveStatus(entry, targetStatus, version);
+
+            JournalRecord created = JournalRecord.readFrom(entry.segment.buffer, entry.offset);
+            return Optional.of(new TransitionRow(id, created.accountNumber, created.amount(),
+                    created.transactionType.name(), created.transactionDate, previous.name(), targetStatus.name(), version));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns {segment index, offset}; rolls to a new segment when the current one is full
+    private int[] append(JournalRecord record) {
+        if (nextSlot == current.slots) {
+            current.force();
+            try {
+                current = JournalSegment.create(directory, current.number + 1, slotsPerSegment);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create journal segment " + (current.number + 1), e);
+            }
+            segments.add(current);
+            nextSlot = 0;
+        }
+        int offset = current.offsetOf(nextSlot++);
+        record.writeTo(current.buffer, offset);
+        return new int[]{segments.size() - 1, offset};
+    }
+
+    private void index(JournalRecord record, JournalSegment segment, int offset) {
+        Position position = new Position(record.transactionDate, record.id);
+        byId.add(new Entry(segment, offset, position, record.status, record.version));
+        byAccount.computeIfAbsent(record.accountNumber, account -> new TreeSet<>(ORDER)).add(position);
+        byStatus.get(record.status).add(position);
+        ordered.add(position);
+    }
+
+    private void moveStatus(Entry entry, TransactionStatus status, long version) {
+        byStatus.get(entry.status).remove(entry.position);
+        byStatus.get(status).add(entry.position);
+        entry.status = status;
+        entry.version = version;
+    }
+
+    /*
+     * READS
+     */
+    @Override
+    public Optional<TransactionDTO> findById(Long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(entry(id)).map(this::read);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionDTO> findByAccountNumber(String accountNumber) {
+        lock.readLock().lock();
+        try {
+            return read(positions(accountNumber, null).iterator(), Integer.MAX_VALUE, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionDTO> findRecentByAccountNumber(String accountNumber, int limit) {
+        lock.readLock().lock();
+        try {
+            return read(positions(accountNumber, null).descendingIterator(), limit, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionDTO> findByStatus(String status) {
+        lock.readLock().lock();
+        try {
+            return read(positions(null, status).iterator(), Integer.MAX_VALUE, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionDTO> findAll() {
+        lock.readLock().lock();
+        try {
+            List<TransactionDTO> all = new ArrayList<>(byId.size());
+            for (Entry entry : byId) {
+                all.add(read(entry));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TransactionDTO> findPage(String accountNumber, String status,
+                                         LocalDateTime afterDate, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Position> positions = positions(accountNumber, status);
+            if (afterId != null) {
+                positions = positions.tailSet(new Position(afterDate, afterId), false);
+            }
+            return read(positions.iterator(), limit, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the narrowest index (account, else status, else all) between the date
+     * bounds, from the cursor in the criteria's direction, filtering the rest.
+     */
+    @Override
+    public List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Position> positions = positions(criteria.accountNumber(), criteria.status());
+            if (criteria.fromDate() != null) {
+                positions = positions.tailSet(new Position(criteria.fromDate(), Long.MIN_VALUE), true);
+            }
+            if (criteria.toDate() != null) {
+                positions = positions.headSet(new Position(criteria.toDate(), Long.MIN_VALUE), false);
+            }
+            if (criteria.afterId() != null) {
+                Position after = new Position(criteria.afterDate(), criteria.afterId());
+                positions = criteria.descending() ? positions.headSet(after, false) : positions.tailSet(after, false);
+            }
+            Iterator<Position> walk = criteria.descending() ? positions.descendingIterator() : positions.iterator();
+            return read(walk, limit, row -> matches(row, criteria));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(TransactionDTO row, TransactionSearchCriteria criteria) {
+        return (criteria.status() == null || criteria.status().equals(row.getStatus()))
+                && (criteria.transactionType() == null || criteria.transactionType().equals(row.getTransactionType()))
+                && (criteria.minAmount() == null || criteria.minAmount().compareTo(row.getAmount()) <= 0)
+                && (criteria.maxAmount() == null || criteria.maxAmount().compareTo(row.getAmount()) >= 0);
+    }
+
+    // Keyset chunks: writers wait for one chunk at most, never for the consumer
+    @Override
+    public void scan(String accountNumber, String status, Consumer<TransactionDTO> consumer) {
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        List<TransactionDTO> chunk;
+        do {
+            chunk = findPage(accountNumber, status, afterDate, afterId, SCAN_CHUNK);
+            chunk.forEach(consumer);
+            if (!chunk.isEmpty()) {
+                TransactionDTO last = chunk.get(chunk.size() - 1);
+                afterDate = last.getTransactionDate();
+                afterId = last.getId();
+            }
+        } while (chunk.size() == SCAN_CHUNK);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return entry(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Entry entry(Long id) {
+        if (id == null || id < 1 || id > byId.size()) {
+            return null;
+        }
+        return byId.get((int) (id - 1));
+    }
+
+    // Index to walk: the account's, the status's or all positions; an unknown status has none
+    private NavigableSet<Position> positions(String accountNumber, String status) {
+        if (accountNumber != null) {
+            return byAccount.getOrDefault(accountNumber, new TreeSet<>(ORDER));
+        }
+        if (status != null) {
+            try {
+                return byStatus.get(TransactionStatus.valueOf(status));
+            } catch (IllegalArgumentException e) {
+                return new TreeSet<>(ORDER);
+            }
+        }
+        return ordered;
+    }
+
+    // Up to limit rows along the walk that pass the filter (null: every row)
+    private List<TransactionDTO> read(Iterator<Position> walk, int limit, Predicate<TransactionDTO> filter) {
+        List<TransactionDTO> result = new ArrayList<>();
+        while (result.size() < limit && walk.hasNext()) {
+            TransactionDTO row = read(entry(walk.next().id()));
+            if (filter == null || filter.test(row)) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private TransactionDTO read(Entry entry) {
+        return toDTO(JournalRecord.readFrom(entry.segment.buffer, entry.offset), entry.status, entry.version);
+    }
+
+    private static TransactionDTO toDTO(JournalRecord record, TransactionStatus status, long version) {
+        return new TransactionDTO(
+                record.id,
+                record.accountNumber,
+                record.amount(),
+                record.transactionType.name(),
+                record.description,
+                record.transactionDate,
+                status.name(),
+                record.createdAt,
+                version);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record TransitionRow(Long id, String accountNumber, BigDecimal amount, String transactionType,
+                                 LocalDateTime transactionDate, String previousStatus, String status,
+                                 Long version) implements StatusTransitionRow {
+        @Override public Long getId() { return id; }
+        @Override public String getAccountNumber() { return accountNumber; }
+        @Override public BigDecimal getAmount() { return amount; }
+        @Override public String getTransactionType() { return transactionType; }
+        @Override public LocalDateTime getTransactionDate() { return transactionDate; }
+        @Override public String getPreviousStatus() { return previousStatus; }
+        @Override public String getStatus() { return status; }
+        @Override public Long getVersion() { return version; }
+    }
+}
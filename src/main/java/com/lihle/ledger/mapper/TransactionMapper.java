@@ -3,6 +3,7 @@ package com.lihle.ledger.mapper;
 import com.lihle.ledger.domain.TransactionDomain;
 import com.lihle.ledger.dto.TransactionDTO;
 import com.lihle.ledger.entity.Transaction;
+import com.lihle.ledger.repository.StatusTransitionRow;
 import org.springframework.stereotype.Component;
 
 /**
@@ -14,6 +15,11 @@ import org.springframework.stereotype.Component;
  * 2. Domain → DTO (Business object to API response)
  * 3. Domain → Entity (Business object to database model)
  * 4. Entity → Domain (Database model to business object)
+ * 5. Status transition row → Domain (state of a transaction before a status change)
+ *
+ * Read-only paths skip this mapper: TransactionRepository projects query rows
+ * straight into TransactionDTO (see TransactionRepository.DTO_SELECT). The
+ * domain round trip is only needed where business rules run, i.e. on writes.
  */
 @Component
 public class TransactionMapper {
@@ -115,6 +121,30 @@ public class TransactionMapper {
         return entity;
     }
 
+    /**
+     * STATUS TRANSITION ROW → DOMAIN
+     * Used when: Service needs the transaction as it was before a conditional status UPDATE
+     * Description and createdAt are not part of the row; they are not needed for the
+     * balance and state rules.
+     *
+     * @param row - Row returned by the UPDATE ... RETURNING statement
+     * @return Domain object in its previous status
+     */
+    public TransactionDomain toDomain(StatusTransitionRow row) {
+        if (row == null) {
+            return null;
+        }
+
+        return TransactionDomain.builder()
+                .id(row.getId())
+                .accountNumber(row.getAccountNumber())
+                .amount(row.getAmount())
+                .transactionType(mapToTransactionType(row.getTransactionType()))
+                .transactionDate(row.getTransactionDate())
+                .status(mapToTransactionStatus(row.getPreviousStatus()))
+                .build();
+    }
+
     // Helper methods to convert enums
     private TransactionDomain.TransactionType mapToTransactionType(String type) {
         if (type == null) {
@@ -0,0 +1,25 @@
+package com.lihle.ledger.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * JpaTransactionManager that times commits as ledger.transaction.commit.
+ * The commit includes the Hibernate flush, so with sequence ids this is where
+ * the INSERT/UPDATE statements of a unit of work actually run.
+ */
+public class CommitTimingTransactionManager extends JpaTransactionManager {
+
+    private final Timer commitTimer;
+
+    public CommitTimingTransactionManager(MeterRegistry meterRegistry) {
+        this.commitTimer = Timer.builder("ledger.transaction.commit").register(meterRegistry);
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        commitTimer.record(() -> super.doCommit(status));
+    }
+}
@@ -0,0 +1,60 @@
+package com.lihle.ledger.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times reading and deserializing @RequestBody payloads, the part of a request
+ * that happens before the controller method is invoked. Recorded as
+ * ledger.layer{layer=deserialization}.
+ */
+@ControllerAdvice
+public class DeserializationTimingAdvice extends RequestBodyAdviceAdapter {
+
+    private static final String START_ATTRIBUTE = DeserializationTimingAdvice.class.getName() + ".start";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(START_ATTRIBUTE, System.nanoTime(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object start = attributes == null ? null : attributes.getAttribute(START_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (start != null) {
+            Timer.builder("ledger.layer")
+                    .tag("layer", "deserialization")
+                    .tag("operation", parameter.getContainingClass().getSimpleName() + "." + parameter.getExecutable().getName())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,95 @@
+package com.lihle.ledger.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LAYER TIMINGS
+ *
+ * ledger.layer timer, tagged with layer and operation (Class.method):
+ * - service: TransactionService & co, including the commit (this aspect runs
+ *   outside the @Transactional proxy)
+ * - mapper: TransactionMapper; toDomain includes the domain validation
+ *
+ * Repository calls are timed by Spring Boot's spring.data.repository.invocations
+ * metric. This aspect only adds the sampled slow-query log for them: calls slower
+ * than ledger.metrics.slow-query.threshold are logged with the last SQL statement
+ * for a ledger.metrics.slow-query.sample-rate fraction of occurrences.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LayerTimingAspect {
+
+    private static final Logger SLOW_QUERY_LOG = LoggerFactory.getLogger("com.lihle.ledger.SLOW_QUERY");
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.metrics.slow-query.threshold:200ms}")
+    private Duration slowQueryThreshold;
+
+    @Value("${ledger.metrics.slow-query.sample-rate:0.1}")
+    private double slowQuerySampleRate;
+
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("within(com.lihle.ledger.service..*) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("service", joinPoint);
+    }
+
+    @Around("within(com.lihle.ledger.mapper..*) && execution(public * *(..))")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("mapper", joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object logSlowQueries(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > slowQueryThreshold.toNanos()
+                    && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+                SLOW_QUERY_LOG.warn("Slow repository call {} took {} ms, last SQL: {}",
+                        joinPoint.getSignature().toShortString(),
+                        elapsed / 1_000_000,
+                        StatementCountingInspector.lastSql());
+            }
+        }
+    }
+
+    private Object time(String layer, ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, key -> Timer.builder("ledger.layer")
+                .tag("layer", layer)
+                .tag("operation", key.getDeclaringClass().getSimpleName() + "." + key.getName())
+                .register(meterRegistry));
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
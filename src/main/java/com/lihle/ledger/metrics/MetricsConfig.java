@@ -0,0 +1,25 @@
+package com.lihle.ledger.metrics;
+
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionManager;
+
+@Configuration
+@ConditionalOnJpaStorage
+public class MetricsConfig {
+
+    // Replaces Spring Boot's default JpaTransactionManager
+    @Bean
+    public PlatformTransactionManager transactionManager(MeterRegistry meterRegistry,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        CommitTimingTransactionManager transactionManager = new CommitTimingTransactionManager(meterRegistry);
+        // The TransactionManager overload: customize(PlatformTransactionManager) is deprecated for removal
+        customizers.ifAvailable(customizer -> customizer.customize((TransactionManager) transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lihle.ledger.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate hook called for every SQL statement it prepares.
+ * Keeps a per-thread count and the last statement text for the request metrics
+ * and the slow-query log. Registered through hibernate.session_factory.statement_inspector,
+ * so Hibernate instantiates it and the state has to live in static thread locals.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        LAST_SQL.set(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+        LAST_SQL.remove();
+    }
+
+    // Statements run for this thread's request on another thread (account lanes)
+    public static void add(int statements) {
+        COUNT.get()[0] += statements;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    public static String lastSql() {
+        return LAST_SQL.get();
+    }
+}
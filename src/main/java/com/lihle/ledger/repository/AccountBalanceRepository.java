@@ -0,0 +1,85 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.entity.AccountBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Repository
+public interface AccountBalanceRepository extends JpaRepository<AccountBalance, String> {
+
+    /*
+     * Adds delta to the account balance in a single statement, creating the row on
+     * first use. The row lock taken by ON CONFLICT serialises concurrent postings
+     * to the same account without a read-modify-write in Java. Bumps the account's
+     * change version.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_balances (account_number, balance, last_transaction_id, updated_at, change_version) " +
+            "VALUES (:accountNumber, :delta, :transactionId, now(), 1) " +
+            "ON CONFLICT (account_number) DO UPDATE SET " +
+            "balance = account_balances.balance + EXCLUDED.balance, " +
+            "last_transaction_id = GREATEST(account_balances.last_transaction_id, EXCLUDED.last_transaction_id), " +
+            "updated_at = EXCLUDED.updated_at, " +
+            "change_version = account_balances.change_version + 1",
+            nativeQuery = true)
+    int applyDelta(@Param("accountNumber") String accountNumber,
+                   @Param("delta") BigDecimal delta,
+                   @Param("transactionId") Long transactionId);
+
+    /*
+     * Bumps the change version of accounts whose transactions changed without
+     * moving the balance (e.g. PENDING → COMPLETED). Accounts seen for the first
+     * time get a zero-balance row. Rows are locked in account order.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_balances (account_number, balance, updated_at, change_version) " +
+            "SELECT account_number, 0, now(), 1 " +
+            "FROM unnest(CAST(:accountNumbers AS varchar[])) AS account_number ORDER BY account_number " +
+            "ON CONFLICT (account_number) DO UPDATE SET " +
+            "change_version = account_balances.change_version + 1",
+            nativeQuery = true)
+    int bumpChangeVersions(@Param("accountNumbers") String[] accountNumbers);
+
+    @Query("select b.changeVersion from AccountBalance b where b.accountNumber = :accountNumber")
+    Optional<Long> findChangeVersion(@Param("accountNumber") String accountNumber);
+
+    /*
+     * Recomputes the balances of one hash partition of the accounts from the
+     * transactions table plus the totals of archived rows (archived_account_totals)
+     * and overwrites the projection rows. Column decoding goes through the ledger_*
+     * functions (see TransactionRepository).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO account_balances (account_number, balance, last_transaction_id, updated_at) " +
+            "SELECT account_number, SUM(balance), MAX(last_transaction_id), now() FROM (" +
+            "SELECT account_number, " +
+            "ledger_amount_sum(CASE WHEN status = ledger_status_value('REVERSED', status) THEN 0 " +
+            "WHEN transaction_type = ledger_type_value('CREDIT', transaction_type) THEN amount ELSE -amount END) AS balance, " +
+            "MAX(id) AS last_transaction_id " +
+            "FROM transactions " +
+            "WHERE (hashtext(account_number) & 2147483647) % :partitions = :partition " +
+            "GROUP BY account_number " +
+            "UNION ALL " +
+            "SELECT account_number, balance, last_transaction_id FROM archived_account_totals " +
+            "WHERE (hashtext(account_number) & 2147483647) % :partitions = :partition" +
+            ") contributions " +
+            "GROUP BY account_number " +
+            "ON CONFLICT (account_number) DO UPDATE SET " +
+            "balance = EXCLUDED.balance, " +
+            "last_transaction_id = EXCLUDED.last_transaction_id, " +
+            "updated_at = EXCLUDED.updated_at, " +
+            "change_version = account_balances.change_version + 1",
+            nativeQuery = true)
+    int rebuildPartition(@Param("partition") int partition, @Param("partitions") int partitions);
+
+    // SHARE mode blocks writers to transactions but not other rebuild partitions
+    @Modifying
+    @Query(value = "LOCK TABLE transactions IN SHARE MODE", nativeQuery = true)
+    void lockTransactionsForRebuild();
+}
@@ -0,0 +1,46 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /*
+     * Claims the keys that are not taken yet and returns them. A key inserted by a
+     * transaction that is still running makes ON CONFLICT wait for its outcome, so a
+     * key missing from the result belongs to a committed posting. Keys are inserted
+     * in order so two claimers of overlapping key sets cannot deadlock.
+     */
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) " +
+            "SELECT claim.idempotency_key, claim.request_hash, now() " +
+            "FROM unnest(CAST(:keys AS varchar[]), CAST(:hashes AS varchar[])) AS claim(idempotency_key, request_hash) " +
+            "ORDER BY claim.idempotency_key " +
+            "ON CONFLICT (idempotency_key) DO NOTHING " +
+            "RETURNING idempotency_key",
+            nativeQuery = true)
+    List<String> claim(@Param("keys") String[] keys, @Param("hashes") String[] hashes);
+
+    // Index-aligned keys and ids of the postings created under them
+    @Modifying
+    @Query(value = "UPDATE idempotency_keys k SET transaction_id = link.transaction_id " +
+            "FROM unnest(CAST(:keys AS varchar[]), CAST(:transactionIds AS bigint[])) AS link(idempotency_key, transaction_id) " +
+            "WHERE k.idempotency_key = link.idempotency_key",
+            nativeQuery = true)
+    int link(@Param("keys") String[] keys, @Param("transactionIds") Long[] transactionIds);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE idempotency_key IN (" +
+            "SELECT idempotency_key FROM idempotency_keys WHERE created_at < :cutoff ORDER BY created_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
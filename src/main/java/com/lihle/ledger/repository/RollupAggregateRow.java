@@ -0,0 +1,15 @@
+package com.lihle.ledger.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One aggregated bucket read back from transaction_rollups.
+ */
+public interface RollupAggregateRow {
+    LocalDateTime getBucketStart();
+    String getTransactionType();
+    String getStatus();
+    Long getTransactionCount();
+    BigDecimal getAmount();
+}
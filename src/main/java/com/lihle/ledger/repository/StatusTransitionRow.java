@@ -0,0 +1,19 @@
+package com.lihle.ledger.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Row returned by a conditional status UPDATE: the new state of the transaction
+ * plus the status it had before, so callers need no extra SELECT.
+ */
+public interface StatusTransitionRow {
+    Long getId();
+    String getAccountNumber();
+    BigDecimal getAmount();
+    String getTransactionType();
+    LocalDateTime getTransactionDate();
+    String getPreviousStatus();
+    String getStatus();
+    Long getVersion();
+}
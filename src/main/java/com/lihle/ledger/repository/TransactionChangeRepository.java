@@ -0,0 +1,43 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.entity.TransactionChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionChangeRepository extends JpaRepository<TransactionChange, Long> {
+
+    /*
+     * SETTLED CHANGES: written by transactions older than the oldest one still running.
+     * No transaction can still add a row below that point, so reading them in
+     * (txid, id) order never skips a change that commits later.
+     */
+    String SETTLED = "txid < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) ";
+
+    @Query(value = "SELECT * FROM transaction_changes " +
+            "WHERE (txid, id) > (:txid, :id) AND " + SETTLED +
+            "ORDER BY txid, id LIMIT :limit",
+            nativeQuery = true)
+    List<TransactionChange> findSettledAfter(@Param("txid") long txid, @Param("id") long id, @Param("limit") int limit);
+
+    // Position of the newest settled change
+    @Query(value = "SELECT * FROM transaction_changes WHERE " + SETTLED +
+            "ORDER BY txid DESC, id DESC LIMIT 1",
+            nativeQuery = true)
+    Optional<TransactionChange> findSettledHead();
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM transaction_changes WHERE id IN (" +
+            "SELECT id FROM transaction_changes WHERE recorded_at < :cutoff ORDER BY recorded_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteRecordedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
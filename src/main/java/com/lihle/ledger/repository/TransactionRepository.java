@@ -1,13 +1,235 @@
 package com.lihle.ledger.repository;
 
+import com.lihle.ledger.dto.TransactionDTO;
 import com.lihle.ledger.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionSearchRepository {
     List<Transaction> findByAccountNumber(String accountNumber);
     List<Transaction> findByStatus(String status);
+
+    /*
+     * READ PROJECTIONS
+     * Rows are built straight into TransactionDTO by a constructor expression: no
+     * managed entity, no dirty checking, no Entity → Domain → DTO mapping.
+     */
+    String DTO_SELECT = "select new com.lihle.ledger.dto.TransactionDTO(" +
+            "t.id, t.accountNumber, t.amount, t.transactionType, t.description, " +
+            "t.transactionDate, t.status, t.createdAt, t.version) from Transaction t ";
+
+    @Query(DTO_SELECT)
+    List<TransactionDTO> findAllProjected();
+
+    @Query(DTO_SELECT + "where t.id = :id")
+    Optional<TransactionDTO> findProjectedById(@Param("id") Long id);
+
+    @Query(DTO_SELECT + "where t.id in :ids")
+    List<TransactionDTO> findProjectedByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(DTO_SELECT + "where t.accountNumber = :accountNumber")
+    List<TransactionDTO> findProjectedByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query(DTO_SELECT + "where t.status = :status")
+    List<TransactionDTO> findProjectedByStatus(@Param("status") String status);
+
+    // Most recent first, feeds the per-account read cache
+    @Query(DTO_SELECT + "where t.accountNumber = :accountNumber order by t.transactionDate desc, t.id desc")
+    List<TransactionDTO> findRecentByAccountNumber(@Param("accountNumber") String accountNumber, Pageable pageable);
+
+    /*
+     * KEYSET PAGES ordered by (transactionDate, id).
+     * The first page has no cursor; every following page starts strictly after the
+     * last (transactionDate, id) of the previous one. Only the page size is read,
+     * whatever the offset into the table.
+     */
+    @Query(DTO_SELECT + "order by t.transactionDate, t.id")
+    List<TransactionDTO> findFirstPage(Pageable pageable);
+
+    @Query(DTO_SELECT +
+            "where t.transactionDate >= :date and (t.transactionDate > :date or t.id > :id) " +
+            "order by t.transactionDate, t.id")
+    List<TransactionDTO> findPageAfter(@Param("date") LocalDateTime date, @Param("id") Long id, Pageable pageable);
+
+    @Query(DTO_SELECT + "where t.accountNumber = :accountNumber order by t.transactionDate, t.id")
+    List<TransactionDTO> findFirstPageByAccountNumber(@Param("accountNumber") String accountNumber, Pageable pageable);
+
+    @Query(DTO_SELECT +
+            "where t.accountNumber = :accountNumber " +
+            "and t.transactionDate >= :date and (t.transactionDate > :date or t.id > :id) " +
+            "order by t.transactionDate, t.id")
+    List<TransactionDTO> findPageByAccountNumberAfter(@Param("accountNumber") String accountNumber,
+                                                      @Param("date") LocalDateTime date,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    @Query(DTO_SELECT + "where t.status = :status order by t.transactionDate, t.id")
+    List<TransactionDTO> findFirstPageByStatus(@Param("status") String status, Pageable pageable);
+
+    @Query(DTO_SELECT +
+            "where t.status = :status " +
+            "and t.transactionDate >= :date and (t.transactionDate > :date or t.id > :id) " +
+            "order by t.transactionDate, t.id")
+    List<TransactionDTO> findPageByStatusAfter(@Param("status") String status,
+                                               @Param("date") LocalDateTime date,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
+    /*
+     * Native SQL reads and writes status, transaction_type and amount through the
+     * ledger_* functions of V3__encoding_functions.sql. They are overloaded for the
+     * default (varchar/numeric) and the compact (smallint/bigint minor units)
+     * column types, so the same statements run on both schemas.
+     */
+    String TRANSITION_RETURNING = "RETURNING t.id AS \"id\", t.account_number AS \"accountNumber\", " +
+            "ledger_amount(t.amount) AS \"amount\", " +
+            "ledger_type_name(t.transaction_type) AS \"transactionType\", t.transaction_date AS \"transactionDate\", " +
+            "ledger_status_name(previous.status) AS \"previousStatus\", ledger_status_name(t.status) AS \"status\", " +
+            "t.version AS \"version\"";
+
+    /*
+     * STATUS TRANSITION in one round trip.
+     * The CTE locks the row and reads its current status; the UPDATE only applies when
+     * that status is one of the allowed sources, and bumps the version. A concurrent
+     * transition waits on the row lock and then sees the new status, so two racing
+     * requests cannot both succeed. With an expectedVersion (If-Match) the UPDATE also
+     * requires the row to still be at that version; null skips the check.
+     * Empty result: unknown id, transition not allowed or version moved on.
+     */
+    @Transactional
+    @Query(value = "WITH previous AS (SELECT id, status FROM transactions WHERE id = :id FOR UPDATE) " +
+            "UPDATE transactions t SET status = ledger_status_value(:target, t.status), version = t.version + 1 " +
+            "FROM previous " +
+            "WHERE t.id = previous.id AND ledger_status_name(previous.status) IN (:sources) " +
+            "AND (CAST(:expectedVersion AS bigint) IS NULL OR t.version = CAST(:expectedVersion AS bigint)) " +
+            TRANSITION_RETURNING,
+            nativeQuery = true)
+    Optional<StatusTransitionRow> transitionStatus(@Param("id") Long id,
+                                                   @Param("target") String target,
+                                                   @Param("sources") Collection<String> sources,
+                                                   @Param("expectedVersion") Long expectedVersion);
+
+    /*
+     * BULK STATUS TRANSITIONS, set-based versions of transitionStatus.
+     * Rows are locked in id order so concurrent bulk requests cannot deadlock.
+     */
+    @Transactional
+    @Query(value = "WITH previous AS (SELECT id, status FROM transactions " +
+            "WHERE id IN (:ids) AND ledger_status_name(status) IN (:sources) ORDER BY id FOR UPDATE) " +
+            "UPDATE transactions t SET status = ledger_status_value(:target, t.status), version = t.version + 1 " +
+            "FROM previous " +
+            "WHERE t.id = previous.id " +
+            TRANSITION_RETURNING,
+            nativeQuery = true)
+    List<StatusTransitionRow> transitionStatusByIds(@Param("ids") Collection<Long> ids,
+                                                    @Param("target") String target,
+                                                    @Param("sources") Collection<String> sources);
+
+    /*
+     * One chunk of a filter-based transition. Null filter values match everything.
+     * Rows already locked by another writer are skipped; the caller counts what is left
+     * (countTransitionCandidates) and retries after that writer has committed.
+     * Callers must exclude the target from the sources, otherwise the same rows match forever.
+     * Sources are bound as one array (a collection would not expand inside a function call)
+     * and encoded, so the status predicate can drive an index on either encoding.
+     */
+    @Transactional
+    @Query(value = "WITH previous AS (SELECT id, status FROM transactions " +
+            "WHERE status = ANY(ledger_status_values(CAST(:sources AS varchar[]), status)) " +
+            "AND (CAST(:accountNumber AS varchar) IS NULL OR account_number = CAST(:accountNumber AS varchar)) " +
+            "AND (CAST(:fromDate AS timestamp) IS NULL OR transaction_date >= CAST(:fromDate AS timestamp)) " +
+            "AND (CAST(:toDate AS timestamp) IS NULL OR transaction_date < CAST(:toDate AS timestamp)) " +
+            "ORDER BY id LIMIT :chunkSize FOR UPDATE SKIP LOCKED) " +
+            "UPDATE transactions t SET status = ledger_status_value(:target, t.status), version = t.version + 1 " +
+            "FROM previous " +
+            "WHERE t.id = previous.id " +
+            TRANSITION_RETURNING,
+            nativeQuery = true)
+    List<StatusTransitionRow> transitionStatusByFilter(@Param("accountNumber") String accountNumber,
+                                                       @Param("fromDate") LocalDateTime from,
+                                                       @Param("toDate") LocalDateTime to,
+                                                       @Param("target") String target,
+                                                       @Param("sources") String[] sources,
+                                                       @Param("chunkSize") int chunkSize);
+
+    // Rows a filter-based transition would still move, locked or not
+    @Query(value = "SELECT count(*) FROM transactions " +
+            "WHERE status = ANY(ledger_status_values(CAST(:sources AS varchar[]), status)) " +
+            "AND (CAST(:accountNumber AS varchar) IS NULL OR account_number = CAST(:accountNumber AS varchar)) " +
+            "AND (CAST(:fromDate AS timestamp) IS NULL OR transaction_date >= CAST(:fromDate AS timestamp)) " +
+            "AND (CAST(:toDate AS timestamp) IS NULL OR transaction_date < CAST(:toDate AS timestamp))",
+            nativeQuery = true)
+    long countTransitionCandidates(@Param("accountNumber") String accountNumber,
+                                   @Param("fromDate") LocalDateTime from,
+                                   @Param("toDate") LocalDateTime to,
+                                   @Param("sources") String[] sources);
+
+    // Account lanes need the account before the status change runs
+    @Query("select t.accountNumber from Transaction t where t.id = :id")
+    Optional<String> findAccountNumberById(@Param("id") Long id);
+
+    @Query("select t.id from Transaction t where t.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /*
+     * Distinct account numbers after :after, in order, up to :limit. A loose index
+     * scan: each step jumps to the next account through idx_transactions_account_date
+     * instead of reading every row of the previous one.
+     */
+    @Query(value = "WITH RECURSIVE accounts(account_number) AS ( " +
+            "(SELECT account_number FROM transactions WHERE account_number > :after " +
+            "ORDER BY account_number LIMIT 1) " +
+            "UNION ALL " +
+            "SELECT (SELECT t.account_number FROM transactions t WHERE t.account_number > a.account_number " +
+            "ORDER BY t.account_number LIMIT 1) " +
+            "FROM accounts a WHERE a.account_number IS NOT NULL) " +
+            "SELECT account_number FROM accounts WHERE account_number IS NOT NULL LIMIT :limit",
+            nativeQuery = true)
+    List<String> findAccountNumbersAfter(@Param("after") String after, @Param("limit") int limit);
+
+    // Accounts with archived rows (see PartitionMaintenance), same paging as findAccountNumbersAfter
+    @Query(value = "SELECT account_number FROM archived_account_totals WHERE account_number > :after " +
+            "ORDER BY account_number LIMIT :limit",
+            nativeQuery = true)
+    List<String> findArchivedAccountNumbersAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /*
+     * STREAMS for NDJSON responses and statement exports.
+     * Must be consumed inside a transaction: the PostgreSQL driver only honours the
+     * fetch size (server-side cursor) when autocommit is off.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DTO_SELECT + "order by t.transactionDate, t.id")
+    Stream<TransactionDTO> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DTO_SELECT + "where t.accountNumber = :accountNumber order by t.transactionDate, t.id")
+    Stream<TransactionDTO> streamByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DTO_SELECT + "where t.status = :status order by t.transactionDate, t.id")
+    Stream<TransactionDTO> streamByStatus(@Param("status") String status);
+
+    // Rows of [from, to) in the given statuses, grouped by account for ArchiveSegmentWriter
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO_SELECT +
+            "where t.transactionDate >= :from and t.transactionDate < :to and t.status in :statuses " +
+            "order by t.accountNumber, t.transactionDate, t.id")
+    Stream<TransactionDTO> streamForArchive(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("statuses") Collection<String> statuses);
 }
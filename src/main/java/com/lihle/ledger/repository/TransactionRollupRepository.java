@@ -0,0 +1,97 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.entity.TransactionRollup;
+import com.lihle.ledger.entity.TransactionRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollupId> {
+
+    /*
+     * Adds count and amount deltas to one hourly bucket, creating the row on first
+     * use. Negative deltas move a transaction out of the bucket of its old status.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transaction_rollups (account_number, bucket_start, transaction_type, status, transaction_count, amount_sum) " +
+            "VALUES (:accountNumber, :bucketStart, :transactionType, :status, :countDelta, :amountDelta) " +
+            "ON CONFLICT (account_number, bucket_start, transaction_type, status) DO UPDATE SET " +
+            "transaction_count = transaction_rollups.transaction_count + EXCLUDED.transaction_count, " +
+            "amount_sum = transaction_rollups.amount_sum + EXCLUDED.amount_sum",
+            nativeQuery = true)
+    int applyDelta(@Param("accountNumber") String accountNumber,
+                   @Param("bucketStart") LocalDateTime bucketStart,
+                   @Param("transactionType") String transactionType,
+                   @Param("status") String status,
+                   @Param("countDelta") long countDelta,
+                   @Param("amountDelta") BigDecimal amountDelta);
+
+    /*
+     * Re-buckets hourly rows to hour/day/month/year over [from, to).
+     * A null accountNumber aggregates across all accounts.
+     */
+    @Query(value = "SELECT date_trunc(CAST(:unit AS text), bucket_start) AS \"bucketStart\", " +
+            "transaction_type AS \"transactionType\", status AS \"status\", " +
+            "CAST(SUM(transaction_count) AS bigint) AS \"transactionCount\", SUM(amount_sum) AS \"amount\" " +
+            "FROM transaction_rollups " +
+            "WHERE (CAST(:accountNumber AS varchar) IS NULL OR account_number = :accountNumber) " +
+            "AND bucket_start >= :fromBucket AND bucket_start < :toBucket " +
+            "GROUP BY 1, 2, 3 " +
+            "HAVING SUM(transaction_count) <> 0 " +
+            "ORDER BY 1, 2, 3",
+            nativeQuery = true)
+    List<RollupAggregateRow> aggregateByBucket(@Param("accountNumber") String accountNumber,
+                                               @Param("fromBucket") LocalDateTime from,
+                                               @Param("toBucket") LocalDateTime to,
+                                               @Param("unit") String unit);
+
+    // Whole range as one bucket per (type, status); bucketStart is the range start
+    @Query(value = "SELECT CAST(:fromBucket AS timestamp) AS \"bucketStart\", " +
+            "transaction_type AS \"transactionType\", status AS \"status\", " +
+            "CAST(SUM(transaction_count) AS bigint) AS \"transactionCount\", SUM(amount_sum) AS \"amount\" " +
+            "FROM transaction_rollups " +
+            "WHERE (CAST(:accountNumber AS varchar) IS NULL OR account_number = :accountNumber) " +
+            "AND bucket_start >= :fromBucket AND bucket_start < :toBucket " +
+            "GROUP BY 2, 3 " +
+            "HAVING SUM(transaction_count) <> 0 " +
+            "ORDER BY 2, 3",
+            nativeQuery = true)
+    List<RollupAggregateRow> aggregateTotal(@Param("accountNumber") String accountNumber,
+                                            @Param("fromBucket") LocalDateTime from,
+                                            @Param("toBucket") LocalDateTime to);
+
+    /*
+     * Rollups of archived months (transaction_archive_segments) are final: their rows
+     * left the transactions table, so a rebuild keeps those buckets and only
+     * recomputes the others.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_rollups r WHERE NOT EXISTS (SELECT 1 FROM transaction_archive_segments s " +
+            "WHERE r.bucket_start >= s.range_start AND r.bucket_start < s.range_end)",
+            nativeQuery = true)
+    int deleteUnarchivedRollups();
+
+    // Recomputes every hourly bucket outside archived months from the transactions table (ledger_* decoding, see TransactionRepository)
+    @Modifying
+    @Query(value = "INSERT INTO transaction_rollups (account_number, bucket_start, transaction_type, status, transaction_count, amount_sum) " +
+            "SELECT account_number, date_trunc('hour', transaction_date), " +
+            "ledger_type_name(transaction_type), ledger_status_name(status), COUNT(*), ledger_amount_sum(amount) " +
+            "FROM transactions t " +
+            "WHERE NOT EXISTS (SELECT 1 FROM transaction_archive_segments s " +
+            "WHERE t.transaction_date >= s.range_start AND t.transaction_date < s.range_end) " +
+            "GROUP BY account_number, date_trunc('hour', transaction_date), transaction_type, status",
+            nativeQuery = true)
+    int rebuildAll();
+
+    // SHARE mode blocks writers to transactions for the duration of the rebuild
+    @Modifying
+    @Query(value = "LOCK TABLE transactions IN SHARE MODE", nativeQuery = true)
+    void lockTransactionsForRebuild();
+}
@@ -0,0 +1,21 @@
+package com.lihle.ledger.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Validated search filters. Null fields are not filtered on.
+ * fromDate is inclusive, toDate exclusive; amounts are inclusive.
+ * afterDate/afterId is the keyset position of the last row already returned.
+ */
+public record TransactionSearchCriteria(String accountNumber,
+                                        String status,
+                                        String transactionType,
+                                        LocalDateTime fromDate,
+                                        LocalDateTime toDate,
+                                        BigDecimal minAmount,
+                                        BigDecimal maxAmount,
+                                        boolean descending,
+                                        LocalDateTime afterDate,
+                                        Long afterId) {
+}
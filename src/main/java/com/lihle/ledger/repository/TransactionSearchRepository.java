@@ -0,0 +1,14 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.dto.TransactionDTO;
+
+import java.util.List;
+
+/**
+ * Custom fragment of TransactionRepository for multi-criteria search.
+ */
+public interface TransactionSearchRepository {
+
+    // At most limit rows ordered by (transactionDate, id) in the requested direction
+    List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit);
+}
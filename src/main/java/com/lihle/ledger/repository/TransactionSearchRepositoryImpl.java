@@ -0,0 +1,76 @@
+package com.lihle.ledger.repository;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SEARCH as one parameterized DTO query.
+ *
+ * Only the filters that are present become predicates, so every combination is
+ * a plain conjunction that the composite indexes (V2__search_indexes.sql) can
+ * serve: equality columns first, then the (transaction_date, id) range and order.
+ * Values are always bound, never inlined, so each filter combination has one
+ * query string: Hibernate compiles it once into its query plan cache and the
+ * driver reuses the server-side prepared statement. The keyset predicate keeps
+ * the cost of later pages the same as the first.
+ */
+public class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit) {
+        StringBuilder jpql = new StringBuilder(TransactionRepository.DTO_SELECT).append("where 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        if (criteria.accountNumber() != null) {
+            jpql.append(" and t.accountNumber = :accountNumber");
+            parameters.put("accountNumber", criteria.accountNumber());
+        }
+        if (criteria.status() != null) {
+            jpql.append(" and t.status = :status");
+            parameters.put("status", criteria.status());
+        }
+        if (criteria.transactionType() != null) {
+            jpql.append(" and t.transactionType = :transactionType");
+            parameters.put("transactionType", criteria.transactionType());
+        }
+        if (criteria.fromDate() != null) {
+            jpql.append(" and t.transactionDate >= :fromDate");
+            parameters.put("fromDate", criteria.fromDate());
+        }
+        if (criteria.toDate() != null) {
+            jpql.append(" and t.transactionDate < :toDate");
+            parameters.put("toDate", criteria.toDate());
+        }
+        if (criteria.minAmount() != null) {
+            jpql.append(" and t.amount >= :minAmount");
+            parameters.put("minAmount", criteria.minAmount());
+        }
+        if (criteria.maxAmount() != null) {
+            jpql.append(" and t.amount <= :maxAmount");
+            parameters.put("maxAmount", criteria.maxAmount());
+        }
+        if (criteria.afterId() != null) {
+            jpql.append(criteria.descending()
+                    ? " and t.transactionDate <= :afterDate and (t.transactionDate < :afterDate or t.id < :afterId)"
+                    : " and t.transactionDate >= :afterDate and (t.transactionDate > :afterDate or t.id > :afterId)");
+            parameters.put("afterDate", criteria.afterDate());
+            parameters.put("afterId", criteria.afterId());
+        }
+        jpql.append(criteria.descending()
+                ? " order by t.transactionDate desc, t.id desc"
+                : " order by t.transactionDate, t.id");
+
+        TypedQuery<TransactionDTO> query = entityManager.createQuery(jpql.toString(), TransactionDTO.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,165 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.AccountBalanceDTO;
+import com.lihle.ledger.entity.AccountBalance;
+import com.lihle.ledger.repository.AccountBalanceRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BALANCE PROJECTION
+ *
+ * Keeps one running CREDIT − DEBIT balance per account so a balance check is a
+ * single-row lookup instead of a scan of the account history.
+ * The apply methods join the caller's transaction: the projection commits or
+ * rolls back together with the transaction rows that caused the change. They also
+ * bump the change version of every account they are given, balance moved or not:
+ * the version is the ETag of the account's reads.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class AccountBalanceService {
+
+    @Autowired
+    private AccountBalanceRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${ledger.balance.rebuild-parallelism:4}")
+    private int rebuildParallelism;
+
+    /**
+     * New transactions. Deltas are summed per account first, so a batch chunk
+     * costs one statement per account rather than one per transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyCreated(List<TransactionDomain> created) {
+        Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+        Map<String, Long> lastIds = new LinkedHashMap<>();
+        for (TransactionDomain transaction : created) {
+            if (!transaction.affectsBalance()) {
+                continue;
+            }
+            deltas.merge(transaction.getAccountNumber(), transaction.signedAmount(), BigDecimal::add);
+            lastIds.merge(transaction.getAccountNumber(), transaction.getId(), Math::max);
+        }
+        deltas.forEach((account, delta) -> repository.applyDelta(account, delta, lastIds.get(account)));
+        bumpUnchanged(created, deltas.keySet());
+    }
+
+    /**
+     * Status change of an existing transaction. Only moves into REVERSED
+     * change the balance.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyStatusChange(TransactionDomain before, TransactionDomain after) {
+        applyStatusChanges(List.of(before), List.of(after));
+    }
+
+    /**
+     * Bulk status changes; before and after are index-aligned. Deltas are summed
+     * per account so a chunk costs one statement per account.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyStatusChanges(List<TransactionDomain> before, List<TransactionDomain> after) {
+        Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+        Map<String, Long> lastIds = new LinkedHashMap<>();
+        for (int i = 0; i < after.size(); i++) {
+            TransactionDomain previous = before.get(i);
+            TransactionDomain current = after.get(i);
+            if (previous.affectsBalance() == current.affectsBalance()) {
+                continue;
+            }
+            BigDecimal delta = current.affectsBalance() ? current.signedAmount() : current.signedAmount().negate();
+            deltas.merge(current.getAccountNumber(), delta, BigDecimal::add);
+            lastIds.merge(current.getAccountNumber(), current.getId(), Math::max);
+        }
+        deltas.forEach((account, delta) -> repository.applyDelta(account, delta, lastIds.get(account)));
+        bumpUnchanged(after, deltas.keySet());
+    }
+
+    // applyDelta already bumped the accounts whose balance moved
+    private void bumpUnchanged(List<TransactionDomain> changed, Set<String> bumped) {
+        String[] accounts = changed.stream()
+                .map(TransactionDomain::getAccountNumber)
+                .filter(account -> !bumped.contains(account))
+                .distinct()
+                .toArray(String[]::new);
+        if (accounts.length > 0) {
+            repository.bumpChangeVersions(accounts);
+        }
+    }
+
+    public Optional<AccountBalanceDTO> getBalance(String accountNumber) {
+        return repository.findById(accountNumber).map(this::toDTO);
+    }
+
+    // Empty for accounts without any transaction
+    public Optional<Long> getChangeVersion(String accountNumber) {
+        return repository.findChangeVersion(accountNumber);
+    }
+
+    /**
+     * Recomputes every projection row from the transactions table.
+     *
+     * Accounts are split into hash partitions that are rebuilt in parallel, each in
+     * its own database transaction. Each partition holds a SHARE lock on the
+     * transactions table, so postings wait for the rebuild instead of being lost
+     * under it.
+     *
+     * @return number of accounts rebuilt
+     */
+    public int rebuild() {
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<Integer>> partitions = new ArrayList<>(rebuildParallelism);
+            for (int partition = 0; partition < rebuildParallelism; partition++) {
+                int current = partition;
+                partitions.add(executor.submit(() -> transactionTemplate.execute(status -> {
+                    repository.lockTransactionsForRebuild();
+                    return repository.rebuildPartition(current, rebuildParallelism);
+                })));
+            }
+
+            int accounts = 0;
+            for (Future<Integer> partition : partitions) {
+                accounts += partition.get();
+            }
+            return accounts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Balance rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Balance rebuild failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private AccountBalanceDTO toDTO(AccountBalance balance) {
+        return new AccountBalanceDTO(
+                balance.getAccountNumber(),
+                balance.getBalance(),
+                balance.getLastTransactionId(),
+                balance.getUpdatedAt());
+    }
+}
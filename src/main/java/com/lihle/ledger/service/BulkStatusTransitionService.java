@@ -0,0 +1,240 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.archive.TransactionArchive;
+import com.lihle.ledger.cache.TransactionReadCache;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.BulkStatusRequestDTO;
+import com.lihle.ledger.dto.BulkStatusResultDTO;
+import com.lihle.ledger.mapper.TransactionMapper;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * BULK STATUS TRANSITIONS (mass dispute / reversal)
+ *
+ * Applies the DOMAIN state rules with set-based conditional UPDATEs instead of one
+ * request, one SELECT and one commit per transaction. Work is split in chunks of
+ * ledger.bulk.chunk-size, each committed on its own, so locks stay short and a
+ * failure only rolls back the chunk it happened in. Archived transactions are
+ * reported as CONFLICT, like in TransactionService.
+ *
+ * Filter-based transitions skip rows another writer has locked instead of waiting
+ * on them. Skipped rows are retried up to ledger.bulk.lock-retries times, with
+ * ledger.bulk.lock-retry-backoff doubling between attempts; rows still held after
+ * that are reported as skipped rather than dropped silently.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class BulkStatusTransitionService {
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionMapper mapper;
+
+    @Autowired
+    private AccountBalanceService balanceService;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private TransactionReadCache readCache;
+
+    @Autowired
+    private TransactionArchive archive;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${ledger.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${ledger.bulk.max-ids:100000}")
+    private int maxIds;
+
+    @Value("${ledger.bulk.lock-retries:5}")
+    private int lockRetries;
+
+    @Value("${ledger.bulk.lock-retry-backoff:50ms}")
+    private Duration lockRetryBackoff;
+
+    public BulkStatusResultDTO transition(BulkStatusRequestDTO request) {
+        TransactionDomain.TransactionStatus target = TransactionService.parseTargetStatus(request.getTargetStatus());
+        Set<TransactionDomain.TransactionStatus> sources = EnumSet.noneOf(TransactionDomain.TransactionStatus.class);
+        sources.addAll(TransactionDomain.allowedSourcesFor(target));
+
+        if (request.getCurrentStatus() != null) {
+            TransactionDomain.TransactionStatus current = parseStatus(request.getCurrentStatus());
+            sources.retainAll(EnumSet.of(current));
+            if (sources.isEmpty()) {
+                throw new IllegalArgumentException("Transition from " + current + " to " + target + " is not allowed");
+            }
+        }
+
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byFilter = request.getAccountNumber() != null || request.getFrom() != null
+                || request.getTo() != null || request.getCurrentStatus() != null;
+        if (byIds == byFilter) {
+            throw new IllegalArgumentException("Provide either ids or at least one filter criterion");
+        }
+
+        return byIds
+                ? transitionByIds(request.getIds(), target, sources)
+                : transitionByFilter(request, target, sources);
+    }
+
+    /**
+     * Every listed id gets an outcome. Ids the UPDATE did not return are looked up
+     * once per chunk to tell CONFLICT (exists, wrong status) from NOT_FOUND.
+     */
+    private BulkStatusResultDTO transitionByIds(List<Long> ids, TransactionDomain.TransactionStatus target,
+                                                Set<TransactionDomain.TransactionStatus> sources) {
+        if (ids.size() > maxIds) {
+            throw new IllegalArgumentException("Bulk request exceeds maximum of " + maxIds + " ids");
+        }
+
+        List<String> sourceNames = names(sources);
+        Map<Long, StatusTransitionOutcome> outcomes = new LinkedHashMap<>();
+        List<Long> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+
+        for (int start = 0; start < distinctIds.size(); start += chunkSize) {
+            List<Long> chunk = distinctIds.subList(start, Math.min(start + chunkSize, distinctIds.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StatusTransitionRow> rows = repository.transitionStatusByIds(chunk, target.name(), sourceNames);
+                applySideEffects(rows, target);
+
+                Set<Long> updated = rows.stream().map(StatusTransitionRow::getId).collect(Collectors.toSet());
+                List<Long> missing = chunk.stream().filter(id -> !updated.contains(id)).collect(Collectors.toList());
+                Set<Long> existing = missing.isEmpty() ? Set.of() : new HashSet<>(repository.findExistingIds(missing));
+                for (Long id : chunk) {
+                    if (updated.contains(id)) {
+                        outcomes.put(id, StatusTransitionOutcome.UPDATED);
+                    } else if (existing.contains(id) || archive.findById(id).isPresent()) {
+                        outcomes.put(id, StatusTransitionOutcome.CONFLICT);
+                    } else {
+                        outcomes.put(id, StatusTransitionOutcome.NOT_FOUND);
+                    }
+                }
+            });
+        }
+
+        BulkStatusResultDTO result = new BulkStatusResultDTO();
+        result.setTargetStatus(target.name());
+        result.setOutcomes(new LinkedHashMap<>());
+        outcomes.forEach((id, outcome) -> {
+            result.getOutcomes().put(id, outcome.name());
+            switch (outcome) {
+                case UPDATED -> result.setUpdated(result.getUpdated() + 1);
+                case CONFLICT -> result.setConflicts(result.getConflicts() + 1);
+                case NOT_FOUND -> result.setNotFound(result.getNotFound() + 1);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Repeats chunked UPDATEs until no unlocked matching row is left, then retries
+     * the rows other writers held; only aggregate counts are returned. Transactions
+     * already in the target status are left alone, which also guarantees the loop ends.
+     */
+    private BulkStatusResultDTO transitionByFilter(BulkStatusRequestDTO request, TransactionDomain.TransactionStatus target,
+                                                   Set<TransactionDomain.TransactionStatus> sources) {
+        sources.remove(target);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Nothing can be moved to " + target + " with this filter");
+        }
+
+        String[] sourceNames = names(sources).toArray(String[]::new);
+        long updated = 0;
+        long skipped;
+        int attempt = 0;
+        while (true) {
+            //1. Chunks until every row that was not locked has moved
+            int rowsInChunk;
+            do {
+                rowsInChunk = transactionTemplate.execute(status -> {
+                    List<StatusTransitionRow> rows = repository.transitionStatusByFilter(
+                            request.getAccountNumber(), request.getFrom(), request.getTo(),
+                            target.name(), sourceNames, chunkSize);
+                    applySideEffects(rows, target);
+                    return rows.size();
+                });
+                updated += rowsInChunk;
+            } while (rowsInChunk > 0);
+
+            //2. Whatever still matches was locked by another writer: wait for it, a bounded number of times
+            skipped = repository.countTransitionCandidates(
+                    request.getAccountNumber(), request.getFrom(), request.getTo(), sourceNames);
+            if (skipped == 0 || attempt == lockRetries || !backOff(attempt++)) {
+                break;
+            }
+        }
+
+        return new BulkStatusResultDTO(target.name(), updated, 0, 0, skipped, null);
+    }
+
+    // false when interrupted: the request ends with what it has
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(lockRetryBackoff.multipliedBy(1L << Math.min(attempt, 16)).toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Balance projection, rollups, change feed and read cache, inside the chunk's database transaction
+    private void applySideEffects(List<StatusTransitionRow> rows, TransactionDomain.TransactionStatus target) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<TransactionDomain> before = new ArrayList<>(rows.size());
+        List<TransactionDomain> after = new ArrayList<>(rows.size());
+        Set<Long> ids = new HashSet<>();
+        Set<String> accounts = new HashSet<>();
+        for (StatusTransitionRow row : rows) {
+            TransactionDomain previous = mapper.toDomain(row);
+            before.add(previous);
+            after.add(previous.transitionTo(target));
+            ids.add(row.getId());
+            accounts.add(row.getAccountNumber());
+        }
+        balanceService.applyStatusChanges(before, after);
+        rollupService.applyStatusChanges(before, after);
+        changeFeedService.recordStatusChanges(before, after);
+        readCache.evictAll(ids, accounts);
+    }
+
+    private TransactionDomain.TransactionStatus parseStatus(String status) {
+        try {
+            return TransactionDomain.TransactionStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status:" + status);
+        }
+    }
+
+    private List<String> names(Set<TransactionDomain.TransactionStatus> statuses) {
+        return statuses.stream().map(Enum::name).collect(Collectors.toList());
+    }
+}
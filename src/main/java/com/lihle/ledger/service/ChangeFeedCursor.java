@@ -0,0 +1,34 @@
+package com.lihle.ledger.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Change feed position (txid, id) of the last change a consumer has seen.
+ * Clients only ever see the opaque encoded form.
+ */
+public record ChangeFeedCursor(long txid, long id) {
+
+    public static final ChangeFeedCursor START = new ChangeFeedCursor(0, 0);
+
+    public boolean isAfter(ChangeFeedCursor other) {
+        return txid != other.txid ? txid > other.txid : id > other.id;
+    }
+
+    public String encode() {
+        String raw = txid + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ChangeFeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new ChangeFeedCursor(
+                    Long.parseLong(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.changefeed.TransactionChangesRecorded;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.ChangeFeedPageDTO;
+import com.lihle.ledger.dto.TransactionChangeDTO;
+import com.lihle.ledger.entity.TransactionChange;
+import com.lihle.ledger.repository.TransactionChangeRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * CHANGE FEED (transactional outbox)
+ *
+ * Creates and status transitions are recorded in transaction_changes inside the
+ * writer's database transaction, like the balance projection and the rollups:
+ * a change is in the feed exactly when it is committed. Consumers read the feed
+ * from a cursor instead of re-listing transactions. Delivery (long-poll and SSE)
+ * is in ChangeFeedBroker.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class ChangeFeedService {
+
+    /** Optional consumer-side filters; null matches everything. */
+    public record Filter(String accountNumber, String status) {
+
+        public static Filter of(String accountNumber, String status) {
+            String statusName = null;
+            if (status != null) {
+                try {
+                    statusName = TransactionDomain.TransactionStatus.valueOf(status.toUpperCase()).name();
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid status:" + status);
+                }
+            }
+            return new Filter(accountNumber, statusName);
+        }
+
+        boolean matches(TransactionChange change) {
+            return (accountNumber == null || accountNumber.equals(change.getAccountNumber()))
+                    && (status == null || status.equals(change.getStatus()));
+        }
+    }
+
+    @Autowired
+    private TransactionChangeRepository repository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.changes.max-batch:1000}")
+    private int maxBatch;
+
+    @Value("${ledger.changes.retention:7d}")
+    private Duration retention;
+
+    @Value("${ledger.changes.purge-chunk-size:10000}")
+    private int purgeChunkSize;
+
+    private Counter recorded;
+
+    @PostConstruct
+    void registerMetrics() {
+        recorded = Counter.builder("ledger.changes.recorded").register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(List<TransactionDomain> created) {
+        List<TransactionChange> changes = new ArrayList<>(created.size());
+        for (TransactionDomain transaction : created) {
+            changes.add(toChange(TransactionChange.ChangeType.CREATED, null, transaction));
+        }
+        save(changes);
+    }
+
+    // before and after are index-aligned; a transition to the current status is not a change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanges(List<TransactionDomain> before, List<TransactionDomain> after) {
+        List<TransactionChange> changes = new ArrayList<>(after.size());
+        for (int i = 0; i < after.size(); i++) {
+            if (before.get(i).getStatus() == after.get(i).getStatus()) {
+                continue;
+            }
+            changes.add(toChange(TransactionChange.ChangeType.STATUS_CHANGED, before.get(i).getStatus(), after.get(i)));
+        }
+        save(changes);
+    }
+
+    /**
+     * Up to limit changes after the cursor (null: from the oldest retained change).
+     * Filters are applied to the scanned batch, so nextCursor moves past skipped
+     * changes and a selective consumer does not rescan them on the next call.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeedPageDTO readChanges(ChangeFeedCursor after, int limit, Filter filter) {
+        if (limit < 1 || limit > maxBatch) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxBatch);
+        }
+        ChangeFeedCursor from = after == null ? ChangeFeedCursor.START : after;
+        List<TransactionChange> scanned = repository.findSettledAfter(from.txid(), from.id(), limit);
+
+        List<TransactionChangeDTO> changes = new ArrayList<>(scanned.size());
+        ChangeFeedCursor next = from;
+        for (TransactionChange change : scanned) {
+            next = new ChangeFeedCursor(change.getTxid(), change.getId());
+            if (filter.matches(change)) {
+                changes.add(toDTO(change, next));
+            }
+        }
+        return new ChangeFeedPageDTO(changes, next.encode(), scanned.size() == limit);
+    }
+
+    // Newest settled position; the broker wakes waiting consumers when it moves
+    @Transactional(readOnly = true)
+    public Optional<ChangeFeedCursor> settledHead() {
+        return repository.findSettledHead()
+                .map(change -> new ChangeFeedCursor(change.getTxid(), change.getId()));
+    }
+
+    // Deletes changes older than ledger.changes.retention, one short transaction per chunk
+    public long purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = repository.deleteRecordedBefore(cutoff, purgeChunkSize);
+            deleted += chunk;
+        } while (chunk == purgeChunkSize);
+        return deleted;
+    }
+
+    private void save(List<TransactionChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        repository.saveAll(changes);
+        recorded.increment(changes.size());
+        // Delivered to listeners after commit (see ChangeFeedBroker)
+        eventPublisher.publishEvent(new TransactionChangesRecorded(changes.size()));
+    }
+
+    private static TransactionChange toChange(TransactionChange.ChangeType type,
+                                              TransactionDomain.TransactionStatus previousStatus,
+                                              TransactionDomain transaction) {
+        TransactionChange change = new TransactionChange();
+        change.setTransactionId(transaction.getId());
+        change.setChangeType(type);
+        change.setAccountNumber(transaction.getAccountNumber());
+        change.setAmount(transaction.getAmount());
+        change.setTransactionType(transaction.getTransactionType().name());
+        change.setPreviousStatus(previousStatus == null ? null : previousStatus.name());
+        change.setStatus(transaction.getStatus().name());
+        change.setTransactionDate(transaction.getTransactionDate());
+        change.setRecordedAt(LocalDateTime.now());
+        return change;
+    }
+
+    private static TransactionChangeDTO toDTO(TransactionChange change, ChangeFeedCursor position) {
+        return new TransactionChangeDTO(position.encode(), change.getChangeType().name(),
+                change.getTransactionId(), change.getAccountNumber(), change.getAmount(),
+                change.getTransactionType(), change.getPreviousStatus(), change.getStatus(),
+                change.getTransactionDate(), change.getRecordedAt());
+    }
+}
@@ -0,0 +1,27 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.dto.TransactionDTO;
+
+/**
+ * Outcome of one create with an Idempotency-Key: a new posting, the posting an
+ * earlier request with the same key created (replayed, nothing written), or
+ * rejected because the key was first used for a different request.
+ */
+public record CreateResult(TransactionDTO transaction, boolean replayed, String error) {
+
+    public static CreateResult created(TransactionDTO transaction) {
+        return new CreateResult(transaction, false, null);
+    }
+
+    public static CreateResult replayed(TransactionDTO transaction) {
+        return new CreateResult(transaction, true, null);
+    }
+
+    public static CreateResult rejected(String error) {
+        return new CreateResult(null, false, error);
+    }
+
+    public boolean isRejected() {
+        return error != null;
+    }
+}
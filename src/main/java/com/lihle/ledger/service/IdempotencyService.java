@@ -0,0 +1,306 @@
+package com.lihle.ledger.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.entity.IdempotencyKey;
+import com.lihle.ledger.repository.IdempotencyKeyRepository;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * IDEMPOTENCY KEYS on transaction creates
+ *
+ * A create sent with an Idempotency-Key header and retried with the same key is
+ * answered with the posting the first request created instead of a second one.
+ * Two tiers:
+ * - memory: a bounded, expiring Caffeine map of key → request hash and created
+ *   DTO, filled once the posting has committed. A retry storm for a committed
+ *   create costs a map lookup: no connection, no insert, no commit;
+ * - idempotency_keys: the key is claimed inside the posting's own database
+ *   transaction, so two postings with one key can never both commit, whichever
+ *   instance they reach. Keys that have left the memory tier are found here.
+ *
+ * A key belongs to the request it was first used with (SHA-256 over the posting
+ * fields); reusing it for a different request is rejected. Keys are kept for
+ * ledger.idempotency.retention, a retry after that creates a new posting.
+ * A replay from memory is the DTO as created; from the table it is the posting
+ * as currently stored.
+ * Metrics: ledger.idempotency.replays{tier=memory|database},
+ * ledger.idempotency.mismatches, cache.* under idempotency.keys.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String KEY_HEADER = "Idempotency-Key";
+    // Set on responses that replay an earlier create
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Leaves room for the "#index" suffix of batch items within the 255-character column
+    static final int MAX_KEY_LENGTH = 200;
+
+    /** A key and the hash of the request it comes with. */
+    public record Claim(String key, String requestHash) {
+    }
+
+    private record Remembered(String requestHash, TransactionDTO transaction) {
+    }
+
+    @Autowired
+    private IdempotencyKeyRepository repository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${ledger.idempotency.cache.max-size:100000}")
+    private long maxRemembered;
+
+    @Value("${ledger.idempotency.cache.ttl:1h}")
+    private Duration rememberFor;
+
+    @Value("${ledger.idempotency.retention:24h}")
+    private Duration retention;
+
+    @Value("${ledger.idempotency.purge-interval:1h}")
+    private Duration purgeInterval;
+
+    @Value("${ledger.idempotency.purge-chunk-size:10000}")
+    private int purgeChunkSize;
+
+    private Cache<String, Remembered> remembered;
+    private ScheduledExecutorService purger;
+
+    private Counter memoryReplays;
+    private Counter databaseReplays;
+    private Counter mismatches;
+
+    @PostConstruct
+    void start() {
+        remembered = Caffeine.newBuilder()
+                .maximumSize(maxRemembered)
+                .expireAfterWrite(rememberFor)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, remembered, "idempotency.keys");
+        memoryReplays = Counter.builder("ledger.idempotency.replays").tag("tier", "memory").register(meterRegistry);
+        databaseReplays = Counter.builder("ledger.idempotency.replays").tag("tier", "database").register(meterRegistry);
+        mismatches = Counter.builder("ledger.idempotency.mismatches").register(meterRegistry);
+
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * The claim for a request, null without a key.
+     * Throws IllegalArgumentException for a blank or oversized key.
+     */
+    public Claim claimFor(String key, TransactionDTO request) {
+        if (key == null) {
+            return null;
+        }
+        checkKey(key);
+        return new Claim(key, requestHash(request));
+    }
+
+    // Batch items are keyed "{key}#{index}": a retried batch replays item by item
+    public Claim claimFor(String key, int index, TransactionDTO request) {
+        Claim batch = claimFor(key, request);
+        return batch == null ? null : new Claim(batch.key() + "#" + index, batch.requestHash());
+    }
+
+    public void checkKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException(KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * The posting of a committed create with this key, from the memory tier only.
+     * Throws IllegalArgumentException when the key was used for a different request.
+     */
+    public Optional<TransactionDTO> remembered(Claim claim) {
+        Remembered entry = remembered.getIfPresent(claim.key());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (!entry.requestHash().equals(claim.requestHash())) {
+            mismatches.increment();
+            throw new IllegalArgumentException(mismatch(claim));
+        }
+        memoryReplays.increment();
+        return Optional.of(entry.transaction());
+    }
+
+    /**
+     * Claims the keys in the caller's transaction. Keys that are taken map to the
+     * replay of the committed posting (or a rejection when the request differs);
+     * keys missing from the result are now held by the caller, who creates their
+     * postings and links them. Keys must be distinct.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, CreateResult> claim(List<Claim> claims) {
+        String[] keys = new String[claims.size()];
+        String[] hashes = new String[claims.size()];
+        for (int i = 0; i < claims.size(); i++) {
+            keys[i] = claims.get(i).key();
+            hashes[i] = claims.get(i).requestHash();
+        }
+        if (Set.of(keys).size() != keys.length) {
+            throw new IllegalArgumentException("Idempotency keys of one write must be distinct");
+        }
+
+        Set<String> claimed = new HashSet<>(repository.claim(keys, hashes));
+        if (claimed.size() == claims.size()) {
+            return Map.of();
+        }
+
+        //1. The rest belong to committed postings (ON CONFLICT waited for them)
+        Map<String, Claim> taken = claims.stream()
+                .filter(claim -> !claimed.contains(claim.key()))
+                .collect(Collectors.toMap(Claim::key, Function.identity()));
+        List<IdempotencyKey> stored = repository.findAllById(taken.keySet());
+        Map<Long, TransactionDTO> postings = transactionRepository.findProjectedByIds(
+                        stored.stream().map(IdempotencyKey::getTransactionId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(TransactionDTO::getId, Function.identity()));
+
+        //2. Replay the ones used for the same request
+        Map<String, CreateResult> results = new HashMap<>();
+        for (IdempotencyKey key : stored) {
+            Claim claim = taken.get(key.getIdempotencyKey());
+            TransactionDTO posting = postings.get(key.getTransactionId());
+            if (!key.getRequestHash().equals(claim.requestHash())) {
+                mismatches.increment();
+                results.put(claim.key(), CreateResult.rejected(mismatch(claim)));
+            } else if (posting == null) {
+                results.put(claim.key(), CreateResult.rejected(
+                        "Transaction " + key.getTransactionId() + " of Idempotency-Key " + claim.key() + " no longer exists"));
+            } else {
+                databaseReplays.increment();
+                remembered.put(claim.key(), new Remembered(claim.requestHash(), posting));
+                results.put(claim.key(), CreateResult.replayed(posting));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Records the postings created under claimed keys (index-aligned) and, once
+     * the transaction commits, remembers them in the memory tier.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void link(List<Claim> claims, List<TransactionDTO> created) {
+        if (claims.isEmpty()) {
+            return;
+        }
+        String[] keys = new String[claims.size()];
+        Long[] transactionIds = new Long[claims.size()];
+        for (int i = 0; i < claims.size(); i++) {
+            keys[i] = claims.get(i).key();
+            transactionIds[i] = created.get(i).getId();
+        }
+        repository.link(keys, transactionIds);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (int i = 0; i < claims.size(); i++) {
+                    remembered.put(claims.get(i).key(), new Remembered(claims.get(i).requestHash(), created.get(i)));
+                }
+            }
+        });
+    }
+
+    // Deletes keys older than ledger.idempotency.retention, one short transaction per chunk
+    public long purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long deleted = 0;
+        int chunk;
+        do {
+            chunk = repository.deleteCreatedBefore(cutoff, purgeChunkSize);
+            deleted += chunk;
+        } while (chunk == purgeChunkSize);
+        return deleted;
+    }
+
+    private void purge() {
+        try {
+            long deleted = purgeExpired();
+            if (deleted > 0) {
+                log.info("Idempotency keys: purged {} keys older than {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Idempotency key purge failed", e);
+        }
+    }
+
+    // Client-supplied fields only; type and status compare case-insensitively like the mapper
+    static String requestHash(TransactionDTO request) {
+        BigDecimal amount = request.getAmount();
+        String canonical = String.join("\u0000",
+                String.valueOf(request.getAccountNumber()),
+                amount == null ? "null" : amount.stripTrailingZeros().toPlainString(),
+                request.getTransactionType() == null ? "null" : request.getTransactionType().toUpperCase(),
+                String.valueOf(request.getDescription()),
+                String.valueOf(request.getTransactionDate()),
+                request.getStatus() == null ? "null" : request.getStatus().toUpperCase());
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String mismatch(Claim claim) {
+        return "Idempotency-Key " + claim.key() + " was already used for a different request";
+    }
+}
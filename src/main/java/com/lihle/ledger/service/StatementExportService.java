@@ -0,0 +1,86 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.archive.TransactionArchive;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.export.StatementFormat;
+import com.lihle.ledger.export.StatementWriter;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * STATEMENT EXPORT
+ *
+ * Writes an account statement, ordered by (transactionDate, id), straight from
+ * the server-side cursor used by the NDJSON stream into a StatementWriter. No
+ * entities, domain objects or lists: memory per export is one fetch of DTOs plus
+ * the writer's buffer, whatever the size of the statement. Rows of archived
+ * months (TransactionArchive) are merged in, in order. Parallel exports to
+ * files are run by LedgerExporter.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class StatementExportService {
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionArchive archive;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<StatementFormat, Counter> rowsExported = new EnumMap<>(StatementFormat.class);
+
+    @PostConstruct
+    void registerMetrics() {
+        for (StatementFormat format : StatementFormat.values()) {
+            rowsExported.put(format, Counter.builder("ledger.export.rows")
+                    .tag("format", format.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Writes the statement of one account to target and finishes the format;
+     * target is left open.
+     *
+     * @return number of transactions written
+     */
+    @Transactional(readOnly = true)
+    public long writeStatement(String accountNumber, StatementFormat format, OutputStream target) throws IOException {
+        StatementWriter writer = StatementWriter.open(format, target);
+        long rows = 0;
+        List<TransactionDTO> archived = archive.isEmpty() ? List.of() : archive.findByAccountNumber(accountNumber);
+        try (Stream<TransactionDTO> stream = repository.streamByAccountNumber(accountNumber)) {
+            Iterator<TransactionDTO> transactions = TransactionArchive.merged(archived, stream.iterator());
+            while (transactions.hasNext()) {
+                writer.write(transactions.next());
+                rows++;
+            }
+        }
+        writer.finish();
+        rowsExported.get(format).increment(rows);
+        return rows;
+    }
+
+    // Next page of account numbers in order; start with after = ""
+    @Transactional(readOnly = true)
+    public List<String> accountNumbersAfter(String after, int limit) {
+        return repository.findAccountNumbersAfter(after, limit);
+    }
+}
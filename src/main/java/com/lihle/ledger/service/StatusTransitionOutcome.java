@@ -0,0 +1,8 @@
+package com.lihle.ledger.service;
+
+public enum StatusTransitionOutcome {
+    UPDATED,     // status changed
+    NOT_FOUND,   // no transaction with this id
+    CONFLICT,    // current status does not allow the transition, or a concurrent change got there first
+    VERSION_MISMATCH // the transaction is no longer at the version the client expected (If-Match)
+}
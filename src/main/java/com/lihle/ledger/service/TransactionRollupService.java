@@ -0,0 +1,145 @@
+package com.lihle.ledger.service;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.AggregateBucketDTO;
+import com.lihle.ledger.dto.AggregateReportDTO;
+import com.lihle.ledger.repository.RollupAggregateRow;
+import com.lihle.ledger.repository.TransactionRollupRepository;
+import com.lihle.ledger.store.ConditionalOnJpaStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * HOURLY ROLLUPS
+ *
+ * Keeps count and amount per (account, hour, type, status) so reports over any
+ * date range add up pre-summed buckets instead of scanning transaction rows.
+ * Like the balance projection, the apply methods join the caller's transaction.
+ * A status change moves the transaction from the bucket of its old status to the
+ * bucket of its new one.
+ */
+@Service
+@ConditionalOnJpaStorage
+public class TransactionRollupService {
+
+    public enum Granularity { HOUR, DAY, MONTH, YEAR, TOTAL }
+
+    @Autowired
+    private TransactionRollupRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private record BucketKey(String accountNumber, LocalDateTime bucketStart, String transactionType, String status) {
+    }
+
+    private static final class Delta {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyCreated(List<TransactionDomain> created) {
+        Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+        for (TransactionDomain transaction : created) {
+            add(deltas, transaction, 1);
+        }
+        flush(deltas);
+    }
+
+    // before and after are index-aligned
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyStatusChanges(List<TransactionDomain> before, List<TransactionDomain> after) {
+        Map<BucketKey, Delta> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < after.size(); i++) {
+            if (before.get(i).getStatus() == after.get(i).getStatus()) {
+                continue;
+            }
+            add(deltas, before.get(i), -1);
+            add(deltas, after.get(i), 1);
+        }
+        flush(deltas);
+    }
+
+    /**
+     * Aggregates over [from, to). Rollups are hourly, so from is rounded down and
+     * to is rounded up to whole hours; the report carries the effective range.
+     */
+    @Transactional(readOnly = true)
+    public AggregateReportDTO aggregate(String accountNumber, LocalDateTime from, LocalDateTime to, String granularity) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        Granularity unit = parseGranularity(granularity);
+        LocalDateTime fromBucket = from.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime toBucket = to.truncatedTo(ChronoUnit.HOURS);
+        if (toBucket.isBefore(to)) {
+            toBucket = toBucket.plusHours(1);
+        }
+
+        List<RollupAggregateRow> rows = unit == Granularity.TOTAL
+                ? repository.aggregateTotal(accountNumber, fromBucket, toBucket)
+                : repository.aggregateByBucket(accountNumber, fromBucket, toBucket, unit.name().toLowerCase(Locale.ROOT));
+
+        List<AggregateBucketDTO> buckets = rows.stream()
+                .map(row -> new AggregateBucketDTO(row.getBucketStart(), row.getTransactionType(), row.getStatus(),
+                        row.getTransactionCount(), row.getAmount()))
+                .toList();
+        return new AggregateReportDTO(accountNumber, fromBucket, toBucket, unit.name(), buckets);
+    }
+
+    /**
+     * Recomputes all rollups from the transactions table in one database
+     * transaction; buckets of archived months are kept as they are. The SHARE
+     * lock makes postings wait for the rebuild instead of being lost under it.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            repository.lockTransactionsForRebuild();
+            repository.deleteUnarchivedRollups();
+            return repository.rebuildAll();
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private void add(Map<BucketKey, Delta> deltas, TransactionDomain transaction, int sign) {
+        BucketKey key = new BucketKey(
+                transaction.getAccountNumber(),
+                transaction.getTransactionDate().truncatedTo(ChronoUnit.HOURS),
+                transaction.getTransactionType().name(),
+                transaction.getStatus().name());
+        Delta delta = deltas.computeIfAbsent(key, k -> new Delta());
+        delta.count += sign;
+        delta.amount = sign > 0 ? delta.amount.add(transaction.getAmount()) : delta.amount.subtract(transaction.getAmount());
+    }
+
+    private void flush(Map<BucketKey, Delta> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta.count != 0 || delta.amount.signum() != 0) {
+                repository.applyDelta(key.accountNumber(), key.bucketStart(), key.transactionType(), key.status(),
+                        delta.count, delta.amount);
+            }
+        });
+    }
+
+    private static Granularity parseGranularity(String granularity) {
+        try {
+            return Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid granularity: " + granularity);
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package com.lihle.ledger.service;
 
+import com.lihle.ledger.cache.KnownAccountFilter;
+import com.lihle.ledger.cache.TransactionReadCache;
 import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.AccountBalanceDTO;
+import com.lihle.ledger.dto.BatchItemResultDTO;
+import com.lihle.ledger.dto.BatchResultDTO;
 import com.lihle.ledger.dto.TransactionDTO;
-import com.lihle.ledger.entity.Transaction;
+import com.lihle.ledger.dto.TransactionPageDTO;
+import com.lihle.ledger.dto.TransactionSearchRequestDTO;
 import com.lihle.ledger.mapper.TransactionMapper;
-import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionSearchCriteria;
+import com.lihle.ledger.store.TransactionStore;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -21,107 +41,613 @@ import java.util.stream.Collectors;
  * 5. Saves Entity via Repository
  * 6. Converts Entity → Domain → DTO
  * 7. Return DTO to Controller
+ *
+ * Runs on every storage backend (TransactionStore: jpa, journal, sharded). The
+ * balance projection, rollups, change feed, idempotency keys and known-accounts
+ * filter keep their state in the jpa database and only take part there; on the
+ * other backends balances are computed from the account's rows on request and an
+ * Idempotency-Key is refused rather than posted without the replay guarantee.
  * */
 
 @Service
 public class TransactionService {
 
     @Autowired
-    private TransactionRepository repository;
+    private TransactionStore store;
 
     @Autowired
     private TransactionMapper mapper;
 
+    @Autowired
+    private TransactionReadCache readCache;
+
+    // jpa backend only
+    @Autowired
+    private ObjectProvider<AccountBalanceService> balanceService;
+
+    @Autowired
+    private ObjectProvider<TransactionRollupService> rollupService;
+
+    @Autowired
+    private ObjectProvider<ChangeFeedService> changeFeedService;
+
+    @Autowired
+    private ObjectProvider<KnownAccountFilter> accountFilter;
+
+    @Autowired
+    private ObjectProvider<IdempotencyService> idempotency;
+
+    @Autowired
+    private ObjectProvider<TransactionTemplate> transactionTemplate;
+
+    @Value("${ledger.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${ledger.batch.max-items:50000}")
+    private int batchMaxItems;
+
+    @Value("${ledger.page.max-size:500}")
+    private int pageMaxSize;
+
+    @Transactional
     public TransactionDTO createTransaction(TransactionDTO dto) {
+        return createTransaction(dto, null).transaction();
+    }
+
+    /**
+     * CREATE with an optional Idempotency-Key (null: none)
+     *
+     * A key whose create has committed returns that posting as a replay and writes
+     * nothing; a key first used for a different request is an IllegalArgumentException.
+     * The key is claimed in this transaction (see IdempotencyService).
+     */
+    @Transactional
+    public CreateResult createTransaction(TransactionDTO dto, String idempotencyKey) {
 
         TransactionDomain domain = mapper.toDomain(dto);
 
         //1. Business logic happens (domain validates itself in constructor)
         //Domain ensures: accountNumber not empty , amount > 0 , type exists.
 
-        //2. Convert Domain to Entity
-        Transaction entity = mapper.toEntity(domain);
+        //2. A retried create is answered with the posting of the first one
+        IdempotencyService keys = idempotency(idempotencyKey);
+        IdempotencyService.Claim claim = keys == null ? null : keys.claimFor(idempotencyKey, dto);
+        if (claim != null) {
+            Optional<TransactionDTO> remembered = keys.remembered(claim);
+            if (remembered.isPresent()) {
+                return CreateResult.replayed(remembered.get());
+            }
+            CreateResult taken = keys.claim(List.of(claim)).get(claim.key());
+            if (taken != null) {
+                if (taken.isRejected()) {
+                    throw new IllegalArgumentException(taken.error());
+                }
+                return taken;
+            }
+        }
+
+        //3. The account is known to readers before the row commits
+        accountFilter.ifAvailable(filter -> filter.addAll(List.of(domain.getAccountNumber())));
+
+        //4. Save through the store (joins this transaction)
+        TransactionDTO saved = store.saveAll(List.of(domain)).get(0);
 
-        //3. Save to database
-        Transaction saveEntity = repository.save(entity);
+        //5. Convert back: DTO → Domain, with the id and defaults the store assigned
+        TransactionDomain savedDomain = mapper.toDomain(saved);
 
-        //4. Convert back: Entity → Domain → DTO
-        TransactionDomain savedDomain = mapper.toDomain(saveEntity);
-        return mapper.toDTO(savedDomain);
+        //6. Same unit of work: update the account balance projection and hourly rollups,
+        //   record the change feed entry and link the idempotency key to the posting
+        projectCreated(List.of(savedDomain));
+        readCache.evict(null, savedDomain.getAccountNumber());
+
+        TransactionDTO created = mapper.toDTO(savedDomain);
+        if (claim != null) {
+            keys.link(List.of(claim), List.of(created));
+        }
+        return CreateResult.created(created);
+    }
+
+    /**
+     * A retry of a committed create answered from the memory tier of
+     * IdempotencyService, before a lane or a connection is taken. Empty without a
+     * key or when the key is not remembered.
+     */
+    public Optional<TransactionDTO> rememberedCreate(String idempotencyKey, TransactionDTO dto) {
+        IdempotencyService keys = idempotency(idempotencyKey);
+        IdempotencyService.Claim claim = keys == null ? null : keys.claimFor(idempotencyKey, dto);
+        return claim == null ? Optional.empty() : keys.remembered(claim);
+    }
+
+    // Null on backends without idempotency keys, where a request carrying one is refused
+    private IdempotencyService idempotency(String idempotencyKey) {
+        IdempotencyService keys = idempotency.getIfAvailable();
+        if (keys == null && idempotencyKey != null) {
+            throw new IllegalArgumentException(IdempotencyService.KEY_HEADER
+                    + " is only supported by the jpa storage backend");
+        }
+        return keys;
+    }
+
+    /**
+     * BATCH CREATE
+     *
+     * Every item is validated through the domain first; invalid items are reported
+     * as REJECTED and never reach the database. Valid items are persisted in chunks
+     * of ledger.batch.chunk-size, one database transaction and one JDBC batch per chunk.
+     * A chunk that fails to persist marks its own items as FAILED and does not
+     * affect the chunks before or after it.
+     * With an Idempotency-Key, item i is keyed "{key}#{i}": a retried batch reports
+     * the items that were created before as REPLAYED and only creates the rest.
+     */
+    public BatchResultDTO createTransactions(List<TransactionDTO> dtos) {
+        return createTransactions(dtos, null);
     }
 
+    public BatchResultDTO createTransactions(List<TransactionDTO> dtos, String idempotencyKey) {
+        if (dtos.size() > batchMaxItems) {
+            throw new IllegalArgumentException("Batch exceeds maximum of " + batchMaxItems + " items");
+        }
+        IdempotencyService keys = idempotency(idempotencyKey);
+        if (keys != null) {
+            keys.checkKey(idempotencyKey);
+        }
+
+        BatchItemResultDTO[] results = new BatchItemResultDTO[dtos.size()];
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+        List<TransactionDomain> chunk = new ArrayList<>(batchChunkSize);
+        List<IdempotencyService.Claim> chunkClaims = new ArrayList<>(batchChunkSize);
+
+        for (int i = 0; i < dtos.size(); i++) {
+            //1. Validate through the domain, same rules as a single create
+            TransactionDomain domain;
+            IdempotencyService.Claim claim;
+            try {
+                domain = mapper.toDomain(dtos.get(i));
+                claim = domain == null || keys == null ? null : keys.claimFor(idempotencyKey, i, dtos.get(i));
+                //2. Items of an earlier attempt that the memory tier still holds
+                Optional<TransactionDTO> remembered = claim == null ? Optional.empty() : keys.remembered(claim);
+                if (remembered.isPresent()) {
+                    results[i] = BatchItemResultDTO.replayed(i, remembered.get());
+                    continue;
+                }
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchItemResultDTO.rejected(i, e.getMessage());
+                continue;
+            }
+            if (domain == null) {
+                results[i] = BatchItemResultDTO.rejected(i, "Transaction is required");
+                continue;
+            }
+
+            chunkIndexes.add(i);
+            chunk.add(domain);
+            chunkClaims.add(claim);
+
+            //3. Flush a full chunk
+            if (chunk.size() == batchChunkSize) {
+                persistChunk(chunkIndexes, chunk, chunkClaims, results);
+                chunkIndexes.clear();
+                chunk.clear();
+                chunkClaims.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persistChunk(chunkIndexes, chunk, chunkClaims, results);
+        }
+
+        BatchResultDTO result = new BatchResultDTO();
+        result.setReceived(dtos.size());
+        result.setResults(Arrays.asList(results));
+        for (BatchItemResultDTO item : results) {
+            switch (item.getOutcome()) {
+                case "CREATED" -> result.setCreated(result.getCreated() + 1);
+                case "REPLAYED" -> result.setReplayed(result.getReplayed() + 1);
+                case "REJECTED" -> result.setRejected(result.getRejected() + 1);
+                default -> result.setFailed(result.getFailed() + 1);
+            }
+        }
+        return result;
+    }
+
+    private void persistChunk(List<Integer> indexes, List<TransactionDomain> domains,
+                              List<IdempotencyService.Claim> claims, BatchItemResultDTO[] results) {
+        try {
+            List<CreateResult> saved = persistBatch(domains, claims);
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                CreateResult item = saved.get(i);
+                results[index] = item.isRejected() ? BatchItemResultDTO.rejected(index, item.error())
+                        : item.replayed() ? BatchItemResultDTO.replayed(index, item.transaction())
+                        : BatchItemResultDTO.created(index, item.transaction());
+            }
+        } catch (RuntimeException e) {
+            String error = e instanceof DataAccessException dataAccess
+                    ? dataAccess.getMostSpecificCause().getMessage() : e.getMessage();
+            for (Integer index : indexes) {
+                results[index] = BatchItemResultDTO.failed(index, error);
+            }
+        }
+    }
+
+    /**
+     * Persists already validated domain objects in a single database transaction,
+     * as one JDBC batch (see JpaTransactionStore.saveAll); other stores make one
+     * saveAll atomic on their own.
+     */
+    public List<TransactionDTO> persistBatch(List<TransactionDomain> domains) {
+        List<IdempotencyService.Claim> noClaims = new ArrayList<>(domains.size());
+        for (int i = 0; i < domains.size(); i++) {
+            noClaims.add(null);
+        }
+        return persistBatch(domains, noClaims).stream().map(CreateResult::transaction).collect(Collectors.toList());
+    }
+
+    /**
+     * persistBatch with idempotency claims, index-aligned with the domains (null:
+     * no key). Keys are claimed first; items whose key belongs to a committed
+     * posting are replayed or rejected instead of inserted, without failing the rest.
+     */
+    public List<CreateResult> persistBatch(List<TransactionDomain> domains, List<IdempotencyService.Claim> claims) {
+        return inTransaction(() -> {
+            //1. Claim the keys; the ones already taken are answered without an insert
+            List<IdempotencyService.Claim> keyed = claims.stream().filter(Objects::nonNull).collect(Collectors.toList());
+            Map<String, CreateResult> taken = keyed.isEmpty() ? Map.of() : idempotency.getObject().claim(keyed);
+
+            List<TransactionDomain> inserts = new ArrayList<>(domains.size());
+            for (int i = 0; i < domains.size(); i++) {
+                IdempotencyService.Claim claim = claims.get(i);
+                if (claim == null || !taken.containsKey(claim.key())) {
+                    inserts.add(domains.get(i));
+                }
+            }
+            accountFilter.ifAvailable(filter -> filter.addAll(
+                    domains.stream().map(TransactionDomain::getAccountNumber).collect(Collectors.toSet())));
+
+            //2. Insert the rest as one JDBC batch
+            List<TransactionDTO> dtos = store.saveAll(inserts);
+            List<TransactionDomain> savedDomains = new ArrayList<>(dtos.size());
+            for (TransactionDTO dto : dtos) {
+                savedDomains.add(mapper.toDomain(dto));
+            }
+            projectCreated(savedDomains);
+            readCache.evictAll(List.of(), savedDomains.stream().map(TransactionDomain::getAccountNumber).collect(Collectors.toSet()));
+
+            //3. Results in input order; link the claimed keys to their new postings
+            List<CreateResult> results = new ArrayList<>(domains.size());
+            List<IdempotencyService.Claim> linkedClaims = new ArrayList<>(keyed.size());
+            List<TransactionDTO> linkedPostings = new ArrayList<>(keyed.size());
+            int next = 0;
+            for (IdempotencyService.Claim claim : claims) {
+                if (claim != null && taken.containsKey(claim.key())) {
+                    results.add(taken.get(claim.key()));
+                    continue;
+                }
+                TransactionDTO created = dtos.get(next++);
+                if (claim != null) {
+                    linkedClaims.add(claim);
+                    linkedPostings.add(created);
+                }
+                results.add(CreateResult.created(created));
+            }
+            if (!linkedClaims.isEmpty()) {
+                idempotency.getObject().link(linkedClaims, linkedPostings);
+            }
+            return results;
+        });
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        TransactionTemplate template = transactionTemplate.getIfAvailable();
+        return template == null ? work.get() : template.execute(status -> work.get());
+    }
+
+    // Projections kept in the writing database transaction, jpa backend only
+    private void projectCreated(List<TransactionDomain> created) {
+        balanceService.ifAvailable(balances -> balances.applyCreated(created));
+        rollupService.ifAvailable(rollups -> rollups.applyCreated(created));
+        changeFeedService.ifAvailable(feed -> feed.recordCreated(created));
+    }
+
+    private void projectStatusChanges(List<TransactionDomain> before, List<TransactionDomain> after) {
+        balanceService.ifAvailable(balances -> balances.applyStatusChanges(before, after));
+        rollupService.ifAvailable(rollups -> rollups.applyStatusChanges(before, after));
+        changeFeedService.ifAvailable(feed -> feed.recordStatusChanges(before, after));
+    }
+
+    /*
+     * READ PATHS
+     * Reads come from the store's DTO projections (JpaTransactionStore), each in its
+     * own read-only transaction: rows go straight into TransactionDTO without a
+     * managed entity, dirty checking or the Entity → Domain → DTO mapping. Domain
+     * rules only run on writes. Lookups by id and account history also read through
+     * to archived months (TransactionArchive).
+     */
+
     //Get All Transactions
     public List<TransactionDTO> getAllTransactions() {
-        return repository.findAll()
-                .stream()
-                .map(mapper::toDomain)
-                .map(mapper::toDTO)
-                .collect(Collectors.toList());
+        return store.findAll();
     }
 
+    // No surrounding transaction: a cache hit costs no connection, a miss runs one read-only query
     public Optional<TransactionDTO> getTransactionById(Long id) {
-        return repository.findById(id)
-                .map(mapper::toDomain)
-                .map(mapper::toDTO);
+        return readCache.getById(id, store::findById);
+    }
+
+    // Account numbers never change, so this lookup can happen outside the account lane
+    public Optional<String> getAccountNumber(Long id) {
+        return getTransactionById(id).map(TransactionDTO::getAccountNumber);
     }
 
     /**
      * UPDATE TRANSACTION STATUS
      *
-     * This method uses DOMAIN BEHAVIOR to change status
+     * The allowed transitions come from the DOMAIN state rules and are enforced by a
+     * single conditional UPDATE, so the status change is one round trip and a
+     * concurrent change to the same transaction cannot be lost. Archived
+     * transactions are closed for good: changing them is a CONFLICT. Rows are only
+     * archived after ledger.archive.dispute-window (see PartitionMaintenance).
+     * With an expectedVersion (from If-Match) the UPDATE also requires the row to
+     * still be at that version, so a client acting on a stale read gets
+     * VERSION_MISMATCH instead of overwriting a change it has not seen.
      */
+    @Transactional
+    public StatusTransitionOutcome updateTransactionStatus(Long id, String statusString) {
+        return updateTransactionStatus(id, statusString, null);
+    }
 
-    public boolean updateTransactionStatus(Long id, String statusString) {
-        Optional<Transaction> entityOpt = repository.findById(id);
-        if (entityOpt.isEmpty()) {
-            return false;
+    @Transactional
+    public StatusTransitionOutcome updateTransactionStatus(Long id, String statusString, Long expectedVersion) {
+        TransactionDomain.TransactionStatus target = parseTargetStatus(statusString);
+
+        //1. Conditional UPDATE: only applies when the current status (and version) allows the move
+        List<String> sources = TransactionDomain.allowedSourcesFor(target).stream()
+                .map(Enum::name)
+                .collect(Collectors.toList());
+        Optional<StatusTransitionRow> row = store.transitionStatus(id, target.name(), sources, expectedVersion);
+        if (row.isEmpty()) {
+            return notTransitioned(store, id, expectedVersion);
         }
 
+        //2. Rebuild the before/after domain objects from the returned row
+        TransactionDomain before = mapper.toDomain(row.get());
+        TransactionDomain after = before.transitionTo(target);
 
-        // 1. Convert Entity → Domain
-        TransactionDomain domain = mapper.toDomain(entityOpt.get());
+        //3. Same unit of work: moves into REVERSED change the balance,
+        //   the transaction moves to the rollup bucket of its new status,
+        //   and the transition goes into the change feed
+        projectStatusChanges(List.of(before), List.of(after));
+        readCache.evict(id, after.getAccountNumber());
 
-        //2. Use domain behavior based on status
-        TransactionDomain updatedDomain;
-        if("DISPUTED".equalsIgnoreCase(statusString)) {
-            updatedDomain = domain.markAsDisputed();  // Business logic in domain!
-        } else if ("REVERSED".equalsIgnoreCase(statusString)){
-            updatedDomain = domain.reverse();
-        } else if ("COMPLETED".equalsIgnoreCase(statusString)){
-            updatedDomain = domain.reverse();
-        } else {
-            throw new IllegalArgumentException("Invalid status:" + statusString);
-        }
+        return StatusTransitionOutcome.UPDATED;
+    }
 
-        //3. Convert Domain → Entity and save
-        Transaction updatedEntity = mapper.toEntity(updatedDomain);
-        updatedEntity.setId(id); // Ensure ID is preserved
-        repository.save(updatedEntity);
+    // Why a conditional transition matched no row
+    static StatusTransitionOutcome notTransitioned(TransactionStore store, Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return store.existsById(id) ? StatusTransitionOutcome.CONFLICT : StatusTransitionOutcome.NOT_FOUND;
+        }
+        Optional<TransactionDTO> current = store.findById(id);
+        if (current.isEmpty()) {
+            return StatusTransitionOutcome.NOT_FOUND;
+        }
+        return !expectedVersion.equals(current.get().getVersion())
+                ? StatusTransitionOutcome.VERSION_MISMATCH : StatusTransitionOutcome.CONFLICT;
+    }
 
-        return true;
+    static TransactionDomain.TransactionStatus parseTargetStatus(String statusString) {
+        TransactionDomain.TransactionStatus target;
+        try {
+            target = TransactionDomain.TransactionStatus.valueOf(statusString.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status:" + statusString);
+        }
+        if (TransactionDomain.allowedSourcesFor(target).isEmpty()) {
+            throw new IllegalArgumentException("Invalid status:" + statusString);
+        }
+        return target;
     }
 
     /**
      * GET TRANSACTIONS BY ACCOUNT
+     * Account reads are not wrapped in a transaction here: the store read runs in
+     * its own read-only one, so an account the KnownAccountFilter rules out costs
+     * no connection checkout.
    */
     public List<TransactionDTO> getTransactionsByAccount(String accountNumber) {
-        return repository.findByAccountNumber(accountNumber)
-                .stream()
-                .map(mapper:: toDomain)
-                .map(mapper:: toDTO)
-                .collect(Collectors.toList());
+        return ifKnown(accountNumber, () -> store.findByAccountNumber(accountNumber));
+    }
+
+    // Without the KnownAccountFilter (backends other than jpa) every account is read
+    private <T> List<T> ifKnown(String accountNumber, Supplier<List<T>> query) {
+        KnownAccountFilter filter = accountFilter.getIfAvailable();
+        return filter == null ? query.get() : filter.ifKnown(accountNumber, query);
+    }
+
+    /**
+     * BALANCE of an account: from the balance projection on the jpa backend,
+     * computed from the account's rows elsewhere (computeBalance). Empty for
+     * accounts without any transaction.
+     */
+    public Optional<AccountBalanceDTO> getBalance(String accountNumber) {
+        AccountBalanceService balances = balanceService.getIfAvailable();
+        return balances != null ? balances.getBalance(accountNumber) : computeBalance(accountNumber);
+    }
+
+    /**
+     * Every transaction except REVERSED ones, CREDIT adds and DEBIT subtracts.
+     * lastTransactionId / updatedAt are those of the latest posting (by createdAt, then id).
+     */
+    private Optional<AccountBalanceDTO> computeBalance(String accountNumber) {
+        AccountBalanceDTO[] balance = {null};
+        store.scan(accountNumber, null, row -> {
+            if (balance[0] == null) {
+                balance[0] = new AccountBalanceDTO(accountNumber, BigDecimal.ZERO, row.getId(), row.getCreatedAt());
+            }
+            TransactionDomain domain = mapper.toDomain(row);
+            if (domain.affectsBalance()) {
+                balance[0].setBalance(balance[0].getBalance().add(domain.signedAmount()));
+            }
+            if (row.getCreatedAt().isAfter(balance[0].getUpdatedAt())
+                    || row.getCreatedAt().isEqual(balance[0].getUpdatedAt()) && row.getId() > balance[0].getLastTransactionId()) {
+                balance[0].setLastTransactionId(row.getId());
+                balance[0].setUpdatedAt(row.getCreatedAt());
+            }
+        });
+        return Optional.ofNullable(balance[0]);
+    }
+
+    /**
+     * Change version of an account, the ETag of its pages: bumped with every posting
+     * and status change. Empty on backends without the balance projection and for
+     * accounts the KnownAccountFilter rules out, which then cost no lookup.
+     */
+    public Optional<Long> getAccountChangeVersion(String accountNumber) {
+        AccountBalanceService balances = balanceService.getIfAvailable();
+        KnownAccountFilter filter = accountFilter.getIfAvailable();
+        if (balances == null || filter != null && !filter.mightExist(accountNumber)) {
+            return Optional.empty();
+        }
+        return balances.getChangeVersion(accountNumber);
+    }
+
+    /**
+     * GET MOST RECENT TRANSACTIONS OF AN ACCOUNT, newest first
+     * Served from the read cache for limits up to ledger.cache.accounts.recent-rows.
+     */
+    public List<TransactionDTO> getRecentTransactionsByAccount(String accountNumber, int limit) {
+        if (limit < 1 || limit > pageMaxSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + pageMaxSize);
+        }
+        return ifKnown(accountNumber, () -> readCache.getRecent(accountNumber, limit, rows ->
+                store.findRecentByAccountNumber(accountNumber, rows)));
     }
 
     /**
      * GET TRANSACTIONS BY STATUS
      */
     public List<TransactionDTO> getTransactionsByStatus(String status) {
-        return repository.findByStatus(status)
-                .stream()
-                .map(mapper:: toDomain)
-                .map(mapper:: toDTO)
-                .collect(Collectors.toList());
+        return store.findByStatus(status.toUpperCase());
+    }
 
+    /**
+     * KEYSET PAGE of transactions ordered by (transactionDate, id)
+     *
+     * Optionally scoped to one account or one status. One extra row is read to know
+     * whether there is a next page, so the cost is the page size whatever the depth.
+     * Single query, no surrounding transaction (see getTransactionsByAccount).
+     */
+    public TransactionPageDTO getTransactionPage(String accountNumber, String status, String cursor, int limit) {
+        checkPageFilters(accountNumber, status);
+        checkLimit(limit, pageMaxSize);
+
+        TransactionCursor after = cursor == null ? null : TransactionCursor.decode(cursor);
+        String normalized = status == null ? null : status.toUpperCase();
+        List<TransactionDTO> rows = accountNumber != null && after == null
+                ? ifKnown(accountNumber, () -> store.findPage(accountNumber, null, null, null, limit + 1))
+                : store.findPage(accountNumber, normalized,
+                after == null ? null : after.transactionDate(), after == null ? null : after.id(), limit + 1);
+        return toPage(rows, limit);
+    }
+
+    // Public for the stream endpoints: a bad request must fail before the response body is committed
+    public static void checkPageFilters(String accountNumber, String status) {
+        if (accountNumber != null && status != null) {
+            throw new IllegalArgumentException("Filter by account number or by status, not both");
+        }
+    }
+
+    static void checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + max);
+        }
+    }
+
+    // rows holds one more than the page when there is a next page
+    static TransactionPageDTO toPage(List<TransactionDTO> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<TransactionDTO> items = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionDTO last = items.get(items.size() - 1);
+            nextCursor = new TransactionCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        return new TransactionPageDTO(items, nextCursor);
+    }
+
+    /**
+     * SEARCH by any combination of account, status, type, date range and amount range
+     *
+     * One parameterized query per filter combination, keyset-paged like
+     * getTransactionPage. Status and type are validated against the domain enums so
+     * a typo is a 400 instead of an empty result.
+     */
+    public TransactionPageDTO searchTransactions(TransactionSearchRequestDTO request) {
+        //1. Validate and normalize the filters
+        TransactionSearchCriteria criteria = toSearchCriteria(request, pageMaxSize);
+
+        //2. Read one row more than the page to know whether there is a next page
+        return toPage(store.search(criteria, request.getLimit() + 1), request.getLimit());
+    }
+
+    static TransactionSearchCriteria toSearchCriteria(TransactionSearchRequestDTO request, int pageMaxSize) {
+        checkLimit(request.getLimit(), pageMaxSize);
+        if (request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (request.getMinAmount() != null && request.getMaxAmount() != null
+                && request.getMinAmount().compareTo(request.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount must not be greater than maxAmount");
+        }
+        String status = request.getStatus() == null ? null : parseStatus(request.getStatus()).name();
+        String type = request.getTransactionType() == null ? null : parseTransactionType(request.getTransactionType()).name();
+        boolean descending = parseSortDescending(request.getSort());
+        TransactionCursor after = request.getCursor() == null ? null : TransactionCursor.decode(request.getCursor());
+        return new TransactionSearchCriteria(
+                request.getAccountNumber(), status, type,
+                request.getFrom(), request.getTo(),
+                request.getMinAmount(), request.getMaxAmount(),
+                descending,
+                after == null ? null : after.transactionDate(),
+                after == null ? null : after.id());
+    }
+
+    // Any status can be searched for, including ones nothing transitions into (PENDING)
+    private static TransactionDomain.TransactionStatus parseStatus(String status) {
+        try {
+            return TransactionDomain.TransactionStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status: " + status);
+        }
+    }
+
+    private static TransactionDomain.TransactionType parseTransactionType(String type) {
+        try {
+            return TransactionDomain.TransactionType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid transaction type: " + type);
+        }
+    }
+
+    private static boolean parseSortDescending(String sort) {
+        if (sort == null || sort.equalsIgnoreCase("DESC")) {
+            return true;
+        }
+        if (sort.equalsIgnoreCase("ASC")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid sort: " + sort + " (ASC or DESC)");
+    }
+
+    /**
+     * STREAM transactions ordered by (transactionDate, id) to a consumer
+     *
+     * Rows go from the store's database cursor to the consumer one at a time (see
+     * JpaTransactionStore.scan); an account's archived rows are merged in, in order.
+     */
+    public void streamTransactions(String accountNumber, String status, Consumer<TransactionDTO> consumer) {
+        checkPageFilters(accountNumber, status);
+        store.scan(accountNumber, status == null ? null : status.toUpperCase(), consumer);
     }
 
-}
\ No newline at end of file
+}
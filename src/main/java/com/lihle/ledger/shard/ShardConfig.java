@@ -0,0 +1,53 @@
+package com.lihle.ledger.shard;
+
+import com.lihle.ledger.store.ConditionalOnShardedStorage;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection pools for ledger.sharding.urls (one per shard, metrics as
+ * hikaricp.* with pool=shard-N) and the sharded store over them.
+ */
+@Configuration
+@ConditionalOnShardedStorage
+public class ShardConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardedTransactionStore shardedTransactionStore(
+            @Value("${ledger.sharding.urls}") List<String> urls,
+            @Value("${ledger.sharding.username:postgres}") String username,
+            @Value("${ledger.sharding.password:}") String password,
+            @Value("${ledger.sharding.pool-size:10}") int poolSize,
+            @Value("${ledger.sharding.virtual-nodes:256}") int virtualNodes,
+            @Value("${ledger.sharding.scan.fetch-size:500}") int fetchSize,
+            @Value("${ledger.sharding.scan.buffer:1000}") int bufferSize,
+            MeterRegistry meterRegistry) {
+        List<DataSource> pools = new ArrayList<>(urls.size());
+        for (int shard = 0; shard < urls.size(); shard++) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shard);
+            pool.setJdbcUrl(urls.get(shard));
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(poolSize);
+            pool.addDataSourceProperty("reWriteBatchedInserts", "true");
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(pool);
+        }
+        return new ShardedTransactionStore(pools, virtualNodes, fetchSize, bufferSize);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardedTransactionStore store,
+                                           @Value("${ledger.sharding.rebalance.chunk-size:100}") int chunkSize) {
+        return new ShardRebalancer(store, chunkSize);
+    }
+}
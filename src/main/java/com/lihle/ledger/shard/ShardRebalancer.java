@@ -0,0 +1,120 @@
+package com.lihle.ledger.shard;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.shard.ShardedTransactionStore.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * REBALANCE after shards were appended to ledger.sharding.urls
+ *
+ * Moves every account whose rows sit on a shard the ring no longer maps it to.
+ * With consistent hashing that is only the accounts taken over by the new shards.
+ * Each shard's accounts are read in keyset pages of ACCOUNT_PAGE (one short
+ * read-only query each, served by the account index), so memory holds one page
+ * whatever the account count. The misplaced accounts of a page move in chunks
+ * of chunkSize; per chunk:
+ * 1. the rows are locked on the source shard (SELECT ... FOR UPDATE);
+ * 2. copied to the target shard with their ids (ON CONFLICT (id) DO NOTHING) and committed there;
+ * 3. deleted from the source shard by id.
+ * A crash between 2 and 3 leaves the rows on both shards; running the rebalance
+ * again completes the move. New postings go to the new owner as soon as the
+ * shard is configured, so account reads can miss older rows until the account's
+ * chunk has moved: rebalance right after adding shards. Point reads and status
+ * changes find moved rows throughout (see ShardedTransactionStore).
+ */
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    // Distinct account numbers read per query
+    static final int ACCOUNT_PAGE = 1000;
+
+    public record Report(long accountsMoved, long rowsMoved) {
+    }
+
+    private final ShardedTransactionStore store;
+    private final int chunkSize;
+
+    public ShardRebalancer(ShardedTransactionStore store, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Rebalance chunk size must be positive");
+        }
+        this.store = store;
+        this.chunkSize = chunkSize;
+    }
+
+    public Report rebalance() {
+        ShardRing ring = store.ring();
+        long accountsMoved = 0;
+        long rowsMoved = 0;
+        for (Shard source : store.shards()) {
+            Map<Integer, Long> movedByTarget = new TreeMap<>();
+            String after = "";
+            List<String> page;
+            do {
+                //1. Next page of this shard's accounts, in account order
+                String from = after;
+                page = source.readOnly().execute(status -> source.jdbc().queryForList(
+                        "SELECT DISTINCT account_number FROM transactions WHERE account_number > ? " +
+                                "ORDER BY account_number LIMIT ?", String.class, from, ACCOUNT_PAGE));
+                if (page.isEmpty()) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+
+                //2. The ones the ring now maps elsewhere, by target
+                Map<Integer, List<String>> misplaced = new TreeMap<>();
+                for (String account : page) {
+                    int owner = ring.shardFor(account);
+                    if (owner != source.index()) {
+                        misplaced.computeIfAbsent(owner, target -> new ArrayList<>()).add(account);
+                    }
+                }
+
+                //3. Move them chunk by chunk; later pages start after this one, so the deletes do not shift them
+                for (Map.Entry<Integer, List<String>> entry : misplaced.entrySet()) {
+                    Shard target = store.shards().get(entry.getKey());
+                    List<String> accounts = entry.getValue();
+                    for (int start = 0; start < accounts.size(); start += chunkSize) {
+                        List<String> chunk = accounts.subList(start, Math.min(start + chunkSize, accounts.size()));
+                        rowsMoved += move(source, target, chunk);
+                        accountsMoved += chunk.size();
+                    }
+                    movedByTarget.merge(target.index(), (long) accounts.size(), Long::sum);
+                }
+            } while (page.size() == ACCOUNT_PAGE);
+
+            movedByTarget.forEach((target, accounts) -> log.info(
+                    "Shard rebalance: moved {} accounts from shard {} to shard {}", accounts, source.index(), target));
+        }
+        return new Report(accountsMoved, rowsMoved);
+    }
+
+    // Target commits inside the source transaction, so the source rows stay locked until they are gone
+    private long move(Shard source, Shard target, List<String> accounts) {
+        String placeholders = String.join(", ", Collections.nCopies(accounts.size(), "?"));
+        Long moved = source.transactions().execute(status -> {
+            List<TransactionDTO> rows = source.jdbc().query(
+                    ShardedTransactionStore.SELECT + "WHERE account_number IN (" + placeholders + ") FOR UPDATE",
+                    ShardedTransactionStore.ROW, accounts.toArray());
+            if (rows.isEmpty()) {
+                return 0L;
+            }
+            target.transactions().executeWithoutResult(targetStatus -> target.jdbc().batchUpdate(
+                    ShardedTransactionStore.INSERT + " ON CONFLICT (id) DO NOTHING",
+                    rows, ShardedTransactionStore.INSERT_BATCH_SIZE, ShardedTransactionStore::bind));
+            Long[] ids = rows.stream().map(TransactionDTO::getId).toArray(Long[]::new);
+            source.jdbc().update("DELETE FROM transactions WHERE id = ANY (?)",
+                    statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)));
+            return (long) rows.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+}
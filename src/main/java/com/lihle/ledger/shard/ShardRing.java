@@ -0,0 +1,59 @@
+package com.lihle.ledger.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring: account number → shard index.
+ *
+ * Every shard owns virtualNodes points on a 64-bit ring; an account belongs to the
+ * first point at or after its own hash. Adding a shard only moves the accounts
+ * that land on the new shard's points (about 1/N of them), all of them to the new
+ * shard, so a rebalance copies the minimum. Shards are identified by their index
+ * in ledger.sharding.urls: new shards are appended, never inserted or removed.
+ */
+public final class ShardRing {
+
+    private final TreeMap<Long, Integer> points = new TreeMap<>();
+    private final int shards;
+
+    public ShardRing(int shards, int virtualNodes) {
+        if (shards < 1 || shards > ShardedTransactionStore.MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + ShardedTransactionStore.MAX_SHARDS);
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes per shard must be positive");
+        }
+        this.shards = shards;
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                points.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    public int shardFor(String accountNumber) {
+        Map.Entry<Long, Integer> point = points.ceilingEntry(hash(accountNumber));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer to spread nearby keys
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,564 @@
+package com.lihle.ledger.shard;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionSearchCriteria;
+import com.lihle.ledger.store.TransactionStore;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * SHARDED STORE: transactions spread over several PostgreSQL databases by account.
+ *
+ * - Routing: ShardRing maps an account number to its shard, so creates and
+ *   account reads touch exactly one database.
+ * - Ids: each shard allocates from its own sequence and puts its index in the low
+ *   SHARD_BITS bits: (nextval << SHARD_BITS) | shard. Ids are globally unique
+ *   without a central sequence, and findById / status changes go straight to the
+ *   shard that allocated the id. Rows moved by a rebalance keep their id and are
+ *   found by probing the other shards.
+ * - Cross-shard reads scatter-gather. Scans (findAll, findByStatus, scan): every
+ *   shard streams its rows in (transactionDate, id) order through a bounded buffer
+ *   and a k-way merge emits them in global order, holding at most a buffer per
+ *   shard in memory. Pages and searches: every shard returns its first limit rows
+ *   in parallel, and the merged rows are cut back to limit.
+ *
+ * A single create is atomic; a batch spanning shards commits shard by shard.
+ * Each shard's schema is migrated from db/shard on startup.
+ */
+public class ShardedTransactionStore implements TransactionStore, Closeable {
+
+    public static final int SHARD_BITS = 10;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    static final String COLUMNS =
+            "id, account_number, amount, transaction_type, description, transaction_date, status, created_at, version";
+    static final String SELECT = "SELECT " + COLUMNS + " FROM transactions ";
+    static final String INSERT = "INSERT INTO transactions (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final int INSERT_BATCH_SIZE = 500;
+
+    static final RowMapper<TransactionDTO> ROW = (rs, rowNum) -> new TransactionDTO(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getBigDecimal(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getObject(6, LocalDateTime.class),
+            rs.getString(7),
+            rs.getObject(8, LocalDateTime.class),
+            rs.getLong(9));
+
+    // Global order of scatter-gather reads; every shard scans in the same order
+    static final Comparator<TransactionDTO> SCAN_ORDER =
+            Comparator.comparing(TransactionDTO::getTransactionDate).thenComparing(TransactionDTO::getId);
+
+    private static final Object END_OF_SHARD = new Object();
+
+    /** One shard: its index in ledger.sharding.urls and its database. */
+    record Shard(int index, DataSource dataSource, JdbcTemplate jdbc, JdbcTemplate scanJdbc,
+                 TransactionTemplate transactions, TransactionTemplate readOnly) {
+    }
+
+    private record ScanFailure(int shard, Throwable cause) {
+    }
+
+    private record Head(TransactionDTO row, int shard) {
+    }
+
+    private final List<Shard> shards;
+    private final ShardRing ring;
+    private final int bufferSize;
+    private final ExecutorService scanners;
+
+    public ShardedTransactionStore(List<DataSource> dataSources, int virtualNodes, int fetchSize, int bufferSize) {
+        this.ring = new ShardRing(dataSources.size(), virtualNodes);
+        this.bufferSize = bufferSize;
+
+        List<Shard> shards = new ArrayList<>(dataSources.size());
+        for (int index = 0; index < dataSources.size(); index++) {
+            DataSource dataSource = dataSources.get(index);
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/shard")
+                    .table("shard_schema_history")
+                    .load()
+                    .migrate();
+
+            JdbcTemplate scanJdbc = new JdbcTemplate(dataSource);
+            scanJdbc.setFetchSize(fetchSize);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            shards.add(new Shard(index, dataSource, new JdbcTemplate(dataSource), scanJdbc,
+                    new TransactionTemplate(transactionManager), readOnly));
+        }
+        this.shards = List.copyOf(shards);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.scanners = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-shard-scan-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /*
+     * WRITES
+     */
+    @Override
+    public List<TransactionDTO> saveAll(List<TransactionDomain> transactions) {
+        //1. Rows with their defaults, grouped by owning shard (input positions kept)
+        LocalDateTime now = LocalDateTime.now();
+        TransactionDTO[] saved = new TransactionDTO[transactions.size()];
+        Map<Integer, List<Integer>> positionsByShard = new TreeMap<>();
+        for (int i = 0; i < saved.length; i++) {
+            TransactionDomain transaction = transactions.get(i);
+            saved[i] = new TransactionDTO(
+                    null,
+                    transaction.getAccountNumber(),
+                    transaction.getAmount(),
+                    transaction.getTransactionType().name(),
+                    transaction.getDescription(),
+                    transaction.getTransactionDate() != null ? transaction.getTransactionDate() : now,
+                    (transaction.getStatus() != null ? transaction.getStatus() : TransactionStatus.COMPLETED).name(),
+                    now,
+                    0L);
+            positionsByShard.computeIfAbsent(ring.shardFor(transaction.getAccountNumber()), shard -> new ArrayList<>())
+                    .add(i);
+        }
+
+        //2. Per shard, one local transaction: ids from the shard's sequence, then one batched insert
+        positionsByShard.forEach((index, positions) -> {
+            Shard shard = shards.get(index);
+            shard.transactions().executeWithoutResult(status -> {
+                List<Long> ids = shard.jdbc().queryForList(
+                        "SELECT (nextval('transactions_seq') << " + SHARD_BITS + ") | ? FROM generate_series(1, ?)",
+                        Long.class, index, positions.size());
+                List<TransactionDTO> rows = new ArrayList<>(positions.size());
+                for (int i = 0; i < positions.size(); i++) {
+                    TransactionDTO row = saved[positions.get(i)];
+                    row.setId(ids.get(i));
+                    rows.add(row);
+                }
+                shard.jdbc().batchUpdate(INSERT, rows, INSERT_BATCH_SIZE, ShardedTransactionStore::bind);
+            });
+        });
+        return Arrays.asList(saved);
+    }
+
+    /*
+     * The shard that allocated the id first, then the others: a rebalance may have
+     * moved the row. The first shard that holds the row decides.
+     */
+    @Override
+    public Optional<StatusTransitionRow> transitionStatus(Long id, String target, Collection<String> sources,
+                                                          Long expectedVersion) {
+        String sourceList = sources.stream().map(source -> "?").collect(Collectors.joining(", "));
+        String sql = "WITH previous AS (SELECT id, status FROM transactions WHERE id = ? FOR UPDATE) " +
+                "UPDATE transactions t SET status = ?, version = t.version + 1 " +
+                "FROM previous WHERE t.id = previous.id AND previous.status IN (" + sourceList + ") " +
+                (expectedVersion == null ? "" : "AND t.version = ? ") +
+                "RETURNING t.id, t.account_number, t.amount, t.transaction_type, t.transaction_date, " +
+                "previous.status, t.status, t.version";
+        List<Object> args = new ArrayList<>(sources.size() + 3);
+        args.add(id);
+        args.add(target);
+        args.addAll(sources);
+        if (expectedVersion != null) {
+            args.add(expectedVersion);
+        }
+
+        for (Shard shard : probeOrder(id)) {
+            List<StatusTransitionRow> updated = shard.jdbc().query(sql, (rs, rowNum) -> new TransitionRow(
+                    rs.getLong(1), rs.getString(2), rs.getBigDecimal(3), rs.getString(4),
+                    rs.getObject(5, LocalDateTime.class), rs.getString(6), rs.getString(7), rs.getLong(8)),
+                    args.toArray());
+            if (!updated.isEmpty()) {
+                return Optional.of(updated.get(0));
+            }
+            if (exists(shard, id)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /*
+     * POINT READS
+     */
+    @Override
+    public Optional<TransactionDTO> findById(Long id) {
+        return firstFound(id, shard -> shard.jdbc().query(SELECT + "WHERE id = ?", ROW, id).stream().findFirst());
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return firstFound(id, shard -> exists(shard, id) ? Optional.of(Boolean.TRUE) : Optional.empty()).isPresent();
+    }
+
+    // One shard: the account's owner
+    @Override
+    public List<TransactionDTO> findByAccountNumber(String accountNumber) {
+        return owner(accountNumber).jdbc()
+                .query(SELECT + "WHERE account_number = ? ORDER BY transaction_date, id", ROW, accountNumber);
+    }
+
+    @Override
+    public List<TransactionDTO> findRecentByAccountNumber(String accountNumber, int limit) {
+        return owner(accountNumber).jdbc().query(
+                SELECT + "WHERE account_number = ? ORDER BY transaction_date DESC, id DESC LIMIT ?",
+                ROW, accountNumber, limit);
+    }
+
+    /*
+     * PAGES AND SEARCH: the owner shard for an account, otherwise every shard
+     */
+    @Override
+    public List<TransactionDTO> findPage(String accountNumber, String status,
+                                         LocalDateTime afterDate, Long afterId, int limit) {
+        return search(new TransactionSearchCriteria(accountNumber, status, null, null, null, null, null,
+                false, afterDate, afterId), limit);
+    }
+
+    // The predicates of TransactionSearchRepositoryImpl, served by the same shard indexes
+    @Override
+    public List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT).append("WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (criteria.accountNumber() != null) {
+            sql.append(" AND account_number = ?");
+            args.add(criteria.accountNumber());
+        }
+        if (criteria.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(criteria.status());
+        }
+        if (criteria.transactionType() != null) {
+            sql.append(" AND transaction_type = ?");
+            args.add(criteria.transactionType());
+        }
+        if (criteria.fromDate() != null) {
+            sql.append(" AND transaction_date >= ?");
+            args.add(criteria.fromDate());
+        }
+        if (criteria.toDate() != null) {
+            sql.append(" AND transaction_date < ?");
+            args.add(criteria.toDate());
+        }
+        if (criteria.minAmount() != null) {
+            sql.append(" AND amount >= ?");
+            args.add(criteria.minAmount());
+        }
+        if (criteria.maxAmount() != null) {
+            sql.append(" AND amount <= ?");
+            args.add(criteria.maxAmount());
+        }
+        if (criteria.afterId() != null) {
+            sql.append(criteria.descending() ? " AND (transaction_date, id) < (?, ?)" : " AND (transaction_date, id) > (?, ?)");
+            args.add(criteria.afterDate());
+            args.add(criteria.afterId());
+        }
+        sql.append(criteria.descending() ? " ORDER BY transaction_date DESC, id DESC" : " ORDER BY transaction_date, id")
+                .append(" LIMIT ?");
+        args.add(limit);
+
+        String query = sql.toString();
+        Object[] values = args.toArray();
+        if (criteria.accountNumber() != null) {
+            return owner(criteria.accountNumber()).jdbc().query(query, ROW, values);
+        }
+        List<TransactionDTO> merged = gather(shard -> shard.jdbc().query(query, ROW, values));
+        merged.sort(criteria.descending() ? SCAN_ORDER.reversed() : SCAN_ORDER);
+        return merged.size() <= limit ? merged : new ArrayList<>(merged.subList(0, limit));
+    }
+
+    // Every shard in parallel, rows in shard order
+    private List<TransactionDTO> gather(Function<Shard, List<TransactionDTO>> query) {
+        List<Future<List<TransactionDTO>>> parts = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            parts.add(scanners.submit(() -> query.apply(shard)));
+        }
+        try {
+            List<TransactionDTO> rows = new ArrayList<>();
+            for (Future<List<TransactionDTO>> part : parts) {
+                rows.addAll(part.get());
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        } finally {
+            parts.forEach(part -> part.cancel(true));
+        }
+    }
+
+    /*
+     * SCATTER-GATHER READS
+     */
+    @Override
+    public List<TransactionDTO> findAll() {
+        List<TransactionDTO> all = new ArrayList<>();
+        scan(null, null, all::add);
+        return all;
+    }
+
+    @Override
+    public List<TransactionDTO> findByStatus(String status) {
+        List<TransactionDTO> matching = new ArrayList<>();
+        scan(null, status, matching::add);
+        return matching;
+    }
+
+    /**
+     * Streams transactions to consumer in (transactionDate, id) order. One account:
+     * a cursor on its owner shard. Otherwise every shard (optionally one status) is
+     * read in parallel; memory is bounded by the per-shard buffers whatever the row
+     * count.
+     */
+    @Override
+    public void scan(String accountNumber, String status, Consumer<TransactionDTO> consumer) {
+        if (accountNumber != null) {
+            Shard shard = owner(accountNumber);
+            shard.readOnly().executeWithoutResult(transaction -> shard.scanJdbc().query(
+                    SELECT + "WHERE account_number = ? ORDER BY transaction_date, id",
+                    (RowCallbackHandler) rs -> consumer.accept(ROW.mapRow(rs, 0)), accountNumber));
+            return;
+        }
+        String sql = SELECT + (status == null ? "" : "WHERE status = ? ") + "ORDER BY transaction_date, id";
+        Object[] args = status == null ? new Object[0] : new Object[]{status};
+
+        //1. One producer per shard, each feeding its own bounded buffer
+        List<BlockingQueue<Object>> buffers = new ArrayList<>(shards.size());
+        List<Future<?>> producers = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferSize);
+            buffers.add(buffer);
+            producers.add(scanners.submit(() -> produce(shard, sql, args, buffer)));
+        }
+
+        //2. k-way merge: always emit the smallest head among the shards
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>(shards.size(), Comparator.comparing(Head::row, SCAN_ORDER));
+            for (int shard = 0; shard < buffers.size(); shard++) {
+                TransactionDTO first = take(buffers.get(shard));
+                if (first != null) {
+                    heads.add(new Head(first, shard));
+                }
+            }
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                consumer.accept(head.row());
+                TransactionDTO next = take(buffers.get(head.shard()));
+                if (next != null) {
+                    heads.add(new Head(next, head.shard()));
+                }
+            }
+        } finally {
+            // Stops producers still running when the consumer fails
+            producers.forEach(producer -> producer.cancel(true));
+        }
+    }
+
+    // Cursor reads: PostgreSQL only honours the fetch size inside a transaction
+    private void produce(Shard shard, String sql, Object[] args, BlockingQueue<Object> buffer) {
+        try {
+            shard.readOnly().executeWithoutResult(status ->
+                    shard.scanJdbc().query(sql, (RowCallbackHandler) rs -> put(buffer, ROW.mapRow(rs, 0)), args));
+            put(buffer, END_OF_SHARD);
+        } catch (ScanCancelled e) {
+            // The consumer is gone
+        } catch (RuntimeException | Error e) {
+            try {
+                put(buffer, new ScanFailure(shard.index(), e));
+            } catch (ScanCancelled cancelled) {
+                // The consumer is gone
+            }
+        }
+    }
+
+    private static void put(BlockingQueue<Object> buffer, Object item) {
+        try {
+            buffer.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanCancelled();
+        }
+    }
+
+    private static TransactionDTO take(BlockingQueue<Object> buffer) {
+        Object item;
+        try {
+            item = buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while merging shard scans", e);
+        }
+        if (item == END_OF_SHARD) {
+            return null;
+        }
+        if (item instanceof ScanFailure failure) {
+            throw new IllegalStateException("Scan of shard " + failure.shard() + " failed", failure.cause());
+        }
+        return (TransactionDTO) item;
+    }
+
+    private static final class ScanCancelled extends RuntimeException {
+        ScanCancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    /*
+     * SHARD ADMINISTRATION
+     */
+    public Map<String, Long> countByShard() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            counts.put("shard-" + shard.index(), shard.jdbc().queryForObject("SELECT count(*) FROM transactions", Long.class));
+        }
+        return counts;
+    }
+
+    List<Shard> shards() {
+        return shards;
+    }
+
+    ShardRing ring() {
+        return ring;
+    }
+
+    @Override
+    public void close() {
+        scanners.shutdownNow();
+        for (Shard shard : shards) {
+            if (shard.dataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Cannot close shard " + shard.index(), e);
+                }
+            }
+        }
+    }
+
+    static void bind(PreparedStatement statement, TransactionDTO row) throws SQLException {
+        statement.setLong(1, row.getId());
+        statement.setString(2, row.getAccountNumber());
+        statement.setBigDecimal(3, row.getAmount());
+        statement.setString(4, row.getTransactionType());
+        statement.setString(5, row.getDescription());
+        statement.setObject(6, row.getTransactionDate());
+        statement.setString(7, row.getStatus());
+        statement.setObject(8, row.getCreatedAt());
+        statement.setLong(9, row.getVersion() != null ? row.getVersion() : 0L);
+    }
+
+    private Shard owner(String accountNumber) {
+        return shards.get(ring.shardFor(accountNumber));
+    }
+
+    static int homeShard(long id) {
+        return (int) (id & (MAX_SHARDS - 1));
+    }
+
+    private static boolean exists(Shard shard, long id) {
+        return Boolean.TRUE.equals(shard.jdbc().queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM transactions WHERE id = ?)", Boolean.class, id));
+    }
+
+    // Allocating shard first; ids from an unknown shard are probed everywhere
+    private List<Shard> probeOrder(long id) {
+        int home = homeShard(id);
+        if (home >= shards.size()) {
+            return shards;
+        }
+        List<Shard> order = new ArrayList<>(shards.size());
+        order.add(shards.get(home));
+        for (Shard shard : shards) {
+            if (shard.index() != home) {
+                order.add(shard);
+            }
+        }
+        return order;
+    }
+
+    // Allocating shard first; on a miss the remaining shards are asked in parallel
+    private <T> Optional<T> firstFound(long id, Function<Shard, Optional<T>> lookup) {
+        List<Shard> order = probeOrder(id);
+        if (homeShard(id) < shards.size()) {
+            Optional<T> found = lookup.apply(order.get(0));
+            if (found.isPresent() || order.size() == 1) {
+                return found;
+            }
+            order = order.subList(1, order.size());
+        }
+        List<Future<Optional<T>>> probes = new ArrayList<>(order.size());
+        for (Shard shard : order) {
+            probes.add(scanners.submit(() -> lookup.apply(shard)));
+        }
+        try {
+            for (Future<Optional<T>> probe : probes) {
+                Optional<T> found = probe.get();
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while probing shards", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Shard probe failed", e.getCause());
+        } finally {
+            probes.forEach(probe -> probe.cancel(true));
+        }
+    }
+
+    private record TransitionRow(Long id, String accountNumber, BigDecimal amount, String transactionType,
+                                 LocalDateTime transactionDate, String previousStatus, String status,
+                                 Long version) implements StatusTransitionRow {
+        @Override public Long getId() { return id; }
+        @Override public String getAccountNumber() { return accountNumber; }
+        @Override public BigDecimal getAmount() { return amount; }
+        @Override public String getTransactionType() { return transactionType; }
+        @Override public LocalDateTime getTransactionDate() { return transactionDate; }
+        @Override public String getPreviousStatus() { return previousStatus; }
+        @Override public String getStatus() { return status; }
+        @Override public Long getVersion() { return version; }
+    }
+}
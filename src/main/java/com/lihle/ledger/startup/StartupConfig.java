@@ -0,0 +1,58 @@
+package com.lihle.ledger.startup;
+
+import com.lihle.ledger.archive.PartitionMaintenance;
+import com.lihle.ledger.cache.KnownAccountFilter;
+import com.lihle.ledger.changefeed.ChangeFeedBroker;
+import com.lihle.ledger.controller.TransactionController;
+import com.lihle.ledger.ingest.GroupCommitIngestor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * STARTUP (profile "prod", see application-prod.properties and the Dockerfile)
+ *
+ * With spring.main.lazy-initialization beans are created on first use. These
+ * stay eager:
+ * - the transaction controller, so the database, Flyway, the schema validation
+ *   and the whole posting and read path are ready before the first request;
+ * - components that start background work (change feed ticker, known-accounts
+ *   scan, group-commit writers, partition maintenance) and the startup report.
+ * Everything else (reports, exports, search, actuator endpoints) is created by the
+ * first request that needs it.
+ *
+ * ledger.startup.training=true skips the Flyway migration: the image build refreshes
+ * the context without a database to record the classes for the CDS archive.
+ */
+@Configuration
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                TransactionController.class,
+                ChangeFeedBroker.class,
+                KnownAccountFilter.class,
+                GroupCommitIngestor.class,
+                PartitionMaintenance.class,
+                StartupReport.class);
+    }
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        boolean training = environment.getProperty("ledger.startup.training", Boolean.class, false);
+        return flyway -> {
+            if (training) {
+                log.info("CDS training run: skipping Flyway migration");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
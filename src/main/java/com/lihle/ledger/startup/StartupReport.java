@@ -0,0 +1,100 @@
+package com.lihle.ledger.startup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Logs how long startup took, measured from JVM start, and the memory footprint
+ * at each point:
+ * - beans initialized (also the last point the CDS training run in the image build reaches)
+ * - ready for requests
+ * - first request served: time-to-first-request
+ * Also published as ledger.startup.first.request.time (ms); Spring Boot publishes
+ * application.started.time and application.ready.time.
+ */
+@Component
+public class StartupReport implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+    private volatile long firstRequestMillis = -1;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Gauge.builder("ledger.startup.first.request.time", this, report -> report.firstRequestMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        log.info("Startup: beans initialized {} ms after JVM start ({}; {})",
+                sinceJvmStart(), modes(), footprint());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        log.info("Startup: ready for requests {} ms after JVM start ({})", sinceJvmStart(), footprint());
+    }
+
+    @EventListener(ServletRequestHandledEvent.class)
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestSeen.compareAndSet(false, true)) {
+            firstRequestMillis = sinceJvmStart();
+            log.info("Startup: first request ({} {}) served {} ms after JVM start, took {} ms ({})",
+                    event.getMethod(), event.getRequestUrl(), firstRequestMillis,
+                    event.getProcessingTimeMillis(), footprint());
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    private static String modes() {
+        boolean cds = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+        return "AOT " + (AotDetector.useGeneratedArtifacts() ? "on" : "off") + ", CDS archive " + (cds ? "on" : "off");
+    }
+
+    private static String footprint() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        String rss = residentSetSize();
+        return String.format("heap used %d MiB of %d MiB committed, non-heap %d MiB%s",
+                memory.getHeapMemoryUsage().getUsed() >> 20,
+                memory.getHeapMemoryUsage().getCommitted() >> 20,
+                memory.getNonHeapMemoryUsage().getUsed() >> 20,
+                rss == null ? "" : ", RSS " + rss);
+    }
+
+    // VmRSS from /proc on Linux (the container), null elsewhere
+    private static String residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    long kib = Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+                    return (kib >> 10) + " MiB";
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not Linux
+        }
+        return null;
+    }
+}
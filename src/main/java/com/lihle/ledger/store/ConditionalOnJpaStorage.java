@@ -0,0 +1,19 @@
+package com.lihle.ledger.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Beans that need PostgreSQL/JPA. Active unless ledger.storage.backend selects another store.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@ConditionalOnProperty(name = "ledger.storage.backend", havingValue = "jpa", matchIfMissing = true)
+public @interface ConditionalOnJpaStorage {
+}
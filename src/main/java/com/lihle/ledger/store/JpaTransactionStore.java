@@ -0,0 +1,200 @@
+package com.lihle.ledger.store;
+
+import com.lihle.ledger.archive.TransactionArchive;
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.entity.Transaction;
+import com.lihle.ledger.mapper.TransactionMapper;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionRepository;
+import com.lihle.ledger.repository.TransactionSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * TransactionStore over TransactionRepository, the storage of TransactionService.
+ *
+ * Reads use the repository's DTO projections and read through to archived months
+ * (TransactionArchive): lookups by id, account history, account pages, recent
+ * rows and account streams merge archived rows in order. With nothing archived
+ * that costs nothing. Plain storage only: the balance projection, rollups,
+ * change feed and read cache are TransactionService's job, in the same
+ * database transaction.
+ */
+@Component
+@ConditionalOnJpaStorage
+public class JpaTransactionStore implements TransactionStore {
+
+    @Autowired
+    private TransactionRepository repository;
+
+    @Autowired
+    private TransactionMapper mapper;
+
+    @Autowired
+    private TransactionArchive archive;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One JDBC batch; the persistence context is flushed and cleared afterwards so
+     * it does not grow with the size of an ingestion.
+     */
+    @Override
+    @Transactional
+    public List<TransactionDTO> saveAll(List<TransactionDomain> transactions) {
+        List<Transaction> entities = new ArrayList<>(transactions.size());
+        for (TransactionDomain domain : transactions) {
+            entities.add(mapper.toEntity(domain));
+        }
+        List<Transaction> saved = repository.saveAll(entities);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TransactionDTO> dtos = new ArrayList<>(saved.size());
+        for (Transaction entity : saved) {
+            dtos.add(mapper.toDTO(mapper.toDomain(entity)));
+        }
+        return dtos;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TransactionDTO> findById(Long id) {
+        return repository.findProjectedById(id).or(() -> archive.findById(id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findByAccountNumber(String accountNumber) {
+        List<TransactionDTO> rows = repository.findProjectedByAccountNumber(accountNumber);
+        if (archive.isEmpty()) {
+            return rows;
+        }
+        List<TransactionDTO> all = archive.findByAccountNumber(accountNumber);
+        all.addAll(rows);
+        return all;
+    }
+
+    // Archived months only when the table has fewer rows than asked, or rows older than an archived month
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findRecentByAccountNumber(String accountNumber, int limit) {
+        List<TransactionDTO> recent = repository.findRecentByAccountNumber(accountNumber, PageRequest.of(0, limit));
+        if (recent.size() < limit ? archive.isEmpty()
+                : !archive.holdsRowsAfter(recent.get(limit - 1).getTransactionDate())) {
+            return recent;
+        }
+        List<TransactionDTO> merged = new ArrayList<>(recent);
+        merged.addAll(archive.findRecent(accountNumber, limit));
+        merged.sort(TransactionArchive.BY_DATE_AND_ID.reversed());
+        return merged.size() <= limit ? merged : new ArrayList<>(merged.subList(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findByStatus(String status) {
+        return repository.findProjectedByStatus(status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findAll() {
+        return repository.findAllProjected();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findPage(String accountNumber, String status,
+                                         LocalDateTime afterDate, Long afterId, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        if (accountNumber != null) {
+            List<TransactionDTO> rows = afterId == null
+                    ? repository.findFirstPageByAccountNumber(accountNumber, pageable)
+                    : repository.findPageByAccountNumberAfter(accountNumber, afterDate, afterId, pageable);
+            return withArchivedPage(accountNumber, afterDate, afterId, rows, limit);
+        }
+        if (status != null) {
+            return afterId == null
+                    ? repository.findFirstPageByStatus(status, pageable)
+                    : repository.findPageByStatusAfter(status, afterDate, afterId, pageable);
+        }
+        return afterId == null
+                ? repository.findFirstPage(pageable)
+                : repository.findPageAfter(afterDate, afterId, pageable);
+    }
+
+    // Archived rows of the account after the cursor merged into a page of table rows
+    private List<TransactionDTO> withArchivedPage(String accountNumber, LocalDateTime afterDate, Long afterId,
+                                                  List<TransactionDTO> rows, int limit) {
+        if (archive.isEmpty()) {
+            return rows;
+        }
+        List<TransactionDTO> archived = archive.findPageAfter(accountNumber, afterDate, afterId, limit);
+        if (archived.isEmpty()) {
+            return rows;
+        }
+        List<TransactionDTO> merged = new ArrayList<>(archived);
+        merged.addAll(rows);
+        merged.sort(TransactionArchive.BY_DATE_AND_ID);
+        return merged.size() <= limit ? merged : merged.subList(0, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit) {
+        return repository.search(criteria, limit);
+    }
+
+    /**
+     * Rows come through a server-side cursor with a bounded fetch size, projected
+     * straight into DTOs, so neither the driver nor the persistence context holds
+     * more than one fetch worth of rows.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void scan(String accountNumber, String status, Consumer<TransactionDTO> consumer) {
+        Stream<TransactionDTO> rows;
+        if (accountNumber != null) {
+            rows = repository.streamByAccountNumber(accountNumber);
+        } else if (status != null) {
+            rows = repository.streamByStatus(status);
+        } else {
+            rows = repository.streamAll();
+        }
+
+        List<TransactionDTO> archived = accountNumber == null || archive.isEmpty()
+                ? List.of() : archive.findByAccountNumber(accountNumber);
+        try (rows) {
+            TransactionArchive.merged(archived, rows.iterator()).forEachRemaining(consumer);
+        }
+    }
+
+    @Override
+    @Transactional
+    public Optional<StatusTransitionRow> transitionStatus(Long id, String target, Collection<String> sources,
+                                                          Long expectedVersion) {
+        return repository.transitionStatus(id, target, sources, expectedVersion);
+    }
+
+    // Archived transactions exist too: they are closed, not gone
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsById(Long id) {
+        return repository.existsById(id) || archive.findById(id).isPresent();
+    }
+}
@@ -0,0 +1,68 @@
+package com.lihle.ledger.store;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import com.lihle.ledger.repository.TransactionSearchCriteria;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Storage contract of the posting API: creating, reading, paging, searching,
+ * streaming and transitioning transactions. TransactionService runs on it for
+ * every backend.
+ *
+ * Ordered reads use (transactionDate, id), the order of the keyset cursors.
+ *
+ * Implementations:
+ * - JpaTransactionStore: PostgreSQL through TransactionRepository (ledger.storage.backend=jpa, default)
+ * - JournalTransactionStore: embedded memory-mapped journal (ledger.storage.backend=journal)
+ * - ShardedTransactionStore: PostgreSQL databases sharded by account number (ledger.storage.backend=sharded)
+ */
+public interface TransactionStore {
+
+    // Assigns ids and defaults (transactionDate, status, createdAt); results are index-aligned
+    List<TransactionDTO> saveAll(List<TransactionDomain> transactions);
+
+    Optional<TransactionDTO> findById(Long id);
+
+    List<TransactionDTO> findByAccountNumber(String accountNumber);
+
+    // Newest first, at most limit rows
+    List<TransactionDTO> findRecentByAccountNumber(String accountNumber, int limit);
+
+    List<TransactionDTO> findByStatus(String status);
+
+    List<TransactionDTO> findAll();
+
+    /**
+     * Up to limit rows after the keyset position (afterDate, afterId), oldest first,
+     * of one account, of one status or of all transactions (both null). A null
+     * afterId starts at the beginning.
+     */
+    List<TransactionDTO> findPage(String accountNumber, String status,
+                                  LocalDateTime afterDate, Long afterId, int limit);
+
+    // Up to limit rows matching the criteria, in the criteria's direction
+    List<TransactionDTO> search(TransactionSearchCriteria criteria, int limit);
+
+    /**
+     * Hands every transaction of one account, of one status or of all of them to
+     * consumer, oldest first, without holding the whole result in memory.
+     */
+    void scan(String accountNumber, String status, Consumer<TransactionDTO> consumer);
+
+    /**
+     * Moves the transaction to target when its current status is one of sources and,
+     * unless expectedVersion is null, its version is expectedVersion.
+     * Empty result: unknown id, transition not allowed or version mismatch.
+     */
+    Optional<StatusTransitionRow> transitionStatus(Long id, String target, Collection<String> sources,
+                                                   Long expectedVersion);
+
+    boolean existsById(Long id);
+}
@@ -0,0 +1,38 @@
+-- Compact encoding (profile "compact"), applied in place and one way:
+--   amount            numeric(38,2) -> bigint minor units (scale 2)
+--   transaction_type  varchar       -> smallint code (DEBIT 1, CREDIT 2)
+--   status            varchar       -> smallint code (PENDING 1, COMPLETED 2, DISPUTED 3, REVERSED 4)
+--   description       moved to transaction_descriptions, off the row that scans,
+--                     status changes and index maintenance touch
+-- ALTER COLUMN TYPE rewrites the table and its indexes under an exclusive lock:
+-- run it in a maintenance window. The migration is one transaction, so a failure leaves
+-- the default encoding intact; VACUUM transactions afterwards.
+
+create table if not exists transaction_descriptions (
+    transaction_id bigint not null,
+    description varchar(255) not null,
+    primary key (transaction_id)
+);
+
+insert into transaction_descriptions (transaction_id, description)
+select id, description from transactions
+on conflict (transaction_id) do nothing;
+
+-- its predicate compares status with a name
+drop index if exists idx_transactions_disputed;
+
+alter table transactions
+    alter column amount type bigint using round(amount * 100)::bigint,
+    alter column transaction_type type smallint using
+        case transaction_type when 'DEBIT' then 1 when 'CREDIT' then 2 end,
+    alter column status type smallint using
+        case status when 'PENDING' then 1 when 'COMPLETED' then 2 when 'DISPUTED' then 3 when 'REVERSED' then 4 end,
+    drop column description;
+
+create index if not exists idx_transactions_disputed
+    on transactions (account_number, transaction_date, id)
+    where status = 3;
+
+-- Fresh statistics, or the planner sizes transaction_descriptions from nothing
+analyze transactions;
+analyze transaction_descriptions;
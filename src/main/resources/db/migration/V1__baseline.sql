@@ -0,0 +1,44 @@
+-- Baseline: the schema as Hibernate generated it before migrations existed.
+-- Also runs on databases created by ddl-auto (baselined at version 0): IF NOT EXISTS
+-- keeps what is there, and the ALTERs below bring a table from before the version
+-- column and the sequence up to date.
+
+create sequence if not exists transactions_seq start with 1 increment by 50;
+
+create table if not exists transactions (
+    amount numeric(38,2) not null,
+    created_at timestamp(6),
+    id bigint not null,
+    transaction_date timestamp(6) not null,
+    version bigint not null default 0,
+    account_number varchar(255) not null,
+    description varchar(255) not null,
+    status varchar(255) not null,
+    transaction_type varchar(255) not null,
+    primary key (id)
+);
+
+create table if not exists account_balances (
+    balance numeric(38,2) not null,
+    last_transaction_id bigint,
+    updated_at timestamp(6) not null,
+    account_number varchar(255) not null,
+    primary key (account_number)
+);
+
+create table if not exists transaction_rollups (
+    amount_sum numeric(38,2) not null,
+    bucket_start timestamp(6) not null,
+    transaction_count bigint not null,
+    account_number varchar(255) not null,
+    status varchar(255) not null,
+    transaction_type varchar(255) not null,
+    primary key (bucket_start, account_number, status, transaction_type)
+);
+
+-- Tables created by ddl-auto before optimistic versioning
+alter table transactions add column if not exists version bigint not null default 0;
+
+-- ...and with IDENTITY ids: ids now come from transactions_seq (V9 moves it past them)
+alter table transactions alter column id drop identity if exists;
+alter table transactions alter column id drop default;
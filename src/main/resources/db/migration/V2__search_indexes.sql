@@ -0,0 +1,31 @@
+-- Indexes for search, keyset pages and per-account reads.
+-- CONCURRENTLY builds without blocking writes; Flyway runs these statements
+-- outside a transaction (see V2__search_indexes.sql.conf). An interrupted
+-- concurrent build leaves an INVALID index behind, so each index is dropped
+-- first to make a failed run safe to repeat.
+
+-- account history, newest/oldest first: WHERE account_number = ? ORDER BY transaction_date, id
+drop index concurrently if exists idx_transactions_account_date;
+create index concurrently idx_transactions_account_date
+    on transactions (account_number, transaction_date, id);
+
+-- status queues: WHERE status = ? ORDER BY transaction_date, id
+drop index concurrently if exists idx_transactions_status_date;
+create index concurrently idx_transactions_status_date
+    on transactions (status, transaction_date, id);
+
+-- unfiltered keyset pages and date-range searches
+drop index concurrently if exists idx_transactions_date;
+create index concurrently idx_transactions_date
+    on transactions (transaction_date, id);
+
+-- open disputes are a small, hot subset
+drop index concurrently if exists idx_transactions_disputed;
+create index concurrently idx_transactions_disputed
+    on transactions (account_number, transaction_date, id)
+    where status = 'DISPUTED';
+
+-- per-account rollup ranges; the primary key already leads with bucket_start
+drop index concurrently if exists idx_transaction_rollups_account_bucket;
+create index concurrently idx_transaction_rollups_account_bucket
+    on transaction_rollups (account_number, bucket_start);
@@ -0,0 +1,27 @@
+-- Change feed outbox: one row per create and per status transition, written in
+-- the same database transaction as the change itself.
+-- txid is the writing transaction's id. The feed is served in (txid, id) order and
+-- only up to the oldest transaction still running (pg_snapshot_xmin), so a change
+-- that commits late can never appear behind a consumer's cursor.
+
+create sequence if not exists transaction_changes_seq start with 1 increment by 50;
+
+create table if not exists transaction_changes (
+    id bigint not null,
+    txid bigint not null default pg_current_xact_id()::text::bigint,
+    transaction_id bigint not null,
+    change_type varchar(32) not null,
+    account_number varchar(255) not null,
+    amount numeric(38,2) not null,
+    transaction_type varchar(255) not null,
+    previous_status varchar(255),
+    status varchar(255) not null,
+    transaction_date timestamp(6) not null,
+    recorded_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index if not exists idx_transaction_changes_position on transaction_changes (txid, id);
+
+-- Retention purge
+create index if not exists idx_transaction_changes_recorded_at on transaction_changes (recorded_at);
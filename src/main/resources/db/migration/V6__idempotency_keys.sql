@@ -0,0 +1,15 @@
+-- Idempotency keys of transaction creates (Idempotency-Key header). A key is claimed
+-- in the same database transaction as the posting it creates, so the primary key is
+-- the durable guarantee: two postings with the same key can never both commit.
+-- transaction_id is filled in by the same transaction once the posting has its id.
+
+create table if not exists idempotency_keys (
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    transaction_id bigint,
+    created_at timestamp(6) not null,
+    primary key (idempotency_key)
+);
+
+-- Retention purge
+create index if not exists idx_idempotency_keys_created_at on idempotency_keys (created_at);
@@ -0,0 +1,6 @@
+-- Per-account change counter: bumped in the same database transaction as every
+-- create and status change of the account's transactions (and by balance rebuilds).
+-- Account reads use it as their ETag, so an unchanged account answers 304 from this
+-- single-row lookup. A constant default keeps the ALTER a catalog-only change.
+
+alter table account_balances add column if not exists change_version bigint not null default 0;
@@ -0,0 +1,78 @@
+-- Monthly range partitions of transactions on transaction_date.
+--   transactions_YYYY_MM  one per calendar month, [first day, first day of next month)
+--   transactions_default  rows outside every monthly partition (backdated into an
+--                         archived month, or beyond the premade months)
+-- PartitionMaintenance creates upcoming months ahead of time and archives closed
+-- months into segment files (see TransactionArchive).
+--
+-- A partitioned table's primary key must contain the partition key, so it becomes
+-- (id, transaction_date); ids stay unique through transactions_seq. The table is
+-- copied, not altered: run this in a maintenance window, like V4. Columns are
+-- copied with LIKE, so both storage encodings (V4) convert the same way.
+
+create table transactions_partitioned (like transactions including defaults including constraints)
+    partition by range (transaction_date);
+
+do $$
+declare
+    first_month timestamp := date_trunc('month', coalesce((select min(transaction_date) from transactions), now()));
+    last_month timestamp := date_trunc('month', now()) + interval '3 months';
+    month timestamp;
+begin
+    month := first_month;
+    while month <= last_month loop
+        execute format('create table %I partition of transactions_partitioned for values from (%L) to (%L)',
+                'transactions_' || to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+        month := month + interval '1 month';
+    end loop;
+end $$;
+
+create table transactions_default partition of transactions_partitioned default;
+
+insert into transactions_partitioned select * from transactions;
+
+drop table transactions;
+alter table transactions_partitioned rename to transactions;
+
+-- Partitioned indexes: every partition gets its own, including partitions attached later
+alter table transactions add constraint transactions_pkey primary key (id, transaction_date);
+
+create index idx_transactions_account_date on transactions (account_number, transaction_date, id);
+
+create index idx_transactions_status_date on transactions (status, transaction_date, id);
+
+create index idx_transactions_date on transactions (transaction_date, id);
+
+-- Folds to the encoding's DISPUTED value (see V3__encoding_functions.sql)
+create index idx_transactions_disputed on transactions (account_number, transaction_date, id)
+    where status = ledger_status_value('DISPUTED', status);
+
+-- Segments archived by PartitionMaintenance; readers load this catalog (TransactionArchive).
+-- settled_at is set by the transaction that deletes the segment's rows from transactions;
+-- until then readers may see a row in both places and prefer the table.
+create sequence if not exists transaction_archive_segments_seq;
+
+create table if not exists transaction_archive_segments (
+    id bigint not null default nextval('transaction_archive_segments_seq'),
+    range_start timestamp(6) not null,
+    range_end timestamp(6) not null,
+    file_name varchar(255) not null,
+    row_count bigint not null,
+    min_id bigint not null,
+    max_id bigint not null,
+    size_bytes bigint not null,
+    archived_at timestamp(6) not null,
+    settled_at timestamp(6),
+    primary key (id)
+);
+
+-- Balance contributions of archived rows: a balance rebuild adds them to the hot rows
+create table if not exists archived_account_totals (
+    account_number varchar(255) not null,
+    balance numeric(38,2) not null,
+    transaction_count bigint not null,
+    last_transaction_id bigint,
+    primary key (account_number)
+);
+
+analyze transactions;
@@ -0,0 +1,11 @@
+-- Moves transactions_seq past every id in use. V1 creates the sequence at 1, which
+-- collides with rows a database already holds when it gets the table some other
+-- way (ddl-auto, a restore, rows copied in with explicit ids).
+-- Transaction ids are allocated 50 at a time (allocationSize 50): Hibernate's pooled
+-- optimizer hands out the 50 ids up to each value it draws, so the next value must be
+-- at least max(id) + 50. Archived rows count too, and the sequence never moves back.
+
+select setval('transactions_seq', greatest(
+        coalesce((select max(id) from transactions), 0),
+        coalesce((select max(max_id) from transaction_archive_segments), 0),
+        (select last_value from transactions_seq)) + 50, false);
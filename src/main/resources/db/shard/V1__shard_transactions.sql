@@ -0,0 +1,23 @@
+-- Schema of one shard of the sharded backend (ledger.storage.backend=sharded), one
+-- database per shard. Ids come from this shard's own sequence with the shard index
+-- in the low 10 bits (see ShardedTransactionStore), so no sequence is shared.
+
+create sequence if not exists transactions_seq;
+
+create table if not exists transactions (
+    id bigint not null,
+    account_number varchar(255) not null,
+    amount numeric(38,2) not null,
+    transaction_type varchar(16) not null,
+    description varchar(255) not null,
+    transaction_date timestamp(6) not null,
+    status varchar(16) not null,
+    created_at timestamp(6) not null,
+    version bigint not null default 0,
+    primary key (id)
+);
+
+-- Account history, and the per-shard ordered streams merged by scatter-gather reads
+create index if not exists idx_transactions_account_date on transactions (account_number, transaction_date, id);
+create index if not exists idx_transactions_date_id on transactions (transaction_date, id);
+create index if not exists idx_transactions_status_date_id on transactions (status, transaction_date, id);
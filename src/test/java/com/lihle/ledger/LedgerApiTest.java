@@ -0,0 +1,106 @@
+package com.lihle.ledger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base of the API tests: the application on the jpa backend against one embedded
+ * PostgreSQL for the whole run, schema from the Flyway migrations. Subclasses with
+ * the same configuration share one application context; tests share the database,
+ * so each works on accounts of its own (newAccount).
+ */
+@SpringBootTest(properties = {
+        "ledger.partitions.maintenance.enabled=false",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureMockMvc
+public abstract class LedgerApiTest {
+
+    protected static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    @Autowired
+    protected MockMvc mvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        String archive = Files.createTempDirectory("ledger-archive").toString();
+        registry.add("ledger.archive.directory", () -> archive);
+    }
+
+    protected static DataSource database() {
+        return POSTGRES.getPostgresDatabase();
+    }
+
+    protected ResultActions createTransaction(String account, String amount, String type) throws Exception {
+        return mvc.perform(post("/transactions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(posting(account, amount, type)));
+    }
+
+    // Id of a new posting
+    protected long create(String account, String amount, String type) throws Exception {
+        return json(createTransaction(account, amount, type)
+                .andExpect(status().isCreated())
+                .andReturn()).get("id").asLong();
+    }
+
+    protected ResultActions changeStatus(long id, String status) throws Exception {
+        return mvc.perform(patch("/transactions/{id}/status", id).param("status", status));
+    }
+
+    protected JsonNode balance(String account) throws Exception {
+        return json(mvc.perform(get("/accounts/{account}/balance", account))
+                .andExpect(status().isOk())
+                .andReturn());
+    }
+
+    protected JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    protected static String posting(String account, String amount, String type) {
+        return "{\"accountNumber\":\"" + account + "\",\"amount\":" + amount
+                + ",\"transactionType\":\"" + type + "\",\"description\":\"Test posting\"}";
+    }
+
+    protected static String newAccount() {
+        return "TEST-" + UUID.randomUUID();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
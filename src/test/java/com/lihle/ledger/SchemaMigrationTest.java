@@ -0,0 +1,103 @@
+package com.lihle.ledger;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.TransactionService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrading a database that the first release created with ddl-auto: Flyway
+ * baselines it at version 0, every migration runs, and the existing rows keep
+ * their ids while new ones are numbered after them.
+ */
+class SchemaMigrationTest {
+
+    // The transactions table as Hibernate created it for the original entity (IDENTITY ids, no version)
+    private static final String DDL_AUTO_SCHEMA = """
+            create table transactions (
+                amount numeric(38,2) not null,
+                created_at timestamp(6),
+                id bigint generated by default as identity,
+                transaction_date timestamp(6) not null,
+                account_number varchar(255) not null,
+                description varchar(255) not null,
+                status varchar(255) not null,
+                transaction_type varchar(255) not null,
+                primary key (id)
+            )""";
+
+    private static EmbeddedPostgres postgres;
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void upgradeALegacyDatabase() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        JdbcTemplate legacy = new JdbcTemplate(postgres.getPostgresDatabase());
+        legacy.execute(DDL_AUTO_SCHEMA);
+        legacy.update("insert into transactions (amount, created_at, transaction_date, account_number, description, "
+                + "status, transaction_type) select 10.00, now(), now() - interval '1 day', 'LEGACY-1', 'Legacy ' || g, "
+                + "'COMPLETED', 'CREDIT' from generate_series(1, 120) g");
+
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--ledger.partitions.maintenance.enabled=false",
+                        "--ledger.archive.directory=" + Files.createTempDirectory("ledger-archive"));
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        postgres.close();
+    }
+
+    @Test
+    void everyMigrationRunsAfterTheBaseline() {
+        List<String> history = jdbc().queryForList(
+                "select version || ':' || success from flyway_schema_history order by installed_rank", String.class);
+        assertThat(history.get(0)).isEqualTo("0:true");
+        assertThat(history).contains("1:true", "2:true", "7:true", "8:true", "9:true");
+        assertThat(history).allMatch(entry -> entry.endsWith(":true"));
+    }
+
+    @Test
+    void legacyRowsKeepTheirIdsAndGetAVersion() {
+        assertThat(jdbc().queryForObject("select count(*) from transactions where account_number = 'LEGACY-1' and version = 0", Long.class))
+                .isEqualTo(120L);
+        assertThat(jdbc().queryForObject("select max(id) from transactions where account_number = 'LEGACY-1'", Long.class)).isEqualTo(120L);
+        assertThat(context.getBean(TransactionService.class).getTransactionById(120L))
+                .map(TransactionDTO::getDescription).contains("Legacy 120");
+    }
+
+    @Test
+    void newPostingsAreNumberedAfterTheLegacyRows() {
+        TransactionDTO posting = new TransactionDTO(null, "LEGACY-2", new BigDecimal("5.00"), "DEBIT",
+                "After the upgrade", null, null, null, null);
+        TransactionDTO created = context.getBean(TransactionService.class).createTransaction(posting);
+        assertThat(created.getId()).isGreaterThan(120L);
+    }
+
+    private static JdbcTemplate jdbc() {
+        return new JdbcTemplate(postgres.getPostgresDatabase());
+    }
+}
@@ -0,0 +1,157 @@
+package com.lihle.ledger.archive;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ArchiveSegmentWriter / ArchiveSegment: every row written is found again by id
+ * and by account, across several blocks, id pages and account pages.
+ */
+class ArchiveSegmentTest {
+
+    private static final LocalDateTime MONTH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ACCOUNTS = ArchiveSegmentWriter.ACCOUNT_PAGE_ENTRIES * 2 + 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryRowByIdAndByAccount() throws IOException {
+        Map<String, List<TransactionDTO>> byAccount = month(new Random(7));
+        List<TransactionDTO> all = new ArrayList<>();
+        byAccount.values().forEach(all::addAll);
+        assertThat(all.size()).isGreaterThan(ArchiveSegmentWriter.ID_PAGE_ENTRIES);
+
+        Path file = directory.resolve("2024-01.ldga");
+        ArchiveSegmentWriter.Summary summary = write(file, byAccount);
+        assertThat(summary.rows()).isEqualTo(all.size());
+        assertThat(summary.minId()).isEqualTo(all.stream().mapToLong(TransactionDTO::getId).min().orElseThrow());
+        assertThat(summary.maxId()).isEqualTo(all.stream().mapToLong(TransactionDTO::getId).max().orElseThrow());
+        assertThat(summary.sizeBytes()).isEqualTo(Files.size(file));
+
+        try (ArchiveSegment segment = ArchiveSegment.open(file)) {
+            for (TransactionDTO row : all) {
+                assertThat(segment.findById(row.getId())).contains(row);
+            }
+            for (Map.Entry<String, List<TransactionDTO>> account : byAccount.entrySet()) {
+                assertThat(segment.mightContain(account.getKey())).isTrue();
+                assertThat(segment.findByAccountNumber(account.getKey())).isEqualTo(account.getValue());
+            }
+        }
+    }
+
+    @Test
+    void findsNothingForAbsentIdsAndAccounts() throws IOException {
+        Map<String, List<TransactionDTO>> byAccount = month(new Random(11));
+        Path file = directory.resolve("2024-01.ldga");
+        ArchiveSegmentWriter.Summary summary = write(file, byAccount);
+
+        try (ArchiveSegment segment = ArchiveSegment.open(file)) {
+            assertThat(segment.findById(summary.minId() - 1)).isEmpty();
+            assertThat(segment.findById(summary.maxId() + 1)).isEmpty();
+            // Ids are spaced by 3: the ones in between were never written
+            assertThat(segment.findById(summary.minId() + 1)).isEmpty();
+            assertThat(segment.findByAccountNumber("ACC-NONE")).isEmpty();
+            assertThat(segment.findByAccountNumber("")).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsRowsOutOfOrder() throws IOException {
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(directory.resolve("a.ldga"))) {
+            writer.write(row(1, "ACC-1", MONTH.plusDays(2)));
+            assertThatThrownBy(() -> writer.write(row(2, "ACC-1", MONTH.plusDays(1))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(directory.resolve("b.ldga"))) {
+            writer.write(row(1, "ACC-1", MONTH));
+            writer.write(row(2, "ACC-2", MONTH));
+            assertThatThrownBy(() -> writer.write(row(3, "ACC-1", MONTH.plusDays(1))))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(directory.resolve("c.ldga"))) {
+            assertThatThrownBy(writer::finish).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void refusesDamagedFiles() throws IOException {
+        Path file = directory.resolve("2024-01.ldga");
+        write(file, month(new Random(3)));
+        byte[] bytes = Files.readAllBytes(file);
+
+        Path truncated = directory.resolve("truncated.ldga");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 5));
+        assertThatThrownBy(() -> ArchiveSegment.open(truncated)).isInstanceOf(IOException.class);
+
+        // The byte before the trailer belongs to the footer
+        Path damaged = directory.resolve("damaged.ldga");
+        bytes[bytes.length - ArchiveSegmentWriter.TRAILER_LENGTH - 1] ^= 0x01;
+        Files.write(damaged, bytes);
+        assertThatThrownBy(() -> ArchiveSegment.open(damaged)).isInstanceOf(IOException.class);
+    }
+
+    private static ArchiveSegmentWriter.Summary write(Path file, Map<String, List<TransactionDTO>> byAccount)
+            throws IOException {
+        try (ArchiveSegmentWriter writer = new ArchiveSegmentWriter(file)) {
+            for (List<TransactionDTO> rows : byAccount.values()) {
+                for (TransactionDTO row : rows) {
+                    writer.write(row);
+                }
+            }
+            return writer.finish();
+        }
+    }
+
+    /**
+     * A month of rows grouped by account, accounts in no particular order, each
+     * account's rows ordered by (transactionDate, id), ids interleaved between
+     * accounts and spaced by 3.
+     */
+    private static Map<String, List<TransactionDTO>> month(Random random) {
+        List<String> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add("ACC-" + i);
+        }
+        Collections.shuffle(accounts, random);
+
+        Map<String, List<TransactionDTO>> byAccount = new LinkedHashMap<>();
+        accounts.forEach(account -> byAccount.put(account, new ArrayList<>()));
+        long id = 1000;
+        for (int i = 0; i < ACCOUNTS * 4; i++) {
+            String account = accounts.get(random.nextInt(ACCOUNTS));
+            List<TransactionDTO> rows = byAccount.get(account);
+            LocalDateTime date = rows.isEmpty()
+                    ? MONTH.plusMinutes(random.nextInt(60 * 24))
+                    // Some rows share the previous date: id breaks the tie
+                    : rows.get(rows.size() - 1).getTransactionDate().plusSeconds(random.nextInt(3) * 60L);
+            rows.add(row(id, account, date));
+            id += 3;
+        }
+        byAccount.values().removeIf(List::isEmpty);
+        return byAccount;
+    }
+
+    private static TransactionDTO row(long id, String account, LocalDateTime date) {
+        return new TransactionDTO(id, account, BigDecimal.valueOf(id % 10_000 + 1, 2),
+                id % 2 == 0 ? "DEBIT" : "CREDIT", "Archived " + id, date,
+                id % 5 == 0 ? "REVERSED" : "COMPLETED", date.plusSeconds(1), null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.lihle.ledger.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    private static final int ENTRIES = 100_000;
+    private static final double FPP = 0.01;
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilter filter = filled();
+        for (int i = 0; i < ENTRIES; i++) {
+            assertThat(filter.mightContain(account(i))).as(account(i)).isTrue();
+        }
+    }
+
+    // Filled to capacity, the rate of absent values that pass stays near the target
+    @Test
+    void keepsFalsePositivesNearTheTarget() {
+        BloomFilter filter = filled();
+        long falsePositives = IntStream.range(ENTRIES, 2 * ENTRIES)
+                .filter(i -> filter.mightContain(account(i)))
+                .count();
+        assertThat((double) falsePositives / ENTRIES).isLessThan(FPP * 2);
+        assertThat(filter.expectedFalsePositiveProbability()).isLessThan(FPP * 2);
+        assertThat(filter.entries()).isGreaterThan(ENTRIES * 99L / 100);
+    }
+
+    @Test
+    void putReportsWhetherTheValueWasNew() {
+        BloomFilter filter = BloomFilter.create(100, FPP);
+        assertThat(filter.put("ACC-1")).isTrue();
+        assertThat(filter.put("ACC-1")).isFalse();
+        assertThat(filter.entries()).isEqualTo(1);
+    }
+
+    @Test
+    void survivesWriteAndRead() throws IOException {
+        BloomFilter filter = filled();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filter.writeTo(new DataOutputStream(bytes));
+
+        BloomFilter read = BloomFilter.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+        assertThat(read.capacity()).isEqualTo(filter.capacity());
+        assertThat(read.sizeInBytes()).isEqualTo(filter.sizeInBytes());
+        for (int i = 0; i < 2 * ENTRIES; i++) {
+            assertThat(read.mightContain(account(i))).isEqualTo(filter.mightContain(account(i)));
+        }
+    }
+
+    @Test
+    void rejectsImpossibleProbabilities() {
+        assertThatThrownBy(() -> BloomFilter.create(10, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(10, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BloomFilter filled() {
+        BloomFilter filter = BloomFilter.create(ENTRIES, FPP);
+        for (int i = 0; i < ENTRIES; i++) {
+            filter.put(account(i));
+        }
+        return filter;
+    }
+
+    private static String account(int i) {
+        return "ACC-" + i;
+    }
+}
@@ -0,0 +1,96 @@
+package com.lihle.ledger.cache;
+
+import com.lihle.ledger.LedgerApiTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads by id and recent reads served from TransactionReadCache, and the writes
+ * that evict them. Rows changed behind the application's back show which reads
+ * were answered from the cache.
+ */
+class TransactionReadCacheTest extends LedgerApiTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void repeatedReadsByIdAreHits() throws Exception {
+        long id = create(newAccount(), "10.00", "CREDIT");
+        double hits = hits("transactions.byId");
+
+        mvc.perform(get("/transactions/{id}", id)).andExpect(status().isOk());
+        describeBehindTheCache(id, "Changed in the database");
+        mvc.perform(get("/transactions/{id}", id))
+                .andExpect(jsonPath("$.description").value("Test posting"));
+
+        assertThat(hits("transactions.byId")).isGreaterThan(hits);
+    }
+
+    @Test
+    void statusChangeEvictsTheTransactionAndItsAccount() throws Exception {
+        String account = newAccount();
+        long id = create(account, "10.00", "CREDIT");
+        mvc.perform(get("/transactions/{id}", id)).andExpect(status().isOk());
+        mvc.perform(get("/accounts/{account}/transactions/recent", account)).andExpect(status().isOk());
+
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+
+        mvc.perform(get("/transactions/{id}", id)).andExpect(jsonPath("$.status").value("DISPUTED"));
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$[0].status").value("DISPUTED"));
+    }
+
+    @Test
+    void postingsEvictTheRecentRowsOfTheirAccount() throws Exception {
+        String account = newAccount();
+        long first = create(account, "1.00", "CREDIT");
+        mvc.perform(get("/accounts/{account}/transactions/recent", account)).andExpect(jsonPath("$.length()").value(1));
+        describeBehindTheCache(first, "Changed in the database");
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$[0].description").value("Test posting"));
+
+        long second = create(account, "2.00", "CREDIT");
+        mvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + posting(account, "3.00", "DEBIT") + "]"))
+                .andExpect(status().isCreated());
+
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[1].id").value(second))
+                .andExpect(jsonPath("$[2].description").value("Changed in the database"));
+    }
+
+    @Test
+    void smallerLimitsAreCutFromTheCachedRows() throws Exception {
+        String account = newAccount();
+        for (int i = 0; i < 5; i++) {
+            create(account, "1.00", "CREDIT");
+        }
+        mvc.perform(get("/accounts/{account}/transactions/recent", account).param("limit", "5"))
+                .andExpect(jsonPath("$.length()").value(5));
+        double hits = hits("transactions.recentByAccount");
+
+        mvc.perform(get("/accounts/{account}/transactions/recent", account).param("limit", "2"))
+                .andExpect(jsonPath("$.length()").value(2));
+        assertThat(hits("transactions.recentByAccount")).isGreaterThan(hits);
+    }
+
+    private void describeBehindTheCache(long id, String description) {
+        new JdbcTemplate(database()).update("update transactions set description = ? where id = ?", description, id);
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+}
@@ -0,0 +1,139 @@
+package com.lihle.ledger.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ACCOUNT LANES: one writer per account, arrival order, inline nesting, a bounded
+ * queue and exceptions that reach the caller unchanged.
+ */
+class AccountLaneExecutorTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(16);
+    private AccountLaneExecutor lanes;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        callers.shutdownNow();
+        if (lanes != null) {
+            lanes.stop();
+        }
+    }
+
+    @Test
+    void tasksOfOneAccountRunOneAtATime() throws Exception {
+        lanes = lanes(true, 4, 1_000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> lanes.execute("ACC-1", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                return 1;
+            }), callers));
+        }
+
+        assertThat(calls.stream().mapToInt(CompletableFuture::join).sum()).isEqualTo(200);
+        assertThat(overlaps).hasValue(0);
+    }
+
+    @Test
+    void tasksOfOneCallerRunInArrivalOrder() {
+        lanes = lanes(true, 2, 1_000);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            int task = i;
+            lanes.execute("ACC-1", () -> order.add(task));
+        }
+        assertThat(order).isSorted().hasSize(50);
+    }
+
+    @Test
+    void nestedCallsOnTheSameLaneRunInline() {
+        lanes = lanes(true, 1, 1);
+        String inner = lanes.execute("ACC-1", () -> lanes.execute("ACC-2", () -> Thread.currentThread().getName()));
+        assertThat(inner).isEqualTo("ledger-lane-0");
+    }
+
+    @Test
+    void aFullLaneRejects() throws Exception {
+        lanes = lanes(true, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> busy = CompletableFuture.supplyAsync(() -> lanes.execute("ACC-1", () -> {
+            started.countDown();
+            return await(release);
+        }), callers);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> lanes.execute("ACC-1", () -> true), callers);
+        while (laneQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> lanes.execute("ACC-1", () -> true)).isInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(busy.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void exceptionsReachTheCallerUnchanged() {
+        lanes = lanes(true, 2, 10);
+        IllegalStateException failure = new IllegalStateException("Can only complete pending or disputed transactions");
+        assertThatThrownBy(() -> lanes.execute("ACC-1", () -> {
+            throw failure;
+        })).isSameAs(failure);
+    }
+
+    @Test
+    void disabledLanesRunOnTheCallingThread() {
+        lanes = lanes(false, 0, 10);
+        assertThat(lanes.execute("ACC-1", () -> Thread.currentThread())).isSameAs(Thread.currentThread());
+    }
+
+    private double laneQueueDepth() {
+        SimpleMeterRegistry registry = (SimpleMeterRegistry) ReflectionTestUtils.getField(lanes, "meterRegistry");
+        return registry.get("ledger.lanes.queue.depth").tag("lane", "0").gauge().value();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static AccountLaneExecutor lanes(boolean enabled, int count, int queueCapacity) {
+        AccountLaneExecutor lanes = new AccountLaneExecutor();
+        ReflectionTestUtils.setField(lanes, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(lanes, "enabled", enabled);
+        ReflectionTestUtils.setField(lanes, "laneCount", count);
+        ReflectionTestUtils.setField(lanes, "queueCapacity", queueCapacity);
+        lanes.start();
+        return lanes;
+    }
+}
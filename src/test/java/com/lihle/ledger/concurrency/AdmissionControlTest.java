@@ -0,0 +1,121 @@
+package com.lihle.ledger.concurrency;
+
+import com.lihle.ledger.concurrency.PriorityLimiter.Admission;
+import com.lihle.ledger.concurrency.PriorityLimiter.Priority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ADMISSION CONTROL: request classes, the shares of the limit each class may use,
+ * and the per-client token bucket.
+ */
+class AdmissionControlTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Batch creates and bulk transitions are slow by nature: their latency must not shrink the limit
+    @ParameterizedTest
+    @CsvSource({
+            "POST, /transactions, WRITE",
+            "PATCH, /transactions/7/status, WRITE",
+            "POST, /transactions/async, WRITE",
+            "GET, /transactions/7, READ",
+            "GET, /transactions/page, READ",
+            "HEAD, /accounts/A-1/balance, READ",
+            "GET, /transactions, BULK",
+            "GET, /transactions/stream, BULK",
+            "POST, /transactions/batch, BULK",
+            "POST, /transactions/status/bulk, BULK",
+            "GET, /accounts/A-1/statement, BULK",
+            "POST, /exports, BULK",
+            "POST, /accounts/balances/rebuild, BULK",
+            "GET, /reports/aggregates, BULK",
+            "POST, /shards/rebalance, BULK",
+            "POST, /partitions/maintenance, BULK"
+    })
+    void classifiesRoutes(String method, String path, Priority expected) {
+        assertThat(AdmissionControlFilter.classify(new MockHttpServletRequest(method, path))).isEqualTo(expected);
+    }
+
+    @Test
+    void eachClassStaysWithinItsShare() throws InterruptedException {
+        PriorityLimiter limiter = limiter(8, 0);
+
+        assertThat(limiter.acquire(Priority.BULK)).isEqualTo(Admission.IMMEDIATE);
+        assertThat(limiter.acquire(Priority.BULK)).isEqualTo(Admission.IMMEDIATE);
+        assertThat(limiter.acquire(Priority.BULK)).isEqualTo(Admission.REJECTED);
+        for (int i = 0; i < 2; i++) {
+            assertThat(limiter.acquire(Priority.READ)).isEqualTo(Admission.IMMEDIATE);
+        }
+        assertThat(limiter.acquire(Priority.READ)).isEqualTo(Admission.REJECTED);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.acquire(Priority.WRITE)).isEqualTo(Admission.IMMEDIATE);
+        }
+        assertThat(limiter.acquire(Priority.WRITE)).isEqualTo(Admission.REJECTED);
+        assertThat(limiter.inflight()).isEqualTo(8);
+
+        limiter.release(-1, 8);
+        assertThat(limiter.acquire(Priority.BULK)).isEqualTo(Admission.REJECTED);
+        assertThat(limiter.acquire(Priority.WRITE)).isEqualTo(Admission.IMMEDIATE);
+    }
+
+    @Test
+    void aFreedSlotGoesToTheWaitingWriteFirst() throws Exception {
+        PriorityLimiter limiter = limiter(4, SECOND * 5);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.acquire(Priority.WRITE)).isEqualTo(Admission.IMMEDIATE);
+        }
+
+        CompletableFuture<Admission> write = CompletableFuture.supplyAsync(() -> acquire(limiter, Priority.WRITE));
+        while (limiter.waiting() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(limiter.acquire(Priority.READ)).isEqualTo(Admission.REJECTED);
+        limiter.release(-1, 4);
+
+        assertThat(write.get(5, TimeUnit.SECONDS)).isEqualTo(Admission.AFTER_WAIT);
+        assertThat(limiter.inflight()).isEqualTo(4);
+    }
+
+    @Test
+    void tokenBucketAllowsABurstThenTheRate() {
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(2, 3, now);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryTake(now)).isZero();
+        }
+        assertThat(bucket.tryTake(now)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryTake(now + SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(bucket.tryTake(now + SECOND / 2)).isZero();
+
+        // Idle time refills up to the burst, not beyond
+        long later = now + SECOND * 60;
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryTake(later)).isZero();
+        }
+        assertThat(bucket.tryTake(later)).isPositive();
+    }
+
+    // Writes may use the whole limit, reads half of it, bulk a quarter
+    private static PriorityLimiter limiter(int limit, long maxWaitNanos) {
+        return new PriorityLimiter(new GradientLimit(limit, 1, limit), new double[]{1.0, 0.5, 0.25},
+                new long[]{maxWaitNanos, 0, 0}, 10);
+    }
+
+    private static Admission acquire(PriorityLimiter limiter, Priority priority) {
+        try {
+            return limiter.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Admission.REJECTED;
+        }
+    }
+}
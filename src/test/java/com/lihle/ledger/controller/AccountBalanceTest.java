@@ -0,0 +1,80 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /accounts/{accountNumber}/balance from the balance projection, and its rebuild.
+ */
+class AccountBalanceTest extends LedgerApiTest {
+
+    @Test
+    void balanceFollowsPostingsAndReversals() throws Exception {
+        String account = newAccount();
+        long credit = create(account, "100.00", "CREDIT");
+        long debit = create(account, "30.50", "DEBIT");
+
+        JsonNode balance = balance(account);
+        assertThat(balance.get("balance").decimalValue()).isEqualByComparingTo("69.50");
+        assertThat(balance.get("lastTransactionId").asLong()).isEqualTo(debit);
+
+        changeStatus(credit, "DISPUTED").andExpect(status().isOk());
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("69.50");
+        changeStatus(credit, "REVERSED").andExpect(status().isOk());
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("-30.50");
+    }
+
+    @Test
+    void batchPostingsCountOnce() throws Exception {
+        String account = newAccount();
+        mvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + posting(account, "10.00", "CREDIT") + "," + posting(account, "2.25", "DEBIT") + ","
+                                + posting(account, "0.75", "DEBIT") + "]"))
+                .andExpect(status().isCreated());
+
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("7.00");
+    }
+
+    @Test
+    void accountWithoutPostingsHasNoBalance() throws Exception {
+        mvc.perform(get("/accounts/{account}/balance", newAccount())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void rebuildRecomputesTheProjection() throws Exception {
+        String account = newAccount();
+        create(account, "40.00", "CREDIT");
+        create(account, "15.00", "DEBIT");
+        new JdbcTemplate(database()).update("update account_balances set balance = 999 where account_number = ?", account);
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("999");
+
+        mvc.perform(post("/accounts/balances/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accountsRebuilt").isNumber());
+
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("25.00");
+    }
+
+    // Answered by the shared ApiExceptionHandler
+    @Test
+    void invalidRequestsAreClientErrors() throws Exception {
+        mvc.perform(get("/accounts/{account}/transactions/recent", newAccount()).param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("Limit must be between 1 and")));
+        createTransaction(newAccount(), "-1.00", "CREDIT").andExpect(status().isBadRequest());
+        mvc.perform(get("/reports/aggregates").param("from", "2024-01-02T00:00:00").param("to", "2024-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+}
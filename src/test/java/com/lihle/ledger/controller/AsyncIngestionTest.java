@@ -0,0 +1,103 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import com.lihle.ledger.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Group-commit ingestion: POST /transactions/async and its tracking ids.
+ */
+@TestPropertySource(properties = {
+        "ledger.ingest.async.enabled=true",
+        "ledger.ingest.async.max-wait=20ms"
+})
+class AsyncIngestionTest extends LedgerApiTest {
+
+    @Test
+    void queuedPostingIsCommittedAndTracked() throws Exception {
+        String account = newAccount();
+        JsonNode queued = json(submit(posting(account, "30.00", "CREDIT"), "", null)
+                .andExpect(status().isAccepted())
+                .andReturn());
+        String trackingId = queued.get("trackingId").asText();
+        assertThat(queued.get("status").asText()).isEqualTo("QUEUED");
+
+        JsonNode tracked = awaitCommitted(trackingId);
+        assertThat(tracked.get("transaction").get("accountNumber").asText()).isEqualTo(account);
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void waitReturnsTheCommittedPosting() throws Exception {
+        String account = newAccount();
+        JsonNode created = json(submit(posting(account, "12.00", "DEBIT"), "?wait=true", null)
+                .andExpect(status().isCreated())
+                .andReturn());
+
+        mvc.perform(get("/transactions/{id}", created.get("id").asLong())).andExpect(status().isOk());
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("-12.00");
+    }
+
+    @Test
+    void invalidPostingsNeverReachTheBuffer() throws Exception {
+        submit(posting(newAccount(), "0", "CREDIT"), "", null).andExpect(status().isBadRequest());
+        submit(posting(newAccount(), "1.00", "REFUND"), "", null).andExpect(status().isBadRequest());
+        mvc.perform(get("/transactions/async/{trackingId}", UUID.randomUUID())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void retriedSubmissionGetsTheFirstPosting() throws Exception {
+        String account = newAccount();
+        String key = UUID.randomUUID().toString();
+
+        JsonNode first = json(submit(posting(account, "7.00", "CREDIT"), "?wait=true", key)
+                .andExpect(status().isCreated())
+                .andReturn());
+        JsonNode retry = json(submit(posting(account, "7.00", "CREDIT"), "?wait=true", key)
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andReturn());
+
+        assertThat(retry.get("id").asLong()).isEqualTo(first.get("id").asLong());
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("7.00");
+        submit(posting(account, "8.00", "CREDIT"), "?wait=true", key).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions submit(String body, String query, String idempotencyKey) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        if (idempotencyKey != null) {
+            headers.set(IdempotencyService.KEY_HEADER, idempotencyKey);
+        }
+        return mvc.perform(post("/transactions/async" + query)
+                .headers(headers)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private JsonNode awaitCommitted(String trackingId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            JsonNode tracked = json(mvc.perform(get("/transactions/async/{trackingId}", trackingId))
+                    .andExpect(status().isOk())
+                    .andReturn());
+            if (!"QUEUED".equals(tracked.get("status").asText()) || System.currentTimeMillis() > deadline) {
+                assertThat(tracked.get("status").asText()).isEqualTo("COMMITTED");
+                return tracked;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /transactions/status/bulk by id list and by filter.
+ */
+@TestPropertySource(properties = {
+        "ledger.bulk.chunk-size=3",
+        "ledger.bulk.lock-retries=3",
+        "ledger.bulk.lock-retry-backoff=50ms"
+})
+class BulkStatusTest extends LedgerApiTest {
+
+    @Test
+    void everyListedIdGetsAnOutcome() throws Exception {
+        String account = newAccount();
+        List<Long> ids = postings(account, 5);
+        changeStatus(ids.get(0), "DISPUTED").andExpect(status().isOk());
+        changeStatus(ids.get(0), "REVERSED").andExpect(status().isOk());
+
+        JsonNode result = bulk("{\"ids\":" + List.of(ids.get(0), ids.get(1), ids.get(2), Long.MAX_VALUE)
+                + ",\"targetStatus\":\"DISPUTED\"}");
+
+        assertThat(result.get("updated").asLong()).isEqualTo(2);
+        assertThat(result.get("conflicts").asLong()).isEqualTo(1);
+        assertThat(result.get("notFound").asLong()).isEqualTo(1);
+        assertThat(result.get("outcomes").get(ids.get(0).toString()).asText()).isEqualTo("CONFLICT");
+        assertThat(result.get("outcomes").get(ids.get(1).toString()).asText()).isEqualTo("UPDATED");
+        assertThat(result.get("outcomes").get(String.valueOf(Long.MAX_VALUE)).asText()).isEqualTo("NOT_FOUND");
+    }
+
+    @Test
+    void filterMovesEveryMatchingRowAcrossChunks() throws Exception {
+        String account = newAccount();
+        List<Long> ids = postings(account, 8);
+
+        assertThat(bulk(filter(account, "COMPLETED", "DISPUTED")).get("updated").asLong()).isEqualTo(8);
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("8.00");
+
+        JsonNode reversed = bulk(filter(account, null, "REVERSED"));
+        assertThat(reversed.get("updated").asLong()).isEqualTo(8);
+        assertThat(reversed.get("skipped").asLong()).isZero();
+        assertThat(balance(account).get("balance").decimalValue()).isZero();
+        mvc.perform(get("/transactions/{id}", ids.get(7))).andExpect(jsonPath("$.status").value("REVERSED"));
+
+        // Reversals are final: completing by filter finds nothing to move
+        assertThat(bulk(filter(account, null, "COMPLETED")).get("updated").asLong()).isZero();
+    }
+
+    @Test
+    void rowsLockedThroughoutAreReportedAsSkipped() throws Exception {
+        String account = newAccount();
+        List<Long> ids = postings(account, 4);
+
+        try (Connection other = lock(ids.get(2))) {
+            JsonNode result = bulk(filter(account, "COMPLETED", "DISPUTED"));
+            assertThat(result.get("updated").asLong()).isEqualTo(3);
+            assertThat(result.get("skipped").asLong()).isEqualTo(1);
+            other.rollback();
+        }
+        mvc.perform(get("/transactions/{id}", ids.get(2))).andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void rowsReleasedDuringTheRetriesAreMoved() throws Exception {
+        String account = newAccount();
+        List<Long> ids = postings(account, 4);
+
+        try (Connection other = lock(ids.get(1))) {
+            CompletableFuture<Void> release = CompletableFuture.runAsync(() -> {
+                try {
+                    other.rollback();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }, CompletableFuture.delayedExecutor(60, TimeUnit.MILLISECONDS));
+
+            JsonNode result = bulk(filter(account, "COMPLETED", "DISPUTED"));
+            release.join();
+            assertThat(result.get("updated").asLong()).isEqualTo(4);
+            assertThat(result.get("skipped").asLong()).isZero();
+        }
+    }
+
+    @Test
+    void rejectsAmbiguousAndDisallowedRequests() throws Exception {
+        String account = newAccount();
+        long id = create(account, "1.00", "CREDIT");
+        mvc.perform(post("/transactions/status/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + id + "],\"accountNumber\":\"" + account + "\",\"targetStatus\":\"DISPUTED\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/transactions/status/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(filter(account, "COMPLETED", "REVERSED")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/transactions/status/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content(filter(account, null, "PENDING")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> postings(String account, int count) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(create(account, "1.00", "CREDIT"));
+        }
+        return ids;
+    }
+
+    // Another writer holding a row lock until the returned connection rolls back
+    private static Connection lock(long id) throws Exception {
+        Connection connection = database().getConnection();
+        connection.setAutoCommit(false);
+        try (PreparedStatement select = connection.prepareStatement("select id from transactions where id = ? for update")) {
+            select.setLong(1, id);
+            select.executeQuery().close();
+        }
+        return connection;
+    }
+
+    private JsonNode bulk(String body) throws Exception {
+        return json(mvc.perform(post("/transactions/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn());
+    }
+
+    private static String filter(String account, String currentStatus, String targetStatus) {
+        return "{\"accountNumber\":\"" + account + "\""
+                + (currentStatus == null ? "" : ",\"currentStatus\":\"" + currentStatus + "\"")
+                + ",\"targetStatus\":\"" + targetStatus + "\"}";
+    }
+}
@@ -0,0 +1,139 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /changes (long-poll) and GET /changes/stream (SSE): creates and status
+ * transitions in commit order, filters, cursors and wake-ups on new changes.
+ */
+class ChangeFeedTest extends LedgerApiTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void createsAndTransitionsArriveInOrder() throws Exception {
+        String cursor = head();
+        String account = newAccount();
+        long id = create(account, "25.00", "CREDIT");
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+        changeStatus(id, "REVERSED").andExpect(status().isOk());
+
+        JsonNode page = changes(get("/changes").param("cursor", cursor).param("accountNumber", account));
+        JsonNode changes = page.get("changes");
+        assertThat(changes).hasSize(3);
+        assertThat(changes.get(0).get("changeType").asText()).isEqualTo("CREATED");
+        assertThat(changes.get(0).get("previousStatus").isNull()).isTrue();
+        assertThat(changes.get(0).get("transactionId").asLong()).isEqualTo(id);
+        assertThat(changes.get(1).get("changeType").asText()).isEqualTo("STATUS_CHANGED");
+        assertThat(changes.get(1).get("previousStatus").asText()).isEqualTo("COMPLETED");
+        assertThat(changes.get(2).get("previousStatus").asText()).isEqualTo("DISPUTED");
+        assertThat(changes.get(2).get("status").asText()).isEqualTo("REVERSED");
+
+        // Each change carries the cursor to resume right after it
+        JsonNode resumed = changes(get("/changes").param("cursor", changes.get(1).get("cursor").asText())
+                .param("accountNumber", account));
+        assertThat(resumed.get("changes")).hasSize(1);
+        assertThat(resumed.get("changes").get(0).get("status").asText()).isEqualTo("REVERSED");
+    }
+
+    @Test
+    void statusFilterSelectsTheStateAfterTheChange() throws Exception {
+        String cursor = head();
+        String account = newAccount();
+        create(account, "1.00", "CREDIT");
+        long disputed = create(account, "2.00", "CREDIT");
+        changeStatus(disputed, "DISPUTED").andExpect(status().isOk());
+
+        JsonNode page = changes(get("/changes").param("cursor", cursor)
+                .param("accountNumber", account).param("status", "disputed"));
+        assertThat(page.get("changes")).hasSize(1);
+        assertThat(page.get("changes").get(0).get("transactionId").asLong()).isEqualTo(disputed);
+    }
+
+    @Test
+    void limitPagesThroughTheFeed() throws Exception {
+        String cursor = head();
+        String account = newAccount();
+        for (int i = 0; i < 3; i++) {
+            create(account, "1.00", "DEBIT");
+        }
+
+        JsonNode first = changes(get("/changes").param("cursor", cursor).param("limit", "2"));
+        assertThat(first.get("changes")).hasSize(2);
+        assertThat(first.get("hasMore").asBoolean()).isTrue();
+        JsonNode second = changes(get("/changes").param("cursor", first.get("nextCursor").asText()).param("limit", "2"));
+        assertThat(second.get("changes")).hasSize(1);
+        assertThat(second.get("hasMore").asBoolean()).isFalse();
+    }
+
+    @Test
+    void waitingConsumerIsWokenByTheNextCommit() throws Exception {
+        String cursor = head();
+        String account = newAccount();
+        MvcResult waiting = mvc.perform(get("/changes").param("cursor", cursor)
+                        .param("accountNumber", account).param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Nothing for the account yet: the request is parked, not answered
+        assertThatThrownBy(() -> waiting.getAsyncResult(200)).isInstanceOf(IllegalStateException.class);
+
+        long id = create(account, "9.00", "CREDIT");
+
+        waiting.getAsyncResult(TIMEOUT_MILLIS);
+        JsonNode page = json(mvc.perform(asyncDispatch(waiting)).andExpect(status().isOk()).andReturn());
+        assertThat(page.get("changes")).hasSize(1);
+        assertThat(page.get("changes").get(0).get("transactionId").asLong()).isEqualTo(id);
+    }
+
+    @Test
+    void streamSendsNewChangesAsEvents() throws Exception {
+        String cursor = head();
+        String account = newAccount();
+        MvcResult stream = mvc.perform(get("/changes/stream").param("cursor", cursor).param("accountNumber", account))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        long id = create(account, "3.00", "CREDIT");
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        String events = stream.getResponse().getContentAsString();
+        while (!events.contains("\"status\":\"DISPUTED\"") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            events = stream.getResponse().getContentAsString();
+        }
+        assertThat(events).contains("event:changes", "\"transactionId\":" + id, "\"status\":\"DISPUTED\"");
+    }
+
+    @Test
+    void rejectsOutOfRangeWaitsAndLimits() throws Exception {
+        mvc.perform(get("/changes").param("wait", "31")).andExpect(status().isBadRequest());
+        mvc.perform(get("/changes").param("limit", "0")).andExpect(status().isBadRequest());
+    }
+
+    // Position after every change recorded so far
+    private String head() throws Exception {
+        JsonNode page = changes(get("/changes").param("limit", "1000"));
+        while (page.get("hasMore").asBoolean()) {
+            page = changes(get("/changes").param("cursor", page.get("nextCursor").asText()).param("limit", "1000"));
+        }
+        return page.get("nextCursor").asText();
+    }
+
+    private JsonNode changes(MockHttpServletRequestBuilder poll) throws Exception {
+        MvcResult result = mvc.perform(poll).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult(TIMEOUT_MILLIS);
+        return json(mvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn());
+    }
+}
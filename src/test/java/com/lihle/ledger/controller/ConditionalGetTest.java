@@ -0,0 +1,102 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETags and 304s: the row version for GET /transactions/{id}, the account's change
+ * version for its recent transactions and pages.
+ */
+class ConditionalGetTest extends LedgerApiTest {
+
+    @Test
+    void transactionETagFollowsTheRowVersion() throws Exception {
+        long id = create(newAccount(), "10.00", "CREDIT");
+        String eTag = eTag(get("/transactions/{id}", id));
+        assertThat(eTag).isEqualTo("\"" + id + ".0\"");
+        mvc.perform(get("/transactions/{id}", id)).andExpect(jsonPath("$.version").doesNotExist());
+
+        mvc.perform(get("/transactions/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+        mvc.perform(get("/transactions/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + id + ".1\""))
+                .andExpect(jsonPath("$.status").value("DISPUTED"));
+    }
+
+    @Test
+    void recentTransactionsAnswer304UntilTheAccountChanges() throws Exception {
+        String account = newAccount();
+        long id = create(account, "10.00", "CREDIT");
+        String eTag = eTag(get("/accounts/{account}/transactions/recent", account));
+        assertThat(eTag).startsWith("\"a");
+
+        mvc.perform(get("/accounts/{account}/transactions/recent", account).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // A dispute leaves the balance alone but still changes the account
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+        String disputed = eTag(get("/accounts/{account}/transactions/recent", account)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+        assertThat(disputed).isNotEqualTo(eTag);
+
+        create(account, "5.00", "DEBIT");
+        mvc.perform(get("/accounts/{account}/transactions/recent", account).header(HttpHeaders.IF_NONE_MATCH, disputed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void accountPagesShareTheAccountETag() throws Exception {
+        String account = newAccount();
+        create(account, "1.00", "CREDIT");
+        String eTag = eTag(get("/accounts/{account}/transactions/recent", account));
+
+        mvc.perform(get("/transactions/page").param("accountNumber", account).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/transactions/page").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void balanceRebuildChangesTheAccountETag() throws Exception {
+        String account = newAccount();
+        create(account, "1.00", "CREDIT");
+        String eTag = eTag(get("/accounts/{account}/transactions/recent", account));
+
+        mvc.perform(post("/accounts/balances/rebuild")).andExpect(status().isOk());
+
+        assertThat(eTag(get("/accounts/{account}/transactions/recent", account))).isNotEqualTo(eTag);
+    }
+
+    // Accounts without postings have no version: answered without an ETag
+    @Test
+    void unknownAccountsHaveNoETag() throws Exception {
+        mvc.perform(get("/accounts/{account}/transactions/recent", newAccount()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private String eTag(MockHttpServletRequestBuilder request) throws Exception {
+        String eTag = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+        return eTag;
+    }
+}
@@ -0,0 +1,120 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Idempotency-Key on POST /transactions and /transactions/batch.
+ */
+class IdempotencyTest extends LedgerApiTest {
+
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Test
+    void retriedCreateReplaysTheFirstPosting() throws Exception {
+        String account = newAccount();
+        String key = UUID.randomUUID().toString();
+
+        JsonNode first = json(createWithKey(key, posting(account, "25.00", "CREDIT"))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER))
+                .andReturn());
+        JsonNode retry = json(createWithKey(key, posting(account, "25.00", "CREDIT"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andReturn());
+
+        assertThat(retry.get("id").asLong()).isEqualTo(first.get("id").asLong());
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$.length()").value(1));
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() throws Exception {
+        String account = newAccount();
+        String key = UUID.randomUUID().toString();
+        createWithKey(key, posting(account, "10.00", "DEBIT")).andExpect(status().isCreated());
+
+        createWithKey(key, posting(account, "11.00", "DEBIT")).andExpect(status().isBadRequest());
+
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void blankAndOversizedKeysAreRejected() throws Exception {
+        createWithKey(" ", posting(newAccount(), "1.00", "CREDIT")).andExpect(status().isBadRequest());
+        createWithKey("k".repeat(201), posting(newAccount(), "1.00", "CREDIT")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void retriedBatchReplaysItemByItem() throws Exception {
+        String account = newAccount();
+        String key = UUID.randomUUID().toString();
+        String batch = "[" + posting(account, "1.00", "CREDIT") + "," + posting(account, "2.00", "CREDIT") + ","
+                + posting(account, "3.00", "DEBIT") + "]";
+
+        batchWithKey(key, batch)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(3));
+        batchWithKey(key, batch)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.replayed").value(3));
+
+        assertThat(balance(account).get("balance").decimalValue()).isZero();
+    }
+
+    // The memory tier is per instance: a retry reaching another instance is answered from idempotency_keys
+    @Test
+    void keysClaimedInTheDatabaseReplayWithoutTheMemoryTier() throws Exception {
+        String account = newAccount();
+        String key = UUID.randomUUID().toString();
+        String body = posting(account, "9.00", "CREDIT");
+        long id = create(account, "9.00", "CREDIT");
+        String hash = idempotency.claimFor(key, objectMapper.readValue(body, TransactionDTO.class)).requestHash();
+        new JdbcTemplate(database()).update(
+                "insert into idempotency_keys (idempotency_key, request_hash, transaction_id, created_at) "
+                        + "values (?, ?, ?, now())", key, hash, id);
+
+        JsonNode replay = json(createWithKey(key, body)
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andReturn());
+        assertThat(replay.get("id").asLong()).isEqualTo(id);
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    private ResultActions createWithKey(String key, String body) throws Exception {
+        return mvc.perform(post("/transactions")
+                .header(IdempotencyService.KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private ResultActions batchWithKey(String key, String body) throws Exception {
+        return mvc.perform(post("/transactions/batch")
+                .header(IdempotencyService.KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+}
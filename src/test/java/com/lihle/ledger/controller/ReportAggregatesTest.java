@@ -0,0 +1,157 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /reports/aggregates from the hourly rollups, kept up to date by postings
+ * and status changes, and POST /reports/rollups/rebuild.
+ */
+class ReportAggregatesTest extends LedgerApiTest {
+
+    private static final String FROM = "2024-03-05T00:00:00";
+    private static final String TO = "2024-03-07T00:00:00";
+
+    @Test
+    void bucketsAddUpByHourDayAndTotal() throws Exception {
+        String account = newAccount();
+        postAt(account, "100.00", "CREDIT", "2024-03-05T10:15:00");
+        postAt(account, "50.00", "CREDIT", "2024-03-05T10:45:00");
+        postAt(account, "30.00", "DEBIT", "2024-03-05T14:00:00");
+        postAt(account, "20.00", "CREDIT", "2024-03-06T09:00:00");
+
+        List<JsonNode> hours = buckets(report(account, FROM, TO, "HOUR"));
+        assertThat(hours).hasSize(3);
+        assertBucket(hours, "2024-03-05T10:00:00", "CREDIT", "COMPLETED", 2, "150.00");
+        assertBucket(hours, "2024-03-05T14:00:00", "DEBIT", "COMPLETED", 1, "30.00");
+
+        List<JsonNode> days = buckets(report(account, FROM, TO, "day"));
+        assertBucket(days, "2024-03-05T00:00:00", "CREDIT", "COMPLETED", 2, "150.00");
+        assertBucket(days, "2024-03-06T00:00:00", "CREDIT", "COMPLETED", 1, "20.00");
+
+        List<JsonNode> total = buckets(report(account, FROM, TO, "TOTAL"));
+        assertThat(total).hasSize(2);
+        assertBucket(total, FROM, "CREDIT", "COMPLETED", 3, "170.00");
+        assertBucket(total, FROM, "DEBIT", "COMPLETED", 1, "30.00");
+    }
+
+    @Test
+    void statusChangesMoveTransactionsBetweenBuckets() throws Exception {
+        String account = newAccount();
+        postAt(account, "100.00", "CREDIT", "2024-03-05T10:15:00");
+        long disputed = postAt(account, "40.00", "CREDIT", "2024-03-05T11:15:00");
+
+        changeStatus(disputed, "DISPUTED").andExpect(status().isOk());
+        List<JsonNode> total = buckets(report(account, FROM, TO, "TOTAL"));
+        assertBucket(total, FROM, "CREDIT", "COMPLETED", 1, "100.00");
+        assertBucket(total, FROM, "CREDIT", "DISPUTED", 1, "40.00");
+
+        // Rejecting the dispute moves it back; the emptied bucket is left out
+        changeStatus(disputed, "COMPLETED").andExpect(status().isOk());
+        total = buckets(report(account, FROM, TO, "TOTAL"));
+        assertThat(total).hasSize(1);
+        assertBucket(total, FROM, "CREDIT", "COMPLETED", 2, "140.00");
+    }
+
+    @Test
+    void rangeIsWidenedToWholeHours() throws Exception {
+        String account = newAccount();
+        postAt(account, "5.00", "DEBIT", "2024-03-05T10:05:00");
+        postAt(account, "7.00", "DEBIT", "2024-03-05T12:05:00");
+
+        JsonNode report = report(account, "2024-03-05T10:30:00", "2024-03-05T11:10:00", "TOTAL");
+        assertThat(LocalDateTime.parse(report.get("from").asText())).isEqualTo("2024-03-05T10:00:00");
+        assertThat(LocalDateTime.parse(report.get("to").asText())).isEqualTo("2024-03-05T12:00:00");
+        assertBucket(buckets(report), "2024-03-05T10:00:00", "DEBIT", "COMPLETED", 1, "5.00");
+    }
+
+    @Test
+    void batchPostingsAreRolledUp() throws Exception {
+        String account = newAccount();
+        mvc.perform(post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + postingAt(account, "1.50", "CREDIT", "2024-03-05T08:00:00") + ","
+                                + postingAt(account, "2.50", "CREDIT", "2024-03-05T08:30:00") + "]"))
+                .andExpect(status().isCreated());
+
+        assertBucket(buckets(report(account, FROM, TO, "HOUR")), "2024-03-05T08:00:00", "CREDIT", "COMPLETED", 2, "4.00");
+    }
+
+    @Test
+    void rebuildRecomputesTheRollups() throws Exception {
+        String account = newAccount();
+        postAt(account, "60.00", "CREDIT", "2024-03-05T10:15:00");
+        postAt(account, "15.00", "DEBIT", "2024-03-05T16:15:00");
+        new JdbcTemplate(database()).update(
+                "update transaction_rollups set transaction_count = 9, amount_sum = 999 where account_number = ?", account);
+
+        mvc.perform(post("/reports/rollups/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rollupRows").isNumber());
+
+        List<JsonNode> total = buckets(report(account, FROM, TO, "TOTAL"));
+        assertBucket(total, FROM, "CREDIT", "COMPLETED", 1, "60.00");
+        assertBucket(total, FROM, "DEBIT", "COMPLETED", 1, "15.00");
+    }
+
+    @Test
+    void rejectsUnknownGranularity() throws Exception {
+        mvc.perform(get("/reports/aggregates").param("from", FROM).param("to", TO).param("granularity", "WEEK"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long postAt(String account, String amount, String type, String transactionDate) throws Exception {
+        return json(mvc.perform(post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(postingAt(account, amount, type, transactionDate)))
+                .andExpect(status().isCreated())
+                .andReturn()).get("id").asLong();
+    }
+
+    private static String postingAt(String account, String amount, String type, String transactionDate) {
+        String posting = posting(account, amount, type);
+        return posting.substring(0, posting.length() - 1) + ",\"transactionDate\":\"" + transactionDate + "\"}";
+    }
+
+    private JsonNode report(String account, String from, String to, String granularity) throws Exception {
+        return json(mvc.perform(get("/reports/aggregates")
+                        .param("accountNumber", account)
+                        .param("from", from)
+                        .param("to", to)
+                        .param("granularity", granularity))
+                .andExpect(status().isOk())
+                .andReturn());
+    }
+
+    private static List<JsonNode> buckets(JsonNode report) {
+        List<JsonNode> buckets = new ArrayList<>();
+        report.get("buckets").forEach(buckets::add);
+        return buckets;
+    }
+
+    private static void assertBucket(List<JsonNode> buckets, String bucketStart, String type, String status,
+                                     long count, String amount) {
+        JsonNode bucket = buckets.stream()
+                .filter(b -> LocalDateTime.parse(b.get("bucketStart").asText()).equals(LocalDateTime.parse(bucketStart))
+                        && type.equals(b.get("transactionType").asText())
+                        && status.equals(b.get("status").asText()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + type + "/" + status + " bucket at " + bucketStart + " in " + buckets));
+        assertThat(bucket.get("count").asLong()).isEqualTo(count);
+        assertThat(bucket.get("amount").decimalValue()).isEqualByComparingTo(new BigDecimal(amount));
+    }
+}
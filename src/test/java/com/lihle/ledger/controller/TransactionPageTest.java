@@ -0,0 +1,79 @@
+package com.lihle.ledger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset pages (GET /transactions/page) and the NDJSON stream (GET /transactions/stream).
+ */
+class TransactionPageTest extends LedgerApiTest {
+
+    @Test
+    void pagesWalkAnAccountOnceInOrder() throws Exception {
+        String account = newAccount();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(create(account, i + 1 + ".00", "CREDIT"));
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/transactions/page")
+                    .param("accountNumber", account)
+                    .param("limit", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = json(mvc.perform(request).andExpect(status().isOk()).andReturn());
+            page.get("items").forEach(item -> seen.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).isEqualTo(created);
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsBadPageRequests() throws Exception {
+        mvc.perform(get("/transactions/page").param("limit", "0")).andExpect(status().isBadRequest());
+        mvc.perform(get("/transactions/page").param("cursor", "garbage")).andExpect(status().isBadRequest());
+        mvc.perform(get("/transactions/page").param("accountNumber", "A").param("status", "COMPLETED"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsOneTransactionPerLine() throws Exception {
+        String account = newAccount();
+        long first = create(account, "1.00", "CREDIT");
+        long second = create(account, "2.00", "DEBIT");
+
+        MvcResult result = mvc.perform(get("/transactions/stream").param("accountNumber", account)).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        String[] lines = result.getResponse().getContentAsString().strip().split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("id").asLong()).isEqualTo(first);
+        assertThat(objectMapper.readTree(lines[1]).get("id").asLong()).isEqualTo(second);
+    }
+
+    // Checked before the body starts, so it is still a 400
+    @Test
+    void streamRejectsBothFilters() throws Exception {
+        mvc.perform(get("/transactions/stream").param("accountNumber", "A").param("status", "COMPLETED"))
+                .andExpect(status().isBadRequest());
+    }
+}
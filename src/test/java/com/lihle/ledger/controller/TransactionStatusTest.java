@@ -0,0 +1,83 @@
+package com.lihle.ledger.controller;
+
+import com.lihle.ledger.LedgerApiTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PATCH /transactions/{id}/status: the state rules and the If-Match version check,
+ * both enforced by the single conditional UPDATE.
+ */
+class TransactionStatusTest extends LedgerApiTest {
+
+    @Test
+    void statusChangesFollowTheStateRules() throws Exception {
+        String account = newAccount();
+        long id = create(account, "40.00", "CREDIT");
+
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+        changeStatus(id, "REVERSED").andExpect(status().isOk());
+        assertThat(balance(account).get("balance").decimalValue()).isZero();
+
+        changeStatus(id, "DISPUTED").andExpect(status().isConflict());
+        changeStatus(id, "COMPLETED").andExpect(status().isConflict());
+        assertThat(balance(account).get("balance").decimalValue()).isZero();
+        changeStatus(id, "PENDING").andExpect(status().isBadRequest());
+        changeStatus(id, "SETTLED").andExpect(status().isBadRequest());
+        changeStatus(Long.MAX_VALUE, "DISPUTED").andExpect(status().isNotFound());
+    }
+
+    // A rejected dispute completes the transaction again; completing it twice is not a change
+    @Test
+    void rejectedDisputeCompletesOnce() throws Exception {
+        String account = newAccount();
+        long id = create(account, "15.00", "DEBIT");
+
+        changeStatus(id, "COMPLETED").andExpect(status().isConflict());
+        changeStatus(id, "DISPUTED").andExpect(status().isOk());
+        changeStatus(id, "COMPLETED").andExpect(status().isOk());
+        changeStatus(id, "COMPLETED").andExpect(status().isConflict());
+        assertThat(balance(account).get("balance").decimalValue()).isEqualByComparingTo("-15.00");
+    }
+
+    @Test
+    void staleIfMatchLosesToAConcurrentChange() throws Exception {
+        long id = create(newAccount(), "5.00", "DEBIT");
+        String eTag = mvc.perform(get("/transactions/{id}", id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(patch("/transactions/{id}/status", id).param("status", "DISPUTED")
+                        .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isOk());
+        mvc.perform(patch("/transactions/{id}/status", id).param("status", "REVERSED")
+                        .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isPreconditionFailed());
+
+        String current = mvc.perform(get("/transactions/{id}", id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(current).isNotEqualTo(eTag);
+        mvc.perform(patch("/transactions/{id}/status", id).param("status", "REVERSED")
+                        .header(HttpHeaders.IF_MATCH, current))
+                .andExpect(status().isOk());
+    }
+
+    // An ETag of another transaction never matches
+    @Test
+    void ifMatchOfAnotherTransactionFails() throws Exception {
+        long first = create(newAccount(), "5.00", "DEBIT");
+        long second = create(newAccount(), "5.00", "DEBIT");
+
+        mvc.perform(patch("/transactions/{id}/status", second).param("status", "DISPUTED")
+                        .header(HttpHeaders.IF_MATCH, "\"" + first + ".0\""))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(patch("/transactions/{id}/status", second).param("status", "DISPUTED")
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isOk());
+    }
+}
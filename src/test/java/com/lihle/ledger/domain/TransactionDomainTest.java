@@ -0,0 +1,106 @@
+package com.lihle.ledger.domain;
+
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.domain.TransactionDomain.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * STATE RULES: the transition table and the behavior methods built on it.
+ */
+class TransactionDomainTest {
+
+    @Test
+    void allowedSourcesFollowTheTransitionTable() {
+        assertThat(TransactionDomain.allowedSourcesFor(TransactionStatus.DISPUTED))
+                .containsExactlyInAnyOrder(TransactionStatus.PENDING, TransactionStatus.COMPLETED, TransactionStatus.DISPUTED);
+        assertThat(TransactionDomain.allowedSourcesFor(TransactionStatus.REVERSED))
+                .containsExactly(TransactionStatus.DISPUTED);
+        assertThat(TransactionDomain.allowedSourcesFor(TransactionStatus.COMPLETED))
+                .containsExactlyInAnyOrder(TransactionStatus.PENDING, TransactionStatus.DISPUTED);
+        assertThat(TransactionDomain.allowedSourcesFor(TransactionStatus.PENDING)).isEmpty();
+    }
+
+    @Test
+    void allowedSourcesCannotBeModified() {
+        assertThatThrownBy(() -> TransactionDomain.allowedSourcesFor(TransactionStatus.REVERSED)
+                .add(TransactionStatus.COMPLETED))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    // Every (current, target) pair: transitionTo succeeds exactly when the table allows it
+    @ParameterizedTest
+    @EnumSource(TransactionStatus.class)
+    void transitionToAgreesWithTheTable(TransactionStatus current) {
+        for (TransactionStatus target : EnumSet.of(TransactionStatus.DISPUTED, TransactionStatus.REVERSED,
+                TransactionStatus.COMPLETED)) {
+            TransactionDomain transaction = transaction(current);
+            if (TransactionDomain.allowedSourcesFor(target).contains(current)) {
+                assertThat(transaction.canTransitionTo(target)).isTrue();
+                TransactionDomain moved = transaction.transitionTo(target);
+                assertThat(moved.getStatus()).isEqualTo(target);
+                assertThat(moved.getId()).isEqualTo(transaction.getId());
+                assertThat(transaction.getStatus()).isEqualTo(current);
+            } else {
+                assertThat(transaction.canTransitionTo(target)).isFalse();
+                assertThatThrownBy(() -> transaction.transitionTo(target)).isInstanceOf(IllegalStateException.class);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransactionStatus.class)
+    void nothingMovesBackToPending(TransactionStatus current) {
+        assertThatThrownBy(() -> transaction(current).transitionTo(TransactionStatus.PENDING))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reversedTransactionsLeaveTheBalance() {
+        TransactionDomain debit = TransactionDomain.builder()
+                .accountNumber("ACC-1").amount(new BigDecimal("12.50")).transactionType(TransactionType.DEBIT)
+                .status(TransactionStatus.DISPUTED).build();
+        assertThat(debit.signedAmount()).isEqualByComparingTo("-12.50");
+        assertThat(debit.affectsBalance()).isTrue();
+        assertThat(debit.reverse().affectsBalance()).isFalse();
+    }
+
+    @Test
+    void builderDefaultsToCompleted() {
+        TransactionDomain transaction = TransactionDomain.builder()
+                .accountNumber("ACC-1").amount(BigDecimal.ONE).transactionType(TransactionType.CREDIT).build();
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(transaction.getTransactionDate()).isNotNull();
+        assertThat(transaction.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void invalidTransactionsAreRejected() {
+        assertThatThrownBy(() -> TransactionDomain.builder()
+                .accountNumber(" ").amount(BigDecimal.ONE).transactionType(TransactionType.CREDIT).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionDomain.builder()
+                .accountNumber("ACC-1").amount(BigDecimal.ZERO).transactionType(TransactionType.CREDIT).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionDomain.builder()
+                .accountNumber("ACC-1").amount(BigDecimal.ONE).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TransactionDomain transaction(TransactionStatus status) {
+        return TransactionDomain.builder()
+                .id(7L)
+                .accountNumber("ACC-1")
+                .amount(new BigDecimal("10.00"))
+                .transactionType(TransactionType.CREDIT)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.lihle.ledger.export;
+
+import com.lihle.ledger.dto.TransactionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ColumnarStatementWriter / ColumnarStatementReader round trips.
+ */
+class ColumnarStatementTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_456_000);
+
+    @Test
+    void roundTripsRowsAcrossRowGroups() throws IOException {
+        List<TransactionDTO> rows = rows(ColumnarStatementWriter.ROW_GROUP_SIZE * 2 + 17);
+        assertThat(read(write(rows))).isEqualTo(rows);
+    }
+
+    // Nulls, non-ASCII text, dates before the epoch and out of order, created before the transaction date
+    @Test
+    void roundTripsEdgeValues() throws IOException {
+        List<TransactionDTO> rows = List.of(
+                row(5, "ACC-É", "0.01", "DEBIT", null, START, "PENDING", null),
+                row(3, "ACC-É", "999999999.99", "CREDIT", "Café – 東京", START.minusDays(3), "DISPUTED", START),
+                row(900_000_000_000L, "", "12.00", "DEBIT", "", LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000),
+                        "REVERSED", LocalDateTime.of(1970, 1, 1, 0, 0)),
+                row(1, "ACC-2", "-7.25", "CREDIT", "x".repeat(255), START.plusYears(30), "COMPLETED", START.minusYears(1)));
+        assertThat(read(write(rows))).isEqualTo(rows);
+    }
+
+    @Test
+    void writesAnEmptyStatement() throws IOException {
+        assertThat(read(write(List.of()))).isEmpty();
+    }
+
+    @Test
+    void detectsACorruptRowGroup() throws IOException {
+        byte[] file = write(rows(100));
+        file[file.length - 10] ^= 0x01;
+
+        try (ColumnarStatementReader reader = new ColumnarStatementReader(new ByteArrayInputStream(file))) {
+            assertThatThrownBy(reader::hasNext)
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("checksum");
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThatThrownBy(() -> new ColumnarStatementReader(new ByteArrayInputStream("id,amount\n".getBytes())))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not a columnar statement");
+    }
+
+    @Test
+    void rejectsUnknownStatuses() throws IOException {
+        ColumnarStatementWriter writer = new ColumnarStatementWriter(new ByteArrayOutputStream());
+        assertThatThrownBy(() -> writer.write(row(1, "ACC-1", "1.00", "CREDIT", null, START, "SETTLED", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] write(List<TransactionDTO> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarStatementWriter writer = new ColumnarStatementWriter(out);
+        for (TransactionDTO row : rows) {
+            writer.write(row);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    private static List<TransactionDTO> read(byte[] file) throws IOException {
+        List<TransactionDTO> rows = new ArrayList<>();
+        try (ColumnarStatementReader reader = new ColumnarStatementReader(new ByteArrayInputStream(file))) {
+            reader.forEachRemaining(rows::add);
+        }
+        return rows;
+    }
+
+    // Runs of a few rows per account, the shape of an account-ordered export
+    private static List<TransactionDTO> rows(int count) {
+        List<TransactionDTO> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime date = START.plusSeconds(i * 37L).plusNanos(i * 1_000L).truncatedTo(ChronoUnit.MICROS);
+            rows.add(row(1000 + i * 3L, "ACC-" + i / 5,
+                    BigDecimal.valueOf(100 + i * 13L, 2).toPlainString(),
+                    i % 3 == 0 ? "DEBIT" : "CREDIT",
+                    i % 7 == 0 ? null : "Payment " + i,
+                    date,
+                    i % 11 == 0 ? "DISPUTED" : "COMPLETED",
+                    i % 13 == 0 ? null : date.plusNanos(250_000)));
+        }
+        return rows;
+    }
+
+    private static TransactionDTO row(long id, String account, String amount, String type, String description,
+                                      LocalDateTime date, String status, LocalDateTime createdAt) {
+        return new TransactionDTO(id, account, new BigDecimal(amount), type, description, date, status, createdAt, null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.lihle.ledger.journal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lihle.ledger.service.IdempotencyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The posting API on the journal backend (profile "journal"): same controller and
+ * service as on jpa, without the features that keep their state in PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("journal")
+@AutoConfigureMockMvc
+class JournalBackendApiTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void journal(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("ledger-journal").toString();
+        registry.add("ledger.journal.directory", () -> directory);
+        registry.add("ledger.journal.segment-size", () -> "1MB");
+        registry.add("ledger.journal.force-on-write", () -> "false");
+    }
+
+    @Test
+    void balanceIsComputedFromTheAccountsRows() throws Exception {
+        String account = newAccount();
+        long credit = create(account, "100.00", "CREDIT");
+        long debit = create(account, "40.00", "DEBIT");
+
+        JsonNode balance = json(mvc.perform(get("/accounts/{account}/balance", account))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andReturn());
+        assertThat(balance.get("balance").decimalValue()).isEqualByComparingTo("60.00");
+        assertThat(balance.get("lastTransactionId").asLong()).isEqualTo(debit);
+
+        mvc.perform(patch("/transactions/{id}/status", credit).param("status", "DISPUTED")).andExpect(status().isOk());
+        mvc.perform(patch("/transactions/{id}/status", credit).param("status", "REVERSED")).andExpect(status().isOk());
+        mvc.perform(get("/accounts/{account}/balance", account))
+                .andExpect(jsonPath("$.balance").value(-40.00));
+        mvc.perform(get("/accounts/{account}/balance", newAccount())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void listsByStatusAndRecent() throws Exception {
+        String account = newAccount();
+        long id = create(account, "5.00", "CREDIT");
+        mvc.perform(patch("/transactions/{id}/status", id).param("status", "DISPUTED")).andExpect(status().isOk());
+
+        JsonNode disputed = json(mvc.perform(get("/transactions").param("status", "disputed"))
+                .andExpect(status().isOk())
+                .andReturn());
+        assertThat(disputed.findValuesAsText("id")).contains(String.valueOf(id));
+        mvc.perform(get("/accounts/{account}/transactions/recent", account))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id));
+    }
+
+    @Test
+    void jpaOnlyFeaturesAreRefused() throws Exception {
+        String account = newAccount();
+        mvc.perform(post("/transactions")
+                        .header(IdempotencyService.KEY_HEADER, UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(posting(account, "1.00", "CREDIT")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/transactions/status/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"accountNumber\":\"" + account + "\",\"targetStatus\":\"DISPUTED\"}"))
+                .andExpect(status().isNotFound());
+        mvc.perform(post("/accounts/balances/rebuild")).andExpect(status().isNotFound());
+    }
+
+    private long create(String account, String amount, String type) throws Exception {
+        return json(mvc.perform(post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(posting(account, amount, type)))
+                .andExpect(status().isCreated())
+                .andReturn()).get("id").asLong();
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static String posting(String account, String amount, String type) {
+        return "{\"accountNumber\":\"" + account + "\",\"amount\":" + amount
+                + ",\"transactionType\":\"" + type + "\",\"description\":\"Test posting\"}";
+    }
+
+    // Journal records hold account numbers of up to 32 bytes
+    private static String newAccount() {
+        return "J-" + UUID.randomUUID().toString().substring(0, 18);
+    }
+}
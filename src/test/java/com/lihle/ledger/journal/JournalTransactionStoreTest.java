@@ -0,0 +1,149 @@
+package com.lihle.ledger.journal;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.domain.TransactionDomain.TransactionType;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JOURNAL REPLAY: a reopened journal rebuilds the same rows, statuses, versions
+ * and indexes from its segment files.
+ */
+class JournalTransactionStoreTest {
+
+    // Small segments, so a few dozen records span several of them
+    private static final int SLOTS = 8;
+    private static final long SEGMENT_SIZE = JournalSegment.HEADER_SIZE + (long) SLOTS * JournalRecord.RECORD_SIZE;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRestoresRowsStatusesAndVersions() throws IOException {
+        List<TransactionDTO> all;
+        List<TransactionDTO> reversed;
+        List<TransactionDTO> page;
+        List<TransactionDTO> recent;
+        try (JournalTransactionStore store = open()) {
+            for (int batch = 0; batch < 3; batch++) {
+                store.saveAll(transactions(batch * 10, 10));
+            }
+            for (long id = 1; id <= 30; id += 4) {
+                assertThat(transition(store, id, TransactionStatus.DISPUTED, null)).isPresent();
+            }
+            for (long id = 1; id <= 30; id += 8) {
+                assertThat(transition(store, id, TransactionStatus.REVERSED, 1L)).isPresent();
+            }
+            all = store.findAll();
+            reversed = store.findByStatus("REVERSED");
+            page = store.findPage("ACC-1", null, START.plusMinutes(4), 5L, 3);
+            recent = store.findRecentByAccountNumber("ACC-2", 4);
+        }
+        assertThat(all).hasSize(30);
+        assertThat(reversed).extracting(TransactionDTO::getVersion).containsOnly(2L);
+        assertThat(segmentFiles()).hasSizeGreaterThan(3);
+
+        try (JournalTransactionStore store = open()) {
+            assertThat(store.findAll()).isEqualTo(all);
+            assertThat(store.findByStatus("REVERSED")).isEqualTo(reversed);
+            assertThat(store.findPage("ACC-1", null, START.plusMinutes(4), 5L, 3)).isEqualTo(page);
+            assertThat(store.findRecentByAccountNumber("ACC-2", 4)).isEqualTo(recent);
+
+            // Versions survived: a stale one still loses, the current one wins
+            assertThat(transition(store, 5L, TransactionStatus.COMPLETED, 0L)).isEmpty();
+            assertThat(transition(store, 5L, TransactionStatus.COMPLETED, 1L))
+                    .map(StatusTransitionRow::getVersion).contains(2L);
+            assertThat(transition(store, 1L, TransactionStatus.COMPLETED, 2L)).isEmpty();
+
+            // Ids continue after the replayed ones
+            assertThat(store.saveAll(transactions(30, 1))).extracting(TransactionDTO::getId).containsExactly(31L);
+        }
+    }
+
+    @Test
+    void replayDiscardsATornLastRecord() throws IOException {
+        try (JournalTransactionStore store = open()) {
+            store.saveAll(transactions(0, 5));
+        }
+        Path last = segmentFiles().get(segmentFiles().size() - 1);
+        flipByte(last, JournalSegment.HEADER_SIZE + 4 * JournalRecord.RECORD_SIZE + 100);
+
+        try (JournalTransactionStore store = open()) {
+            assertThat(store.findAll()).extracting(TransactionDTO::getId).containsExactly(1L, 2L, 3L, 4L);
+            assertThat(store.findById(5L)).isEmpty();
+            assertThat(store.saveAll(transactions(4, 1))).extracting(TransactionDTO::getId).containsExactly(5L);
+        }
+        try (JournalTransactionStore store = open()) {
+            assertThat(store.findById(5L)).map(TransactionDTO::getDescription).contains("Posting 4");
+        }
+    }
+
+    // Only the end of the journal may be torn: damage before it is not silently skipped
+    @Test
+    void replayRefusesACorruptEarlierSegment() throws IOException {
+        try (JournalTransactionStore store = open()) {
+            store.saveAll(transactions(0, SLOTS + 2));
+        }
+        flipByte(segmentFiles().get(0), JournalSegment.HEADER_SIZE + 100);
+
+        assertThatThrownBy(this::open).isInstanceOf(IllegalStateException.class);
+    }
+
+    private JournalTransactionStore open() throws IOException {
+        return new JournalTransactionStore(directory, SEGMENT_SIZE, true);
+    }
+
+    private static Optional<StatusTransitionRow> transition(JournalTransactionStore store, long id,
+                                                            TransactionStatus target, Long expectedVersion) {
+        List<String> sources = TransactionDomain.allowedSourcesFor(target).stream().map(Enum::name).toList();
+        return store.transitionStatus(id, target.name(), sources, expectedVersion);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static void flipByte(Path file, long position) throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(position);
+            int value = raw.read();
+            raw.seek(position);
+            raw.write(value ^ 0x01);
+        }
+    }
+
+    // Three accounts, one posting a minute
+    private static List<TransactionDomain> transactions(int from, int count) {
+        List<TransactionDomain> transactions = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            transactions.add(TransactionDomain.builder()
+                    .accountNumber("ACC-" + i % 3)
+                    .amount(BigDecimal.valueOf(1000 + i, 2))
+                    .transactionType(i % 2 == 0 ? TransactionType.CREDIT : TransactionType.DEBIT)
+                    .description("Posting " + i)
+                    .transactionDate(START.plusMinutes(i))
+                    .build());
+        }
+        return transactions;
+    }
+}
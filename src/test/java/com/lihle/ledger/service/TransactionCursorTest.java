@@ -0,0 +1,51 @@
+package com.lihle.ledger.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionCursorTest {
+
+    @Test
+    void roundTripsThroughTheEncodedForm() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789), 42L);
+        String encoded = cursor.encode();
+
+        assertThat(encoded).doesNotContain("|", "=", "+", "/");
+        assertThat(TransactionCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    // LocalDateTime.toString drops zero seconds and nanos; decode must still read it
+    @Test
+    void roundTripsWholeMinutes() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 1, 1, 0, 0), Long.MAX_VALUE);
+        assertThat(TransactionCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not base64!", "bm8tc2VwYXJhdG9y"})
+    void rejectsMalformedCursors(String cursor) {
+        assertThatThrownBy(() -> TransactionCursor.decode(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid cursor");
+    }
+
+    @Test
+    void rejectsCursorsWithABadDateOrId() {
+        assertThatThrownBy(() -> TransactionCursor.decode(encode("yesterday|1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionCursor.decode(encode("2024-01-01T00:00|one")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
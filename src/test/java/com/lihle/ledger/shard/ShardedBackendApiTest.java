@@ -0,0 +1,151 @@
+package com.lihle.ledger.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The posting API on the sharded backend (profile "sharded") over three databases
+ * of one embedded PostgreSQL: the same controller and service as on jpa, with
+ * account reads on one shard and the other reads merged across all of them.
+ */
+@SpringBootTest
+@ActiveProfiles("sharded")
+@AutoConfigureMockMvc
+class ShardedBackendApiTest {
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) {
+        JdbcTemplate admin = new JdbcTemplate(POSTGRES.getPostgresDatabase());
+        String urls = IntStream.range(0, 3).mapToObj(shard -> {
+            String database = "shard_" + shard + "_" + UUID.randomUUID().toString().replace("-", "");
+            admin.execute("create database " + database);
+            return POSTGRES.getJdbcUrl("postgres", database);
+        }).collect(Collectors.joining(","));
+        registry.add("ledger.sharding.urls", () -> urls);
+        registry.add("ledger.sharding.username", () -> "postgres");
+        registry.add("ledger.sharding.password", () -> "");
+        registry.add("ledger.sharding.pool-size", () -> "4");
+    }
+
+    @Test
+    void accountsSpreadOverTheShardsAndReadBackWhole() throws Exception {
+        List<String> accounts = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String account = newAccount();
+            accounts.add(account);
+            ids.add(create(account, "10.00", "CREDIT"));
+            create(account, "4.00", "DEBIT");
+        }
+
+        JsonNode shards = json(mvc.perform(get("/shards")).andExpect(status().isOk()).andReturn());
+        assertThat(shards.size()).isEqualTo(3);
+        shards.forEach(count -> assertThat(count.asLong()).isPositive());
+
+        for (int i = 0; i < accounts.size(); i++) {
+            mvc.perform(get("/transactions/{id}", ids.get(i)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.accountNumber").value(accounts.get(i)));
+            mvc.perform(get("/accounts/{account}/balance", accounts.get(i)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance").value(6.00));
+        }
+    }
+
+    @Test
+    void crossShardListsMergeEveryShard() throws Exception {
+        List<Long> disputed = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            long id = create(newAccount(), "2.00", "CREDIT");
+            mvc.perform(patch("/transactions/{id}/status", id).param("status", "DISPUTED")).andExpect(status().isOk());
+            disputed.add(id);
+        }
+
+        JsonNode listed = json(mvc.perform(get("/transactions").param("status", "DISPUTED"))
+                .andExpect(status().isOk())
+                .andReturn());
+        List<Long> listedIds = new ArrayList<>();
+        listed.forEach(row -> listedIds.add(row.get("id").asLong()));
+        assertThat(listedIds).containsAll(disputed);
+
+        JsonNode page = json(mvc.perform(get("/transactions/page").param("status", "DISPUTED").param("limit", "4"))
+                .andExpect(status().isOk())
+                .andReturn());
+        assertThat(page.get("items")).hasSize(4);
+        assertThat(page.get("nextCursor").isNull()).isFalse();
+    }
+
+    @Test
+    void batchesSpanningShardsAreCreated() throws Exception {
+        String body = IntStream.range(0, 9)
+                .mapToObj(i -> posting(newAccount(), "1.00", "CREDIT"))
+                .collect(Collectors.joining(",", "[", "]"));
+        mvc.perform(post("/transactions/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(9));
+    }
+
+    private long create(String account, String amount, String type) throws Exception {
+        return json(mvc.perform(post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(posting(account, amount, type)))
+                .andExpect(status().isCreated())
+                .andReturn()).get("id").asLong();
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static String posting(String account, String amount, String type) {
+        return "{\"accountNumber\":\"" + account + "\",\"amount\":" + amount
+                + ",\"transactionType\":\"" + type + "\",\"description\":\"Test posting\"}";
+    }
+
+    private static String newAccount() {
+        return "TEST-" + UUID.randomUUID();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
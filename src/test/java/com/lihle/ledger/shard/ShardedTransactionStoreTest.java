@@ -0,0 +1,193 @@
+package com.lihle.ledger.shard;
+
+import com.lihle.ledger.domain.TransactionDomain;
+import com.lihle.ledger.domain.TransactionDomain.TransactionStatus;
+import com.lihle.ledger.domain.TransactionDomain.TransactionType;
+import com.lihle.ledger.dto.TransactionDTO;
+import com.lihle.ledger.repository.StatusTransitionRow;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SHARDED STORE over several databases of one embedded PostgreSQL: routing by
+ * account, shard-tagged ids, merged cross-shard reads and the rebalance onto an
+ * appended shard.
+ */
+class ShardedTransactionStoreTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 8, 0);
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void anAppendedShardOnlyTakesAccountsOver() {
+        ShardRing three = new ShardRing(3, 256);
+        ShardRing four = new ShardRing(4, 256);
+        int accounts = 10_000;
+        int[] owned = new int[3];
+        int moved = 0;
+        for (int i = 0; i < accounts; i++) {
+            String account = "ACC-" + i;
+            owned[three.shardFor(account)]++;
+            if (three.shardFor(account) != four.shardFor(account)) {
+                assertThat(four.shardFor(account)).isEqualTo(3);
+                moved++;
+            }
+        }
+        for (int count : owned) {
+            assertThat(count).isBetween(accounts / 4, accounts * 5 / 12);
+        }
+        assertThat(moved).isBetween(accounts / 6, accounts / 3);
+    }
+
+    @Test
+    void rowsLiveOnTheirAccountsShardAndIdsNameIt() {
+        try (ShardedTransactionStore store = store(databases(3))) {
+            List<TransactionDTO> saved = store.saveAll(transactions(0, 30, 10));
+
+            assertThat(saved).allSatisfy(row -> {
+                int shard = (int) (row.getId() & (ShardedTransactionStore.MAX_SHARDS - 1));
+                assertThat(shard).isEqualTo(store.ring().shardFor(row.getAccountNumber()));
+                assertThat(store.findById(row.getId())).map(TransactionDTO::getDescription).contains(row.getDescription());
+            });
+            assertThat(store.findByAccountNumber("ACC-4")).hasSize(3).extracting(TransactionDTO::getAccountNumber)
+                    .containsOnly("ACC-4");
+            assertThat(store.countByShard().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(30);
+            assertThat(store.countByShard().values()).allSatisfy(count -> assertThat(count).isPositive());
+        }
+    }
+
+    @Test
+    void crossShardReadsComeBackInGlobalOrder() {
+        try (ShardedTransactionStore store = store(databases(3))) {
+            List<TransactionDTO> saved = store.saveAll(transactions(0, 40, 13));
+            List<TransactionDTO> ordered = saved.stream()
+                    .sorted(Comparator.comparing(TransactionDTO::getTransactionDate).thenComparing(TransactionDTO::getId))
+                    .toList();
+
+            assertThat(ids(store.findAll())).isEqualTo(ids(ordered));
+            assertThat(ids(store.findPage(null, null, null, null, 7))).isEqualTo(ids(ordered.subList(0, 7)));
+            TransactionDTO seventh = ordered.get(6);
+            assertThat(ids(store.findPage(null, null, seventh.getTransactionDate(), seventh.getId(), 7)))
+                    .isEqualTo(ids(ordered.subList(7, 14)));
+
+            List<TransactionDTO> scanned = new ArrayList<>();
+            store.scan(null, "COMPLETED", scanned::add);
+            assertThat(ids(scanned)).isEqualTo(ids(ordered));
+        }
+    }
+
+    @Test
+    void statusChangesReachTheOwningShard() {
+        try (ShardedTransactionStore store = store(databases(3))) {
+            long id = store.saveAll(transactions(0, 6, 6)).get(4).getId();
+
+            assertThat(transition(store, id, TransactionStatus.DISPUTED, 1L)).isEmpty();
+            assertThat(transition(store, id, TransactionStatus.DISPUTED, 0L))
+                    .map(StatusTransitionRow::getPreviousStatus).contains("COMPLETED");
+            assertThat(transition(store, id, TransactionStatus.REVERSED, 1L)).isPresent();
+            assertThat(transition(store, id, TransactionStatus.COMPLETED, null)).isEmpty();
+            assertThat(store.findById(id)).map(TransactionDTO::getVersion).contains(2L);
+            assertThat(store.findByStatus("REVERSED")).extracting(TransactionDTO::getId).containsExactly(id);
+        }
+    }
+
+    @Test
+    void rebalanceMovesOnlyTheAccountsOfTheAppendedShard() {
+        List<DataSource> databases = databases(3);
+        List<TransactionDTO> saved;
+        try (ShardedTransactionStore two = store(databases.subList(0, 2))) {
+            saved = two.saveAll(transactions(0, 60, 20));
+        }
+
+        try (ShardedTransactionStore three = store(databases)) {
+            Map<String, List<TransactionDTO>> byAccount = saved.stream()
+                    .collect(Collectors.groupingBy(TransactionDTO::getAccountNumber, HashMap::new, Collectors.toList()));
+            List<String> takenOver = byAccount.keySet().stream()
+                    .filter(account -> three.ring().shardFor(account) == 2)
+                    .toList();
+            assertThat(takenOver).isNotEmpty();
+
+            ShardRebalancer.Report report = new ShardRebalancer(three, 2).rebalance();
+
+            assertThat(report.accountsMoved()).isEqualTo(takenOver.size());
+            assertThat(report.rowsMoved()).isEqualTo(takenOver.stream().mapToLong(account -> byAccount.get(account).size()).sum());
+            assertThat(three.countByShard().get("shard-2")).isEqualTo(report.rowsMoved());
+            byAccount.forEach((account, rows) -> assertThat(ids(three.findByAccountNumber(account))).isEqualTo(ids(rows)));
+            // Moved rows keep their ids, found by probing beyond the allocating shard
+            takenOver.forEach(account -> byAccount.get(account).forEach(row ->
+                    assertThat(three.findById(row.getId())).map(TransactionDTO::getAccountNumber).contains(account)));
+
+            assertThat(new ShardRebalancer(three, 2).rebalance().accountsMoved()).isZero();
+        }
+    }
+
+    private static List<Long> ids(List<TransactionDTO> rows) {
+        return rows.stream().map(TransactionDTO::getId).toList();
+    }
+
+    private static ShardedTransactionStore store(List<DataSource> databases) {
+        return new ShardedTransactionStore(databases, 256, 10, 4);
+    }
+
+    // Fresh databases, so each test starts from empty shards
+    private static List<DataSource> databases(int count) {
+        JdbcTemplate admin = new JdbcTemplate(postgres.getPostgresDatabase());
+        return IntStream.range(0, count).mapToObj(i -> {
+            String name = "shard_" + DATABASES.getAndIncrement();
+            admin.execute("create database " + name);
+            return postgres.getDatabase("postgres", name);
+        }).toList();
+    }
+
+    private static Optional<StatusTransitionRow> transition(ShardedTransactionStore store, long id,
+                                                            TransactionStatus target, Long expectedVersion) {
+        List<String> sources = TransactionDomain.allowedSourcesFor(target).stream().map(Enum::name).toList();
+        return store.transitionStatus(id, target.name(), sources, expectedVersion);
+    }
+
+    // Postings spread over accounts, one a minute
+    private static List<TransactionDomain> transactions(int from, int count, int accounts) {
+        List<TransactionDomain> transactions = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            transactions.add(TransactionDomain.builder()
+                    .accountNumber("ACC-" + i % accounts)
+                    .amount(BigDecimal.valueOf(1000 + i, 2))
+                    .transactionType(i % 2 == 0 ? TransactionType.CREDIT : TransactionType.DEBIT)
+                    .description("Posting " + i)
+                    .transactionDate(START.plusMinutes(i))
+                    .build());
+        }
+        return transactions;
+    }
+}